@@ -26,6 +26,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.nuxeo.ecm.core.api.DocumentModel.DocumentModelRefresh;
 import org.nuxeo.ecm.core.api.event.DocumentEventTypes;
@@ -210,6 +211,19 @@ public interface CoreSession extends AutoCloseable {
      */
     DocumentModelList getDocuments(DocumentRef[] docRefs) throws DocumentNotFoundException;
 
+    /**
+     * Loads in bulk the given schemas of several documents, so that the lazy loading of these schemas by the
+     * corresponding {@link DocumentModel}s doesn't need a database round trip per document and schema.
+     * <p>
+     * This is only an optimization: missing documents are ignored and no permission is checked, since nothing is
+     * returned.
+     *
+     * @param docRefs the document references
+     * @param schemas the schema names
+     * @since 8.3
+     */
+    void prefetchDocuments(DocumentRef[] docRefs, Set<String> schemas);
+
     /**
      * Gets a child document given its name and the parent reference.
      * <p>
@@ -75,6 +75,24 @@ public class FileBlob extends AbstractBlob implements Serializable {
         this.filename = filename != null ? filename : file.getName();
     }
 
+    /**
+     * Creates a {@link FileBlob} for the given file, optionally marking it as temporary.
+     * <p>
+     * A temporary file is deleted when the blob is garbage collected, unless it has been moved to a non-temporary
+     * location using {@link #moveTo}, which is what a binary manager does instead of copying it.
+     *
+     * @param file the file
+     * @param temporary whether the file is temporary
+     * @since 8.3
+     */
+    public FileBlob(File file, boolean temporary) {
+        this(file);
+        if (temporary) {
+            isTemporary = true;
+            Framework.trackFile(file, file);
+        }
+    }
+
     /**
      * Creates a {@link FileBlob} from an {@link InputStream}, by saving it to a temporary file.
      * <p>
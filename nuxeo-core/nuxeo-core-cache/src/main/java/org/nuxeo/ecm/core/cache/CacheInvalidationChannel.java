@@ -0,0 +1,60 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.cache;
+
+import java.util.Collection;
+
+/**
+ * Channel through which the nodes of a cluster notify each other of invalidations, so that the caches held in each JVM
+ * in front of a shared cache stay coherent.
+ * <p>
+ * This service is only available when a cluster-wide transport is configured.
+ *
+ * @since 8.3
+ */
+public interface CacheInvalidationChannel {
+
+    /**
+     * Receives the invalidations sent by the other nodes.
+     */
+    @FunctionalInterface
+    interface Listener {
+
+        /**
+         * @param keys the invalidated keys, or {@code null} if all keys are invalidated
+         */
+        void invalidate(Collection<String> keys);
+
+    }
+
+    /**
+     * Registers a listener for the invalidations of a topic, usually a cache name.
+     */
+    void subscribe(String topic, Listener listener);
+
+    void unsubscribe(String topic, Listener listener);
+
+    /**
+     * Sends invalidations to the other nodes. The listeners of this node are not called.
+     *
+     * @param keys the invalidated keys, or {@code null} to invalidate all keys
+     */
+    void publish(String topic, Collection<String> keys);
+
+}
@@ -129,12 +129,21 @@ public abstract class AbstractTransientStore implements TransientStore {
 
     @Override
     public void putBlobs(String key, List<Blob> blobs) {
-        if (config.getAbsoluteMaxSizeMB() < 0 || getStorageSize() < config.getAbsoluteMaxSizeMB() * (1024 * 1024)) {
-            // Store blobs on the file system
-            List<Map<String, String>> blobInfos = storeBlobs(key, blobs);
-            // Persist blob information in the store
-            persistBlobs(key, getSizeOfBlobs(blobs), blobInfos);
-        } else {
+        checkStorageSize();
+        // Store blobs on the file system
+        List<Map<String, String>> blobInfos = storeBlobs(key, blobs);
+        // Persist blob information in the store
+        persistBlobs(key, getSizeOfBlobs(blobs), blobInfos);
+    }
+
+    /**
+     * Checks that the maximum size of the disk storage is not reached.
+     *
+     * @throws MaximumTransientSpaceExceeded if it is reached
+     * @since 8.3
+     */
+    public void checkStorageSize() {
+        if (config.getAbsoluteMaxSizeMB() >= 0 && getStorageSize() >= config.getAbsoluteMaxSizeMB() * (1024 * 1024)) {
             throw new MaximumTransientSpaceExceeded();
         }
     }
@@ -148,18 +157,24 @@ public abstract class AbstractTransientStore implements TransientStore {
         for (Blob blob : blobs) {
             Map<String, String> blobInfo = new HashMap<>();
             File cachingDir = getCachingDirectory(key);
-            String uuid = UUID.randomUUID().toString();
-            File cachedFile = new File(cachingDir, uuid);
-            try {
-                if (blob instanceof FileBlob && ((FileBlob) blob).isTemporary()) {
-                    ((FileBlob) blob).moveTo(cachedFile);
-                } else {
-                    blob.transferTo(cachedFile);
+            String fileName;
+            if (isInCachingDirectory(blob, cachingDir)) {
+                // already written in place, see getCachingFile
+                fileName = blob.getFile().getName();
+            } else {
+                fileName = UUID.randomUUID().toString();
+                File cachedFile = new File(cachingDir, fileName);
+                try {
+                    if (blob instanceof FileBlob && ((FileBlob) blob).isTemporary()) {
+                        ((FileBlob) blob).moveTo(cachedFile);
+                    } else {
+                        blob.transferTo(cachedFile);
+                    }
+                } catch (IOException e) {
+                    throw new NuxeoException(e);
                 }
-            } catch (IOException e) {
-                throw new NuxeoException(e);
             }
-            Path cachedFileRelativePath = Paths.get(cachingDir.getName(), uuid);
+            Path cachedFileRelativePath = Paths.get(cachingDir.getName(), fileName);
             blobInfo.put("file", cachedFileRelativePath.toString());
             // Redis doesn't support null values
             if (blob.getFilename() != null) {
@@ -180,6 +195,32 @@ public abstract class AbstractTransientStore implements TransientStore {
         return blobInfos;
     }
 
+    protected boolean isInCachingDirectory(Blob blob, File cachingDir) {
+        if (!(blob instanceof FileBlob)) {
+            return false;
+        }
+        File parent = blob.getFile().getAbsoluteFile().getParentFile();
+        return parent != null && parent.equals(cachingDir.getAbsoluteFile());
+    }
+
+    /**
+     * Gets a file of the caching directory of the entry with the given {@code key}.
+     * <p>
+     * This allows callers to write the data of a blob directly in its final location, for instance by parts at their
+     * offset. A {@link FileBlob} for such a file is then stored in place by {@link #putBlobs}, without being moved or
+     * copied.
+     *
+     * @since 8.3
+     */
+    public File getCachingFile(String key, String name) {
+        File cachingDir = getCachingDirectory(key);
+        File file = new File(cachingDir, name);
+        if (!cachingDir.equals(file.getParentFile())) {
+            throw new SecurityException("Trying to traverse illegal path");
+        }
+        return file;
+    }
+
     public File getCachingDirectory(String key) {
         try {
             File cachingDir = new File(cacheDir.getCanonicalFile(), getCachingDirName(key));
@@ -246,7 +287,11 @@ public abstract class AbstractTransientStore implements TransientStore {
                     String key = getKeyCachingDirName(entry.getFileName().toString());
                     try {
                         if (exists(key)) {
-                            newSize += getFilePathSize(entry);
+                            // the size of live entries is kept up to date by the store
+                            long size = getSize(key);
+                            if (size > 0) {
+                                newSize += size;
+                            }
                             continue;
                         }
                         FileUtils.deleteDirectory(entry.toFile());
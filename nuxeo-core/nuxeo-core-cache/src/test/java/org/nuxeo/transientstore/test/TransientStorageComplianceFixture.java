@@ -32,10 +32,12 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.impl.blob.FileBlob;
 import org.nuxeo.ecm.core.api.impl.blob.StringBlob;
 import org.nuxeo.ecm.core.event.EventContext;
 import org.nuxeo.ecm.core.event.EventService;
@@ -148,6 +150,44 @@ public class TransientStorageComplianceFixture {
         assertEquals(0, size);
     }
 
+    @Test
+    public void verifyBlobStoredInPlace() throws Exception {
+
+        TransientStoreService tss = Framework.getService(TransientStoreService.class);
+        AbstractTransientStore ts = (AbstractTransientStore) tss.getStore("testStore");
+        long size = ts.getStorageSize();
+
+        // write the blob data directly in the caching directory
+        File file = ts.getCachingFile("inplace", "data");
+        FileUtils.writeStringToFile(file, "FakeContent");
+        ts.putBlobs("inplace", Collections.singletonList(new FileBlob(file)));
+
+        // the file is neither moved nor copied
+        assertTrue(file.exists());
+        assertEquals(1, file.getParentFile().listFiles().length);
+        List<Blob> blobs = ts.getBlobs("inplace");
+        assertEquals(1, blobs.size());
+        assertEquals(file.getCanonicalFile(), blobs.get(0).getFile().getCanonicalFile());
+        assertEquals(11, ts.getSize("inplace"));
+        assertEquals(size + 11, ts.getStorageSize());
+
+        // the size of live entries is kept by GC
+        ts.doGC();
+        assertEquals(size + 11, ts.getStorageSize());
+
+        ts.remove("inplace");
+        ts.doGC();
+        assertFalse(file.exists());
+        assertEquals(size, ts.getStorageSize());
+    }
+
+    @Test(expected = SecurityException.class)
+    public void verifyCachingFileIllegalPath() throws Exception {
+        TransientStoreService tss = Framework.getService(TransientStoreService.class);
+        AbstractTransientStore ts = (AbstractTransientStore) tss.getStore("testStore");
+        ts.getCachingFile("inplace", "../foo");
+    }
+
     @Test
     public void verifyNullCases() throws Exception {
 
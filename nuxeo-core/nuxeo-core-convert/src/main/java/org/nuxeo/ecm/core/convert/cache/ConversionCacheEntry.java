@@ -21,21 +21,26 @@ package org.nuxeo.ecm.core.convert.cache;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Date;
 
+import org.apache.commons.io.FileUtils;
 import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
 import org.nuxeo.ecm.core.convert.api.ConversionService;
 
 /**
  * Represents an Entry in the {@link ConversionService} cache system.
  * <p>
- * Manages timestamp and persistence.
+ * Manages timestamp and persistence. Each entry is persisted into a directory of its own, so that removing an entry
+ * never deletes the files of another entry with the same content.
  *
  * @author tiry
  */
 public class ConversionCacheEntry {
 
-    protected Date lastAccessTime;
+    protected volatile Date lastAccessTime;
 
     protected BlobHolder bh;
 
@@ -43,6 +48,13 @@ public class ConversionCacheEntry {
 
     protected String persistPath;
 
+    /**
+     * The directory of this entry, holding its persisted file or directory.
+     *
+     * @since 8.3
+     */
+    protected String entryPath;
+
     protected long sizeInKB = 0;
 
     public ConversionCacheEntry(BlobHolder bh) {
@@ -57,8 +69,17 @@ public class ConversionCacheEntry {
     public boolean persist(String basePath) throws IOException {
         if (bh instanceof CachableBlobHolder) {
             CachableBlobHolder cbh = (CachableBlobHolder) bh;
-            persistPath = cbh.persist(basePath);
+            // each entry has a directory of its own, entries with the same content never share their files
+            Path dir = Files.createTempDirectory(Paths.get(basePath), "cce-");
+            try {
+                persistPath = cbh.persist(dir.toString());
+            } finally {
+                if (persistPath == null) {
+                    FileUtils.deleteQuietly(dir.toFile());
+                }
+            }
             if (persistPath != null) {
+                entryPath = dir.toString();
                 sizeInKB = new File(persistPath).length() / 1024;
                 persisted = true;
             }
@@ -68,8 +89,8 @@ public class ConversionCacheEntry {
     }
 
     public void remove() {
-        if (persisted && persistPath != null) {
-            new File(persistPath).delete();
+        if (persisted && entryPath != null) {
+            FileUtils.deleteQuietly(new File(entryPath));
         }
     }
 
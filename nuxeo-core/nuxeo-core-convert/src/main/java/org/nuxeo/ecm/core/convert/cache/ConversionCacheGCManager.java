@@ -21,13 +21,12 @@
  */
 package org.nuxeo.ecm.core.convert.cache;
 
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
@@ -109,26 +108,27 @@ public class ConversionCacheGCManager {
 
         Set<String> cacheKeys = ConversionCacheHolder.getCacheKeys();
 
-        Map<Date, String> sortingMap = new HashMap<Date, String>();
-
+        // snapshot of the access times, entries accessed at the same time are all kept
+        List<Map.Entry<String, Date>> lruEntries = new ArrayList<>(cacheKeys.size());
         for (String key : cacheKeys) {
             ConversionCacheEntry cacheEntry = ConversionCacheHolder.getCacheEntry(key);
-            Objects.requireNonNull(cacheEntry, key);
-            sortingMap.put(cacheEntry.getLastAccessedTime(), key);
+            if (cacheEntry != null) {
+                lruEntries.add(new SimpleImmutableEntry<>(key, cacheEntry.getLastAccessedTime()));
+            }
         }
-
-        List<Date> accessTimeList = new ArrayList<Date>();
-        accessTimeList.addAll(sortingMap.keySet());
-        Collections.sort(accessTimeList);
+        Collections.sort(lruEntries, Map.Entry.comparingByValue());
 
         long deletedVolume = 0;
-        for (Date accessDate : accessTimeList) {
-            ConversionCacheEntry cacheEntry = ConversionCacheHolder.getCacheEntry(sortingMap.get(accessDate));
-
+        for (Map.Entry<String, Date> lruEntry : lruEntries) {
+            ConversionCacheEntry cacheEntry = ConversionCacheHolder.getCacheEntry(lruEntry.getKey());
+            if (cacheEntry == null) {
+                // removed concurrently
+                continue;
+            }
             long deletePotential = cacheEntry.getDiskSpaceUsageInKB();
 
             deletedVolume += deletePotential;
-            ConversionCacheHolder.removeFromCache(sortingMap.get(accessDate));
+            ConversionCacheHolder.evictFromCache(lruEntry.getKey());
 
             if (deletedVolume > deltaInKB) {
                 break;
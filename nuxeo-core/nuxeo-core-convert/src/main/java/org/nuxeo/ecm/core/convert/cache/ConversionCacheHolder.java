@@ -21,14 +21,17 @@ package org.nuxeo.ecm.core.convert.cache;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.logging.Log;
@@ -37,17 +40,39 @@ import org.nuxeo.common.utils.Path;
 import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
 import org.nuxeo.ecm.core.convert.api.ConversionService;
 import org.nuxeo.ecm.core.convert.service.ConversionServiceImpl;
+import org.nuxeo.runtime.metrics.MetricsService;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
 
 /**
  * Manager for the cache system of the {@link ConversionService}.
+ * <p>
+ * The in-memory index is a concurrent map, lookups never block. Writers for a given key are serialized through a
+ * striped lock, and entries are persisted to disk, each in a directory of its own, before any lock is taken, so that a
+ * slow conversion write never delays other cache operations.
  *
  * @author tiry
  */
 public class ConversionCacheHolder {
 
-    protected static final Map<String, ConversionCacheEntry> cache = new HashMap<>();
+    protected static final Map<String, ConversionCacheEntry> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Number of lock stripes used to serialize writers of the same key.
+     *
+     * @since 8.3
+     */
+    protected static final int LOCK_STRIPES = 64;
 
-    protected static final ReentrantReadWriteLock cacheLock = new ReentrantReadWriteLock();
+    protected static final Lock[] keyLocks = new Lock[LOCK_STRIPES];
+
+    static {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            keyLocks[i] = new ReentrantLock();
+        }
+    }
 
     private static final Log log = LogFactory.getLog(ConversionCacheHolder.class);
 
@@ -55,18 +80,45 @@ public class ConversionCacheHolder {
 
     public static int subPathPartSize = 2;
 
-    public static long cacheHits = 0;
+    protected static final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
+    protected static final Counter hitCount = registry.counter(MetricRegistry.name("nuxeo", "conversion", "cache",
+            "hits"));
+
+    protected static final Counter missCount = registry.counter(MetricRegistry.name("nuxeo", "conversion", "cache",
+            "misses"));
+
+    protected static final Counter evictionCount = registry.counter(MetricRegistry.name("nuxeo", "conversion",
+            "cache", "evictions"));
 
     // Utility class.
     private ConversionCacheHolder() {
     }
 
     public static long getCacheHits() {
-        return cacheHits;
+        return hitCount.getCount();
+    }
+
+    /**
+     * @since 8.3
+     */
+    public static long getCacheMisses() {
+        return missCount.getCount();
+    }
+
+    /**
+     * @since 8.3
+     */
+    public static long getCacheEvictions() {
+        return evictionCount.getCount();
     }
 
     public static int getNbCacheEntries() {
-        return cache.keySet().size();
+        return cache.size();
+    }
+
+    protected static Lock getKeyLock(String key) {
+        return keyLocks[(key.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
     }
 
     protected static List<String> getSubPathFromKey(String key) {
@@ -90,35 +142,30 @@ public class ConversionCacheHolder {
         return subPath;
     }
 
-    protected static String getCacheEntryPath(String key) {
+    protected static String getCacheEntryPath(String key) throws IOException {
         Path path = new Path(ConversionServiceImpl.getCacheBasePath());
 
         List<String> subPath = getSubPathFromKey(key);
 
         for (String subPart : subPath) {
             path = path.append(subPart);
-            new File(path.toString()).mkdir();
         }
-
-        // path = path.append(key);
+        // safe when several threads create the same sub-directories
+        Files.createDirectories(Paths.get(path.toString()));
 
         return path.toString();
     }
 
     public static void addToCache(String key, BlobHolder result) {
         Objects.requireNonNull(key);
-        cacheLock.writeLock().lock();
-        try {
-            doAddToCache(key, result);
-        } finally {
-            cacheLock.writeLock().unlock();
-        }
+        doAddToCache(key, result);
     }
 
     protected static void doAddToCache(String key, BlobHolder result) {
         ConversionCacheEntry cce = new ConversionCacheEntry(result);
         boolean persisted = false;
 
+        // persist outside of any lock, into a directory of the entry's own
         try {
             persisted = cce.persist(getCacheEntryPath(key));
         } catch (IOException e) {
@@ -126,82 +173,85 @@ public class ConversionCacheHolder {
         }
 
         if (persisted) {
-            cache.put(key, cce);
+            Lock lock = getKeyLock(key);
+            lock.lock();
+            try {
+                ConversionCacheEntry previous = cache.put(key, cce);
+                if (previous != null) {
+                    previous.remove();
+                }
+            } finally {
+                lock.unlock();
+            }
         }
     }
 
     public static void removeFromCache(String key) {
-        cacheLock.writeLock().lock();
+        Lock lock = getKeyLock(key);
+        lock.lock();
         try {
             doRemoveFromCache(key);
         } finally {
-            cacheLock.writeLock().unlock();
+            lock.unlock();
         }
-
     }
 
     protected static void doRemoveFromCache(String key) {
-        if (cache.containsKey(key)) {
-            ConversionCacheEntry cce = cache.get(key);
+        ConversionCacheEntry cce = cache.remove(key);
+        if (cce != null) {
             cce.remove();
-            cache.remove(key);
         }
     }
 
-    public static ConversionCacheEntry getCacheEntry(String key) {
-        cacheLock.readLock().lock();
+    /**
+     * Removes an entry from the cache to reclaim disk space, and counts it as an eviction.
+     *
+     * @since 8.3
+     */
+    public static void evictFromCache(String key) {
+        Lock lock = getKeyLock(key);
+        lock.lock();
         try {
-            return doGetCacheEntry(key);
+            if (cache.containsKey(key)) {
+                doRemoveFromCache(key);
+                evictionCount.inc();
+            }
         } finally {
-            cacheLock.readLock().unlock();
+            lock.unlock();
         }
     }
 
+    public static ConversionCacheEntry getCacheEntry(String key) {
+        return doGetCacheEntry(key);
+    }
+
     protected static ConversionCacheEntry doGetCacheEntry(String key) {
         return cache.get(key);
     }
 
     public static BlobHolder getFromCache(String key) {
-        cacheLock.readLock().lock();
-        try {
-            return doGetFromCache(key);
-        } finally {
-            cacheLock.readLock().unlock();
-        }
+        return doGetFromCache(key);
     }
 
     protected static BlobHolder doGetFromCache(String key) {
         ConversionCacheEntry cacheEntry = cache.get(key);
         if (cacheEntry != null) {
-            if (cacheHits == Long.MAX_VALUE) {
-                cacheHits = 0;
-            } else {
-                cacheHits += 1;
-            }
+            hitCount.inc();
             return cacheEntry.restore();
         }
+        missCount.inc();
         return null;
     }
 
     public static Set<String> getCacheKeys() {
-        cacheLock.readLock().lock();
-        try {
-            return new HashSet<>(cache.keySet());
-        } finally {
-            cacheLock.readLock().unlock();
-        }
+        return new HashSet<>(cache.keySet());
     }
 
     /**
      * @since 6.0
      */
     public static void deleteCache() {
-        cacheLock.writeLock().lock();
-        try {
-            cache.clear();
-            new File(ConversionServiceImpl.getCacheBasePath()).delete();
-        } finally {
-            cacheLock.writeLock().unlock();
-        }
+        cache.clear();
+        new File(ConversionServiceImpl.getCacheBasePath()).delete();
     }
 }
@@ -22,9 +22,17 @@ package org.nuxeo.ecm.core.convert.tests;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -36,6 +44,7 @@ import org.nuxeo.ecm.core.api.blobholder.SimpleBlobHolder;
 import org.nuxeo.ecm.core.convert.api.ConversionService;
 import org.nuxeo.ecm.core.convert.cache.ConversionCacheGCManager;
 import org.nuxeo.ecm.core.convert.cache.ConversionCacheHolder;
+import org.nuxeo.ecm.core.convert.cache.SimpleCachableBlobHolder;
 import org.nuxeo.ecm.core.convert.extension.Converter;
 import org.nuxeo.ecm.core.convert.service.ConversionServiceImpl;
 import org.nuxeo.runtime.api.Framework;
@@ -58,6 +67,8 @@ public class TestCache {
 
         int cacheSize1 = ConversionCacheHolder.getNbCacheEntries();
         long cacheHits1 = ConversionCacheHolder.getCacheHits();
+        long cacheMisses1 = ConversionCacheHolder.getCacheMisses();
+        long cacheEvictions1 = ConversionCacheHolder.getCacheEvictions();
 
         File file = FileUtils.getResourceFileFromContext("test-data/hello.doc");
         assertNotNull(file);
@@ -86,12 +97,65 @@ public class TestCache {
 
         // check cache hits
         assertEquals(1, cacheHits2 - cacheHits1);
+        assertEquals(1, ConversionCacheHolder.getCacheMisses() - cacheMisses1);
 
         // force GC
         ConversionCacheGCManager.doGC(file.length() / 1024);
 
         int cacheSize3 = ConversionCacheHolder.getNbCacheEntries();
         assertEquals(0, cacheSize1 - cacheSize3);
+        assertTrue(ConversionCacheHolder.getCacheEvictions() > cacheEvictions1);
+    }
+
+    @Test
+    public void testConcurrentAddToCache() throws Exception {
+        File file = FileUtils.getResourceFileFromContext("test-data/hello.doc");
+        Blob blob = Blobs.createBlob(file, "application/msword", null, "hello.doc");
+        String key = "concurrent-test-key";
+
+        int nbThreads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < nbThreads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    ConversionCacheHolder.addToCache(key, new SimpleCachableBlobHolder(blob));
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        BlobHolder cached = ConversionCacheHolder.getFromCache(key);
+        assertNotNull(cached);
+        assertEquals(file.length(), cached.getBlob().getLength());
+        ConversionCacheHolder.removeFromCache(key);
+        assertNull(ConversionCacheHolder.getCacheEntry(key));
+    }
+
+    @Test
+    public void testRemoveEntryWithSameContent() throws Exception {
+        File file = FileUtils.getResourceFileFromContext("test-data/hello.doc");
+        Blob blob = Blobs.createBlob(file, "application/msword", null, "hello.doc");
+        // same cache sub-directory and same content
+        String key1 = "same-content-key1";
+        String key2 = "same-content-key2";
+        ConversionCacheHolder.addToCache(key1, new SimpleCachableBlobHolder(blob));
+        ConversionCacheHolder.addToCache(key2, new SimpleCachableBlobHolder(blob));
+
+        ConversionCacheHolder.removeFromCache(key1);
+        assertNull(ConversionCacheHolder.getCacheEntry(key1));
+        BlobHolder cached = ConversionCacheHolder.getFromCache(key2);
+        assertNotNull(cached);
+        assertEquals(file.length(), cached.getBlob().getLength());
+        ConversionCacheHolder.removeFromCache(key2);
     }
 
 }
@@ -38,6 +38,11 @@ import org.nuxeo.ecm.core.work.AbstractWork;
 import org.nuxeo.ecm.core.work.api.Work.State;
 import org.nuxeo.ecm.core.work.api.WorkManager;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
 
 /**
  * Executor of async listeners passing them to the WorkManager.
@@ -46,6 +51,31 @@ public class AsyncEventExecutor {
 
     private static final Log log = LogFactory.getLog(AsyncEventExecutor.class);
 
+    protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
+    /**
+     * Number of listener works scheduled.
+     *
+     * @since 8.3
+     */
+    protected final Counter scheduledCount = registry.counter(MetricRegistry.name("nuxeo", "events", "async",
+            "scheduled"));
+
+    /**
+     * Number of listeners skipped because the bundle has no event of interest to them.
+     *
+     * @since 8.3
+     */
+    protected final Counter skippedCount = registry.counter(MetricRegistry.name("nuxeo", "events", "async",
+            "skipped"));
+
+    /**
+     * Number of events passed to the scheduled listener works.
+     *
+     * @since 8.3
+     */
+    protected final Counter eventsCount = registry.counter(MetricRegistry.name("nuxeo", "events", "async", "events"));
+
     public AsyncEventExecutor() {
     }
 
@@ -77,8 +107,11 @@ public class AsyncEventExecutor {
         for (EventListenerDescriptor listener : listeners) {
             EventBundle filtered = listener.filterBundle(bundle);
             if (filtered.isEmpty()) {
+                skippedCount.inc();
                 continue;
             }
+            scheduledCount.inc();
+            eventsCount.inc(filtered.size());
             // This may be called in a transaction if event.isCommitEvent() is true or at transaction commit
             // in other cases. If the transaction has been marked rollback-only, then scheduling must discard
             // so we schedule "after commit"
@@ -19,14 +19,21 @@
 package org.nuxeo.ecm.core.event.impl;
 
 import java.rmi.dgc.VMID;
+import java.security.Principal;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
+import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.event.Event;
 import org.nuxeo.ecm.core.event.EventBundle;
+import org.nuxeo.ecm.core.event.EventContext;
 
 /**
  * @author <a href="mailto:bs@nuxeo.com">Bogdan Stefanescu</a>
@@ -40,11 +47,23 @@ public class EventBundleImpl implements EventBundle {
 
     protected final List<Event> events;
 
-    protected final Set<String> eventNames;
+    /**
+     * The events indexed by name, in bundle order.
+     *
+     * @since 8.3
+     */
+    protected final Map<String, List<Event>> eventsByName;
+
+    /**
+     * The document events pushed through {@link #pushCompacted}, by name, document and principal.
+     *
+     * @since 8.3
+     */
+    protected transient Map<List<Object>, Event> documentEvents;
 
     public EventBundleImpl(VMID sourceVMID) {
         events = new ArrayList<Event>();
-        eventNames = new HashSet<String>();
+        eventsByName = new HashMap<String, List<Event>>();
         vmid = sourceVMID;
     }
 
@@ -80,8 +99,78 @@ public class EventBundleImpl implements EventBundle {
         events.add(event);
         String eventName = event.getName();
         if (eventName != null) {
-            eventNames.add(eventName);
+            List<Event> list = eventsByName.get(eventName);
+            if (list == null) {
+                list = new ArrayList<Event>(1);
+                eventsByName.put(eventName, list);
+            }
+            list.add(event);
+        }
+    }
+
+    /**
+     * Pushes an event unless the bundle already holds the same event for the same document, that is an event with the
+     * same name, source document, destination, principal and properties.
+     *
+     * @return {@code true} if the event was pushed, {@code false} if it was a duplicate
+     * @since 8.3
+     */
+    public boolean pushCompacted(Event event) {
+        List<Object> key = getDocumentEventKey(event);
+        if (key == null) {
+            push(event);
+            return true;
+        }
+        if (documentEvents == null) {
+            documentEvents = new HashMap<List<Object>, Event>();
+        }
+        Event previous = documentEvents.get(key);
+        if (previous != null && previous.getFlags() == event.getFlags()
+                && previous.getContext().getProperties().equals(event.getContext().getProperties())) {
+            return false;
+        }
+        if (previous == null) {
+            documentEvents.put(key, event);
+        }
+        push(event);
+        return true;
+    }
+
+    /**
+     * Gets the key identifying an event about a document, or {@code null} if the event is not about a document.
+     */
+    protected static List<Object> getDocumentEventKey(Event event) {
+        EventContext ctx = event.getContext();
+        if (!(ctx instanceof DocumentEventContext)) {
+            return null;
+        }
+        DocumentModel source = ((DocumentEventContext) ctx).getSourceDocument();
+        if (source == null || source.getId() == null) {
+            return null;
         }
+        Principal principal = ctx.getPrincipal();
+        Object destination = ((DocumentEventContext) ctx).getDestination();
+        return Arrays.asList(event.getName(), ctx.getRepositoryName(), source.getId(),
+                Objects.toString(destination, null), principal == null ? null : principal.getName());
+    }
+
+    /**
+     * Gets the events with the given name, in bundle order.
+     *
+     * @since 8.3
+     */
+    public List<Event> getEvents(String eventName) {
+        List<Event> list = eventsByName.get(eventName);
+        return list == null ? Collections.<Event> emptyList() : Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Gets the names of the events of this bundle.
+     *
+     * @since 8.3
+     */
+    public Set<String> getEventNames() {
+        return Collections.unmodifiableSet(eventsByName.keySet());
     }
 
     @Override
@@ -104,7 +193,7 @@ public class EventBundleImpl implements EventBundle {
         if (eventName == null) {
             return false;
         }
-        return eventNames.contains(eventName);
+        return eventsByName.containsKey(eventName);
     }
 
 }
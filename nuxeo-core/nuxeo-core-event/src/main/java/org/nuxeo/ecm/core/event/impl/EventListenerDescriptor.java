@@ -21,6 +21,7 @@ package org.nuxeo.ecm.core.event.impl;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -93,6 +94,17 @@ public class EventListenerDescriptor {
     @XNode("@singlethread")
     protected boolean singleThreaded = false;
 
+    /**
+     * Whether the listener can run concurrently with the other parallel-safe listeners of the same event (inline) or
+     * bundle (synchronous post-commit). Such a listener may run in a pool thread: it must not rely on the caller's
+     * transaction or thread-bound state. Consecutive parallel-safe inline listeners are run as a batch, so cancelling
+     * the event only stops the listeners following the batch.
+     *
+     * @since 8.3
+     */
+    @XNode("@parallel")
+    protected Boolean parallel;
+
     protected Set<String> events;
 
     protected RuntimeContext rc;
@@ -234,6 +246,10 @@ public class EventListenerDescriptor {
         if (other.retryCount != null) {
             this.retryCount = other.retryCount;
         }
+
+        if (other.parallel != null) {
+            this.parallel = other.parallel;
+        }
     }
 
     public final boolean acceptEvent(String eventName) {
@@ -252,6 +268,44 @@ public class EventListenerDescriptor {
         return singleThreaded;
     }
 
+    /**
+     * @since 8.3
+     */
+    public boolean isParallel() {
+        return parallel == null ? false : parallel.booleanValue();
+    }
+
+    /**
+     * @since 8.3
+     */
+    public void setParallel(Boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Gets the events of the bundle that may be of interest to this listener, using the bundle index by event name
+     * when available so that the whole bundle isn't scanned for each listener.
+     *
+     * @since 8.3
+     */
+    protected Iterable<Event> getCandidateEvents(EventBundle bundle) {
+        if (events == null || !(bundle instanceof EventBundleImpl)) {
+            return bundle;
+        }
+        EventBundleImpl bundleImpl = (EventBundleImpl) bundle;
+        String found = null;
+        for (String eventName : events) {
+            if (bundleImpl.containsEventName(eventName)) {
+                if (found != null) {
+                    // several names, keep the bundle order
+                    return bundle;
+                }
+                found = eventName;
+            }
+        }
+        return found == null ? Collections.<Event> emptyList() : bundleImpl.getEvents(found);
+    }
+
     /**
      * Filters the event bundle to only keep events of interest to this listener.
      *
@@ -259,7 +313,7 @@ public class EventListenerDescriptor {
      */
     public EventBundle filterBundle(EventBundle bundle) {
         EventBundle filtered = new EventBundleImpl();
-        for (Event event : bundle) {
+        for (Event event : getCandidateEvents(bundle)) {
             if (!acceptEvent(event.getName())) {
                 continue;
             }
@@ -279,7 +333,7 @@ public class EventListenerDescriptor {
      * @since 5.7
      */
     public boolean acceptBundle(EventBundle bundle) {
-        for (Event event : bundle) {
+        for (Event event : getCandidateEvents(bundle)) {
             if (!acceptEvent(event.getName())) {
                 continue;
             }
@@ -0,0 +1,168 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.event.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Bounded pool running the listeners declared parallel-safe (see {@link EventListenerDescriptor#isParallel()})
+ * concurrently.
+ * <p>
+ * The calling thread runs one of the tasks itself and waits for the others, so a batch of listeners is seen as a
+ * single step by the caller. When the pool is saturated, or when called from one of its own threads (a listener firing
+ * events), the tasks are run by the calling thread.
+ *
+ * @since 8.3
+ */
+public class EventListenerDispatcher {
+
+    private static final Log log = LogFactory.getLog(EventListenerDispatcher.class);
+
+    public static final String POOL_SIZE_PROP = "org.nuxeo.ecm.core.event.listener.parallel.poolSize";
+
+    private static final long KEEP_ALIVE_TIME_SECOND = 10;
+
+    protected static final ThreadLocal<Boolean> inDispatcherThread = new ThreadLocal<>();
+
+    protected final ThreadPoolExecutor executor;
+
+    protected static class DispatcherThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(() -> {
+                inDispatcherThread.set(Boolean.TRUE);
+                r.run();
+            }, "Nuxeo-Event-Parallel-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * @param poolSize the maximum number of threads, {@code 0} to run everything in the calling thread
+     */
+    public EventListenerDispatcher(int poolSize) {
+        if (poolSize > 0) {
+            // the queue bounds the number of pending tasks, the caller runs the rejected ones
+            executor = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_TIME_SECOND, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(poolSize * 4), new DispatcherThreadFactory());
+            executor.allowCoreThreadTimeOut(true);
+        } else {
+            executor = null;
+        }
+    }
+
+    public static int getDefaultPoolSize() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Runs the given tasks, concurrently if possible, and waits for all of them to be done.
+     *
+     * @return the exception thrown by each task, in the order of the tasks, {@code null} for the successful ones
+     */
+    public RuntimeException[] runAll(List<Runnable> tasks) {
+        int n = tasks.size();
+        RuntimeException[] failures = new RuntimeException[n];
+        if (n == 0) {
+            return failures;
+        }
+        if (executor == null || n == 1 || Boolean.TRUE.equals(inDispatcherThread.get())) {
+            for (int i = 0; i < n; i++) {
+                failures[i] = runTask(tasks.get(i));
+            }
+            return failures;
+        }
+        List<Future<?>> futures = new ArrayList<>(n - 1);
+        for (int i = 0; i < n - 1; i++) {
+            FutureTask<?> future = new FutureTask<>(tasks.get(i), null);
+            futures.add(future);
+            try {
+                executor.execute(future);
+            } catch (RejectedExecutionException e) {
+                // saturated or shut down, run it ourselves
+                future.run();
+            }
+        }
+        failures[n - 1] = runTask(tasks.get(n - 1));
+        boolean interrupted = false;
+        for (int i = 0; i < n - 1; i++) {
+            Future<?> future = futures.get(i);
+            try {
+                if (interrupted) {
+                    future.cancel(true);
+                }
+                future.get();
+            } catch (InterruptedException e) {
+                interrupted = true;
+                future.cancel(true);
+                failures[i] = new RuntimeException(e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                failures[i] = cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(
+                        cause);
+            } catch (CancellationException e) {
+                failures[i] = e;
+            }
+        }
+        if (interrupted) {
+            // restore interrupted status
+            Thread.currentThread().interrupt();
+        }
+        return failures;
+    }
+
+    protected RuntimeException runTask(Runnable task) {
+        try {
+            task.run();
+            return null;
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    public void shutdown(long timeoutMillis) throws InterruptedException {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+            log.warn("Parallel event listeners still running, interrupting them");
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -51,8 +51,15 @@ import org.nuxeo.ecm.core.event.PostCommitEventListener;
 import org.nuxeo.ecm.core.event.ReconnectedEventBundle;
 import org.nuxeo.ecm.core.event.jms.AsyncProcessorConfig;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
 import org.nuxeo.runtime.transaction.TransactionHelper;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+
 /**
  * Implementation of the event service.
  */
@@ -73,20 +80,48 @@ public class EventServiceImpl implements EventService, EventServiceAdmin, Synchr
 
         boolean registeredSynchronization;
 
-        final Map<String, EventBundle> byRepository = new HashMap<String, EventBundle>();
+        final Map<String, EventBundleImpl> byRepository = new HashMap<String, EventBundleImpl>();
 
-        void push(Event event) {
+        /**
+         * @return {@code false} if the event was dropped as a duplicate
+         */
+        boolean push(Event event, boolean compact) {
             String repositoryName = event.getContext().getRepositoryName();
-            if (!byRepository.containsKey(repositoryName)) {
-                byRepository.put(repositoryName, new EventBundleImpl());
+            EventBundleImpl bundle = byRepository.get(repositoryName);
+            if (bundle == null) {
+                bundle = new EventBundleImpl();
+                byRepository.put(repositoryName, bundle);
+            }
+            if (compact) {
+                return bundle.pushCompacted(event);
             }
-            byRepository.get(repositoryName).push(event);
+            bundle.push(event);
+            return true;
         }
 
     }
 
+    /**
+     * Property enabling the removal of duplicate document events from the transaction bundles, disabled by default.
+     * <p>
+     * When enabled, an event identical to one already recorded for the same document in the transaction (same name,
+     * document, destination, principal, flags and properties) is not recorded again, so post-commit and asynchronous
+     * listeners receive it once: for instance the audit then logs a single {@code documentModified} for several saves
+     * of a document in one transaction.
+     *
+     * @since 8.3
+     */
+    public static final String BUNDLE_COMPACTION_PROP = "org.nuxeo.ecm.core.event.bundle.compaction";
+
     protected final EventListenerList listenerDescriptors;
 
+    /**
+     * Runs the parallel-safe listeners.
+     *
+     * @since 8.3
+     */
+    protected final EventListenerDispatcher dispatcher;
+
     protected PostCommitEventExecutor postCommitExec;
 
     protected volatile AsyncEventExecutor asyncExec;
@@ -99,9 +134,36 @@ public class EventServiceImpl implements EventService, EventServiceAdmin, Synchr
 
     protected boolean bulkModeEnabled = false;
 
+    /**
+     * @since 8.3
+     */
+    protected final boolean compactBundles;
+
+    protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
+    /**
+     * Number of events of the committed bundles.
+     *
+     * @since 8.3
+     */
+    protected final Histogram bundleSize = registry.histogram(MetricRegistry.name("nuxeo", "events", "bundles",
+            "size"));
+
+    /**
+     * Number of duplicate document events not recorded in the bundles.
+     *
+     * @since 8.3
+     */
+    protected final Counter compactedCount = registry.counter(MetricRegistry.name("nuxeo", "events", "bundles",
+            "compacted"));
+
     public EventServiceImpl() {
         listenerDescriptors = new EventListenerList();
-        postCommitExec = new PostCommitEventExecutor();
+        String poolSize = Framework.getProperty(EventListenerDispatcher.POOL_SIZE_PROP);
+        dispatcher = new EventListenerDispatcher(poolSize == null ? EventListenerDispatcher.getDefaultPoolSize()
+                : Integer.parseInt(poolSize));
+        postCommitExec = new PostCommitEventExecutor(dispatcher);
+        compactBundles = Boolean.parseBoolean(Framework.getProperty(BUNDLE_COMPACTION_PROP, "false"));
         asyncExec = new AsyncEventExecutor();
     }
 
@@ -111,6 +173,7 @@ public class EventServiceImpl implements EventService, EventServiceAdmin, Synchr
 
     public void shutdown(long timeoutMillis) throws InterruptedException {
         postCommitExec.shutdown(timeoutMillis);
+        dispatcher.shutdown(timeoutMillis);
         Set<AsyncWaitHook> notTerminated = new HashSet<AsyncWaitHook>();
         for (AsyncWaitHook hook : asyncWaitHooks) {
             if (hook.shutdown() == false) {
@@ -190,60 +253,44 @@ public class EventServiceImpl implements EventService, EventServiceAdmin, Synchr
 
         String ename = event.getName();
         EventStats stats = Framework.getService(EventStats.class);
+        // consecutive parallel-safe listeners are run together, at the position of the first one
+        List<EventListenerDescriptor> parallel = null;
         for (EventListenerDescriptor desc : listenerDescriptors.getEnabledInlineListenersDescriptors()) {
             if (!desc.acceptEvent(ename)) {
                 continue;
             }
+            if (desc.isParallel()) {
+                if (parallel == null) {
+                    parallel = new ArrayList<>();
+                }
+                parallel.add(desc);
+                continue;
+            }
+            if (parallel != null) {
+                fireParallelEvent(parallel, event, stats);
+                parallel = null;
+                if (event.isCanceled()) {
+                    // break loop
+                    return;
+                }
+            }
             try {
-                long t0 = System.currentTimeMillis();
                 SequenceTracer.start("Fire sync event " + event.getName());
-                desc.asEventListener().handleEvent(event);
-                long elapsed = System.currentTimeMillis() - t0;
+                long elapsed = handleEvent(desc, event, stats);
                 SequenceTracer.stop("done in " + elapsed + " ms");
-                if (stats != null) {
-                    stats.logSyncExec(desc, elapsed);
-                }
                 if (event.isCanceled()) {
                     // break loop
                     return;
                 }
             } catch (RuntimeException e) {
-                // get message
                 SequenceTracer.destroy("failure");
-                String message = "Exception during " + desc.getName() + " sync listener execution, ";
-                if (event.isBubbleException()) {
-                    message += "other listeners will be ignored";
-                } else if (event.isMarkedForRollBack()) {
-                    message += "transaction will be rolled back";
-                    if (event.getRollbackMessage() != null) {
-                        message += " (" + event.getRollbackMessage() + ")";
-                    }
-                } else {
-                    message += "continuing to run other listeners";
-                }
-                // log
-                if (e instanceof RecoverableClientException) {
-                    log.info(message + "\n" + e.getMessage());
-                    log.debug(message, e);
-                } else {
-                    log.error(message, e);
-                }
-                // rethrow or swallow
-                if (event.isBubbleException()) {
-                    throw e;
-                } else if (event.isMarkedForRollBack()) {
-                    Exception ee;
-                    if (event.getRollbackException() != null) {
-                        ee = event.getRollbackException();
-                    } else {
-                        ee = e;
-                    }
-                    // when marked for rollback, throw a generic
-                    // RuntimeException to make sure nobody catches it
-                    throw new RuntimeException(message, ee);
-                } else {
-                    // swallow exception
-                }
+                handleListenerException(desc, event, e);
+            }
+        }
+        if (parallel != null) {
+            fireParallelEvent(parallel, event, stats);
+            if (event.isCanceled()) {
+                return;
             }
         }
 
@@ -260,6 +307,93 @@ public class EventServiceImpl implements EventService, EventServiceAdmin, Synchr
         }
     }
 
+    /**
+     * Gets the timer of the executions of a listener.
+     *
+     * @param phase {@code "inline"} or {@code "postcommit"}
+     * @since 8.3
+     */
+    public static Timer getListenerTimer(EventListenerDescriptor desc, String phase) {
+        MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+        return registry.timer(MetricRegistry.name("nuxeo", "events", "listeners", desc.getName(), phase));
+    }
+
+    /**
+     * Runs an inline listener and records its execution time.
+     *
+     * @return the execution time in milliseconds
+     */
+    protected long handleEvent(EventListenerDescriptor desc, Event event, EventStats stats) {
+        Timer.Context context = getListenerTimer(desc, "inline").time();
+        desc.asEventListener().handleEvent(event);
+        long elapsed = context.stop() / 1000000;
+        if (stats != null) {
+            stats.logSyncExec(desc, elapsed);
+        }
+        return elapsed;
+    }
+
+    /**
+     * Runs parallel-safe inline listeners concurrently, then handles their exceptions in the listeners order.
+     *
+     * @since 8.3
+     */
+    protected void fireParallelEvent(List<EventListenerDescriptor> descs, Event event, EventStats stats) {
+        List<Runnable> tasks = new ArrayList<>(descs.size());
+        for (EventListenerDescriptor desc : descs) {
+            tasks.add(() -> handleEvent(desc, event, stats));
+        }
+        RuntimeException[] failures = dispatcher.runAll(tasks);
+        for (int i = 0; i < failures.length; i++) {
+            if (failures[i] != null) {
+                handleListenerException(descs.get(i), event, failures[i]);
+            }
+        }
+    }
+
+    /**
+     * Logs the exception of an inline listener, then rethrows it or swallows it depending on the event flags.
+     *
+     * @since 8.3
+     */
+    protected void handleListenerException(EventListenerDescriptor desc, Event event, RuntimeException e) {
+        // get message
+        String message = "Exception during " + desc.getName() + " sync listener execution, ";
+        if (event.isBubbleException()) {
+            message += "other listeners will be ignored";
+        } else if (event.isMarkedForRollBack()) {
+            message += "transaction will be rolled back";
+            if (event.getRollbackMessage() != null) {
+                message += " (" + event.getRollbackMessage() + ")";
+            }
+        } else {
+            message += "continuing to run other listeners";
+        }
+        // log
+        if (e instanceof RecoverableClientException) {
+            log.info(message + "\n" + e.getMessage());
+            log.debug(message, e);
+        } else {
+            log.error(message, e);
+        }
+        // rethrow or swallow
+        if (event.isBubbleException()) {
+            throw e;
+        } else if (event.isMarkedForRollBack()) {
+            Exception ee;
+            if (event.getRollbackException() != null) {
+                ee = event.getRollbackException();
+            } else {
+                ee = e;
+            }
+            // when marked for rollback, throw a generic
+            // RuntimeException to make sure nobody catches it
+            throw new RuntimeException(message, ee);
+        } else {
+            // swallow exception
+        }
+    }
+
     @Override
     public void fireEventBundle(EventBundle event) {
         boolean comesFromJMS = false;
@@ -435,7 +569,9 @@ public class EventServiceImpl implements EventService, EventServiceAdmin, Synchr
 
     protected void recordEvent(Event event) {
         CompositeEventBundle b = threadBundles.get();
-        b.push(event);
+        if (!b.push(event, compactBundles)) {
+            compactedCount.inc();
+        }
         if (TransactionHelper.isTransactionActive()) {
             if (!b.registeredSynchronization) {
                 // register as synchronization
@@ -476,6 +612,7 @@ public class EventServiceImpl implements EventService, EventServiceAdmin, Synchr
 
         // notify post commit event listeners
         for (EventBundle bundle : b.byRepository.values()) {
+            bundleSize.update(bundle.size());
             try {
                 fireEventBundle(bundle);
             } catch (NuxeoException e) {
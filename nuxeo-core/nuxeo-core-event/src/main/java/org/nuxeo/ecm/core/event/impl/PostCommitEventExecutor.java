@@ -19,6 +19,7 @@
  */
 package org.nuxeo.ecm.core.event.impl;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -46,6 +47,9 @@ import org.nuxeo.runtime.transaction.TransactionHelper;
  * transactions).
  * <p>
  * Allows a bulk mode where transaction management is not per-listener done once for the whole set of listeners.
+ * <p>
+ * Outside of bulk mode, consecutive parallel-safe listeners are run concurrently by the {@link EventListenerDispatcher},
+ * each one in its own transaction.
  */
 public class PostCommitEventExecutor {
 
@@ -69,6 +73,11 @@ public class PostCommitEventExecutor {
 
     protected final ExecutorService executor;
 
+    /**
+     * @since 8.3
+     */
+    protected final EventListenerDispatcher dispatcher;
+
     /**
      * Creates non-daemon threads at normal priority.
      */
@@ -97,6 +106,14 @@ public class PostCommitEventExecutor {
     }
 
     public PostCommitEventExecutor() {
+        this(new EventListenerDispatcher(0));
+    }
+
+    /**
+     * @since 8.3
+     */
+    public PostCommitEventExecutor(EventListenerDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
         // use as much thread as needed up to MAX_POOL_SIZE
         // keep them alive a moment for reuse
         // have all threads torn down when there is no work to do
@@ -157,8 +174,8 @@ public class PostCommitEventExecutor {
                     Long.valueOf(timeoutMillis), bulk ? " in bulk mode" : ""));
         }
 
-        Callable<Boolean> callable = !bulk ? new EventBundleRunner(listeners, bundle) : new EventBundleBulkRunner(
-                listeners, bundle);
+        Callable<Boolean> callable = !bulk ? new EventBundleRunner(listeners, bundle, dispatcher)
+                : new EventBundleBulkRunner(listeners, bundle);
         FutureTask<Boolean> futureTask = new FutureTask<Boolean>(callable);
         try {
             executor.execute(futureTask);
@@ -214,11 +231,22 @@ public class PostCommitEventExecutor {
 
         protected final EventBundle bundle;
 
+        protected final EventListenerDispatcher dispatcher;
+
         protected String callerThread;
 
         public EventBundleRunner(List<EventListenerDescriptor> listeners, EventBundle bundle) {
+            this(listeners, bundle, null);
+        }
+
+        /**
+         * @since 8.3
+         */
+        public EventBundleRunner(List<EventListenerDescriptor> listeners, EventBundle bundle,
+                EventListenerDispatcher dispatcher) {
             this.listeners = listeners;
             this.bundle = bundle;
+            this.dispatcher = dispatcher;
             callerThread = SequenceTracer.getThreadName();
         }
 
@@ -231,69 +259,105 @@ public class PostCommitEventExecutor {
             long t0 = System.currentTimeMillis();
             EventStats stats = Framework.getLocalService(EventStats.class);
 
+            // consecutive parallel-safe listeners are run together, each in its own transaction
+            List<Runnable> parallel = new ArrayList<>();
             for (EventListenerDescriptor listener : listeners) {
                 EventBundle filtered = listener.filterBundle(bundle);
                 if (filtered.isEmpty()) {
                     continue;
                 }
-                if (log.isDebugEnabled()) {
-                    log.debug("Events postcommit execution start for listener: " + listener.getName());
+                if (dispatcher != null && listener.isParallel()) {
+                    parallel.add(() -> runListener(listener, filtered, stats, false));
+                    continue;
                 }
+                runParallel(parallel);
+                runListener(listener, filtered, stats, true);
+                // even if interrupted due to timeout, we continue the loop
+            }
+            runParallel(parallel);
+            long elapsed = System.currentTimeMillis() - t0;
+            if (log.isDebugEnabled()) {
+                log.debug("Events postcommit execution finished in " + elapsed + "ms");
+            }
+            SequenceTracer.stop("postcommit done" + elapsed + " ms");
+            return Boolean.TRUE; // no error to report
+        }
+
+        /**
+         * @since 8.3
+         */
+        protected void runParallel(List<Runnable> tasks) {
+            if (tasks.isEmpty()) {
+                return;
+            }
+            // exceptions are already logged by the tasks
+            dispatcher.runAll(tasks);
+            tasks.clear();
+        }
+
+        /**
+         * Runs a listener in its own transaction.
+         *
+         * @since 8.3
+         */
+        protected void runListener(EventListenerDescriptor listener, EventBundle filtered, EventStats stats,
+                boolean trace) {
+            if (log.isDebugEnabled()) {
+                log.debug("Events postcommit execution start for listener: " + listener.getName());
+            }
+            if (trace) {
                 SequenceTracer.start("run listener " + listener.getName());
-                long t1 = System.currentTimeMillis();
+            }
+            long t1 = System.currentTimeMillis();
 
-                boolean ok = false;
-                ReconnectedEventBundle reconnected = null;
-                // transaction timeout is managed by the FutureTask
-                boolean tx = TransactionHelper.startTransaction();
-                try {
-                    reconnected = new ReconnectedEventBundleImpl(filtered, listeners.toString());
+            boolean ok = false;
+            ReconnectedEventBundle reconnected = null;
+            // transaction timeout is managed by the FutureTask
+            boolean tx = TransactionHelper.startTransaction();
+            try {
+                reconnected = new ReconnectedEventBundleImpl(filtered, listeners.toString());
 
-                    listener.asPostCommitListener().handleEvent(reconnected);
+                listener.asPostCommitListener().handleEvent(reconnected);
 
-                    if (Thread.currentThread().isInterrupted()) {
-                        log.error("Events postcommit execution interrupted for listener: " + listener.getName());
+                if (Thread.currentThread().isInterrupted()) {
+                    log.error("Events postcommit execution interrupted for listener: " + listener.getName());
+                    if (trace) {
                         SequenceTracer.destroy("interrupted");
-                        ok = false;
-                    } else {
-                        ok = true;
                     }
-                } catch (RuntimeException e) {
-                    log.error("Events postcommit execution encountered exception for listener: " + listener.getName(),
-                            e);
-                    // don't rethrow, but rollback (ok=false) and continue loop
+                    ok = false;
+                } else {
+                    ok = true;
+                }
+            } catch (RuntimeException e) {
+                log.error("Events postcommit execution encountered exception for listener: " + listener.getName(), e);
+                // don't rethrow, but rollback (ok=false) and continue loop
+            } finally {
+                try {
+                    if (reconnected != null) {
+                        reconnected.disconnect();
+                    }
                 } finally {
-                    try {
-                        if (reconnected != null) {
-                            reconnected.disconnect();
-                        }
-                    } finally {
-                        if (tx) {
-                            if (!ok) {
-                                TransactionHelper.setTransactionRollbackOnly();
-                                log.error("Rolling back transaction");
-                            }
-                            TransactionHelper.commitOrRollbackTransaction();
-                        }
-                        long elapsed = System.currentTimeMillis() - t1;
-                        if (stats != null) {
-                            stats.logAsyncExec(listener, elapsed);
-                        }
-                        if (log.isDebugEnabled()) {
-                            log.debug("Events postcommit execution end for listener: " + listener.getName() + " in "
-                                    + elapsed + "ms");
+                    if (tx) {
+                        if (!ok) {
+                            TransactionHelper.setTransactionRollbackOnly();
+                            log.error("Rolling back transaction");
                         }
+                        TransactionHelper.commitOrRollbackTransaction();
+                    }
+                    long elapsed = System.currentTimeMillis() - t1;
+                    EventServiceImpl.getListenerTimer(listener, "postcommit").update(elapsed, TimeUnit.MILLISECONDS);
+                    if (stats != null) {
+                        stats.logAsyncExec(listener, elapsed);
+                    }
+                    if (log.isDebugEnabled()) {
+                        log.debug("Events postcommit execution end for listener: " + listener.getName() + " in "
+                                + elapsed + "ms");
+                    }
+                    if (trace) {
                         SequenceTracer.stop("listener done " + elapsed + " ms");
                     }
                 }
-                // even if interrupted due to timeout, we continue the loop
-            }
-            long elapsed = System.currentTimeMillis() - t0;
-            if (log.isDebugEnabled()) {
-                log.debug("Events postcommit execution finished in " + elapsed + "ms");
             }
-            SequenceTracer.stop("postcommit done" + elapsed + " ms");
-            return Boolean.TRUE; // no error to report
         }
     }
 
@@ -360,6 +424,8 @@ public class PostCommitEventExecutor {
                         return Boolean.FALSE; // report error
                     } finally {
                         long elapsed = System.currentTimeMillis() - t1;
+                        EventServiceImpl.getListenerTimer(listener, "postcommit").update(elapsed,
+                                TimeUnit.MILLISECONDS);
                         if (log.isDebugEnabled()) {
                             log.debug("Events postcommit bulk execution end for listener: " + listener.getName()
                                     + " in " + elapsed + "ms");
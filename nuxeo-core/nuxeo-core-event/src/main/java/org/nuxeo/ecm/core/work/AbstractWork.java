@@ -114,6 +114,11 @@ public abstract class AbstractWork implements Work {
 
     protected long schedulingTime;
 
+    /**
+     * @since 8.3
+     */
+    protected int priority = DEFAULT_PRIORITY;
+
     protected long startTime;
 
     protected long completionTime;
@@ -526,6 +531,20 @@ public abstract class AbstractWork implements Work {
         return getClass().getSimpleName();
     }
 
+    @Override
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Sets the priority of this work instance in its queue. Must be called before scheduling.
+     *
+     * @since 8.3
+     */
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
     @Override
     public String toString() {
         StringBuilder buf = new StringBuilder();
@@ -27,7 +27,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
@@ -38,15 +38,18 @@ import org.nuxeo.ecm.core.work.api.WorkQueueMetrics;
 /**
  * Memory-based {@link BlockingQueue}.
  * <p>
+ * Work instances are taken by decreasing {@linkplain Work#getPriority priority}, then in scheduling order.
+ * <p>
  * In addition, this implementation also keeps a set of {@link Work} ids in the queue when the queue elements are
  * {@link WorkHolder}s.
  */
 public class MemoryBlockingQueue extends NuxeoBlockingQueue {
 
     /**
-     * A {@link LinkedBlockingQueue} that blocks on {@link #offer} and prevents starvation deadlocks on reentrant calls.
+     * A {@link PriorityBlockingQueue} of {@link WorkHolder}s that blocks on {@link #offer} when it has a capacity, and
+     * prevents starvation deadlocks on reentrant calls.
      */
-    private static class ReentrantLinkedBlockingQueue<T> extends LinkedBlockingQueue<T> {
+    private static class ReentrantPriorityBlockingQueue extends PriorityBlockingQueue<Runnable> {
 
         private static final long serialVersionUID = 1L;
 
@@ -55,37 +58,35 @@ public class MemoryBlockingQueue extends NuxeoBlockingQueue {
         private final int limitedCapacity;
 
         /**
-         * Creates a {@link LinkedBlockingQueue} with a maximum capacity.
+         * Creates a {@link PriorityBlockingQueue} with a maximum capacity.
          * <p>
-         * If the capacity is -1 then this is treated as a regular unbounded {@link LinkedBlockingQueue}.
+         * If the capacity is -1 then this is treated as a regular unbounded {@link PriorityBlockingQueue}.
          *
          * @param capacity the capacity, or -1 for unbounded
          */
-        public ReentrantLinkedBlockingQueue(int capacity) {
-            // Allocate more space to prevent starvation dead lock
-            // because a worker can add a new job to the queue.
-            super(capacity < 0 ? Integer.MAX_VALUE : (2 * capacity));
+        public ReentrantPriorityBlockingQueue(int capacity) {
+            super(11, WorkHolder.PRIORITY_ORDER);
             limitedCapacity = capacity;
         }
 
         /**
-         * Block until there are enough remaining capacity to put the entry.
+         * Block until the size of the queue is below the given limit to put the entry.
          */
-        public void limitedPut(T e) throws InterruptedException {
+        protected void limitedPut(Runnable e, int limit) throws InterruptedException {
             limitedPutLock.lockInterruptibly();
             try {
-                while (remainingCapacity() < limitedCapacity) {
+                while (size() >= limit) {
                     // TODO replace by wakeup when an element is removed
                     Thread.sleep(100);
                 }
-                put(e);
+                super.offer(e);
             } finally {
                 limitedPutLock.unlock();
             }
         }
 
         @Override
-        public boolean offer(T e) {
+        public boolean offer(Runnable e) {
             if (limitedCapacity < 0) {
                 return super.offer(e);
             }
@@ -94,11 +95,12 @@ public class MemoryBlockingQueue extends NuxeoBlockingQueue {
                 if (Thread.currentThread()
                         .getName()
                         .startsWith(WorkManagerImpl.THREAD_PREFIX)) {
-                    // use the full queue capacity for reentrant call
-                    put(e);
+                    // allow more space for reentrant call to prevent starvation dead lock
+                    // because a worker can add a new job to the queue
+                    limitedPut(e, 2 * limitedCapacity);
                 } else {
                     // put only if there are enough remaining capacity
-                    limitedPut(e);
+                    limitedPut(e, limitedCapacity);
                 }
                 return true;
             } catch (InterruptedException ie) {
@@ -125,13 +127,13 @@ public class MemoryBlockingQueue extends NuxeoBlockingQueue {
     /**
      * Creates a {@link BlockingQueue} with a maximum capacity.
      * <p>
-     * If the capacity is -1 then this is treated as a regular unbounded {@link LinkedBlockingQueue}.
+     * If the capacity is -1 then the queue is unbounded.
      *
      * @param capacity the capacity, or -1 for unbounded
      */
     public MemoryBlockingQueue(String id, MemoryWorkQueuing queuing, int capacity) {
         super(id, queuing);
-        queue = new ReentrantLinkedBlockingQueue<>(capacity);
+        queue = new ReentrantPriorityBlockingQueue(capacity);
     }
 
     @Override
@@ -0,0 +1,189 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.work;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.work.WorkManagerImpl.WorkThreadPoolExecutor;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+/**
+ * Runs the work of a queue with one thread per work instance instead of a fixed pool of threads.
+ * <p>
+ * The threads are virtual threads if the JVM provides them, otherwise platform threads. A single dispatcher thread
+ * takes work from the queue once a permit is available, so that the number of work instances running concurrently
+ * stays bounded, typically below the size of the datasource pool.
+ * <p>
+ * A work instance runs entirely in its thread, so the transaction and sessions bound to the thread are those of this
+ * work only. A transaction left open by the work is rolled back before the thread ends, otherwise it would be lost
+ * with the thread while still holding its resources.
+ *
+ * @since 8.3
+ */
+public class VirtualThreadDispatcher {
+
+    private static final Log log = LogFactory.getLog(VirtualThreadDispatcher.class);
+
+    /** Delay after which the dispatcher polls the queue again, to check if it must stop. */
+    protected static final long POLL_MILLIS = 100;
+
+    protected final WorkThreadPoolExecutor executor;
+
+    protected final Semaphore permits;
+
+    protected final ThreadFactory threadFactory;
+
+    protected final boolean virtual;
+
+    protected final Thread dispatcher;
+
+    /** Threads running work. */
+    protected final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+    protected volatile boolean stopped;
+
+    /**
+     * Creates a dispatcher for the given executor.
+     *
+     * @param executor the executor whose queue is consumed and whose callbacks are called around each work
+     * @param maxConcurrency the maximum number of work instances running concurrently
+     * @param prefix the prefix of the names of the threads
+     * @param platformThreadFactory the factory for the dispatcher thread, and for the work threads if the JVM does not
+     *            provide virtual threads
+     */
+    public VirtualThreadDispatcher(WorkThreadPoolExecutor executor, int maxConcurrency, String prefix,
+            ThreadFactory platformThreadFactory) {
+        this.executor = executor;
+        permits = new Semaphore(Math.max(maxConcurrency, 1));
+        ThreadFactory virtualThreadFactory = newVirtualThreadFactory(prefix);
+        virtual = virtualThreadFactory != null;
+        if (!virtual) {
+            log.info("Virtual threads are not available in this JVM, using platform threads for queue: "
+                    + executor.queueId);
+            threadFactory = platformThreadFactory;
+        } else {
+            threadFactory = virtualThreadFactory;
+        }
+        dispatcher = platformThreadFactory.newThread(this::dispatch);
+    }
+
+    /**
+     * Gets a factory of virtual threads, or {@code null} if the JVM does not provide them.
+     * <p>
+     * Looked up by reflection, as the code must also run on JVMs without virtual threads.
+     */
+    protected static ThreadFactory newVirtualThreadFactory(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Whether the work runs in virtual threads.
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    public void start() {
+        dispatcher.start();
+    }
+
+    /**
+     * Stops taking work from the queue and interrupts the running work.
+     */
+    public void shutdown() {
+        stopped = true;
+        dispatcher.interrupt();
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Main loop of the dispatcher thread.
+     */
+    protected void dispatch() {
+        while (!stopped) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                // check stopped flag
+                continue;
+            }
+            Runnable r;
+            try {
+                r = executor.getQueue().poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                r = null;
+            }
+            if (r == null) {
+                permits.release();
+                continue;
+            }
+            Runnable task = r;
+            Thread thread = null;
+            try {
+                thread = threadFactory.newThread(() -> run(task));
+                threads.add(thread);
+                thread.start();
+            } catch (RuntimeException | Error e) {
+                log.error("Cannot start thread for work from queue " + executor.queueId, e);
+                if (thread != null) {
+                    threads.remove(thread);
+                }
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Runs a work instance in its own thread.
+     */
+    protected void run(Runnable r) {
+        try {
+            executor.runShared(r);
+        } catch (RuntimeException | Error e) {
+            log.error("Error while running work from queue " + executor.queueId, e);
+        } finally {
+            try {
+                if (TransactionHelper.isTransactionActiveOrMarkedRollback()) {
+                    log.error("Work left a transaction open, rolling it back: " + WorkHolder.getWork(r));
+                    TransactionHelper.setTransactionRollbackOnly();
+                    TransactionHelper.commitOrRollbackTransaction();
+                }
+            } finally {
+                threads.remove(Thread.currentThread());
+                permits.release();
+            }
+        }
+    }
+
+}
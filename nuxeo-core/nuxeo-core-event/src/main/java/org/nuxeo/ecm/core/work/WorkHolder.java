@@ -18,7 +18,9 @@
  */
 package org.nuxeo.ecm.core.work;
 
+import java.util.Comparator;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.nuxeo.ecm.core.work.api.Work;
 import org.nuxeo.runtime.trackers.concurrent.ThreadEvent;
@@ -37,10 +39,30 @@ import org.nuxeo.runtime.trackers.concurrent.ThreadEvent;
  */
 public class WorkHolder implements Runnable {
 
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    /**
+     * Orders holders by decreasing {@linkplain Work#getPriority priority} of their work, then by creation order.
+     *
+     * @since 8.3
+     */
+    public static final Comparator<Runnable> PRIORITY_ORDER = (r1, r2) -> {
+        WorkHolder h1 = (WorkHolder) r1;
+        WorkHolder h2 = (WorkHolder) r2;
+        int c = Integer.compare(h2.priority, h1.priority);
+        return c != 0 ? c : Long.compare(h1.sequence, h2.sequence);
+    };
+
     private final Work work;
 
+    private final int priority;
+
+    private final long sequence;
+
     public WorkHolder(Work work) {
         this.work = work;
+        priority = work.getPriority();
+        sequence = SEQUENCE.incrementAndGet();
     }
 
     public static Work getWork(Runnable r) {
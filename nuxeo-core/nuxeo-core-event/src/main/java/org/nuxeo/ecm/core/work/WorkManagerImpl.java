@@ -89,6 +89,21 @@ public class WorkManagerImpl extends DefaultComponent implements WorkManager {
 
     protected static final String THREAD_PREFIX = "Nuxeo-Work-";
 
+    /**
+     * Framework property enabling a pool of threads shared by all the queues instead of a pool per queue.
+     *
+     * @since 8.3
+     */
+    public static final String SHARED_POOL_PROP = "nuxeo.work.sharedPool.enabled";
+
+    /**
+     * Framework property for the number of threads of the shared pool. Defaults to the sum of the maximum number of
+     * threads of all the queues.
+     *
+     * @since 8.3
+     */
+    public static final String SHARED_POOL_SIZE_PROP = "nuxeo.work.sharedPool.size";
+
     protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
 
     // @GuardedBy("itself")
@@ -101,6 +116,13 @@ public class WorkManagerImpl extends DefaultComponent implements WorkManager {
 
     protected WorkQueuing queuing;
 
+    /**
+     * The pool of threads shared by all the queues, or {@code null} if each queue has its own threads.
+     *
+     * @since 8.3
+     */
+    protected volatile WorkSharedPool sharedPool;
+
     /**
      * Simple synchronizer to wake up when an in-JVM work is completed. Does not wake up on work completion from another
      * node in cluster mode.
@@ -208,12 +230,29 @@ public class WorkManagerImpl extends DefaultComponent implements WorkManager {
         if (executor == null) {
             ThreadFactory threadFactory = new NamedThreadFactory(THREAD_PREFIX + config.id + "-");
             int maxPoolSize = config.getMaxThreads();
-            executor = new WorkThreadPoolExecutor(maxPoolSize, maxPoolSize,
-                    0, TimeUnit.SECONDS,
-                    queue, threadFactory);
-            // prestart all core threads so that direct additions to the queue
-            // (from another Nuxeo instance) can be seen
-            executor.prestartAllCoreThreads();
+            if (config.isVirtualThreads()) {
+                // no pooled thread, each work runs in a thread of its own
+                executor = new WorkThreadPoolExecutor(0, 1,
+                        0, TimeUnit.SECONDS,
+                        queue, threadFactory);
+                executor.dispatcher = new VirtualThreadDispatcher(executor, maxPoolSize,
+                        THREAD_PREFIX + config.id + "-virtual-", threadFactory);
+                executor.dispatcher.start();
+            } else if (sharedPool == null) {
+                executor = new WorkThreadPoolExecutor(maxPoolSize, maxPoolSize,
+                        0, TimeUnit.SECONDS,
+                        queue, threadFactory);
+                // prestart all core threads so that direct additions to the queue
+                // (from another Nuxeo instance) can be seen
+                executor.prestartAllCoreThreads();
+            } else {
+                // no thread of its own, work is run by the shared pool
+                executor = new WorkThreadPoolExecutor(0, 1,
+                        0, TimeUnit.SECONDS,
+                        queue, threadFactory);
+                executor.sharedPool = sharedPool;
+                sharedPool.register(config.id, executor, maxPoolSize, config.getWeight());
+            }
             executors.put(config.id, executor);
         }
         queuing.setActive(config.id, config.isProcessingEnabled());
@@ -227,6 +266,9 @@ public class WorkManagerImpl extends DefaultComponent implements WorkManager {
         queuing.setActive(config.id, false);
         WorkThreadPoolExecutor executor = executors.remove(config.id);
         executor.shutdownAndSuspend();
+        if (sharedPool != null) {
+            sharedPool.unregister(config.id);
+        }
         log.info("Deactivated work queue " + config.id);
     }
 
@@ -342,12 +384,41 @@ public class WorkManagerImpl extends DefaultComponent implements WorkManager {
             completionSynchronizer = new WorkCompletionSynchronizer();
             started = true;
             workQueueConfig.index();
+            if (Boolean.parseBoolean(Framework.getProperty(SHARED_POOL_PROP))) {
+                int size = getSharedPoolSize();
+                log.info("Using a shared pool of " + size + " threads for all work queues");
+                sharedPool = new WorkSharedPool(size, new NamedThreadFactory(THREAD_PREFIX + "shared-"));
+            }
             for (String id : workQueueConfig.getQueueIds()) {
                 activateQueue(workQueueConfig.get(id));
             }
         }
     }
 
+    /**
+     * Gets the number of threads of the shared pool.
+     *
+     * @since 8.3
+     */
+    protected int getSharedPoolSize() {
+        String value = Framework.getProperty(SHARED_POOL_SIZE_PROP);
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                log.error("Invalid value for " + SHARED_POOL_SIZE_PROP + ": " + value);
+            }
+        }
+        int size = 0;
+        for (String id : workQueueConfig.getQueueIds()) {
+            WorkQueueDescriptor config = workQueueConfig.get(id);
+            if (!config.isVirtualThreads()) {
+                size += config.getMaxThreads();
+            }
+        }
+        return Math.max(size, 1);
+    }
+
     protected WorkThreadPoolExecutor getExecutor(String queueId) {
         if (!started) {
             if (Framework.isTestModeSet() && !Framework.getRuntime()
@@ -406,18 +477,26 @@ public class WorkManagerImpl extends DefaultComponent implements WorkManager {
 
     protected synchronized void removeExecutor(String queueId) {
         executors.remove(queueId);
+        if (sharedPool != null) {
+            sharedPool.unregister(queueId);
+        }
     }
 
     @Override
     public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
         shutdownInProgress = true;
         try {
-            return shutdownExecutors(executors.values(), timeout, unit);
+            boolean terminated = shutdownExecutors(executors.values(), timeout, unit);
+            if (sharedPool != null) {
+                terminated = sharedPool.shutdown(timeout, unit) && terminated;
+            }
+            return terminated;
         } finally {
             shutdownInProgress = false;
             started = false;
             completionSynchronizer = null;
             executors.clear();
+            sharedPool = null;
             queuing = null;
         }
     }
@@ -539,6 +618,27 @@ public class WorkManagerImpl extends DefaultComponent implements WorkManager {
 
         protected final Timer workTimer;
 
+        /**
+         * Time spent by work instances in the queue before running.
+         *
+         * @since 8.3
+         */
+        protected final Timer waitTimer;
+
+        /**
+         * The shared pool running the work of this executor, or {@code null} if it has its own threads.
+         *
+         * @since 8.3
+         */
+        protected WorkSharedPool sharedPool;
+
+        /**
+         * The dispatcher running each work of this executor in a thread of its own, or {@code null} if it has pooled
+         * threads.
+         *
+         * @since 8.3
+         */
+        protected VirtualThreadDispatcher dispatcher;
 
         protected WorkThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime,
                 TimeUnit unit, NuxeoBlockingQueue queue, ThreadFactory threadFactory) {
@@ -550,6 +650,7 @@ public class WorkManagerImpl extends DefaultComponent implements WorkManager {
             runningCount = registry.counter(MetricRegistry.name("nuxeo", "works", queueId, "running"));
             completedCount = registry.counter(MetricRegistry.name("nuxeo", "works", queueId, "completed"));
             workTimer = registry.timer(MetricRegistry.name("nuxeo", "works", queueId, "total"));
+            waitTimer = registry.timer(MetricRegistry.name("nuxeo", "works", queueId, "wait"));
         }
 
         public int getScheduledOrRunningSize() {
@@ -585,6 +686,46 @@ public class WorkManagerImpl extends DefaultComponent implements WorkManager {
          */
         protected void submit(Work work) throws RuntimeException {
             queuing.workSchedule(queueId, work);
+            if (sharedPool != null) {
+                sharedPool.signal();
+            }
+        }
+
+        /**
+         * Runs a task taken from the queue by a thread of the shared pool or of the dispatcher, with the same callbacks
+         * as if it was run by a thread of this executor.
+         *
+         * @since 8.3
+         */
+        protected void runShared(Runnable r) {
+            Throwable thrown = null;
+            beforeExecute(Thread.currentThread(), r);
+            try {
+                r.run();
+            } catch (RuntimeException | Error e) {
+                thrown = e;
+                throw e;
+            } finally {
+                afterExecute(r, thrown);
+            }
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+            if (!super.awaitTermination(timeout, unit)) {
+                return false;
+            }
+            if (sharedPool != null || dispatcher != null) {
+                // wait for the work still run by threads not owned by this executor
+                while (!running.isEmpty()) {
+                    if (System.currentTimeMillis() >= deadline) {
+                        return false;
+                    }
+                    Thread.sleep(10);
+                }
+            }
+            return true;
         }
 
         @Override
@@ -596,6 +737,7 @@ public class WorkManagerImpl extends DefaultComponent implements WorkManager {
                 return;
             }
             work.setWorkInstanceState(State.RUNNING);
+            waitTimer.update(Math.max(0, System.currentTimeMillis() - work.getSchedulingTime()), TimeUnit.MILLISECONDS);
             queuing.workRunning(queueId, work);
             running.add(work);
             runningCount.inc();
@@ -644,6 +786,12 @@ public class WorkManagerImpl extends DefaultComponent implements WorkManager {
                     queuing.workReschedule(queueId, work);
                 }
             }
+            if (sharedPool != null) {
+                sharedPool.interrupt(queueId);
+            }
+            if (dispatcher != null) {
+                dispatcher.shutdown();
+            }
             shutdownNow();
         }
 
@@ -703,6 +851,10 @@ public class WorkManagerImpl extends DefaultComponent implements WorkManager {
 
         }
         queuing.workSchedule(queueId, work);
+        WorkSharedPool pool = sharedPool;
+        if (pool != null) {
+            pool.signal();
+        }
     }
 
     /**
@@ -0,0 +1,259 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.work;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.work.WorkManagerImpl.WorkThreadPoolExecutor;
+
+/**
+ * A pool of threads shared by all the work queues.
+ * <p>
+ * Each thread takes work from any queue that has work waiting and fewer running work instances than its maximum
+ * number of threads, so that idle threads can help a saturated queue. When several queues have work waiting, they are
+ * served in proportion of their weight (smooth weighted round-robin).
+ *
+ * @since 8.3
+ */
+public class WorkSharedPool {
+
+    private static final Log log = LogFactory.getLog(WorkSharedPool.class);
+
+    /** Delay after which an idle thread polls the queues again, to see work added by other nodes. */
+    protected static final long IDLE_WAIT_MILLIS = 100;
+
+    protected static class Slot {
+
+        protected final String queueId;
+
+        protected final WorkThreadPoolExecutor executor;
+
+        protected final int maxThreads;
+
+        protected final int weight;
+
+        /** Current weight for the smooth weighted round-robin. */
+        protected int current;
+
+        /** Threads running or about to run work from this queue. */
+        protected final Set<Thread> threads = new HashSet<>();
+
+        protected Slot(String queueId, WorkThreadPoolExecutor executor, int maxThreads, int weight) {
+            this.queueId = queueId;
+            this.executor = executor;
+            this.maxThreads = maxThreads;
+            this.weight = weight;
+        }
+    }
+
+    protected final ReentrantLock lock = new ReentrantLock();
+
+    protected final Condition workAvailable = lock.newCondition();
+
+    // @GuardedBy("lock")
+    protected final Map<String, Slot> slots = new LinkedHashMap<>();
+
+    protected final List<Thread> threads = new ArrayList<>();
+
+    protected volatile boolean stopped;
+
+    public WorkSharedPool(int size, ThreadFactory threadFactory) {
+        for (int i = 0; i < size; i++) {
+            Thread thread = threadFactory.newThread(this::processWork);
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+    }
+
+    public void register(String queueId, WorkThreadPoolExecutor executor, int maxThreads, int weight) {
+        lock.lock();
+        try {
+            slots.put(queueId, new Slot(queueId, executor, maxThreads, weight));
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void unregister(String queueId) {
+        lock.lock();
+        try {
+            slots.remove(queueId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wakes up idle threads because work was scheduled or a queue was activated.
+     */
+    public void signal() {
+        lock.lock();
+        try {
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Interrupts the threads running work of the given queue.
+     */
+    public void interrupt(String queueId) {
+        lock.lock();
+        try {
+            Slot slot = slots.get(queueId);
+            if (slot != null) {
+                for (Thread thread : slot.threads) {
+                    thread.interrupt();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops all the threads, waiting for them at most the given time.
+     *
+     * @return {@code true} if all the threads are stopped
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        stopped = true;
+        signal();
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+        for (Thread thread : threads) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining > 0) {
+                thread.join(remaining);
+            }
+            if (thread.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reserves a thread for the next queue to serve, excluding the ones already found empty.
+     *
+     * @return the slot of the queue, or {@code null} if no queue can be served
+     */
+    protected Slot reserve(Set<Slot> excluded) {
+        lock.lock();
+        try {
+            Slot best = null;
+            int total = 0;
+            for (Slot slot : slots.values()) {
+                if (excluded.contains(slot) || slot.threads.size() >= slot.maxThreads || slot.executor.isShutdown()) {
+                    continue;
+                }
+                slot.current += slot.weight;
+                total += slot.weight;
+                if (best == null || slot.current > best.current) {
+                    best = slot;
+                }
+            }
+            if (best != null) {
+                best.current -= total;
+                best.threads.add(Thread.currentThread());
+            }
+            return best;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    protected void release(Slot slot) {
+        lock.lock();
+        try {
+            slot.threads.remove(Thread.currentThread());
+            // a thread is available again for this queue
+            workAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    protected void awaitWork() throws InterruptedException {
+        lock.lock();
+        try {
+            if (!stopped) {
+                workAvailable.await(IDLE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Main loop of the threads of the pool.
+     */
+    protected void processWork() {
+        Set<Slot> excluded = new HashSet<>();
+        while (!stopped) {
+            excluded.clear();
+            boolean found = false;
+            Slot slot;
+            while (!stopped && (slot = reserve(excluded)) != null) {
+                Runnable r = null;
+                try {
+                    r = slot.executor.getQueue().poll();
+                    if (r == null) {
+                        // nothing to do in this queue for now, try the others
+                        excluded.add(slot);
+                        continue;
+                    }
+                    found = true;
+                    slot.executor.runShared(r);
+                } catch (RuntimeException | Error e) {
+                    log.error("Error while running work from queue " + slot.queueId, e);
+                } finally {
+                    release(slot);
+                    // an interruption targeted the work, not the pool
+                    Thread.interrupted();
+                }
+                if (r != null) {
+                    break;
+                }
+            }
+            if (!found) {
+                try {
+                    awaitWork();
+                } catch (InterruptedException e) {
+                    // check stopped flag
+                }
+            }
+        }
+    }
+
+}
@@ -277,6 +277,26 @@ public interface Work extends Serializable {
      */
     String getCategory();
 
+    /**
+     * Default priority of work instances.
+     *
+     * @since 8.3
+     */
+    int DEFAULT_PRIORITY = 0;
+
+    /**
+     * Gets the priority of this work instance in its queue.
+     * <p>
+     * Work instances with a higher priority are executed before the ones with a lower priority that are already
+     * scheduled in the same queue. Work instances of the same priority are executed in scheduling order.
+     *
+     * @return the priority, {@link #DEFAULT_PRIORITY} by default
+     * @since 8.3
+     */
+    default int getPriority() {
+        return DEFAULT_PRIORITY;
+    }
+
     /**
      * Gets a human-readable name for this work instance.
      *
@@ -42,6 +42,11 @@ public class WorkQueueDescriptor {
 
     public static final int DEFAULT_CAPACITY = -1;
 
+    /**
+     * @since 8.3
+     */
+    public static final int DEFAULT_WEIGHT = 1;
+
     @XNode("@id")
     public String id;
 
@@ -91,6 +96,33 @@ public class WorkQueueDescriptor {
         return capacity == null ? DEFAULT_CAPACITY : capacity.intValue();
     }
 
+    /**
+     * Relative share of the threads of the shared pool this queue gets when several queues have work waiting. Only
+     * used when the shared pool is enabled, the queue never uses more than {@link #getMaxThreads} threads.
+     *
+     * @since 8.3
+     */
+    @XNode("weight")
+    public Integer weight;
+
+    public int getWeight() {
+        return weight == null ? DEFAULT_WEIGHT : Math.max(1, weight.intValue());
+    }
+
+    /**
+     * When {@code true}, each work instance of this queue runs in a thread of its own, a virtual thread if the JVM
+     * provides them, instead of in a fixed pool of threads. {@link #getMaxThreads} is then the maximum number of work
+     * instances running concurrently, and can be much higher for queues whose work mostly waits on I/O.
+     *
+     * @since 8.3
+     */
+    @XNode("virtualThreads")
+    public Boolean virtualThreads;
+
+    public boolean isVirtualThreads() {
+        return Boolean.TRUE.equals(virtualThreads);
+    }
+
     @Override
     public WorkQueueDescriptor clone() {
         WorkQueueDescriptor o = new WorkQueueDescriptor();
@@ -100,6 +132,8 @@ public class WorkQueueDescriptor {
         o.name = name;
         o.maxThreads = maxThreads;
         o.capacity = capacity;
+        o.weight = weight;
+        o.virtualThreads = virtualThreads;
         o.categories = new HashSet<String>(categories);
         return o;
     }
@@ -120,6 +154,12 @@ public class WorkQueueDescriptor {
         if (other.capacity != null) {
             capacity = other.capacity;
         }
+        if (other.weight != null) {
+            weight = other.weight;
+        }
+        if (other.virtualThreads != null) {
+            virtualThreads = other.virtualThreads;
+        }
         categories.addAll(other.categories);
     }
 
@@ -146,6 +186,14 @@ public class WorkQueueDescriptor {
             buf.append(" capacity=");
             buf.append(capacity);
         }
+        if (weight != null) {
+            buf.append(" weight=");
+            buf.append(weight);
+        }
+        if (virtualThreads != null) {
+            buf.append(" virtualThreads=");
+            buf.append(virtualThreads);
+        }
         buf.append("]");
         return buf.toString();
     }
@@ -164,6 +212,10 @@ public class WorkQueueDescriptor {
         buf.append(getMaxThreads());
         buf.append(" capacity=");
         buf.append(getCapacity());
+        buf.append(" weight=");
+        buf.append(getWeight());
+        buf.append(" virtualThreads=");
+        buf.append(isVirtualThreads());
         buf.append(" clearCompletedAfterSeconds=");
         buf.append(")");
         return buf.toString();
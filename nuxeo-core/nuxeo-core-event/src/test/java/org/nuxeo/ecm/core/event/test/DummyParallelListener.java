@@ -0,0 +1,56 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.event.test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.nuxeo.ecm.core.event.Event;
+import org.nuxeo.ecm.core.event.EventListener;
+
+/**
+ * Slow listener recording the threads it runs in.
+ *
+ * @since 8.3
+ */
+public class DummyParallelListener implements EventListener {
+
+    public static final AtomicInteger handledCount = new AtomicInteger();
+
+    public static final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    public static void reset() {
+        handledCount.set(0);
+        threads.clear();
+    }
+
+    @Override
+    public void handleEvent(Event event) {
+        threads.add(Thread.currentThread().getName());
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        handledCount.incrementAndGet();
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.event.test;
+
+import org.nuxeo.ecm.core.event.Event;
+import org.nuxeo.ecm.core.event.EventListener;
+
+/**
+ * Listener recording how many parallel listeners ran before it, and cancelling the event if asked to.
+ *
+ * @since 8.3
+ */
+public class DummySerialListener implements EventListener {
+
+    @Override
+    public void handleEvent(Event event) {
+        event.getContext().setProperty("parallelCount", Integer.valueOf(DummyParallelListener.handledCount.get()));
+        if (Boolean.TRUE.equals(event.getContext().getProperty("cancel"))) {
+            event.cancel();
+        }
+    }
+
+}
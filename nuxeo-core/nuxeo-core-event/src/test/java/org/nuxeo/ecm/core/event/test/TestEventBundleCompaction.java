@@ -0,0 +1,173 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.event.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Test;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.IdRef;
+import org.nuxeo.ecm.core.event.Event;
+import org.nuxeo.ecm.core.event.EventBundle;
+import org.nuxeo.ecm.core.event.impl.DocumentEventContext;
+import org.nuxeo.ecm.core.event.impl.EventBundleImpl;
+import org.nuxeo.ecm.core.event.impl.EventContextImpl;
+import org.nuxeo.ecm.core.event.impl.EventImpl;
+import org.nuxeo.ecm.core.event.impl.EventListenerDescriptor;
+
+public class TestEventBundleCompaction {
+
+    private static final Log log = LogFactory.getLog(TestEventBundleCompaction.class);
+
+    /**
+     * Minimal document, only knowing its id.
+     */
+    protected static DocumentModel doc(String id) {
+        return (DocumentModel) Proxy.newProxyInstance(TestEventBundleCompaction.class.getClassLoader(),
+                new Class<?>[] { DocumentModel.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "getId":
+                        return id;
+                    case "getRef":
+                        return new IdRef(id);
+                    case "getRepositoryName":
+                        return "test";
+                    case "hashCode":
+                        return Integer.valueOf(System.identityHashCode(proxy));
+                    case "equals":
+                        return Boolean.valueOf(proxy == args[0]);
+                    default:
+                        return method.getReturnType() == boolean.class ? Boolean.FALSE : null;
+                    }
+                });
+    }
+
+    protected static Event docEvent(String name, DocumentModel doc, String comment) {
+        DocumentEventContext ctx = new DocumentEventContext(null, null, doc);
+        if (comment != null) {
+            ctx.setComment(comment);
+        }
+        return new EventImpl(name, ctx);
+    }
+
+    protected static EventListenerDescriptor listener(String... events) {
+        EventListenerDescriptor desc = new EventListenerDescriptor();
+        desc.setEvents(new HashSet<>(Arrays.asList(events)));
+        return desc;
+    }
+
+    protected static List<String> names(EventBundle bundle) {
+        List<String> names = new ArrayList<>();
+        for (Event event : bundle) {
+            names.add(event.getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void testCompaction() {
+        DocumentModel doc1 = doc("id1");
+        DocumentModel doc2 = doc("id2");
+        EventBundleImpl bundle = new EventBundleImpl();
+        assertTrue(bundle.pushCompacted(docEvent("documentModified", doc1, null)));
+        assertFalse(bundle.pushCompacted(docEvent("documentModified", doc1, null)));
+        assertTrue(bundle.pushCompacted(docEvent("documentModified", doc2, null)));
+        // not the same properties
+        assertTrue(bundle.pushCompacted(docEvent("documentModified", doc1, "some comment")));
+        assertTrue(bundle.pushCompacted(docEvent("documentCreated", doc1, null)));
+        // not about a document
+        assertTrue(bundle.pushCompacted(new EventImpl("login", new EventContextImpl())));
+        assertTrue(bundle.pushCompacted(new EventImpl("login", new EventContextImpl())));
+        assertEquals(6, bundle.size());
+        assertEquals(3, bundle.getEvents("documentModified").size());
+        assertEquals(new HashSet<>(Arrays.asList("documentModified", "documentCreated", "login")),
+                bundle.getEventNames());
+    }
+
+    @Test
+    public void testListenerFilter() {
+        EventBundleImpl bundle = new EventBundleImpl();
+        DocumentModel doc = doc("id1");
+        for (String name : new String[] { "a", "b", "c", "a", "b" }) {
+            bundle.push(docEvent(name, doc, null));
+        }
+        assertEquals(Arrays.asList("a", "a"), names(listener("a").filterBundle(bundle)));
+        assertEquals(Arrays.asList("a", "b", "a", "b"), names(listener("a", "b", "z").filterBundle(bundle)));
+        assertTrue(listener("z").filterBundle(bundle).isEmpty());
+        assertTrue(listener("c").acceptBundle(bundle));
+        assertFalse(listener("y", "z").acceptBundle(bundle));
+        assertEquals(5, new EventListenerDescriptor().filterBundle(bundle).size());
+    }
+
+    /**
+     * Logs the bundle size of an import-like transaction with and without compaction, and the time taken to filter it
+     * for listeners interested in a single event.
+     */
+    @Test
+    public void testBulkBundle() {
+        int docs = 10000;
+        List<DocumentModel> documents = new ArrayList<>(docs);
+        for (int i = 0; i < docs; i++) {
+            documents.add(doc("id" + i));
+        }
+        EventBundleImpl plain = new EventBundleImpl();
+        EventBundleImpl compacted = new EventBundleImpl();
+        for (int i = 0; i < docs; i++) {
+            Event event = docEvent("documentCreated", documents.get(i), null);
+            plain.push(event);
+            compacted.pushCompacted(event);
+            // several saves of each document
+            for (int n = 0; n < 5; n++) {
+                event = docEvent("documentModified", documents.get(i), null);
+                plain.push(event);
+                compacted.pushCompacted(event);
+            }
+        }
+        assertEquals(6 * docs, plain.size());
+        assertEquals(2 * docs, compacted.size());
+
+        List<EventListenerDescriptor> listeners = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            listeners.add(listener("otherEvent" + i));
+        }
+        listeners.add(listener("documentCreated"));
+        long t0 = System.nanoTime();
+        int scheduled = 0;
+        for (EventListenerDescriptor desc : listeners) {
+            if (!desc.filterBundle(plain).isEmpty()) {
+                scheduled++;
+            }
+        }
+        long t1 = System.nanoTime();
+        assertEquals(1, scheduled);
+        log.debug(String.format("%d docs: %d events, %d after compaction; filtering for %d listeners: %d us", docs,
+                plain.size(), compacted.size(), listeners.size(), (t1 - t0) / 1000));
+    }
+
+}
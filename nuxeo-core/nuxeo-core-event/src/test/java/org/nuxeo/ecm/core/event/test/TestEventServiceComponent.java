@@ -30,12 +30,14 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.event.Event;
 import org.nuxeo.ecm.core.event.EventService;
 import org.nuxeo.ecm.core.event.EventServiceAdmin;
 import org.nuxeo.ecm.core.event.impl.EventContextImpl;
 import org.nuxeo.ecm.core.event.impl.EventImpl;
 import org.nuxeo.ecm.core.event.impl.EventListenerDescriptor;
+import org.nuxeo.ecm.core.event.impl.EventListenerDispatcher;
 import org.nuxeo.ecm.core.event.impl.EventServiceImpl;
 import org.nuxeo.ecm.core.event.impl.PostCommitEventExecutor;
 import org.nuxeo.runtime.api.Framework;
@@ -50,6 +52,7 @@ public class TestEventServiceComponent extends NXRuntimeTestCase {
     public void setUp() throws Exception {
         super.setUp();
         Framework.getProperties().setProperty(PostCommitEventExecutor.TIMEOUT_MS_PROP, "300"); // 0.3s
+        Framework.getProperties().setProperty(EventListenerDispatcher.POOL_SIZE_PROP, "4");
         deployBundle("org.nuxeo.runtime.jtajca");
         deployBundle("org.nuxeo.ecm.core.event");
         fireFrameworkStarted();
@@ -191,6 +194,24 @@ public class TestEventServiceComponent extends NXRuntimeTestCase {
         }
     }
 
+    @Test
+    public void testDuplicateDocumentEventsKept() throws Exception {
+        URL url = getClass().getClassLoader().getResource("test-sync-postcommit-listeners.xml");
+        deployTestContrib("org.nuxeo.ecm.core.event", url);
+        EventService service = Framework.getService(EventService.class);
+
+        // bundle compaction is disabled by default, identical document events all reach the listeners
+        DocumentModel doc = TestEventBundleCompaction.doc("id1");
+        service.fireEvent(TestEventBundleCompaction.docEvent("testsyncpostcommit", doc, null));
+        service.fireEvent(TestEventBundleCompaction.docEvent("testsyncpostcommit", doc, null));
+        Event commit = new EventImpl("testnotmached", new EventContextImpl());
+        commit.setIsCommitEvent(true);
+        service.fireEvent(commit);
+        service.waitForAsyncCompletion();
+        assertEquals(2, DummyPostCommitEventListener.handledCount());
+        assertEquals(4, DummyPostCommitEventListener.eventCount());
+    }
+
     protected void doTestSyncPostCommit(boolean error, boolean timeout, int expectedHandled, int expectedEvents)
             throws Exception {
         URL url = getClass().getClassLoader().getResource("test-sync-postcommit-listeners.xml");
@@ -230,6 +251,46 @@ public class TestEventServiceComponent extends NXRuntimeTestCase {
         }
     }
 
+    @Test
+    public void testParallelListeners() throws Exception {
+        URL url = getClass().getClassLoader().getResource("test-parallel-listeners.xml");
+        deployTestContrib("org.nuxeo.ecm.core.event", url);
+        EventService service = Framework.getService(EventService.class);
+        DummyParallelListener.reset();
+
+        EventListenerDescriptor desc = ((EventServiceImpl) service).getEventListener("parallel1");
+        long timerCount = EventServiceImpl.getListenerTimer(desc, "inline").getCount();
+        EventContextImpl context = new EventContextImpl();
+        Event event = new EventImpl("testparallel", context);
+        event.setInline(true);
+        long t0 = System.currentTimeMillis();
+        service.fireEvent(event);
+        long elapsed = System.currentTimeMillis() - t0;
+        assertEquals(3, DummyParallelListener.handledCount.get());
+        // the serial listener ran after the first two parallel ones
+        assertEquals(Integer.valueOf(2), context.getProperty("parallelCount"));
+        // parallel1 and parallel2 ran concurrently
+        assertEquals(2, DummyParallelListener.threads.size());
+        assertTrue("elapsed " + elapsed, elapsed < 3 * 200);
+        assertEquals(timerCount + 1, EventServiceImpl.getListenerTimer(desc, "inline").getCount());
+    }
+
+    @Test
+    public void testParallelListenersCancel() throws Exception {
+        URL url = getClass().getClassLoader().getResource("test-parallel-listeners.xml");
+        deployTestContrib("org.nuxeo.ecm.core.event", url);
+        EventService service = Framework.getService(EventService.class);
+        DummyParallelListener.reset();
+
+        EventContextImpl context = new EventContextImpl();
+        context.setProperty("cancel", Boolean.TRUE);
+        Event event = new EventImpl("testparallel", context);
+        event.setInline(true);
+        service.fireEvent(event);
+        // parallel3 is after the serial listener cancelling the event
+        assertEquals(2, DummyParallelListener.handledCount.get());
+    }
+
     /**
      * Test that when the event service component is deactivated, the threads of the async event executor are shut down.
      */
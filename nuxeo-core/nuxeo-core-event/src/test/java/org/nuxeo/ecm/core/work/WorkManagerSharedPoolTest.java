@@ -0,0 +1,66 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.work;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.nuxeo.runtime.api.Framework;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+/**
+ * Runs the {@link WorkManagerTest} tests with a thread pool shared by all queues.
+ *
+ * @since 8.3
+ */
+public class WorkManagerSharedPoolTest extends WorkManagerTest {
+
+    @Override
+    protected void doDeploy() throws Exception {
+        Framework.getProperties().setProperty(WorkManagerImpl.SHARED_POOL_PROP, "true");
+        super.doDeploy();
+    }
+
+    @Test
+    public void testSharedPoolRespectsMaxThreads() throws Exception {
+        deployAndStart();
+        assertNotNull(service.sharedPool);
+
+        Timer waitTimer = service.registry.timer(MetricRegistry.name("nuxeo", "works", QUEUE, "wait"));
+        long waited = waitTimer.getCount();
+        int duration = 2000; // ms
+        for (int i = 0; i < 4; i++) {
+            service.schedule(new SleepWork(duration, false, "sleep" + i));
+        }
+        Thread.sleep(duration / 2);
+        // SleepWork queue has maxThreads=2 even though the shared pool has more threads
+        assertMetrics(2, 2, 0, 0);
+
+        assertTrue(service.awaitCompletion(duration * 4, TimeUnit.MILLISECONDS));
+        assertMetrics(0, 0, 4, 0);
+        assertEquals(waited + 4, waitTimer.getCount());
+    }
+
+}
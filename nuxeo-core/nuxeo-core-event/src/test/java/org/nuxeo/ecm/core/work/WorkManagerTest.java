@@ -29,6 +29,7 @@ import static org.nuxeo.ecm.core.work.api.Work.State.SCHEDULED;
 
 import java.io.File;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
@@ -41,6 +42,7 @@ import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.nuxeo.common.logging.SequenceTracer;
+import org.nuxeo.ecm.core.work.api.Work;
 import org.nuxeo.ecm.core.work.api.WorkManager;
 import org.nuxeo.ecm.core.work.api.WorkManager.Scheduling;
 import org.nuxeo.ecm.core.work.api.WorkQueueDescriptor;
@@ -90,6 +92,23 @@ public class WorkManagerTest extends NXRuntimeTestCase {
         }
     }
 
+    protected static class PriorityWork extends SleepWork {
+        private static final long serialVersionUID = 1L;
+
+        protected static final List<String> executed = Collections.synchronizedList(new ArrayList<>());
+
+        public PriorityWork(String id, int priority) {
+            super(0, "PrioritizedSleepWork", false, id);
+            setPriority(priority);
+        }
+
+        @Override
+        public void work() {
+            super.work();
+            executed.add(getId());
+        }
+    }
+
     protected static final String CATEGORY = "SleepWork";
 
     protected static final String QUEUE = "SleepWork";
@@ -249,6 +268,22 @@ public class WorkManagerTest extends NXRuntimeTestCase {
         assertMetrics(0,0,1,0);
     }
 
+    @Test
+    public void testWorkPriority() throws Exception {
+        deployAndStart();
+        PriorityWork.executed.clear();
+
+        service.enableProcessing("PrioritizedSleepWork", false);
+        service.schedule(new PriorityWork("low1", Work.DEFAULT_PRIORITY));
+        service.schedule(new PriorityWork("low2", Work.DEFAULT_PRIORITY));
+        service.schedule(new PriorityWork("high", 10));
+        service.schedule(new PriorityWork("low3", -1));
+        service.enableProcessing("PrioritizedSleepWork", true);
+
+        assertTrue(service.awaitCompletion("PrioritizedSleepWork", 5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("high", "low1", "low2", "low3"), PriorityWork.executed);
+    }
+
     @Test
     @Ignore
     public void testWorkManagerShutdown() throws Exception {
@@ -0,0 +1,86 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.work;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.nuxeo.ecm.core.work.api.WorkQueueMetrics;
+
+/**
+ * Runs the {@link WorkManagerTest} tests with queues running each work in a thread of its own.
+ *
+ * @since 8.3
+ */
+public class WorkManagerVirtualThreadsTest extends WorkManagerTest {
+
+    @Override
+    protected void doDeploy() throws Exception {
+        super.doDeploy();
+        deployContrib("org.nuxeo.ecm.core.event.test", "test-workmanager-virtualthreads.xml");
+    }
+
+    @Test
+    public void testVirtualThreadsRespectMaxThreads() throws Exception {
+        deployAndStart();
+        assertNotNull(service.getExecutor(QUEUE).dispatcher);
+        assertNull(service.getExecutor("IOPlatformWork").dispatcher);
+
+        int duration = 2000; // ms
+        for (int i = 0; i < 4; i++) {
+            service.schedule(new SleepWork(duration, false, "sleep" + i));
+        }
+        Thread.sleep(duration / 2);
+        // SleepWork queue has maxThreads=2
+        assertMetrics(2, 2, 0, 0);
+
+        assertTrue(service.awaitCompletion(duration * 4, TimeUnit.MILLISECONDS));
+        assertMetrics(0, 0, 4, 0);
+    }
+
+    @Test
+    public void testSameConcurrencyAsPooledThreads() throws Exception {
+        deployAndStart();
+        assertNull(service.getExecutor("IOPlatformWork").dispatcher);
+        assertNotNull(service.getExecutor("IOVirtualWork").dispatcher);
+
+        int count = 6;
+        int duration = 2000; // ms
+        for (String category : Arrays.asList("IOPlatformWork", "IOVirtualWork")) {
+            for (int i = 0; i < count; i++) {
+                service.schedule(new SleepWork(duration, category, false, category + i));
+            }
+        }
+        Thread.sleep(duration / 2);
+        // both queues have maxThreads=4
+        assertEquals(new WorkQueueMetrics("IOPlatformWork", 2, 4, 0, 0), service.getMetrics("IOPlatformWork"));
+        assertEquals(new WorkQueueMetrics("IOVirtualWork", 2, 4, 0, 0), service.getMetrics("IOVirtualWork"));
+
+        assertTrue(service.awaitCompletion(duration * 4, TimeUnit.MILLISECONDS));
+        assertEquals(new WorkQueueMetrics("IOPlatformWork", 0, 0, count, 0), service.getMetrics("IOPlatformWork"));
+        assertEquals(new WorkQueueMetrics("IOVirtualWork", 0, 0, count, 0), service.getMetrics("IOVirtualWork"));
+    }
+
+}
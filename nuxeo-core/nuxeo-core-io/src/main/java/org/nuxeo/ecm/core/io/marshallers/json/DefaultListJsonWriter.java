@@ -118,8 +118,10 @@ public abstract class DefaultListJsonWriter<EntityType> extends AbstractJsonWrit
         writePaginationInfos(list, jg);
         Writer<EntityType> documentWriter = registry.getWriter(ctx, elClazz, elGenericType, APPLICATION_JSON_TYPE);
         jg.writeArrayFieldStart("entries");
+        // entries are streamed one after the other to the same generator
+        OutputStreamWithJsonWriter out = new OutputStreamWithJsonWriter(jg);
         for (EntityType entity : list) {
-            documentWriter.write(entity, elClazz, elClazz, APPLICATION_JSON_TYPE, new OutputStreamWithJsonWriter(jg));
+            documentWriter.write(entity, elClazz, elClazz, APPLICATION_JSON_TYPE, out);
         }
         jg.writeEndArray();
         extend(list, jg);
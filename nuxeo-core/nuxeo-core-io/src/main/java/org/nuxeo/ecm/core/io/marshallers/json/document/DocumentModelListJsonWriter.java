@@ -19,22 +19,47 @@
 
 package org.nuxeo.ecm.core.io.marshallers.json.document;
 
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON_TYPE;
 import static org.nuxeo.ecm.automation.core.util.PaginableDocumentModelList.CODEC_PARAMETER_NAME;
+import static org.nuxeo.ecm.core.io.marshallers.json.enrichers.AbstractJsonEnricher.ENTITY_ENRICHER_BATCH_PREFIX;
+import static org.nuxeo.ecm.core.io.marshallers.json.enrichers.AbstractJsonEnricher.ENTITY_ENRICHER_NAME;
+import static org.nuxeo.ecm.core.io.registry.MarshallingConstants.WILDCARD_VALUE;
 import static org.nuxeo.ecm.core.io.registry.reflect.Instantiations.SINGLETON;
 import static org.nuxeo.ecm.core.io.registry.reflect.Priorities.REFERENCE;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import org.apache.commons.lang3.reflect.TypeUtils;
 import org.codehaus.jackson.JsonGenerator;
 import org.nuxeo.ecm.automation.core.util.PaginableDocumentModelList;
+import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentRef;
 import org.nuxeo.ecm.core.io.marshallers.json.DefaultListJsonWriter;
+import org.nuxeo.ecm.core.io.marshallers.json.enrichers.AbstractJsonEnricher;
+import org.nuxeo.ecm.core.io.marshallers.json.enrichers.Enriched;
+import org.nuxeo.ecm.core.io.registry.Writer;
+import org.nuxeo.ecm.core.io.registry.context.MaxDepthReachedException;
+import org.nuxeo.ecm.core.io.registry.context.WrappedContext;
 import org.nuxeo.ecm.core.io.registry.reflect.Setup;
 
 /**
  * see {@link DefaultListJsonWriter}
+ * <p>
+ * Before writing the documents one by one, the properties to write are loaded in bulk for the whole list (see
+ * {@link CoreSession#prefetchDocuments(DocumentRef[], Set)}) and the enrichers to call can compute their data for all
+ * the documents at once (see {@link AbstractJsonEnricher#prepare(List)}).
+ * </p>
  *
  * @since 7.2
  */
@@ -43,6 +68,8 @@ public class DocumentModelListJsonWriter extends DefaultListJsonWriter<DocumentM
 
     public static final String ENTITY_DOCUMENT_LIST = "documents";
 
+    private static final Type ENRICHED_DOCUMENT_TYPE = TypeUtils.parameterize(Enriched.class, DocumentModel.class);
+
     public DocumentModelListJsonWriter() {
         super(ENTITY_DOCUMENT_LIST, DocumentModel.class);
     }
@@ -53,11 +80,103 @@ public class DocumentModelListJsonWriter extends DefaultListJsonWriter<DocumentM
             PaginableDocumentModelList paginable = (PaginableDocumentModelList) docs;
             String codecName = paginable.getDocumentLinkBuilder();
             try (Closeable resource = ctx.wrap().with(CODEC_PARAMETER_NAME, codecName).open()) {
-                super.write(docs, jg);
+                writeDocuments(docs, jg);
             }
         } else {
+            writeDocuments(docs, jg);
+        }
+    }
+
+    /**
+     * Prepares the whole list, then writes it.
+     *
+     * @since 8.3
+     */
+    protected void writeDocuments(List<DocumentModel> docs, JsonGenerator jg) throws IOException {
+        WrappedContext batchCtx = ctx.wrap();
+        if (docs.size() > 1) {
+            prefetchProperties(docs);
+            prepareEnrichers(docs, batchCtx);
+        }
+        try (Closeable resource = batchCtx.open()) {
             super.write(docs, jg);
         }
     }
 
+    /**
+     * Loads in bulk the schemas that will be written for the documents, for each session they're attached to.
+     *
+     * @since 8.3
+     */
+    protected void prefetchProperties(List<DocumentModel> docs) {
+        Set<String> schemas = ctx.getProperties();
+        if (schemas.isEmpty()) {
+            return;
+        }
+        if (schemas.contains(WILDCARD_VALUE)) {
+            schemas = new HashSet<>();
+            for (DocumentModel doc : docs) {
+                schemas.addAll(Arrays.asList(doc.getSchemas()));
+            }
+        }
+        Map<CoreSession, List<DocumentRef>> refsBySession = new IdentityHashMap<>();
+        for (DocumentModel doc : docs) {
+            CoreSession session;
+            try {
+                session = doc.getCoreSession();
+            } catch (UnsupportedOperationException e) {
+                session = null;
+            }
+            if (session == null || doc.getRef() == null) {
+                // nothing to lazy load from
+                continue;
+            }
+            List<DocumentRef> refs = refsBySession.get(session);
+            if (refs == null) {
+                refsBySession.put(session, refs = new ArrayList<>());
+            }
+            refs.add(doc.getRef());
+        }
+        for (Map.Entry<CoreSession, List<DocumentRef>> entry : refsBySession.entrySet()) {
+            List<DocumentRef> refs = entry.getValue();
+            entry.getKey().prefetchDocuments(refs.toArray(new DocumentRef[refs.size()]), schemas);
+        }
+    }
+
+    /**
+     * Calls the batch hook of the enrichers that will be called for each document, and puts their data in the given
+     * context.
+     *
+     * @since 8.3
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    protected void prepareEnrichers(List<DocumentModel> docs, WrappedContext batchCtx) throws IOException {
+        Set<String> enrichers = ctx.getEnrichers(DocumentModelJsonWriter.ENTITY_TYPE);
+        if (enrichers.isEmpty()) {
+            return;
+        }
+        // same depth control as the one done by the document writer before calling the enrichers
+        WrappedContext wrappedCtx;
+        try {
+            wrappedCtx = ctx.wrap().controlDepth();
+        } catch (MaxDepthReachedException e) {
+            return;
+        }
+        for (String enricherName : enrichers) {
+            try (Closeable resource = wrappedCtx.with(ENTITY_ENRICHER_NAME, enricherName).open()) {
+                Collection<Writer<Enriched>> writers = registry.getAllWriters(ctx, Enriched.class,
+                        ENRICHED_DOCUMENT_TYPE, APPLICATION_JSON_TYPE);
+                for (Writer<Enriched> writer : writers) {
+                    if (writer instanceof AbstractJsonEnricher) {
+                        AbstractJsonEnricher<DocumentModel> enricher = (AbstractJsonEnricher<DocumentModel>) writer;
+                        Object data = enricher.prepare(docs);
+                        if (data != null) {
+                            batchCtx.with(ENTITY_ENRICHER_BATCH_PREFIX + enricher.getName(), data);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
 }
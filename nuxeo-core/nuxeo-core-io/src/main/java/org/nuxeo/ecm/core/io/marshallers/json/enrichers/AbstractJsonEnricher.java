@@ -21,6 +21,7 @@ package org.nuxeo.ecm.core.io.marshallers.json.enrichers;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.List;
 
 import javax.ws.rs.core.MediaType;
 
@@ -38,6 +39,13 @@ public abstract class AbstractJsonEnricher<EntityType> extends AbstractJsonWrite
 
     public static final String ENTITY_ENRICHER_NAME = "_EntityEnricherName";
 
+    /**
+     * Prefix of the context entries holding the data returned by {@link #prepare(List)}, followed by the enricher name.
+     *
+     * @since 8.3
+     */
+    public static final String ENTITY_ENRICHER_BATCH_PREFIX = "_EntityEnricherBatch_";
+
     private final String name;
 
     public AbstractJsonEnricher(String name) {
@@ -49,6 +57,41 @@ public abstract class AbstractJsonEnricher<EntityType> extends AbstractJsonWrite
         return name.equals(ctx.<String> getParameter(ENTITY_ENRICHER_NAME));
     }
 
+    /**
+     * @since 8.3
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Batch hook called by list writers before they write the entities of a list one by one, so that the enricher can
+     * compute its data for the whole list at once.
+     * <p>
+     * Enrichers are shared, so the returned data is not kept by the enricher but stored in the context while the list
+     * is written, and available from {@link #getBatchData()}. It may also be visible while writing other entities
+     * nested in the list, so it should be looked up by entity and {@link #write(JsonGenerator, Object)} must still work
+     * for entities not found in it.
+     * </p>
+     *
+     * @param entities The entities about to be enriched.
+     * @return The data computed for the whole list, or {@code null} if the enricher doesn't need any (the default).
+     * @since 8.3
+     */
+    public Object prepare(List<EntityType> entities) throws IOException {
+        return null;
+    }
+
+    /**
+     * Gets the data returned by {@link #prepare(List)} for the list being written.
+     *
+     * @return The data, or {@code null} if there's none.
+     * @since 8.3
+     */
+    protected <T> T getBatchData() {
+        return ctx.getParameter(ENTITY_ENRICHER_BATCH_PREFIX + name);
+    }
+
     @Override
     public void write(Enriched<EntityType> enrichable, JsonGenerator jg) throws IOException {
         write(jg, enrichable.getEntity());
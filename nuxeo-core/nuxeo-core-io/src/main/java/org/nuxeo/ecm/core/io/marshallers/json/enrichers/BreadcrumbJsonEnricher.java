@@ -19,14 +19,21 @@
 
 package org.nuxeo.ecm.core.io.marshallers.json.enrichers;
 
+import static org.nuxeo.ecm.core.api.security.SecurityConstants.READ;
 import static org.nuxeo.ecm.core.io.registry.reflect.Instantiations.SINGLETON;
 import static org.nuxeo.ecm.core.io.registry.reflect.Priorities.REFERENCE;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.codehaus.jackson.JsonGenerator;
+import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentRef;
 import org.nuxeo.ecm.core.api.impl.DocumentModelListImpl;
 import org.nuxeo.ecm.core.io.marshallers.json.document.DocumentModelListJsonWriter;
 import org.nuxeo.ecm.core.io.registry.context.RenderingContext.SessionWrapper;
@@ -67,11 +74,64 @@ public class BreadcrumbJsonEnricher extends AbstractJsonEnricher<DocumentModel>
         super(NAME);
     }
 
+    /**
+     * Computes the breadcrumbs of all the documents of a list, reading each common ancestor only once.
+     *
+     * @return the breadcrumbs by document id
+     * @since 8.3
+     */
+    @Override
+    public Object prepare(List<DocumentModel> documents) throws IOException {
+        if (documents.isEmpty()) {
+            return null;
+        }
+        Map<String, List<DocumentModel>> breadcrumbs = new HashMap<>();
+        Map<String, DocumentModel> ancestors = new HashMap<>();
+        try (SessionWrapper wrapper = ctx.getSession(documents.get(0))) {
+            CoreSession session = wrapper.getSession();
+            for (DocumentModel document : documents) {
+                if (document.getRef() == null
+                        || !session.getRepositoryName().equals(document.getRepositoryName())) {
+                    // computed by write
+                    continue;
+                }
+                List<DocumentModel> breadcrumb = new ArrayList<>();
+                // same rules as CoreSession#getParentDocuments
+                if (!"/".equals(document.getPathAsString()) && session.hasPermission(document.getRef(), READ)) {
+                    breadcrumb.add(document);
+                    DocumentRef[] parentRefs = session.getParentDocumentRefs(document.getRef());
+                    // the last one is the root
+                    for (int i = 0; i < parentRefs.length - 1; i++) {
+                        String parentId = parentRefs[i].reference().toString();
+                        DocumentModel parent;
+                        if (ancestors.containsKey(parentId)) {
+                            parent = ancestors.get(parentId);
+                        } else {
+                            parent = session.hasPermission(parentRefs[i], READ) ? session.getDocument(parentRefs[i])
+                                    : null;
+                            ancestors.put(parentId, parent);
+                        }
+                        if (parent == null) {
+                            break;
+                        }
+                        breadcrumb.add(parent);
+                    }
+                    Collections.reverse(breadcrumb);
+                }
+                breadcrumbs.put(document.getId(), breadcrumb);
+            }
+        }
+        return breadcrumbs;
+    }
+
     @Override
     public void write(JsonGenerator jg, DocumentModel document) throws IOException {
-        List<DocumentModel> parentDocuments = null;
-        try (SessionWrapper wrapper = ctx.getSession(document)) {
-            parentDocuments = wrapper.getSession().getParentDocuments(document.getRef());
+        Map<String, List<DocumentModel>> breadcrumbs = getBatchData();
+        List<DocumentModel> parentDocuments = breadcrumbs == null ? null : breadcrumbs.get(document.getId());
+        if (parentDocuments == null) {
+            try (SessionWrapper wrapper = ctx.getSession(document)) {
+                parentDocuments = wrapper.getSession().getParentDocuments(document.getRef());
+            }
         }
         DocumentModelListImpl documentList = new DocumentModelListImpl(parentDocuments);
         jg.writeFieldName(NAME);
@@ -20,9 +20,14 @@
 package org.nuxeo.ecm.core.io.registry;
 
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
@@ -76,6 +81,56 @@ public class MarshallerRegistryImpl extends DefaultComponent implements Marshall
      */
     private static final Map<Class<?>, MarshallerInspector> marshallersByType = new ConcurrentHashMap<Class<?>, MarshallerInspector>();
 
+    /**
+     * Candidate {@link MarshallerInspector}s already resolved for a marshalled class, generic type and
+     * {@link MediaType}, in priority order. Replaced by an empty map each time a marshaller is registered or
+     * deregistered.
+     *
+     * @since 8.3
+     */
+    private static volatile Map<ResolutionKey, List<MarshallerInspector>> resolutions = new ConcurrentHashMap<ResolutionKey, List<MarshallerInspector>>();
+
+    /**
+     * Key of the {@link #resolutions} cache.
+     *
+     * @since 8.3
+     */
+    private static final class ResolutionKey {
+
+        private final boolean reader;
+
+        private final Class<?> marshalledClazz;
+
+        private final Type genericType;
+
+        private final MediaType mediatype;
+
+        private ResolutionKey(boolean reader, Class<?> marshalledClazz, Type genericType, MediaType mediatype) {
+            this.reader = reader;
+            this.marshalledClazz = marshalledClazz;
+            this.genericType = genericType;
+            this.mediatype = mediatype;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(Boolean.valueOf(reader), marshalledClazz, genericType, mediatype);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ResolutionKey)) {
+                return false;
+            }
+            ResolutionKey other = (ResolutionKey) obj;
+            return reader == other.reader && Objects.equals(marshalledClazz, other.marshalledClazz)
+                    && Objects.equals(genericType, other.genericType) && Objects.equals(mediatype, other.mediatype);
+        }
+    }
+
     @Override
     public void activate(ComponentContext context) {
         super.activate(context);
@@ -151,6 +206,7 @@ public class MarshallerRegistryImpl extends DefaultComponent implements Marshall
                 inspectors.add(inspector);
             }
         }
+        invalidateResolutions();
     }
 
     @Override
@@ -184,28 +240,29 @@ public class MarshallerRegistryImpl extends DefaultComponent implements Marshall
                 }
             }
         }
+        invalidateResolutions();
     }
 
     @Override
     public <T> Writer<T> getWriter(RenderingContext ctx, Class<T> marshalledClazz, Type genericType, MediaType mediatype) {
-        Set<MarshallerInspector> candidates = writersByMediaType.get(mediatype);
-        return (Writer<T>) getMarshaller(ctx, marshalledClazz, genericType, mediatype, candidates, writers, false);
+        List<MarshallerInspector> candidates = resolve(false, marshalledClazz, genericType, mediatype);
+        return (Writer<T>) acceptCandidate(ctx, marshalledClazz, genericType, mediatype, candidates, false);
     }
 
     @Override
     public <T> Writer<T> getUniqueWriter(RenderingContext ctx, Class<T> marshalledClazz, Type genericType,
             MediaType mediatype) {
-        Set<MarshallerInspector> candidates = writersByMediaType.get(mediatype);
-        return (Writer<T>) getMarshaller(ctx, marshalledClazz, genericType, mediatype, candidates, writers, true);
+        List<MarshallerInspector> candidates = resolve(false, marshalledClazz, genericType, mediatype);
+        return (Writer<T>) acceptCandidate(ctx, marshalledClazz, genericType, mediatype, candidates, true);
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <T> Collection<Writer<T>> getAllWriters(RenderingContext ctx, Class<T> marshalledClazz, Type genericType,
             MediaType mediatype) {
-        Set<MarshallerInspector> candidates = writersByMediaType.get(mediatype);
-        Collection<Marshaller<T>> founds = getAllMarshallers(ctx, marshalledClazz, genericType, mediatype, candidates,
-                writers);
+        List<MarshallerInspector> candidates = resolve(false, marshalledClazz, genericType, mediatype);
+        Collection<Marshaller<T>> founds = acceptAllCandidates(ctx, marshalledClazz, genericType, mediatype,
+                candidates);
         return (Collection<Writer<T>>) (Collection<?>) founds;
     }
 
@@ -216,24 +273,24 @@ public class MarshallerRegistryImpl extends DefaultComponent implements Marshall
 
     @Override
     public <T> Reader<T> getReader(RenderingContext ctx, Class<T> marshalledClazz, Type genericType, MediaType mediatype) {
-        Set<MarshallerInspector> candidates = readersByMediaType.get(mediatype);
-        return (Reader<T>) getMarshaller(ctx, marshalledClazz, genericType, mediatype, candidates, readers, false);
+        List<MarshallerInspector> candidates = resolve(true, marshalledClazz, genericType, mediatype);
+        return (Reader<T>) acceptCandidate(ctx, marshalledClazz, genericType, mediatype, candidates, false);
     }
 
     @Override
     public <T> Reader<T> getUniqueReader(RenderingContext ctx, Class<T> marshalledClazz, Type genericType,
             MediaType mediatype) {
-        Set<MarshallerInspector> candidates = readersByMediaType.get(mediatype);
-        return (Reader<T>) getMarshaller(ctx, marshalledClazz, genericType, mediatype, candidates, readers, true);
+        List<MarshallerInspector> candidates = resolve(true, marshalledClazz, genericType, mediatype);
+        return (Reader<T>) acceptCandidate(ctx, marshalledClazz, genericType, mediatype, candidates, true);
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <T> Collection<Reader<T>> getAllReaders(RenderingContext ctx, Class<T> marshalledClazz, Type genericType,
             MediaType mediatype) {
-        Set<MarshallerInspector> candidates = readersByMediaType.get(mediatype);
-        Collection<Marshaller<T>> founds = getAllMarshallers(ctx, marshalledClazz, genericType, mediatype, candidates,
-                readers);
+        List<MarshallerInspector> candidates = resolve(true, marshalledClazz, genericType, mediatype);
+        Collection<Marshaller<T>> founds = acceptAllCandidates(ctx, marshalledClazz, genericType, mediatype,
+                candidates);
         return (Collection<Reader<T>>) (Collection<?>) founds;
     }
 
@@ -265,6 +322,93 @@ public class MarshallerRegistryImpl extends DefaultComponent implements Marshall
         return result.values();
     }
 
+    /**
+     * Gets the marshallers whose managed class and generic type are compatible with the requested ones, custom ones
+     * for the {@link MediaType} first, then the wildcard ones, in priority order. The result is cached until the next
+     * registration change.
+     *
+     * @since 8.3
+     */
+    private List<MarshallerInspector> resolve(boolean reader, Class<?> marshalledClazz, Type genericType,
+            MediaType mediatype) {
+        Map<ResolutionKey, List<MarshallerInspector>> cache = resolutions;
+        ResolutionKey key = new ResolutionKey(reader, marshalledClazz, genericType, mediatype);
+        List<MarshallerInspector> candidates = cache.get(key);
+        if (candidates == null) {
+            Set<MarshallerInspector> customs = mediatype == null ? null
+                    : (reader ? readersByMediaType : writersByMediaType).get(mediatype);
+            Set<MarshallerInspector> wildcards = reader ? readers : writers;
+            Set<MarshallerInspector> found = new LinkedHashSet<MarshallerInspector>();
+            if (customs != null) {
+                addCompatibles(marshalledClazz, genericType, customs, found);
+            }
+            addCompatibles(marshalledClazz, genericType, wildcards, found);
+            candidates = Collections.unmodifiableList(new ArrayList<MarshallerInspector>(found));
+            // if the registrations changed meanwhile, this goes to a discarded map
+            cache.put(key, candidates);
+        }
+        return candidates;
+    }
+
+    private static void addCompatibles(Class<?> marshalledClazz, Type genericType,
+            Set<MarshallerInspector> inspectors, Set<MarshallerInspector> found) {
+        for (MarshallerInspector inspector : inspectors) {
+            // checks the managed class is compatible
+            if (inspector.getMarshalledType().isAssignableFrom(marshalledClazz)) {
+                // checks the generic type is compatible
+                if (genericType == null || marshalledClazz.equals(inspector.getGenericType())
+                        || TypeUtils.isAssignable(genericType, inspector.getGenericType())) {
+                    found.add(inspector);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the first resolved candidate whose instance accepts the request.
+     *
+     * @since 8.3
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Marshaller<T> acceptCandidate(RenderingContext ctx, Class<T> marshalledClazz, Type genericType,
+            MediaType mediatype, List<MarshallerInspector> candidates, boolean forceInstantiation) {
+        for (MarshallerInspector inspector : candidates) {
+            Marshaller<T> marshaller;
+            if (forceInstantiation) {
+                marshaller = (Marshaller<T>) inspector.getNewInstance(ctx, false);
+            } else {
+                marshaller = inspector.getInstance(ctx);
+            }
+            // checks the marshaller accepts the request
+            if (marshaller.accept(marshalledClazz, genericType, mediatype)) {
+                return marshaller;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets all the resolved candidates whose instance accepts the request.
+     *
+     * @since 8.3
+     */
+    private <T> Collection<Marshaller<T>> acceptAllCandidates(RenderingContext ctx, Class<T> marshalledClazz,
+            Type genericType, MediaType mediatype, List<MarshallerInspector> candidates) {
+        Collection<Marshaller<T>> result = new ArrayList<Marshaller<T>>(candidates.size());
+        for (MarshallerInspector inspector : candidates) {
+            Marshaller<T> marshaller = inspector.getInstance(ctx);
+            // checks the marshaller accepts the request
+            if (marshaller.accept(marshalledClazz, genericType, mediatype)) {
+                result.add(marshaller);
+            }
+        }
+        return result;
+    }
+
+    private static void invalidateResolutions() {
+        resolutions = new ConcurrentHashMap<ResolutionKey, List<MarshallerInspector>>();
+    }
+
     @SuppressWarnings("unchecked")
     private <T> Marshaller<T> searchCandidate(RenderingContext ctx, Class<T> marshalledClazz, Type genericType,
             MediaType mediatype, Set<MarshallerInspector> candidates, boolean forceInstantiation) {
@@ -337,6 +481,7 @@ public class MarshallerRegistryImpl extends DefaultComponent implements Marshall
         writers.clear();
         readersByMediaType.clear();
         readers.clear();
+        invalidateResolutions();
     }
 
 }
@@ -19,6 +19,9 @@
 
 package org.nuxeo.ecm.core.io.registry.reflect;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
@@ -88,7 +91,35 @@ public class MarshallerInspector implements Comparable<MarshallerInspector> {
 
     private List<Field> contextFields = new ArrayList<Field>();
 
-    private Object singleton;
+    /**
+     * The constructor compiled into a method handle returning an {@link Object}.
+     *
+     * @since 8.3
+     */
+    private MethodHandle constructorHandle;
+
+    /**
+     * Setters of {@link #serviceFields}, in the same order, taking the instance and the value.
+     *
+     * @since 8.3
+     */
+    private List<MethodHandle> serviceSetters = new ArrayList<MethodHandle>();
+
+    /**
+     * Setters of {@link #contextFields}, in the same order, taking the instance and the value.
+     *
+     * @since 8.3
+     */
+    private List<MethodHandle> contextSetters = new ArrayList<MethodHandle>();
+
+    private volatile Object singleton;
+
+    /**
+     * The contexts injected in the singleton, configured for the current thread on each call.
+     *
+     * @since 8.3
+     */
+    private List<ThreadSafeRenderingContext> singletonContexts;
 
     private ThreadLocal<Object> threadInstance;
 
@@ -163,6 +194,11 @@ public class MarshallerInspector implements Comparable<MarshallerInspector> {
         loadMarshalledType(clazz);
         // load properties that require injection
         loadInjections(clazz);
+        // compile the instantiation and the injections once for all
+        loadHandles();
+        if (instantiation == Instantiations.PER_THREAD) {
+            threadInstance = new ThreadLocal<Object>();
+        }
         // warn if several context found
         if (contextFields.size() > 1) {
             log.warn("The marshaller "
@@ -250,6 +286,30 @@ public class MarshallerInspector implements Comparable<MarshallerInspector> {
         loadInjections(clazz.getSuperclass());
     }
 
+    /**
+     * Compiles the constructor and the setters of the injected properties into method handles, to avoid reflection
+     * when creating instances.
+     *
+     * @since 8.3
+     */
+    private void loadHandles() {
+        MethodType setterType = MethodType.methodType(void.class, Object.class, Object.class);
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            constructor.setAccessible(true);
+            constructorHandle = lookup.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+            for (Field field : serviceFields) {
+                serviceSetters.add(lookup.unreflectSetter(field).asType(setterType));
+            }
+            for (Field field : contextFields) {
+                contextSetters.add(lookup.unreflectSetter(field).asType(setterType));
+            }
+        } catch (IllegalAccessException | SecurityException e) {
+            throw new MarshallingException("Unable to access the constructor or the injected properties of class "
+                    + clazz.getName(), e);
+        }
+    }
+
     /**
      * Create an instance of this marshaller. Depending on the instantiation mode, get the current singleton instance,
      * get a thread local one or create a new one.
@@ -303,21 +363,26 @@ public class MarshallerInspector implements Comparable<MarshallerInspector> {
      * @since 7.2
      */
     private Object getSingletonInstance(RenderingContext ctx) {
-        if (singleton == null) {
-            singleton = getNewInstance(ctx, true);
-        } else {
-            for (Field contextField : contextFields) {
-                ThreadSafeRenderingContext value;
-                try {
-                    value = (ThreadSafeRenderingContext) contextField.get(singleton);
-                } catch (IllegalArgumentException | IllegalAccessException e) {
-                    log.error("unable to create a marshaller instance for clazz " + clazz.getName(), e);
-                    return null;
+        Object instance = singleton;
+        if (instance == null) {
+            synchronized (this) {
+                instance = singleton;
+                if (instance == null) {
+                    List<ThreadSafeRenderingContext> contexts = new ArrayList<ThreadSafeRenderingContext>(
+                            contextFields.size());
+                    instance = getNewInstance(ctx, contexts);
+                    if (instance != null) {
+                        singletonContexts = contexts;
+                        singleton = instance;
+                    }
+                    return instance;
                 }
-                value.configureThread(ctx);
             }
         }
-        return singleton;
+        for (ThreadSafeRenderingContext singletonContext : singletonContexts) {
+            singletonContext.configureThread(ctx);
+        }
+        return instance;
     }
 
     /**
@@ -328,19 +393,16 @@ public class MarshallerInspector implements Comparable<MarshallerInspector> {
      * @since 7.2
      */
     private Object getThreadInstance(RenderingContext ctx) {
-        if (threadInstance == null) {
-            threadInstance = new ThreadLocal<Object>();
-        }
         Object instance = threadInstance.get();
         if (instance == null) {
             instance = getNewInstance(ctx, false);
             threadInstance.set(instance);
         } else {
-            for (Field contextField : contextFields) {
+            for (MethodHandle contextSetter : contextSetters) {
                 try {
-                    contextField.set(instance, ctx);
-                } catch (IllegalArgumentException | IllegalAccessException e) {
-                    log.error("unable to create a marshaller instance for clazz " + clazz.getName(), e);
+                    contextSetter.invokeExact(instance, (Object) ctx);
+                } catch (Throwable t) {
+                    log.error("unable to create a marshaller instance for clazz " + clazz.getName(), t);
                     return null;
                 }
             }
@@ -356,29 +418,47 @@ public class MarshallerInspector implements Comparable<MarshallerInspector> {
      * @since 7.2
      */
     public Object getNewInstance(RenderingContext ctx, boolean threadSafe) {
+        return getNewInstance(ctx, threadSafe ? new ArrayList<ThreadSafeRenderingContext>(contextFields.size())
+                : null);
+    }
+
+    /**
+     * Create a new instance of the marshaller.
+     *
+     * @param ctx The {@link RenderingContext} to inject.
+     * @param safeContexts If not null, a {@link ThreadSafeRenderingContext} is injected instead of the context and
+     *            added to this list.
+     * @return An instance of the marshaller.
+     * @since 8.3
+     */
+    private Object getNewInstance(RenderingContext ctx, List<ThreadSafeRenderingContext> safeContexts) {
         try {
-            Object instance = clazz.newInstance();
-            for (Field contextField : contextFields) {
-                if (threadSafe) {
+            Object instance = (Object) constructorHandle.invokeExact();
+            for (MethodHandle contextSetter : contextSetters) {
+                if (safeContexts != null) {
                     ThreadSafeRenderingContext safeCtx = new ThreadSafeRenderingContext();
                     safeCtx.configureThread(ctx);
-                    contextField.set(instance, safeCtx);
+                    contextSetter.invokeExact(instance, (Object) safeCtx);
+                    safeContexts.add(safeCtx);
                 } else {
-                    contextField.set(instance, ctx);
+                    contextSetter.invokeExact(instance, (Object) ctx);
                 }
             }
-            for (Field serviceField : serviceFields) {
-                Object service = Framework.getService(serviceField.getType());
+            for (int i = 0; i < serviceFields.size(); i++) {
+                Class<?> serviceType = serviceFields.get(i).getType();
+                Object service = Framework.getService(serviceType);
                 if (service == null) {
-                    log.error("unable to inject a service " + serviceField.getType().getName()
-                            + " in the marshaller clazz " + clazz.getName());
+                    log.error("unable to inject a service " + serviceType.getName() + " in the marshaller clazz "
+                            + clazz.getName());
                     return null;
                 }
-                serviceField.set(instance, service);
+                serviceSetters.get(i).invokeExact(instance, service);
             }
             return instance;
-        } catch (IllegalArgumentException | IllegalAccessException | InstantiationException e) {
-            log.error("unable to create a marshaller instance for clazz " + clazz.getName(), e);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            log.error("unable to create a marshaller instance for clazz " + clazz.getName(), t);
             return null;
         }
     }
@@ -19,6 +19,7 @@
 
 package org.nuxeo.ecm.core.io.marshallers.json.document;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -30,6 +31,7 @@ import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.io.marshallers.json.AbstractJsonWriterTest;
 import org.nuxeo.ecm.core.io.marshallers.json.JsonAssert;
+import org.nuxeo.ecm.core.io.registry.context.RenderingContext.CtxBuilder;
 import org.nuxeo.runtime.test.runner.LocalDeploy;
 
 @LocalDeploy("org.nuxeo.ecm.core.io:OSGI-INF/doc-type-contrib.xml")
@@ -65,4 +67,24 @@ public class DocumentModelListJsonWriterTest extends
         json.childrenContains("title", "myDoc1", "myDoc2", "myDoc3");
     }
 
+    @Test
+    public void testPreparedEnricher() throws Exception {
+        DocumentModel folder = session.createDocumentModel("/", "folder", "RefDoc");
+        folder = session.createDocument(folder);
+        List<DocumentModel> elements = new ArrayList<>();
+        elements.add(folder);
+        for (int i = 1; i <= 3; i++) {
+            DocumentModel doc = session.createDocumentModel("/folder", "myDoc" + i, "RefDoc");
+            elements.add(session.createDocument(doc));
+        }
+        JsonAssert json = jsonAssert(elements, CtxBuilder.enrichDoc("breadcrumb").get());
+        json = json.has("entries").length(4);
+        JsonAssert breadcrumb = json.has(0).has("contextParameters").has("breadcrumb").has("entries").length(1);
+        breadcrumb.has(0).has("title").isEquals("folder");
+        for (int i = 1; i <= 3; i++) {
+            breadcrumb = json.has(i).has("contextParameters").has("breadcrumb").has("entries").length(2);
+            breadcrumb.childrenContains("title", "folder", "myDoc" + i);
+        }
+    }
+
 }
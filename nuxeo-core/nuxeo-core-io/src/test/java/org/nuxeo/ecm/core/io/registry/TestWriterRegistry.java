@@ -169,6 +169,23 @@ public class TestWriterRegistry {
         assertEquals(DefaultNumberWriter.class, writer.getClass());
     }
 
+    // the resolved writers are cached per marshalled type and media type
+    @Test
+    public void resolutionsAreInvalidatedByRegistering() throws Exception {
+        assertNull(registry.getWriter(ctx, Integer.class, APPLICATION_JSON_TYPE));
+        registry.register(DefaultNumberWriter.class);
+        Writer<?> writer = registry.getWriter(ctx, Integer.class, APPLICATION_JSON_TYPE);
+        assertEquals(DefaultNumberWriter.class, writer.getClass());
+        registry.register(HigherPriorityWriter.class);
+        writer = registry.getWriter(ctx, Integer.class, APPLICATION_JSON_TYPE);
+        assertEquals(HigherPriorityWriter.class, writer.getClass());
+        registry.deregister(HigherPriorityWriter.class);
+        writer = registry.getWriter(ctx, Integer.class, APPLICATION_JSON_TYPE);
+        assertEquals(DefaultNumberWriter.class, writer.getClass());
+        registry.clear();
+        assertNull(registry.getWriter(ctx, Integer.class, APPLICATION_JSON_TYPE));
+    }
+
     @SuppressWarnings("unused")
     private Map<String, List<Integer>> listIntegerMapProperty = null;
 
@@ -28,6 +28,8 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.text.StrBuilder;
 import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.cache.CacheInvalidationChannel;
+import org.nuxeo.ecm.core.redis.contribs.RedisCacheInvalidationChannel;
 import org.nuxeo.runtime.RuntimeServiceEvent;
 import org.nuxeo.runtime.RuntimeServiceListener;
 import org.nuxeo.runtime.api.Framework;
@@ -82,6 +84,11 @@ public class RedisComponent extends DefaultComponent implements RedisAdmin {
 
     protected String delsha;
 
+    /**
+     * @since 8.3
+     */
+    protected RedisCacheInvalidationChannel cacheInvalidationChannel;
+
     @Override
     public void activate(ComponentContext context) {
         super.activate(context);
@@ -131,6 +138,7 @@ public class RedisComponent extends DefaultComponent implements RedisAdmin {
                 }
                 Framework.removeListener(this);
                 try {
+                    closeCacheInvalidationChannel();
                     executor.getPool().destroy();
                 } finally {
                     executor = null;
@@ -199,9 +207,36 @@ public class RedisComponent extends DefaultComponent implements RedisAdmin {
         if (adapter.isAssignableFrom(RedisExecutor.class)) {
             return adapter.cast(executor);
         }
+        if (adapter.isAssignableFrom(CacheInvalidationChannel.class)) {
+            return adapter.cast(getCacheInvalidationChannel());
+        }
         return super.getAdapter(adapter);
     }
 
+    /**
+     * Gets the channel used to send cache invalidations to the other nodes, or {@code null} if Redis is not
+     * configured.
+     *
+     * @since 8.3
+     */
+    public synchronized CacheInvalidationChannel getCacheInvalidationChannel() {
+        if (executor == null || executor == RedisExecutor.NOOP) {
+            return null;
+        }
+        if (cacheInvalidationChannel == null) {
+            cacheInvalidationChannel = new RedisCacheInvalidationChannel(executor, this);
+            cacheInvalidationChannel.start();
+        }
+        return cacheInvalidationChannel;
+    }
+
+    protected synchronized void closeCacheInvalidationChannel() {
+        if (cacheInvalidationChannel != null) {
+            cacheInvalidationChannel.close();
+            cacheInvalidationChannel = null;
+        }
+    }
+
     @Override
     public String namespace(String... names) {
         RedisPoolDescriptor config = getConfig();
@@ -0,0 +1,189 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.redis.contribs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.cache.CacheInvalidationChannel;
+import org.nuxeo.ecm.core.redis.RedisAdmin;
+import org.nuxeo.ecm.core.redis.RedisExecutor;
+
+import redis.clients.jedis.JedisPubSub;
+
+/**
+ * Redis implementation of {@link CacheInvalidationChannel}.
+ * <p>
+ * All topics share a single pubsub channel. A message holds the sending node id, the topic, and the invalidated keys
+ * (or {@code *} for all keys), one per line.
+ *
+ * @since 8.3
+ */
+public class RedisCacheInvalidationChannel implements CacheInvalidationChannel {
+
+    private static final Log log = LogFactory.getLog(RedisCacheInvalidationChannel.class);
+
+    protected static final String PREFIX = "cacheinval";
+
+    // PubSub channel: nuxeo:cacheinval:channel
+    protected static final String INVALIDATION_CHANNEL = "channel";
+
+    protected static final String ALL_KEYS = "*";
+
+    protected static final String SEPARATOR = "\n";
+
+    // Max delay to wait for a channel subscription
+    protected static final long TIMEOUT_SUBSCRIBE_SECOND = 10;
+
+    protected final String nodeId = UUID.randomUUID().toString();
+
+    protected final RedisExecutor executor;
+
+    protected final String channel;
+
+    protected final ConcurrentMap<String, List<Listener>> listeners = new ConcurrentHashMap<>();
+
+    protected final CountDownLatch subscribeLatch = new CountDownLatch(1);
+
+    protected final JedisPubSub pubSub = new JedisPubSub() {
+
+        @Override
+        public void onSubscribe(String channel, int subscribedChannels) {
+            subscribeLatch.countDown();
+            log.debug("Subscribed to channel: " + channel);
+        }
+
+        @Override
+        public void onMessage(String channel, String message) {
+            try {
+                receive(message);
+            } catch (RuntimeException e) {
+                log.error("Failed to process cache invalidation message: " + message, e);
+            }
+        }
+    };
+
+    protected Thread subscriberThread;
+
+    public RedisCacheInvalidationChannel(RedisExecutor executor, RedisAdmin admin) {
+        this.executor = executor;
+        channel = admin.namespace(PREFIX) + INVALIDATION_CHANNEL;
+    }
+
+    public void start() {
+        subscriberThread = new Thread(() -> executor.execute(jedis -> {
+            jedis.subscribe(pubSub, channel);
+            return null;
+        }), "RedisCacheInvalidationSubscriber:" + nodeId);
+        subscriberThread.setDaemon(true);
+        subscriberThread.setUncaughtExceptionHandler((t, e) -> log.error("Uncaught error on thread " + t.getName(), e));
+        subscriberThread.start();
+        try {
+            if (!subscribeLatch.await(TIMEOUT_SUBSCRIBE_SECOND, TimeUnit.SECONDS)) {
+                log.error("Redis channel subscription timeout after " + TIMEOUT_SUBSCRIBE_SECOND
+                        + "s, continuing but this node may not receive cache invalidations");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void close() {
+        if (pubSub.isSubscribed()) {
+            pubSub.unsubscribe();
+        }
+        listeners.clear();
+    }
+
+    @Override
+    public void subscribe(String topic, Listener listener) {
+        listeners.computeIfAbsent(topic, k -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    @Override
+    public void unsubscribe(String topic, Listener listener) {
+        List<Listener> list = listeners.get(topic);
+        if (list != null) {
+            list.remove(listener);
+        }
+    }
+
+    @Override
+    public void publish(String topic, Collection<String> keys) {
+        StringBuilder buf = new StringBuilder();
+        buf.append(nodeId).append(SEPARATOR).append(topic);
+        if (keys == null) {
+            buf.append(SEPARATOR).append(ALL_KEYS);
+        } else {
+            if (keys.isEmpty()) {
+                return;
+            }
+            for (String key : keys) {
+                if (key.contains(SEPARATOR) || ALL_KEYS.equals(key)) {
+                    // cannot be encoded, invalidate everything instead
+                    publish(topic, null);
+                    return;
+                }
+                buf.append(SEPARATOR).append(key);
+            }
+        }
+        String message = buf.toString();
+        executor.execute(jedis -> jedis.publish(channel, message));
+    }
+
+    protected void receive(String message) {
+        String[] parts = StringUtils.split(message, SEPARATOR);
+        if (parts.length < 3) {
+            throw new IllegalArgumentException("Invalid message");
+        }
+        if (nodeId.equals(parts[0])) {
+            // sent by this node
+            return;
+        }
+        List<Listener> list = listeners.get(parts[1]);
+        if (list == null || list.isEmpty()) {
+            return;
+        }
+        Collection<String> keys;
+        if (parts.length == 3 && ALL_KEYS.equals(parts[2])) {
+            keys = null;
+        } else {
+            keys = new ArrayList<>(Arrays.asList(parts).subList(2, parts.length));
+        }
+        if (log.isTraceEnabled()) {
+            log.trace("Received invalidations for " + parts[1] + ": " + (keys == null ? ALL_KEYS : keys));
+        }
+        for (Listener listener : list) {
+            listener.invalidate(keys);
+        }
+    }
+
+}
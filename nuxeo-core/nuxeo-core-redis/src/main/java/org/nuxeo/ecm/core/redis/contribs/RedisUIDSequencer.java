@@ -72,4 +72,20 @@ public class RedisUIDSequencer extends AbstractUIDSequencer {
         }
     }
 
+    @Override
+    public long[] getNextBlock(String key, int size) {
+        RedisExecutor executor = Framework.getService(RedisExecutor.class);
+        try {
+            long last = executor.execute(new RedisCallable<Long>() {
+                @Override
+                public Long call(Jedis jedis) {
+                    return jedis.incrBy(namespace + key, size);
+                }
+            });
+            return range(last, size);
+        } catch (JedisException e) {
+            throw new NuxeoException(e);
+        }
+    }
+
 }
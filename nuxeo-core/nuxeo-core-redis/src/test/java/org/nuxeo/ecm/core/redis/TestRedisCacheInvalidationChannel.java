@@ -0,0 +1,147 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.redis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.cache.CacheInvalidationChannel;
+import org.nuxeo.ecm.core.redis.contribs.RedisCacheInvalidationChannel;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+
+/**
+ * Sends invalidations between two channels, as two nodes of a cluster would.
+ *
+ * @since 8.3
+ */
+@RunWith(FeaturesRunner.class)
+@Features(RedisFeature.class)
+public class TestRedisCacheInvalidationChannel {
+
+    protected static final String TOPIC = "test";
+
+    protected static final long TIMEOUT_SECONDS = 10;
+
+    // a received "all keys" invalidation, as the queue doesn't accept null
+    protected static final Collection<String> ALL = Collections.singletonList("<all>");
+
+    protected RedisCacheInvalidationChannel node1;
+
+    protected RedisCacheInvalidationChannel node2;
+
+    protected final BlockingQueue<Collection<String>> received1 = new LinkedBlockingQueue<>();
+
+    protected final BlockingQueue<Collection<String>> received2 = new LinkedBlockingQueue<>();
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("Require a true Redis server with pubsub support",
+                "server".equals(Framework.getProperty("nuxeo.test.redis.mode")));
+        RedisExecutor executor = Framework.getService(RedisExecutor.class);
+        RedisAdmin admin = Framework.getService(RedisAdmin.class);
+        node1 = new RedisCacheInvalidationChannel(executor, admin);
+        node2 = new RedisCacheInvalidationChannel(executor, admin);
+        node1.start();
+        node2.start();
+        node1.subscribe(TOPIC, listener(received1));
+        node2.subscribe(TOPIC, listener(received2));
+    }
+
+    @After
+    public void tearDown() {
+        if (node1 != null) {
+            node1.close();
+        }
+        if (node2 != null) {
+            node2.close();
+        }
+    }
+
+    protected static CacheInvalidationChannel.Listener listener(BlockingQueue<Collection<String>> received) {
+        return keys -> received.add(keys == null ? ALL : keys);
+    }
+
+    protected static Collection<String> poll(BlockingQueue<Collection<String>> received) throws InterruptedException {
+        Collection<String> keys = received.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull("No invalidation received after " + TIMEOUT_SECONDS + "s", keys);
+        return keys;
+    }
+
+    @Test
+    public void testSendReceiveKeys() throws Exception {
+        node1.publish(TOPIC, Arrays.asList("a", "b"));
+        assertEquals(Arrays.asList("a", "b"), poll(received2));
+
+        node2.publish(TOPIC, Collections.singletonList("c"));
+        assertEquals(Collections.singletonList("c"), poll(received1));
+
+        // the sender doesn't receive its own invalidations
+        assertTrue(received1.isEmpty());
+        assertNull(received2.poll());
+    }
+
+    @Test
+    public void testSendReceiveAll() throws Exception {
+        node1.publish(TOPIC, null);
+        assertEquals(ALL, poll(received2));
+
+        // keys that cannot be encoded invalidate everything
+        node1.publish(TOPIC, Arrays.asList("a", "b\nc"));
+        assertEquals(ALL, poll(received2));
+        node1.publish(TOPIC, Collections.singletonList("*"));
+        assertEquals(ALL, poll(received2));
+    }
+
+    @Test
+    public void testTopics() throws Exception {
+        BlockingQueue<Collection<String>> other = new LinkedBlockingQueue<>();
+        CacheInvalidationChannel.Listener otherListener = listener(other);
+        node2.subscribe("other", otherListener);
+        node1.publish("other", Collections.singletonList("x"));
+        node1.publish(TOPIC, Collections.singletonList("y"));
+        assertEquals(Collections.singletonList("x"), poll(other));
+        assertEquals(Collections.singletonList("y"), poll(received2));
+        assertTrue(other.isEmpty());
+
+        // no more invalidations once unsubscribed
+        node2.unsubscribe("other", otherListener);
+        node1.publish("other", Collections.singletonList("x"));
+        node1.publish(TOPIC, Collections.singletonList("z"));
+        // messages are delivered in order, so the first one was skipped once the second one is received
+        assertEquals(Collections.singletonList("z"), poll(received2));
+        assertTrue(other.isEmpty());
+    }
+
+}
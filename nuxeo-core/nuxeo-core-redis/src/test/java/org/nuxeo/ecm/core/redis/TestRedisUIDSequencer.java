@@ -23,11 +23,16 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.concurrent.TimeUnit;
+
 import javax.inject.Inject;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.nuxeo.ecm.core.redis.contribs.RedisUIDSequencer;
+import org.nuxeo.ecm.core.uidgen.BlockUIDSequencer;
 import org.nuxeo.ecm.core.uidgen.UIDGeneratorService;
 import org.nuxeo.ecm.core.uidgen.UIDSequencer;
 import org.nuxeo.runtime.test.runner.Features;
@@ -39,6 +44,8 @@ import org.nuxeo.runtime.test.runner.LocalDeploy;
 @LocalDeploy("org.nuxeo.ecm.core.redis.tests:test-uidsequencer-contrib.xml")
 public class TestRedisUIDSequencer {
 
+    private static final Log log = LogFactory.getLog(TestRedisUIDSequencer.class);
+
     @Inject
     protected UIDGeneratorService service;
 
@@ -56,4 +63,43 @@ public class TestRedisUIDSequencer {
         assertEquals(2, sequencer.getNext("B"));
     }
 
+    @Test
+    public void testRedisBlockSequencer() throws Exception {
+        UIDSequencer sequencer = service.getSequencer("redisBlockSequencer");
+        assertTrue(sequencer instanceof BlockUIDSequencer);
+        sequencer.init();
+
+        assertEquals(1, sequencer.getNext("blockA"));
+        assertEquals(2, sequencer.getNext("blockA"));
+        // the whole block is reserved in Redis
+        UIDSequencer single = service.getSequencer("redisSequencer");
+        single.init();
+        assertEquals(101, single.getNext("blockA"));
+        assertEquals(3L, sequencer.getNextLong("blockA"));
+    }
+
+    /**
+     * Logs the time to allocate values one by one and by blocks.
+     */
+    @Test
+    public void testThroughput() throws Exception {
+        int n = 10000;
+        UIDSequencer single = service.getSequencer("redisSequencer");
+        UIDSequencer block = service.getSequencer("redisBlockSequencer");
+        single.init();
+        block.init();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            single.getNextLong("perfSingle");
+        }
+        long t1 = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            block.getNextLong("perfBlock");
+        }
+        long t2 = System.nanoTime();
+        assertEquals(n, block.getNextLong("perfBlock") - 1);
+        log.debug(String.format("Redis: %d values one by one %d ms, by blocks of 100 %d ms", n,
+                TimeUnit.NANOSECONDS.toMillis(t1 - t0), TimeUnit.NANOSECONDS.toMillis(t2 - t1)));
+    }
+
 }
@@ -130,6 +130,18 @@ public class DBSDocumentState {
         state.put(key, value);
     }
 
+    /**
+     * Sets a value that has already been written to the storage, so it doesn't make the state dirty.
+     *
+     * @since 8.3
+     */
+    public void putSaved(String key, Serializable value) {
+        state.put(key, value);
+        if (originalState != null) {
+            originalState.put(key, value);
+        }
+    }
+
     public boolean containsKey(String key) {
         return state.get(key) != null;
     }
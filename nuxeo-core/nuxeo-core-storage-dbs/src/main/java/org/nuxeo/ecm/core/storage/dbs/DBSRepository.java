@@ -117,6 +117,53 @@ public interface DBSRepository extends Repository, LockManager {
      */
     void deleteStates(Set<String> ids);
 
+    /**
+     * Creates, updates and deletes a batch of documents.
+     * <p>
+     * Each document appears at most once in the batch, so implementations are free to reorder the writes of different
+     * documents and to send them to the storage in as few round trips as possible.
+     *
+     * @param creates the states of the documents to create
+     * @param updates the diffs to apply to the documents to update, by document id
+     * @param deletes the ids of the documents to delete
+     * @since 8.3
+     */
+    void writeStates(List<State> creates, Map<String, StateDiff> updates, Set<String> deletes);
+
+    /**
+     * Updates the ancestors of all the documents under a given one (not included), after a move.
+     * <p>
+     * All these documents have ancestors starting with {@code oldAncestorIds}, which are replaced by
+     * {@code ancestorIds}.
+     *
+     * @param id the root of the tree
+     * @param oldAncestorIds the ancestors to replace
+     * @param ancestorIds the new ancestors
+     * @since 8.3
+     */
+    void updateAncestors(String id, Object[] oldAncestorIds, Object[] ancestorIds);
+
+    /**
+     * Sets a value on all the documents under a given one (not included), except on the excluded subtrees.
+     *
+     * @param id the root of the tree
+     * @param excluded documents of the tree which, with all the documents under them, must not be updated
+     * @param key the key
+     * @param value the value
+     * @since 8.3
+     */
+    void updateSubTree(String id, Set<String> excluded, String key, Serializable value);
+
+    /**
+     * Queries the repository for the documents under a given one (not included) having a non-null value for a key.
+     *
+     * @param id the root of the tree
+     * @param key the key
+     * @return the document states matching the query
+     * @since 8.3
+     */
+    List<State> querySubTreeKeyPresence(String id, String key);
+
     /**
      * Reads the state of a child document.
      *
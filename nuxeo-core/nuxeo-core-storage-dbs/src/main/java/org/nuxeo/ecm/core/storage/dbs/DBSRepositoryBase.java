@@ -19,17 +19,23 @@
 package org.nuxeo.ecm.core.storage.dbs;
 
 import static java.lang.Boolean.FALSE;
+import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ANCESTOR_IDS;
+import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ID;
 
 import java.io.Serializable;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -64,6 +70,8 @@ import org.nuxeo.ecm.core.schema.types.Schema;
 import org.nuxeo.ecm.core.schema.types.Type;
 import org.nuxeo.ecm.core.storage.FulltextConfiguration;
 import org.nuxeo.ecm.core.storage.FulltextDescriptor;
+import org.nuxeo.ecm.core.storage.State;
+import org.nuxeo.ecm.core.storage.State.StateDiff;
 import org.nuxeo.ecm.core.storage.lock.LockManagerService;
 import org.nuxeo.ecm.core.storage.sql.ra.ConnectionFactoryImpl;
 import org.nuxeo.runtime.api.Framework;
@@ -88,6 +96,13 @@ public abstract class DBSRepositoryBase implements DBSRepository {
 
     private static final String UUID_ZERO_DEBUG = "UUID_0";
 
+    /**
+     * Number of documents read and written at a time by the generic recursive updates.
+     *
+     * @since 8.3
+     */
+    protected static final int SUBTREE_BATCH_SIZE = 500;
+
     protected final String repositoryName;
 
     protected final FulltextConfiguration fulltextConfiguration;
@@ -273,6 +288,127 @@ public abstract class DBSRepositoryBase implements DBSRepository {
         return fulltextConfiguration == null;
     }
 
+    /**
+     * Gets the ids of all the documents under a given one (not included).
+     *
+     * @since 8.3
+     */
+    protected List<String> getSubTreeIds(String id) {
+        Set<String> ids = new HashSet<>();
+        queryKeyValueArray(KEY_ANCESTOR_IDS, id, ids, null, null);
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * Replaces the first {@code ndel} ancestors with new ones.
+     *
+     * @since 8.3
+     */
+    protected static Object[] replaceAncestors(Object[] ancestors, int ndel, Object[] ancestorIds) {
+        if (ancestors == null) {
+            return ancestorIds.clone();
+        }
+        int nadd = ancestorIds.length;
+        Object[] newAncestors = new Object[ancestors.length - ndel + nadd];
+        System.arraycopy(ancestorIds, 0, newAncestors, 0, nadd);
+        System.arraycopy(ancestors, ndel, newAncestors, nadd, ancestors.length - ndel);
+        return newAncestors;
+    }
+
+    /**
+     * Checks if a document is one of the given ones or under one of them.
+     *
+     * @since 8.3
+     */
+    protected static boolean isInSubTrees(State state, Set<String> ids) {
+        if (ids.isEmpty()) {
+            return false;
+        }
+        if (ids.contains(state.get(KEY_ID))) {
+            return true;
+        }
+        Object[] ancestors = (Object[]) state.get(KEY_ANCESTOR_IDS);
+        if (ancestors != null) {
+            for (Object ancestor : ancestors) {
+                if (ids.contains(ancestor)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Generic implementation reading and writing the documents of the tree by batches of {@link #SUBTREE_BATCH_SIZE}.
+     *
+     * @since 8.3
+     */
+    @Override
+    public void updateAncestors(String id, Object[] oldAncestorIds, Object[] ancestorIds) {
+        int ndel = oldAncestorIds.length;
+        List<String> ids = getSubTreeIds(id);
+        for (int i = 0; i < ids.size(); i += SUBTREE_BATCH_SIZE) {
+            List<String> batch = ids.subList(i, Math.min(i + SUBTREE_BATCH_SIZE, ids.size()));
+            Map<String, StateDiff> updates = new HashMap<>();
+            for (State state : readStates(batch)) {
+                if (state == null) {
+                    continue; // concurrently deleted
+                }
+                Object[] ancestors = (Object[]) state.get(KEY_ANCESTOR_IDS);
+                if (ancestors == null || ancestors.length < ndel) {
+                    continue; // concurrently moved
+                }
+                StateDiff diff = new StateDiff();
+                diff.put(KEY_ANCESTOR_IDS, replaceAncestors(ancestors, ndel, ancestorIds));
+                updates.put((String) state.get(KEY_ID), diff);
+            }
+            writeStates(Collections.<State> emptyList(), updates, Collections.<String> emptySet());
+        }
+    }
+
+    /**
+     * Generic implementation reading and writing the documents of the tree by batches of {@link #SUBTREE_BATCH_SIZE}.
+     *
+     * @since 8.3
+     */
+    @Override
+    public void updateSubTree(String id, Set<String> excluded, String key, Serializable value) {
+        List<String> ids = getSubTreeIds(id);
+        for (int i = 0; i < ids.size(); i += SUBTREE_BATCH_SIZE) {
+            List<String> batch = ids.subList(i, Math.min(i + SUBTREE_BATCH_SIZE, ids.size()));
+            Map<String, StateDiff> updates = new HashMap<>();
+            for (State state : readStates(batch)) {
+                if (state == null || isInSubTrees(state, excluded) || Objects.deepEquals(state.get(key), value)) {
+                    continue;
+                }
+                StateDiff diff = new StateDiff();
+                diff.put(key, value);
+                updates.put((String) state.get(KEY_ID), diff);
+            }
+            writeStates(Collections.<State> emptyList(), updates, Collections.<String> emptySet());
+        }
+    }
+
+    /**
+     * Generic implementation reading the documents of the tree by batches of {@link #SUBTREE_BATCH_SIZE}.
+     *
+     * @since 8.3
+     */
+    @Override
+    public List<State> querySubTreeKeyPresence(String id, String key) {
+        List<State> states = new ArrayList<>();
+        List<String> ids = getSubTreeIds(id);
+        for (int i = 0; i < ids.size(); i += SUBTREE_BATCH_SIZE) {
+            List<String> batch = ids.subList(i, Math.min(i + SUBTREE_BATCH_SIZE, ids.size()));
+            for (State state : readStates(batch)) {
+                if (state != null && state.get(key) != null) {
+                    states.add(state);
+                }
+            }
+        }
+        return states;
+    }
+
     @Override
     public int getActiveSessionsCount() {
         return transactionContexts.size();
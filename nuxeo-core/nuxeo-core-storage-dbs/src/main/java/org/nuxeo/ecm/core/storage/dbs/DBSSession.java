@@ -354,6 +354,12 @@ public class DBSSession implements Session {
         throw new DocumentNotFoundException(id);
     }
 
+    @Override
+    public void prefetchDocuments(List<String> ids, Set<String> schemas) {
+        // states hold all the schemas, read the missing ones in bulk
+        transaction.getStatesForUpdate(ids);
+    }
+
     @Override
     public Document getRootDocument() {
         return getDocument(getRootId());
@@ -51,6 +51,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -119,6 +120,45 @@ public class DBSTransactionState {
      */
     protected Map<String, State> undoLog;
 
+    /**
+     * The recursive ancestors updates done directly in the repository, in order.
+     * <p>
+     * Null when there is no active transaction.
+     *
+     * @since 8.3
+     */
+    protected List<AncestorsUpdate> undoAncestors;
+
+    /**
+     * A recursive ancestors update done directly in the repository: the ancestors of the documents under a document,
+     * which start with the old ancestors, now start with the new ancestors.
+     *
+     * @since 8.3
+     */
+    protected static class AncestorsUpdate {
+
+        protected final String id;
+
+        protected final Object[] oldAncestorIds;
+
+        protected final Object[] ancestorIds;
+
+        protected AncestorsUpdate(String id, Object[] oldAncestorIds, Object[] ancestorIds) {
+            this.id = id;
+            this.oldAncestorIds = oldAncestorIds;
+            this.ancestorIds = ancestorIds;
+        }
+    }
+
+    /**
+     * Roots of the recursive Read ACLs updates done directly in the repository, recomputed when applying the undo log.
+     * <p>
+     * Null when there is no active transaction.
+     *
+     * @since 8.3
+     */
+    protected Set<String> undoReadAcls;
+
     protected final Set<String> browsePermissions;
 
     public DBSTransactionState(DBSRepository repository, DBSSession session) {
@@ -180,8 +220,8 @@ public class DBSTransactionState {
      * modified).
      */
     public List<DBSDocumentState> getStatesForUpdate(List<String> ids) {
-        // check which ones we have to fetch from repository
-        List<String> idsToFetch = new LinkedList<String>();
+        // check which ones we have to fetch from repository, each one once
+        Set<String> idsToFetch = new LinkedHashSet<String>();
         for (String id : ids) {
             // check transient state
             DBSDocumentState docState = transientStates.get(id);
@@ -192,7 +232,7 @@ public class DBSTransactionState {
             idsToFetch.add(id);
         }
         if (!idsToFetch.isEmpty()) {
-            List<State> states = repository.readStates(idsToFetch);
+            List<State> states = repository.readStates(new ArrayList<String>(idsToFetch));
             for (State state : states) {
                 newTransientState(state);
             }
@@ -315,8 +355,8 @@ public class DBSTransactionState {
         docState.put(KEY_NAME, name);
         docState.put(KEY_POS, pos);
         docState.put(KEY_PRIMARY_TYPE, typeName);
-        // update read acls for new doc
-        updateReadAcls(id);
+        // update read acls for new doc, which has no children yet
+        docState.put(KEY_READ_ACL, getReadACL(docState));
         return docState;
     }
 
@@ -361,73 +401,131 @@ public class DBSTransactionState {
      * <p>
      * Recursing from given doc, replace the first ndel ancestors with those passed.
      * <p>
-     * Doesn't check transient (assumes save is done). The modifications are automatically saved.
+     * Doesn't check transient (assumes save is done). The descendants are updated directly in the repository, and in
+     * the transient states already loaded. The modifications are automatically saved.
      */
     public void updateAncestors(String id, int ndel, Object[] ancestorIds) {
-        int nadd = ancestorIds.length;
-        Set<String> ids = getSubTree(id, null, null);
-        ids.add(id);
-        for (String cid : ids) {
-            // XXX TODO oneShot update, don't pollute transient space
-            DBSDocumentState docState = getStateForUpdate(cid);
-            Object[] ancestors = (Object[]) docState.get(KEY_ANCESTOR_IDS);
-            Object[] newAncestors;
-            if (ancestors == null) {
-                newAncestors = ancestorIds.clone();
-            } else {
-                newAncestors = new Object[ancestors.length - ndel + nadd];
-                System.arraycopy(ancestorIds, 0, newAncestors, 0, nadd);
-                System.arraycopy(ancestors, ndel, newAncestors, nadd, ancestors.length - ndel);
+        DBSDocumentState docState = getStateForUpdate(id);
+        Object[] ancestors = (Object[]) docState.get(KEY_ANCESTOR_IDS);
+        docState.put(KEY_ANCESTOR_IDS, DBSRepositoryBase.replaceAncestors(ancestors, ndel, ancestorIds));
+        Object[] oldAncestorIds = ancestors == null ? new Object[0] : Arrays.copyOf(ancestors, ndel);
+        repository.updateAncestors(id, oldAncestorIds, ancestorIds);
+        if (undoAncestors != null) {
+            undoAncestors.add(new AncestorsUpdate(id, oldAncestorIds, ancestorIds));
+        }
+        for (DBSDocumentState ds : transientStates.values()) {
+            Object[] dsAncestors = (Object[]) ds.get(KEY_ANCESTOR_IDS);
+            if (ds != docState && dsAncestors != null && Arrays.asList(dsAncestors).contains(id)) {
+                ds.putSaved(KEY_ANCESTOR_IDS, DBSRepositoryBase.replaceAncestors(dsAncestors, ndel, ancestorIds));
             }
-            docState.put(KEY_ANCESTOR_IDS, newAncestors);
         }
     }
 
     /**
      * Updates the Read ACLs recursively on a document.
+     * <p>
+     * Doesn't check transient (assumes save is done). The descendants are updated directly in the repository, and in
+     * the transient states already loaded.
      */
     public void updateReadAcls(String id) {
         // versions too XXX TODO
-        Set<String> ids = getSubTree(id, null, null);
-        ids.add(id);
-        for (String cid : ids) {
-            // XXX TODO oneShot update, don't pollute transient space
-            DBSDocumentState docState = getStateForUpdate(cid);
-            docState.put(KEY_READ_ACL, getReadACL(docState));
+        DBSDocumentState docState = getStateForUpdate(id);
+        String[] racl = getReadACL(docState);
+        docState.put(KEY_READ_ACL, racl);
+        if (!transientCreated.contains(id)) {
+            updateSubTreeReadAcls(id, racl);
+            if (undoReadAcls != null) {
+                undoReadAcls.add(id);
+            }
+        }
+        for (DBSDocumentState ds : transientStates.values()) {
+            String dsId = ds.getId();
+            if (transientCreated.contains(dsId) && !dsId.equals(id) && isUnder(ds.getState(), id)) {
+                // not in the repository yet
+                ds.put(KEY_READ_ACL, getReadACL(ds));
+            }
         }
     }
 
+    /**
+     * Updates the Read ACLs of all the documents under a given one in the repository, knowing its Read ACL.
+     * <p>
+     * Only the documents having an ACP are read, the others get the Read ACL of their nearest ancestor having one,
+     * which is written in a single recursive update per such ancestor.
+     */
+    protected void updateSubTreeReadAcls(String id, String[] racl) {
+        List<State> states = repository.querySubTreeKeyPresence(id, KEY_ACP);
+        // top-down, so that the Read ACL of the parent tree is known
+        Collections.sort(states, (s1, s2) -> Integer.compare(((Object[]) s1.get(KEY_ANCESTOR_IDS)).length,
+                ((Object[]) s2.get(KEY_ANCESTOR_IDS)).length));
+        Map<String, String[]> racls = new LinkedHashMap<>();
+        racls.put(id, racl);
+        for (State state : states) {
+            String[] parentRacl = getNearestReadACL(state, racls);
+            racls.put((String) state.get(KEY_ID), getReadACL(state, parentRacl));
+        }
+        for (Entry<String, String[]> en : racls.entrySet()) {
+            String rid = en.getKey();
+            Set<String> excluded = new HashSet<>();
+            for (State state : states) {
+                if (isUnder(state, rid)) {
+                    excluded.add((String) state.get(KEY_ID));
+                }
+            }
+            repository.updateSubTree(rid, excluded, KEY_READ_ACL, en.getValue());
+        }
+        Map<String, StateDiff> updates = new HashMap<>();
+        for (State state : states) {
+            String sid = (String) state.get(KEY_ID);
+            String[] sracl = racls.get(sid);
+            if (!Arrays.equals((Object[]) state.get(KEY_READ_ACL), sracl)) {
+                StateDiff diff = new StateDiff();
+                diff.put(KEY_READ_ACL, sracl);
+                updates.put(sid, diff);
+            }
+        }
+        if (!updates.isEmpty()) {
+            repository.writeStates(Collections.<State> emptyList(), updates, Collections.<String> emptySet());
+        }
+        // documents already loaded
+        for (DBSDocumentState ds : transientStates.values()) {
+            String dsId = ds.getId();
+            if (dsId.equals(id) || transientCreated.contains(dsId) || !isUnder(ds.getState(), id)) {
+                continue;
+            }
+            String[] dsRacl = racls.get(dsId);
+            ds.putSaved(KEY_READ_ACL, dsRacl != null ? dsRacl : getNearestReadACL(ds.getState(), racls));
+        }
+    }
+
+    protected static boolean isUnder(State state, String id) {
+        Object[] ancestors = (Object[]) state.get(KEY_ANCESTOR_IDS);
+        return ancestors != null && Arrays.asList(ancestors).contains(id);
+    }
+
+    /**
+     * Gets the Read ACL of the nearest ancestor of a document for which it is known.
+     */
+    protected String[] getNearestReadACL(State state, Map<String, String[]> racls) {
+        Object[] ancestors = (Object[]) state.get(KEY_ANCESTOR_IDS);
+        for (int i = ancestors.length - 1; i >= 0; i--) {
+            String[] racl = racls.get(ancestors[i]);
+            if (racl != null) {
+                return racl;
+            }
+        }
+        throw new IllegalStateException("No known ancestor for: " + state.get(KEY_ID));
+    }
+
     /**
      * Gets the Read ACL (flat list of users having browse permission, including inheritance) on a document.
      */
     protected String[] getReadACL(DBSDocumentState docState) {
         Set<String> racls = new HashSet<>();
         State state = docState.getState();
-        LOOP: do {
-            @SuppressWarnings("unchecked")
-            List<Serializable> aclList = (List<Serializable>) state.get(KEY_ACP);
-            if (aclList != null) {
-                for (Serializable aclSer : aclList) {
-                    State aclMap = (State) aclSer;
-                    @SuppressWarnings("unchecked")
-                    List<Serializable> aceList = (List<Serializable>) aclMap.get(KEY_ACL);
-                    for (Serializable aceSer : aceList) {
-                        State aceMap = (State) aceSer;
-                        String username = (String) aceMap.get(KEY_ACE_USER);
-                        String permission = (String) aceMap.get(KEY_ACE_PERMISSION);
-                        Boolean granted = (Boolean) aceMap.get(KEY_ACE_GRANT);
-                        if (TRUE.equals(granted) && browsePermissions.contains(permission)) {
-                            racls.add(username);
-                        }
-                        if (FALSE.equals(granted)) {
-                            if (!EVERYONE.equals(username)) {
-                                // TODO log
-                                racls.add(UNSUPPORTED_ACL);
-                            }
-                            break LOOP;
-                        }
-                    }
-                }
+        do {
+            if (addReadACL(state, racls)) {
+                break;
             }
             // get parent
             if (TRUE.equals(state.get(KEY_IS_VERSION))) {
@@ -438,13 +536,62 @@ public class DBSTransactionState {
                 state = parentId == null ? null : getStateForRead(parentId);
             }
         } while (state != null);
+        return sortReadACL(racls);
+    }
+
+    /**
+     * Gets the Read ACL on a document, knowing the Read ACL of its parent.
+     */
+    protected String[] getReadACL(State state, String[] parentRacl) {
+        Set<String> racls = new HashSet<>();
+        if (!addReadACL(state, racls)) {
+            racls.addAll(Arrays.asList(parentRacl));
+        }
+        return sortReadACL(racls);
+    }
 
+    protected static String[] sortReadACL(Set<String> racls) {
         // sort to have canonical order
         List<String> racl = new ArrayList<>(racls);
         Collections.sort(racl);
         return racl.toArray(new String[racl.size()]);
     }
 
+    /**
+     * Adds the users having browse permission in the ACP of a document.
+     *
+     * @return {@code true} if the ACP blocks inheritance
+     */
+    protected boolean addReadACL(State state, Set<String> racls) {
+        @SuppressWarnings("unchecked")
+        List<Serializable> aclList = (List<Serializable>) state.get(KEY_ACP);
+        if (aclList == null) {
+            return false;
+        }
+        for (Serializable aclSer : aclList) {
+            State aclMap = (State) aclSer;
+            @SuppressWarnings("unchecked")
+            List<Serializable> aceList = (List<Serializable>) aclMap.get(KEY_ACL);
+            for (Serializable aceSer : aceList) {
+                State aceMap = (State) aceSer;
+                String username = (String) aceMap.get(KEY_ACE_USER);
+                String permission = (String) aceMap.get(KEY_ACE_PERMISSION);
+                Boolean granted = (Boolean) aceMap.get(KEY_ACE_GRANT);
+                if (TRUE.equals(granted) && browsePermissions.contains(permission)) {
+                    racls.add(username);
+                }
+                if (FALSE.equals(granted)) {
+                    if (!EVERYONE.equals(username)) {
+                        // TODO log
+                        racls.add(UNSUPPORTED_ACL);
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Gets all the ids under a given one, recursively.
      * <p>
@@ -519,7 +666,7 @@ public class DBSTransactionState {
                     }
                 } else {
                     // just delete -> store old state to re-create
-                    State oldState = StateHelper.deepCopy(getStateForRead(id));
+                    State oldState = getUndoState(getStateForRead(id));
                     oldState.put(KEY_UNDOLOG_CREATE, TRUE);
                     undoLog.put(id, oldState);
                 }
@@ -545,13 +692,15 @@ public class DBSTransactionState {
         } else {
             works = Collections.emptyList();
         }
+        List<State> creates = new ArrayList<>(transientCreated.size());
+        Map<String, StateDiff> updates = new LinkedHashMap<>();
         for (String id : transientCreated) { // ordered
             DBSDocumentState docState = transientStates.get(id);
             docState.setNotDirty();
             if (undoLog != null) {
                 undoLog.put(id, null); // marker to denote create
             }
-            repository.createState(docState.getState());
+            creates.add(docState.getState());
         }
         for (DBSDocumentState docState : transientStates.values()) {
             String id = docState.getId();
@@ -562,19 +711,49 @@ public class DBSTransactionState {
             if (diff != null) {
                 if (undoLog != null) {
                     if (!undoLog.containsKey(id)) {
-                        undoLog.put(id, StateHelper.deepCopy(docState.getOriginalState()));
+                        undoLog.put(id, getUndoState(docState.getOriginalState()));
                     }
                     // else there's already a create or an update in the undo log so original info is enough
                 }
-                repository.updateState(id, diff);
+                updates.put(id, diff);
             }
             docState.setNotDirty();
         }
+        if (!creates.isEmpty() || !updates.isEmpty()) {
+            repository.writeStates(creates, updates, Collections.<String> emptySet());
+        }
         transientCreated.clear();
         scheduleWork(works);
     }
 
+    /**
+     * Copies a state to put in the undo log.
+     * <p>
+     * The ancestors of a document under a moved one may already have been updated by the recursive ancestors updates,
+     * they are restored to their values at the beginning of the transaction, so that the undo log can be applied after
+     * the recursive updates have been undone.
+     *
+     * @since 8.3
+     */
+    protected State getUndoState(State state) {
+        State undoState = StateHelper.deepCopy(state);
+        Object[] ancestors = (Object[]) undoState.get(KEY_ANCESTOR_IDS);
+        if (ancestors != null && undoAncestors != null) {
+            for (int i = undoAncestors.size() - 1; i >= 0; i--) {
+                AncestorsUpdate update = undoAncestors.get(i);
+                if (Arrays.asList(ancestors).contains(update.id)) {
+                    ancestors = DBSRepositoryBase.replaceAncestors(ancestors, update.ancestorIds.length,
+                            update.oldAncestorIds);
+                }
+            }
+            undoState.put(KEY_ANCESTOR_IDS, ancestors);
+        }
+        return undoState;
+    }
+
     protected void applyUndoLog() {
+        List<State> creates = new ArrayList<>();
+        Map<String, StateDiff> updates = new LinkedHashMap<>();
         Set<String> deletes = new HashSet<>();
         for (Entry<String, State> es : undoLog.entrySet()) {
             String id = es.getKey();
@@ -584,14 +763,14 @@ public class DBSTransactionState {
             } else {
                 boolean recreate = state.remove(KEY_UNDOLOG_CREATE) != null;
                 if (recreate) {
-                    repository.createState(state);
+                    creates.add(state);
                 } else {
                     // undo update
                     State currentState = repository.readState(id);
                     if (currentState != null) {
                         StateDiff diff = StateHelper.diff(currentState, state);
                         if (!diff.isEmpty()) {
-                            repository.updateState(id, diff);
+                            updates.put(id, diff);
                         }
                     }
                     // else we expected to read a current state but it was concurrently deleted...
@@ -599,8 +778,43 @@ public class DBSTransactionState {
                 }
             }
         }
-        if (!deletes.isEmpty()) {
-            repository.deleteStates(deletes);
+        repository.writeStates(creates, updates, deletes);
+    }
+
+    /**
+     * Undoes the recursive ancestors updates done directly in the repository, in reverse order.
+     * <p>
+     * Must be done before applying the undo log, while the ancestors of the documents are still those set by the
+     * updates.
+     *
+     * @since 8.3
+     */
+    protected void applyUndoAncestors() {
+        for (int i = undoAncestors.size() - 1; i >= 0; i--) {
+            AncestorsUpdate update = undoAncestors.get(i);
+            repository.updateAncestors(update.id, update.ancestorIds, update.oldAncestorIds);
+        }
+    }
+
+    /**
+     * Recomputes the Read ACLs updated recursively in the repository, once the documents at their roots have been
+     * restored by the undo log.
+     *
+     * @since 8.3
+     */
+    protected void applyUndoReadAcls() {
+        for (String id : undoReadAcls) {
+            State state = repository.readState(id);
+            if (state == null) {
+                continue; // creation undone
+            }
+            String[] racl = getReadACL(new DBSDocumentState(state));
+            if (!Arrays.equals((Object[]) state.get(KEY_READ_ACL), racl)) {
+                StateDiff diff = new StateDiff();
+                diff.put(KEY_READ_ACL, racl);
+                repository.updateState(id, diff);
+            }
+            updateSubTreeReadAcls(id, racl);
         }
     }
 
@@ -707,6 +921,8 @@ public class DBSTransactionState {
      */
     public void begin() {
         undoLog = new HashMap<String, State>();
+        undoAncestors = new ArrayList<>();
+        undoReadAcls = new LinkedHashSet<>();
     }
 
     /**
@@ -726,6 +942,8 @@ public class DBSTransactionState {
         clearTransient();
         // the transaction ended, the proxied DBSSession will disappear and cannot be reused anyway
         undoLog = null;
+        undoAncestors = null;
+        undoReadAcls = null;
     }
 
     /**
@@ -733,9 +951,13 @@ public class DBSTransactionState {
      */
     public void rollback() {
         clearTransient();
+        applyUndoAncestors();
         applyUndoLog();
+        applyUndoReadAcls();
         // the transaction ended, the proxied DBSSession will disappear and cannot be reused anyway
         undoLog = null;
+        undoAncestors = null;
+        undoReadAcls = null;
     }
 
     protected void clearTransient() {
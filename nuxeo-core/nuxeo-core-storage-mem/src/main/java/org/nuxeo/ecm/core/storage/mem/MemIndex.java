@@ -0,0 +1,123 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage.mem;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Hash index of the documents of a {@link MemRepository} on the value of a top-level key.
+ * <p>
+ * For arrays and lists, each element is indexed.
+ * <p>
+ * The index is only used to find candidate documents, which must still be checked against the actual document state
+ * as concurrent updates may not be visible yet.
+ *
+ * @since 8.3
+ */
+public class MemIndex {
+
+    protected final String key;
+
+    /** Value -> ids of the documents having this value. */
+    protected final ConcurrentMap<Object, Set<String>> ids = new ConcurrentHashMap<>();
+
+    public MemIndex(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the values indexed for a document value, as a new collection.
+     */
+    public static Collection<Object> values(Serializable value) {
+        if (value == null) {
+            return Collections.emptyList();
+        } else if (value instanceof Object[]) {
+            return Arrays.asList(((Object[]) value).clone());
+        } else if (value instanceof List) {
+            return new ArrayList<Object>((List<?>) value);
+        } else {
+            return Collections.singletonList(value);
+        }
+    }
+
+    public void add(String id, Collection<Object> values) {
+        for (Object value : values) {
+            if (value == null) {
+                continue;
+            }
+            ids.compute(value, (k, set) -> {
+                if (set == null) {
+                    set = ConcurrentHashMap.newKeySet();
+                }
+                set.add(id);
+                return set;
+            });
+        }
+    }
+
+    public void remove(String id, Collection<Object> values) {
+        for (Object value : values) {
+            if (value == null) {
+                continue;
+            }
+            ids.computeIfPresent(value, (k, set) -> {
+                set.remove(id);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    /**
+     * Updates the index for a document whose value changed.
+     */
+    public void update(String id, Collection<Object> oldValues, Collection<Object> newValues) {
+        // add first so that concurrent readers don't miss the document
+        add(id, newValues);
+        List<Object> removed = new ArrayList<>(oldValues);
+        removed.removeAll(newValues);
+        remove(id, removed);
+    }
+
+    /**
+     * Gets the ids of the documents having the given value.
+     *
+     * @return a weakly consistent view of the ids
+     */
+    public Set<String> get(Object value) {
+        Set<String> set = ids.get(value);
+        return set == null ? Collections.<String> emptySet() : set;
+    }
+
+    public void clear() {
+        ids.clear();
+    }
+
+}
@@ -0,0 +1,576 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage.mem;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.storage.State;
+import org.nuxeo.ecm.core.storage.State.StateDiff;
+import org.nuxeo.ecm.core.storage.StateHelper;
+import org.nuxeo.runtime.metrics.MetricsService;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+
+/**
+ * Persistence of a {@link MemRepository} to disk, as snapshots and a write-ahead log.
+ * <p>
+ * Each change is appended to a memory-mapped log file before being applied. A record is its length, its CRC32 and the
+ * serialized change. The log is forced to disk by a background thread every {@code syncInterval} milliseconds, so
+ * that all the changes made during this interval share the same disk sync (group commit). With an interval of 0, each
+ * change is forced to disk before returning.
+ * <p>
+ * Every {@code snapshotInterval} seconds, and on shutdown, a new log file is started and all the documents are written
+ * to a snapshot file, after which the previous log files are deleted. At startup the snapshot is read and the logs
+ * written after it are replayed, stopping at the first incomplete or corrupted record of the last log.
+ * <p>
+ * Files in the directory:
+ * <ul>
+ * <li>{@code snapshot}: the documents at the start of the log of the generation written in its header,
+ * <li>{@code log-<generation>}: the changes, the generation being incremented for each snapshot.
+ * </ul>
+ *
+ * @since 8.3
+ */
+public class MemPersistence {
+
+    private static final Log log = LogFactory.getLog(MemPersistence.class);
+
+    /**
+     * Applies the changes read from disk to the repository.
+     */
+    public interface Replayer {
+
+        void create(State state);
+
+        void update(String id, StateDiff diff);
+
+        void delete(Set<String> ids);
+    }
+
+    protected static final byte CREATE = 1;
+
+    protected static final byte UPDATE = 2;
+
+    protected static final byte DELETE = 3;
+
+    protected static final int SNAPSHOT_MAGIC = 0x4e584d53; // NXMS
+
+    protected static final String SNAPSHOT = "snapshot";
+
+    protected static final String LOG_PREFIX = "log-";
+
+    /** Size of the log regions mapped at once. */
+    protected static final int LOG_REGION_SIZE = 16 * 1024 * 1024;
+
+    /** Size of the record header: length and checksum. */
+    protected static final int RECORD_HEADER_SIZE = 4 + 8;
+
+    protected final File directory;
+
+    protected final long syncInterval;
+
+    protected final long snapshotInterval;
+
+    /** Held for read by writers, for write when starting a snapshot. */
+    protected final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    protected Supplier<Collection<State>> states;
+
+    protected ScheduledExecutorService scheduler;
+
+    // log being written, protected by synchronization on this
+
+    protected long generation;
+
+    protected FileChannel channel;
+
+    protected MappedByteBuffer buffer;
+
+    /** Position in the file of the start of the mapped buffer. */
+    protected long bufferStart;
+
+    protected boolean closed;
+
+    /** Number of records read at startup. */
+    protected long recoveredRecords;
+
+    protected final Timer appendTimer;
+
+    protected final Meter logBytes;
+
+    protected final Timer syncTimer;
+
+    protected final Timer snapshotTimer;
+
+    protected final Timer recoveryTimer;
+
+    /**
+     * @param directory the directory holding the snapshot and logs
+     * @param syncInterval the interval in milliseconds between log syncs, 0 to sync on each change
+     * @param snapshotInterval the interval in seconds between snapshots, 0 to only write one on shutdown
+     */
+    public MemPersistence(String repositoryName, File directory, long syncInterval, long snapshotInterval) {
+        this.directory = directory;
+        this.syncInterval = syncInterval;
+        this.snapshotInterval = snapshotInterval;
+        MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+        appendTimer = registry.timer(MetricRegistry.name("nuxeo", "repositories", repositoryName, "persistence",
+                "append"));
+        logBytes = registry.meter(MetricRegistry.name("nuxeo", "repositories", repositoryName, "persistence",
+                "logBytes"));
+        syncTimer = registry.timer(MetricRegistry.name("nuxeo", "repositories", repositoryName, "persistence",
+                "sync"));
+        snapshotTimer = registry.timer(MetricRegistry.name("nuxeo", "repositories", repositoryName, "persistence",
+                "snapshot"));
+        recoveryTimer = registry.timer(MetricRegistry.name("nuxeo", "repositories", repositoryName, "persistence",
+                "recovery"));
+    }
+
+    /**
+     * Reads the snapshot and replays the logs, then opens the log for writing.
+     *
+     * @param states the current documents, used for snapshots
+     * @param replayer the replayer receiving the changes
+     * @return {@code true} if something was recovered, {@code false} if the repository is new
+     */
+    public boolean open(Supplier<Collection<State>> states, Replayer replayer) {
+        this.states = states;
+        directory.mkdirs();
+        long t0 = System.nanoTime();
+        recoveredRecords = 0;
+        try {
+            File snapshot = new File(directory, SNAPSHOT);
+            long snapshotGeneration = 0;
+            if (snapshot.exists()) {
+                snapshotGeneration = readSnapshot(snapshot, replayer);
+            }
+            // logs to replay, in order
+            TreeMap<Long, File> logs = new TreeMap<>();
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    String name = file.getName();
+                    if (name.startsWith(LOG_PREFIX)) {
+                        long gen = Long.parseLong(name.substring(LOG_PREFIX.length()));
+                        if (gen < snapshotGeneration) {
+                            // left over by an interrupted snapshot cleanup
+                            file.delete();
+                        } else {
+                            logs.put(Long.valueOf(gen), file);
+                        }
+                    }
+                }
+            }
+            generation = snapshotGeneration;
+            long end = 0;
+            for (File file : logs.values()) {
+                boolean last = file == logs.lastEntry().getValue();
+                generation = Long.parseLong(file.getName().substring(LOG_PREFIX.length()));
+                end = replayLog(file, replayer, last);
+            }
+            openLog(generation, end);
+        } catch (IOException e) {
+            throw new NuxeoException("Cannot recover repository from: " + directory, e);
+        }
+        long duration = System.nanoTime() - t0;
+        recoveryTimer.update(duration, TimeUnit.NANOSECONDS);
+        if (recoveredRecords > 0) {
+            log.info(String.format("Recovered repository from %s in %d ms (%d records)", directory,
+                    TimeUnit.NANOSECONDS.toMillis(duration), recoveredRecords));
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Nuxeo-MemPersistence-" + directory.getName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (syncInterval > 0) {
+            scheduler.scheduleWithFixedDelay(this::syncQuietly, syncInterval, syncInterval, TimeUnit.MILLISECONDS);
+        }
+        if (snapshotInterval > 0) {
+            scheduler.scheduleWithFixedDelay(this::snapshotQuietly, snapshotInterval, snapshotInterval,
+                    TimeUnit.SECONDS);
+        }
+        return recoveredRecords > 0;
+    }
+
+    /**
+     * Writes a final snapshot and closes the log.
+     */
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            try {
+                scheduler.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            scheduler = null;
+        }
+        try {
+            snapshot();
+        } finally {
+            synchronized (this) {
+                closed = true;
+                try {
+                    closeLog();
+                } catch (IOException e) {
+                    log.error("Cannot close log in: " + directory, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Called by writers before logging and applying a change.
+     */
+    public void beginWrite() {
+        lock.readLock().lock();
+    }
+
+    /**
+     * Called by writers after applying a change.
+     */
+    public void endWrite() {
+        lock.readLock().unlock();
+    }
+
+    public void logCreate(State state) {
+        append(CREATE, null, state);
+    }
+
+    public void logUpdate(String id, StateDiff diff) {
+        append(UPDATE, id, diff);
+    }
+
+    public void logDelete(Set<String> ids) {
+        append(DELETE, null, new HashSet<>(ids));
+    }
+
+    protected void append(byte type, String id, Object value) {
+        Timer.Context context = appendTimer.time();
+        try {
+            byte[] payload = serialize(type, id, value);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            synchronized (this) {
+                if (closed) {
+                    throw new NuxeoException("Repository persistence is closed: " + directory);
+                }
+                int size = RECORD_HEADER_SIZE + payload.length;
+                if (buffer.remaining() < size) {
+                    mapNextRegion(size);
+                }
+                buffer.putInt(payload.length);
+                buffer.putLong(crc.getValue());
+                buffer.put(payload);
+                if (syncInterval == 0) {
+                    sync();
+                }
+            }
+            logBytes.mark(RECORD_HEADER_SIZE + payload.length);
+        } catch (IOException e) {
+            throw new NuxeoException("Cannot write to log in: " + directory, e);
+        } finally {
+            context.stop();
+        }
+    }
+
+    protected static byte[] serialize(byte type, String id, Object value) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(baos)) {
+            out.writeByte(type);
+            if (type == UPDATE) {
+                out.writeUTF(id);
+            }
+            out.writeObject(value);
+        }
+        return baos.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    protected void deserialize(byte[] payload, Replayer replayer) throws IOException {
+        recoveredRecords++;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            byte type = in.readByte();
+            switch (type) {
+            case CREATE:
+                replayer.create((State) in.readObject());
+                break;
+            case UPDATE:
+                String id = in.readUTF();
+                replayer.update(id, (StateDiff) in.readObject());
+                break;
+            case DELETE:
+                replayer.delete((Set<String>) in.readObject());
+                break;
+            default:
+                throw new IOException("Unknown record type: " + type);
+            }
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    protected File getLogFile(long gen) {
+        return new File(directory, LOG_PREFIX + gen);
+    }
+
+    /* synchronized by caller */
+    protected void openLog(long gen, long position) throws IOException {
+        generation = gen;
+        channel = new RandomAccessFile(getLogFile(gen), "rw").getChannel();
+        // drop what follows the last valid record after a crash
+        channel.truncate(position);
+        bufferStart = position;
+        buffer = channel.map(MapMode.READ_WRITE, bufferStart, LOG_REGION_SIZE);
+    }
+
+    /* synchronized by caller */
+    protected void mapNextRegion(int minSize) throws IOException {
+        buffer.force();
+        bufferStart += buffer.position();
+        buffer = channel.map(MapMode.READ_WRITE, bufferStart, Math.max(LOG_REGION_SIZE, minSize));
+    }
+
+    /* synchronized by caller */
+    protected void closeLog() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        buffer.force();
+        long end = bufferStart + buffer.position();
+        buffer = null;
+        channel.truncate(end);
+        channel.close();
+        channel = null;
+    }
+
+    /**
+     * Forces the log to disk.
+     */
+    public void sync() {
+        MappedByteBuffer buf;
+        synchronized (this) {
+            buf = buffer;
+        }
+        // don't block writers while forcing, the buffer is only replaced after being forced
+        if (buf != null) {
+            Timer.Context context = syncTimer.time();
+            try {
+                buf.force();
+            } finally {
+                context.stop();
+            }
+        }
+    }
+
+    protected void syncQuietly() {
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            log.error("Cannot sync log in: " + directory, e);
+        }
+    }
+
+    protected void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            log.error("Cannot write snapshot in: " + directory, e);
+        }
+    }
+
+    /**
+     * Writes a snapshot of all the documents, and deletes the logs it replaces.
+     */
+    public void snapshot() {
+        Timer.Context context = snapshotTimer.time();
+        long snapshotGeneration;
+        List<State> copy;
+        lock.writeLock().lock();
+        try {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                // start a new log, the snapshot contains all the previous changes
+                closeLog();
+                snapshotGeneration = generation + 1;
+                openLog(snapshotGeneration, 0);
+            }
+            Collection<State> current = states.get();
+            copy = new ArrayList<>(current.size());
+            for (State state : current) {
+                copy.add(StateHelper.deepCopy(state));
+            }
+        } catch (IOException e) {
+            throw new NuxeoException("Cannot start new log in: " + directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            File tmp = new File(directory, SNAPSHOT + ".tmp");
+            try (FileOutputStream fos = new FileOutputStream(tmp);
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeLong(snapshotGeneration);
+                out.writeInt(copy.size());
+                for (State state : copy) {
+                    writeRecord(out, serialize(CREATE, null, state));
+                }
+                out.flush();
+                fos.getFD().sync();
+            }
+            Files.move(tmp.toPath(), new File(directory, SNAPSHOT).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            for (long gen = snapshotGeneration - 1; gen >= 0; gen--) {
+                File file = getLogFile(gen);
+                if (!file.exists()) {
+                    break;
+                }
+                file.delete();
+            }
+        } catch (IOException e) {
+            throw new NuxeoException("Cannot write snapshot in: " + directory, e);
+        } finally {
+            context.stop();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Wrote snapshot of " + copy.size() + " documents in: " + directory);
+        }
+    }
+
+    protected static void writeRecord(DataOutputStream out, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        out.writeInt(payload.length);
+        out.writeLong(crc.getValue());
+        out.write(payload);
+    }
+
+    /**
+     * Reads a record.
+     *
+     * @return the payload, or {@code null} at the end of the data or if the record is incomplete or corrupted
+     */
+    protected static byte[] readRecord(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            if (length <= 0) {
+                // end of the written part of a mapped log
+                return null;
+            }
+            long checksum = in.readLong();
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            return crc.getValue() == checksum ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    protected long readSnapshot(File file, Replayer replayer) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Invalid snapshot: " + file);
+            }
+            long gen = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                byte[] payload = readRecord(in);
+                if (payload == null) {
+                    throw new IOException("Corrupted snapshot: " + file);
+                }
+                deserialize(payload, replayer);
+            }
+            return gen;
+        }
+    }
+
+    /**
+     * Replays a log.
+     *
+     * @param last whether it is the last log, whose end may be incomplete after a crash
+     * @return the position of the end of the valid records
+     */
+    protected long replayLog(File file, Replayer replayer, boolean last) throws IOException {
+        long position = 0;
+        long records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            for (;;) {
+                byte[] payload = readRecord(in);
+                if (payload == null) {
+                    break;
+                }
+                deserialize(payload, replayer);
+                position += RECORD_HEADER_SIZE + payload.length;
+                records++;
+            }
+        }
+        long length = file.length();
+        if (position < length && !last) {
+            // a previous log was fully written before the next one was started
+            throw new NuxeoException("Corrupted log: " + file + " at position " + position);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Replayed " + records + " records from: " + file);
+        }
+        return position;
+    }
+
+}
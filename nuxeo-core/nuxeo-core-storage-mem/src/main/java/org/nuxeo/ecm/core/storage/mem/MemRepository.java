@@ -20,6 +20,7 @@ package org.nuxeo.ecm.core.storage.mem;
 
 import static java.lang.Boolean.TRUE;
 import static org.nuxeo.ecm.core.storage.State.NOP;
+import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ANCESTOR_IDS;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_BLOB_DATA;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ID;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_IS_PROXY;
@@ -30,15 +31,21 @@ import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_PARENT_ID;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_PROXY_IDS;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_PROXY_TARGET_ID;
 
+import java.io.File;
 import java.io.Serializable;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -76,6 +83,10 @@ import org.nuxeo.runtime.api.Framework;
  * <p>
  * A document object is a JSON-like document stored as a Map recursively containing the data, see {@link DBSDocument}
  * for the description of the document.
+ * <p>
+ * Hash indexes are maintained on {@code ecm:parentId}, {@code ecm:ancestorIds}, {@code ecm:proxyTargetId} and the
+ * keys configured in the repository descriptor, and are used for key/value lookups. NXQL queries still scan all the
+ * documents.
  *
  * @since 5.9.4
  */
@@ -91,22 +102,141 @@ public class MemRepository extends DBSRepositoryBase {
      */
     protected Map<String, State> states;
 
+    /** Keys always indexed. */
+    protected static final List<String> DEFAULT_INDEXED_KEYS = Arrays.asList(KEY_PARENT_ID, KEY_ANCESTOR_IDS,
+            KEY_PROXY_TARGET_ID);
+
+    /**
+     * The indexes, a map of key -> index.
+     */
+    protected Map<String, MemIndex> indexes;
+
+    /**
+     * The persistence to disk, or {@code null} if the repository is only in memory.
+     */
+    protected MemPersistence persistence;
+
     public MemRepository(ConnectionManager cm, MemRepositoryDescriptor descriptor) {
         super(cm, descriptor.name, descriptor.getFulltextDescriptor());
+        initIndexes(descriptor.getIndexes());
+        initPersistence(descriptor);
         initRepository();
     }
 
     @Override
     public void shutdown() {
         super.shutdown();
+        if (persistence != null) {
+            persistence.close();
+            persistence = null;
+        }
         states = null;
+        indexes = null;
+    }
+
+    protected void initPersistence(MemRepositoryDescriptor descriptor) {
+        String dir = descriptor.getPersistenceDirectory();
+        if (dir == null || dir.trim().isEmpty()) {
+            return;
+        }
+        persistence = new MemPersistence(repositoryName, new File(Framework.expandVars(dir.trim())),
+                descriptor.getPersistenceSyncInterval(), descriptor.getPersistenceSnapshotInterval());
+    }
+
+    protected void initIndexes(List<String> keys) {
+        Set<String> allKeys = new LinkedHashSet<>(DEFAULT_INDEXED_KEYS);
+        if (keys != null) {
+            allKeys.addAll(keys);
+        }
+        indexes = new ConcurrentHashMap<>();
+        for (String key : allKeys) {
+            indexes.put(key, new MemIndex(key));
+        }
     }
 
     protected void initRepository() {
         states = new ConcurrentHashMap<>();
+        if (persistence != null) {
+            boolean recovered = persistence.open(() -> states.values(), new MemPersistence.Replayer() {
+
+                @Override
+                public void create(State state) {
+                    doCreateState((String) state.get(KEY_ID), StateHelper.deepCopy(state, true)); // thread-safe
+                }
+
+                @Override
+                public void update(String id, StateDiff diff) {
+                    State state = states.get(id);
+                    if (state == null) {
+                        log.warn("Missing on log replay: " + id);
+                        return;
+                    }
+                    doUpdateState(id, state, diff);
+                }
+
+                @Override
+                public void delete(Set<String> ids) {
+                    doDeleteStates(ids);
+                }
+            });
+            if (recovered) {
+                return;
+            }
+        }
         initRoot();
     }
 
+    protected void beginWrite() {
+        if (persistence != null) {
+            persistence.beginWrite();
+        }
+    }
+
+    protected void endWrite() {
+        if (persistence != null) {
+            persistence.endWrite();
+        }
+    }
+
+    protected void indexState(String id, State state) {
+        for (MemIndex index : indexes.values()) {
+            index.add(id, MemIndex.values(state.get(index.getKey())));
+        }
+    }
+
+    protected void unindexState(String id, State state) {
+        for (MemIndex index : indexes.values()) {
+            index.remove(id, MemIndex.values(state.get(index.getKey())));
+        }
+    }
+
+    /**
+     * Gets the ids of the candidate documents for a lookup on the given key, or {@code null} if the key is not
+     * indexed.
+     */
+    protected Collection<String> getCandidateIds(String key, Object value) {
+        MemIndex index = indexes.get(key);
+        return index == null ? null : index.get(value);
+    }
+
+    /**
+     * Gets the states to check for a lookup on the given key, using an index if available.
+     */
+    protected Collection<State> getCandidateStates(String key, Object value) {
+        Collection<String> ids = getCandidateIds(key, value);
+        if (ids == null) {
+            return states.values();
+        }
+        List<State> list = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            State state = states.get(id);
+            if (state != null) {
+                list.add(state);
+            }
+        }
+        return list;
+    }
+
     @Override
     public String generateNewId() {
         if (DEBUG_UUIDS) {
@@ -147,7 +277,20 @@ public class MemRepository extends DBSRepositoryBase {
         }
         state = StateHelper.deepCopy(state, true); // thread-safe
         StateHelper.resetDeltas(state);
+        beginWrite();
+        try {
+            if (persistence != null) {
+                persistence.logCreate(state);
+            }
+            doCreateState(id, state);
+        } finally {
+            endWrite();
+        }
+    }
+
+    protected void doCreateState(String id, State state) {
         states.put(id, state);
+        indexState(id, state);
     }
 
     @Override
@@ -159,7 +302,34 @@ public class MemRepository extends DBSRepositoryBase {
         if (state == null) {
             throw new ConcurrentUpdateException("Missing: " + id);
         }
+        beginWrite();
+        try {
+            if (persistence != null) {
+                persistence.logUpdate(id, diff);
+            }
+            doUpdateState(id, state, diff);
+        } finally {
+            endWrite();
+        }
+    }
+
+    protected void doUpdateState(String id, State state, StateDiff diff) {
+        Map<MemIndex, Collection<Object>> oldValues = null;
+        for (MemIndex index : indexes.values()) {
+            if (diff.containsKey(index.getKey())) {
+                if (oldValues == null) {
+                    oldValues = new HashMap<>();
+                }
+                oldValues.put(index, MemIndex.values(state.get(index.getKey())));
+            }
+        }
         applyDiff(state, diff);
+        if (oldValues != null) {
+            for (Entry<MemIndex, Collection<Object>> en : oldValues.entrySet()) {
+                MemIndex index = en.getKey();
+                index.update(id, en.getValue(), MemIndex.values(state.get(index.getKey())));
+            }
+        }
     }
 
     @Override
@@ -167,17 +337,44 @@ public class MemRepository extends DBSRepositoryBase {
         if (log.isTraceEnabled()) {
             log.trace("Mem: REMOVE " + ids);
         }
+        beginWrite();
+        try {
+            if (persistence != null) {
+                persistence.logDelete(ids);
+            }
+            doDeleteStates(ids);
+        } finally {
+            endWrite();
+        }
+    }
+
+    @Override
+    public void writeStates(List<State> creates, Map<String, StateDiff> updates, Set<String> deletes) {
+        for (State state : creates) {
+            createState(state);
+        }
+        for (Entry<String, StateDiff> en : updates.entrySet()) {
+            updateState(en.getKey(), en.getValue());
+        }
+        if (!deletes.isEmpty()) {
+            deleteStates(deletes);
+        }
+    }
+
+    protected void doDeleteStates(Set<String> ids) {
         for (String id : ids) {
-            if (states.remove(id) == null) {
+            State state = states.remove(id);
+            if (state == null) {
                 log.debug("Missing on remove: " + id);
+            } else {
+                unindexState(id, state);
             }
         }
     }
 
     @Override
     public State readChildState(String parentId, String name, Set<String> ignored) {
-        // TODO optimize by maintaining a parent/child index
-        for (State state : states.values()) {
+        for (State state : getCandidateStates(KEY_PARENT_ID, parentId)) {
             if (ignored.contains(state.get(KEY_ID))) {
                 continue;
             }
@@ -203,7 +400,7 @@ public class MemRepository extends DBSRepositoryBase {
             log.trace("Mem: QUERY " + key + " = " + value);
         }
         List<State> list = new ArrayList<>();
-        for (State state : states.values()) {
+        for (State state : getCandidateStates(key, value)) {
             String id = (String) state.get(KEY_ID);
             if (ignored.contains(id)) {
                 continue;
@@ -224,8 +421,14 @@ public class MemRepository extends DBSRepositoryBase {
         if (log.isTraceEnabled()) {
             log.trace("Mem: QUERY " + key1 + " = " + value1 + " AND " + key2 + " = " + value2);
         }
+        Collection<State> candidates;
+        if (indexes.containsKey(key1)) {
+            candidates = getCandidateStates(key1, value1);
+        } else {
+            candidates = getCandidateStates(key2, value2);
+        }
         List<State> list = new ArrayList<>();
-        for (State state : states.values()) {
+        for (State state : candidates) {
             String id = (String) state.get(KEY_ID);
             if (ignored.contains(id)) {
                 continue;
@@ -247,7 +450,7 @@ public class MemRepository extends DBSRepositoryBase {
         if (log.isTraceEnabled()) {
             log.trace("Mem: QUERY " + key + " = " + value);
         }
-        STATE: for (State state : states.values()) {
+        STATE: for (State state : getCandidateStates(key, value)) {
             Object[] array = (Object[]) state.get(key);
             String id = (String) state.get(KEY_ID);
             if (array != null) {
@@ -279,7 +482,7 @@ public class MemRepository extends DBSRepositoryBase {
         if (log.isTraceEnabled()) {
             log.trace("Mem: QUERY " + key + " = " + value);
         }
-        for (State state : states.values()) {
+        for (State state : getCandidateStates(key, value)) {
             String id = (String) state.get(KEY_ID);
             if (ignored.contains(id)) {
                 continue;
@@ -304,24 +507,39 @@ public class MemRepository extends DBSRepositoryBase {
             log.trace("Mem: QUERY " + evaluator + " OFFSET " + offset + " LIMIT " + limit);
         }
         evaluator.parse();
+        // ORDER BY
+        // orderByClause may be null and different from evaluator.getOrderByClause() in case we want to post-filter
+        Comparator<Map<String, Serializable>> comparator = orderByClause == null ? null
+                : new OrderByComparator(orderByClause);
+        // with a LIMIT, only keep the first offset + limit projections in a bounded heap
+        long topSize = (long) offset + limit;
+        TopProjections top = comparator != null && limit != 0 && topSize < MAX_TOP_SIZE
+                ? new TopProjections(comparator, (int) topSize) : null;
         List<Map<String, Serializable>> projections = new ArrayList<>();
+        int count = 0;
         for (State state : states.values()) {
             List<Map<String, Serializable>> matches = evaluator.matches(state);
             if (!matches.isEmpty()) {
                 if (distinctDocuments) {
-                    projections.add(matches.get(0));
-                } else {
+                    matches = matches.subList(0, 1);
+                }
+                count += matches.size();
+                if (top == null) {
                     projections.addAll(matches);
+                } else {
+                    for (Map<String, Serializable> match : matches) {
+                        top.add(match);
+                    }
                 }
             }
         }
-        // ORDER BY
-        // orderByClause may be null and different from evaluator.getOrderByClause() in case we want to post-filter
-        if (orderByClause != null) {
-            Collections.sort(projections, new OrderByComparator(orderByClause));
+        if (top != null) {
+            projections = top.getSorted();
+        } else if (comparator != null) {
+            Collections.sort(projections, comparator);
         }
         // LIMIT / OFFSET
-        int totalSize = projections.size();
+        int totalSize = count;
         if (countUpTo == -1) {
             // count full size
         } else if (countUpTo == 0) {
@@ -349,6 +567,68 @@ public class MemRepository extends DBSRepositoryBase {
         return new PartialList<>(projections, totalSize);
     }
 
+    /** Above this offset + limit, matches are fully sorted instead of using a bounded heap. */
+    protected static final long MAX_TOP_SIZE = 10_000;
+
+    /**
+     * Bounded heap keeping the first projections in the given order.
+     * <p>
+     * Projections comparing equal are kept in the order they were added, like a stable sort of all the projections
+     * would, so that successive pages don't repeat or skip ties.
+     */
+    protected static class TopProjections {
+
+        protected static class Ranked {
+
+            protected final Map<String, Serializable> projection;
+
+            protected final long seq;
+
+            protected Ranked(Map<String, Serializable> projection, long seq) {
+                this.projection = projection;
+                this.seq = seq;
+            }
+        }
+
+        protected final Comparator<Ranked> comparator;
+
+        protected final int size;
+
+        protected long seq;
+
+        /** Max-heap, the head is the last projection kept. */
+        protected final PriorityQueue<Ranked> heap;
+
+        public TopProjections(Comparator<Map<String, Serializable>> comparator, int size) {
+            this.comparator = (r1, r2) -> {
+                int c = comparator.compare(r1.projection, r2.projection);
+                return c != 0 ? c : Long.compare(r1.seq, r2.seq);
+            };
+            this.size = size;
+            heap = new PriorityQueue<>(Math.max(1, size), Collections.reverseOrder(this.comparator));
+        }
+
+        public void add(Map<String, Serializable> projection) {
+            Ranked ranked = new Ranked(projection, seq++);
+            if (heap.size() < size) {
+                heap.add(ranked);
+            } else if (size > 0 && comparator.compare(ranked, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(ranked);
+            }
+        }
+
+        public List<Map<String, Serializable>> getSorted() {
+            List<Ranked> ranked = new ArrayList<>(heap);
+            Collections.sort(ranked, comparator);
+            List<Map<String, Serializable>> list = new ArrayList<>(ranked.size());
+            for (Ranked r : ranked) {
+                list.add(r.projection);
+            }
+            return list;
+        }
+    }
+
     /**
      * Applies a {@link StateDiff} in-place onto a base {@link State}.
      * <p>
@@ -473,8 +753,7 @@ public class MemRepository extends DBSRepositoryBase {
             Calendar created = (Calendar) state.get(KEY_LOCK_CREATED);
             return new Lock(owner, created);
         }
-        state.put(KEY_LOCK_OWNER, lock.getOwner());
-        state.put(KEY_LOCK_CREATED, lock.getCreated());
+        writeLock(id, state, lock.getOwner(), lock.getCreated());
         return null;
     }
 
@@ -497,12 +776,26 @@ public class MemRepository extends DBSRepositoryBase {
             return new Lock(oldOwner, oldCreated, true);
         }
         // remove lock
-        state.put(KEY_LOCK_OWNER, null);
-        state.put(KEY_LOCK_CREATED, null);
+        writeLock(id, state, null, null);
         // return old lock
         return new Lock(oldOwner, oldCreated);
     }
 
+    protected void writeLock(String id, State state, String owner, Calendar created) {
+        StateDiff diff = new StateDiff();
+        diff.put(KEY_LOCK_OWNER, owner);
+        diff.put(KEY_LOCK_CREATED, created);
+        beginWrite();
+        try {
+            if (persistence != null) {
+                persistence.logUpdate(id, diff);
+            }
+            doUpdateState(id, state, diff);
+        } finally {
+            endWrite();
+        }
+    }
+
     @Override
     public void closeLockManager() {
     }
@@ -18,6 +18,11 @@
  */
 package org.nuxeo.ecm.core.storage.mem;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.nuxeo.common.xmap.annotation.XNode;
+import org.nuxeo.common.xmap.annotation.XNodeList;
 import org.nuxeo.common.xmap.annotation.XObject;
 import org.nuxeo.ecm.core.storage.dbs.DBSRepositoryDescriptor;
 
@@ -32,13 +37,91 @@ public class MemRepositoryDescriptor extends DBSRepositoryDescriptor {
     public MemRepositoryDescriptor() {
     }
 
+    /**
+     * Additional top-level keys to index, for instance {@code ecm:primaryType}.
+     *
+     * @since 8.3
+     */
+    @XNodeList(value = "indexes/index", type = ArrayList.class, componentType = String.class)
+    protected List<String> indexes;
+
+    public List<String> getIndexes() {
+        return indexes;
+    }
+
+    /**
+     * Directory where the repository is persisted, if persistence is enabled.
+     *
+     * @since 8.3
+     */
+    @XNode("persistence@directory")
+    protected String persistenceDirectory;
+
+    /**
+     * Interval in milliseconds between syncs of the log to disk, 0 to sync on each change.
+     *
+     * @since 8.3
+     */
+    @XNode("persistence@syncInterval")
+    protected Long persistenceSyncInterval;
+
+    /**
+     * Interval in seconds between snapshots, 0 to only write one on shutdown.
+     *
+     * @since 8.3
+     */
+    @XNode("persistence@snapshotInterval")
+    protected Long persistenceSnapshotInterval;
+
+    public static final long DEFAULT_PERSISTENCE_SYNC_INTERVAL = 10;
+
+    public static final long DEFAULT_PERSISTENCE_SNAPSHOT_INTERVAL = 300;
+
+    public String getPersistenceDirectory() {
+        return persistenceDirectory;
+    }
+
+    public long getPersistenceSyncInterval() {
+        return persistenceSyncInterval == null ? DEFAULT_PERSISTENCE_SYNC_INTERVAL
+                : persistenceSyncInterval.longValue();
+    }
+
+    public long getPersistenceSnapshotInterval() {
+        return persistenceSnapshotInterval == null ? DEFAULT_PERSISTENCE_SNAPSHOT_INTERVAL
+                : persistenceSnapshotInterval.longValue();
+    }
+
     @Override
     public MemRepositoryDescriptor clone() {
-        return (MemRepositoryDescriptor) super.clone();
+        MemRepositoryDescriptor clone = (MemRepositoryDescriptor) super.clone();
+        if (indexes != null) {
+            clone.indexes = new ArrayList<>(indexes);
+        }
+        return clone;
     }
 
     public void merge(MemRepositoryDescriptor other) {
         super.merge(other);
+        if (other.persistenceDirectory != null) {
+            persistenceDirectory = other.persistenceDirectory;
+        }
+        if (other.persistenceSyncInterval != null) {
+            persistenceSyncInterval = other.persistenceSyncInterval;
+        }
+        if (other.persistenceSnapshotInterval != null) {
+            persistenceSnapshotInterval = other.persistenceSnapshotInterval;
+        }
+        if (other.indexes != null) {
+            if (indexes == null) {
+                indexes = new ArrayList<>(other.indexes);
+            } else {
+                for (String index : other.indexes) {
+                    if (!indexes.contains(index)) {
+                        indexes.add(index);
+                    }
+                }
+            }
+        }
     }
 
 }
@@ -0,0 +1,128 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage.mem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+import org.nuxeo.ecm.core.storage.mem.MemRepository.TopProjections;
+
+public class TestMemIndex {
+
+    @Test
+    public void testScalar() {
+        MemIndex index = new MemIndex("ecm:parentId");
+        index.add("id1", MemIndex.values("p1"));
+        index.add("id2", MemIndex.values("p1"));
+        index.add("id3", MemIndex.values("p2"));
+        index.add("id4", MemIndex.values(null));
+        assertEquals(new HashSet<>(Arrays.asList("id1", "id2")), index.get("p1"));
+        assertEquals(Collections.singleton("id3"), index.get("p2"));
+        assertTrue(index.get("p3").isEmpty());
+
+        index.update("id2", MemIndex.values("p1"), MemIndex.values("p2"));
+        assertEquals(Collections.singleton("id1"), index.get("p1"));
+        assertEquals(new HashSet<>(Arrays.asList("id2", "id3")), index.get("p2"));
+
+        index.remove("id1", MemIndex.values("p1"));
+        assertTrue(index.get("p1").isEmpty());
+        assertTrue(index.ids.get("p1") == null);
+    }
+
+    @Test
+    public void testArray() {
+        MemIndex index = new MemIndex("ecm:ancestorIds");
+        index.add("id1", MemIndex.values(new Object[] { "root", "a" }));
+        index.add("id2", MemIndex.values(new Object[] { "root", "a", "b" }));
+        assertEquals(new HashSet<>(Arrays.asList("id1", "id2")), index.get("root"));
+        assertEquals(Collections.singleton("id2"), index.get("b"));
+
+        // move id2 out of a
+        index.update("id2", MemIndex.values(new Object[] { "root", "a", "b" }),
+                MemIndex.values(new Object[] { "root", "c" }));
+        assertEquals(new HashSet<>(Arrays.asList("id1", "id2")), index.get("root"));
+        assertEquals(Collections.singleton("id1"), index.get("a"));
+        assertTrue(index.get("b").isEmpty());
+        assertEquals(Collections.singleton("id2"), index.get("c"));
+    }
+
+    protected static Map<String, Serializable> projection(long value) {
+        Map<String, Serializable> projection = new HashMap<>();
+        projection.put("v", Long.valueOf(value));
+        return projection;
+    }
+
+    protected static final Comparator<Map<String, Serializable>> COMPARATOR = (p1, p2) -> ((Long) p1.get("v")).compareTo(
+            (Long) p2.get("v"));
+
+    @Test
+    public void testTopProjections() {
+        Random random = new Random(1);
+        List<Map<String, Serializable>> all = new ArrayList<>();
+        TopProjections top = new TopProjections(COMPARATOR, 10);
+        for (int i = 0; i < 1000; i++) {
+            Map<String, Serializable> projection = projection(random.nextInt(500));
+            all.add(projection);
+            top.add(projection);
+        }
+        Collections.sort(all, COMPARATOR);
+        List<Map<String, Serializable>> sorted = top.getSorted();
+        assertEquals(10, sorted.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(all.get(i).get("v"), sorted.get(i).get("v"));
+        }
+    }
+
+    @Test
+    public void testTopProjectionsTies() {
+        List<Map<String, Serializable>> all = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            Map<String, Serializable> projection = projection(i % 3);
+            projection.put("i", Integer.valueOf(i));
+            all.add(projection);
+        }
+        List<Map<String, Serializable>> sorted = new ArrayList<>(all);
+        Collections.sort(sorted, COMPARATOR); // stable
+        // pages computed separately, as successive queries do
+        List<Map<String, Serializable>> pages = new ArrayList<>();
+        int limit = 5;
+        for (int offset = 0; offset < all.size(); offset += limit) {
+            TopProjections top = new TopProjections(COMPARATOR, offset + limit);
+            for (Map<String, Serializable> projection : all) {
+                top.add(projection);
+            }
+            List<Map<String, Serializable>> page = top.getSorted();
+            pages.addAll(page.subList(Math.min(offset, page.size()), page.size()));
+        }
+        assertEquals(sorted, pages);
+    }
+
+}
@@ -0,0 +1,212 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage.mem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nuxeo.ecm.core.storage.State;
+import org.nuxeo.ecm.core.storage.State.StateDiff;
+
+public class TestMemPersistence {
+
+    private static final Log log = LogFactory.getLog(TestMemPersistence.class);
+
+    protected File dir;
+
+    /** The documents, as a repository would hold them. */
+    protected Map<String, State> states;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("mempersistence", "");
+        dir.delete();
+        states = new HashMap<>();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteQuietly(dir);
+    }
+
+    protected MemPersistence open(long syncInterval) {
+        states = new HashMap<>();
+        MemPersistence persistence = new MemPersistence("test", dir, syncInterval, 0);
+        persistence.open(() -> states.values(), new MemPersistence.Replayer() {
+
+            @Override
+            public void create(State state) {
+                states.put((String) state.get("ecm:id"), state);
+            }
+
+            @Override
+            public void update(String id, StateDiff diff) {
+                MemRepository.applyDiff(states.get(id), diff);
+            }
+
+            @Override
+            public void delete(Set<String> ids) {
+                states.keySet().removeAll(ids);
+            }
+        });
+        return persistence;
+    }
+
+    /**
+     * Stops the background tasks without closing the log, as if the process died.
+     */
+    protected void crash(MemPersistence persistence) {
+        persistence.scheduler.shutdownNow();
+    }
+
+    protected void create(MemPersistence persistence, String id, String title) {
+        State state = new State();
+        state.put("ecm:id", id);
+        state.put("dc:title", title);
+        persistence.logCreate(state);
+        states.put(id, state);
+    }
+
+    protected void update(MemPersistence persistence, String id, String title) {
+        StateDiff diff = new StateDiff();
+        diff.put("dc:title", title);
+        persistence.logUpdate(id, diff);
+        MemRepository.applyDiff(states.get(id), diff);
+    }
+
+    protected void delete(MemPersistence persistence, String id) {
+        Set<String> ids = Collections.singleton(id);
+        persistence.logDelete(ids);
+        states.remove(id);
+    }
+
+    @Test
+    public void testSnapshotOnClose() {
+        MemPersistence persistence = open(10);
+        assertTrue(states.isEmpty());
+        create(persistence, "id1", "foo");
+        create(persistence, "id2", "bar");
+        update(persistence, "id1", "foo2");
+        delete(persistence, "id2");
+        persistence.close();
+        assertTrue(new File(dir, MemPersistence.SNAPSHOT).exists());
+
+        persistence = open(10);
+        assertEquals(1, states.size());
+        assertEquals("foo2", states.get("id1").get("dc:title"));
+        update(persistence, "id1", "foo3");
+        persistence.close();
+
+        open(10).close();
+        assertEquals("foo3", states.get("id1").get("dc:title"));
+        // only the log started by the last snapshot is kept
+        assertEquals(2, dir.list().length);
+    }
+
+    @Test
+    public void testReplayLogAfterCrash() {
+        MemPersistence persistence = open(0);
+        create(persistence, "id1", "foo");
+        persistence.snapshot();
+        create(persistence, "id2", "bar");
+        update(persistence, "id1", "foo2");
+        crash(persistence);
+
+        open(0);
+        assertEquals(2, states.size());
+        assertEquals("foo2", states.get("id1").get("dc:title"));
+        assertEquals("bar", states.get("id2").get("dc:title"));
+    }
+
+    @Test
+    public void testCorruptedLogTail() throws IOException {
+        MemPersistence persistence = open(0);
+        create(persistence, "id1", "foo");
+        create(persistence, "id2", "bar");
+        crash(persistence);
+        // corrupt the last record
+        File logFile = persistence.getLogFile(persistence.generation);
+        long end = persistence.bufferStart + persistence.buffer.position();
+        try (RandomAccessFile raf = new RandomAccessFile(logFile, "rw")) {
+            raf.seek(end - 1);
+            int b = raf.read();
+            raf.seek(end - 1);
+            raf.write(b ^ 0xFF);
+        }
+
+        persistence = open(0);
+        assertEquals(1, states.size());
+        assertNull(states.get("id2"));
+        // the log continues after the last valid record
+        create(persistence, "id3", "baz");
+        crash(persistence);
+        open(0);
+        assertEquals(2, states.size());
+        assertFalse(states.containsKey("id2"));
+        assertEquals("baz", states.get("id3").get("dc:title"));
+    }
+
+    /**
+     * Logs the write throughput and the recovery time.
+     */
+    @Test
+    public void testThroughput() {
+        int n = 20000;
+        MemPersistence persistence = open(10);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            create(persistence, "id" + i, "title" + i);
+        }
+        for (int i = 0; i < n; i++) {
+            update(persistence, "id" + i, "new title" + i);
+        }
+        long t1 = System.nanoTime();
+        persistence.sync();
+        long t2 = System.nanoTime();
+        double rate = 2.0 * n / TimeUnit.NANOSECONDS.toMillis(Math.max(t1 - t0, 1000000)) * 1000;
+        log.debug(String.format("%d changes: %.0f changes/s, %.1f MB logged, final sync %d ms", 2 * n, rate,
+                persistence.logBytes.getCount() / 1048576.0, TimeUnit.NANOSECONDS.toMillis(t2 - t1)));
+        // crash then recover from the log
+        crash(persistence);
+        long t3 = System.nanoTime();
+        open(10);
+        long t4 = System.nanoTime();
+        assertEquals(n, states.size());
+        log.debug(String.format("Recovery of %d changes from log: %d ms", 2 * n,
+                TimeUnit.NANOSECONDS.toMillis(t4 - t3)));
+    }
+
+}
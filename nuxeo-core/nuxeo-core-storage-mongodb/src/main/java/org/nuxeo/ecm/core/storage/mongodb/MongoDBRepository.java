@@ -50,9 +50,12 @@ import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -85,6 +88,7 @@ import org.nuxeo.ecm.core.storage.dbs.DBSSession;
 import org.nuxeo.runtime.api.Framework;
 
 import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
 import com.mongodb.DB;
 import com.mongodb.DBCollection;
 import com.mongodb.DBCursor;
@@ -124,6 +128,12 @@ public class MongoDBRepository extends DBSRepositoryBase {
 
     public static final String MONGODB_EACH = "$each";
 
+    /** @since 8.3 */
+    public static final String MONGODB_PULL = "$pull";
+
+    /** @since 8.3 */
+    public static final String MONGODB_POSITION = "$position";
+
     public static final String MONGODB_META = "$meta";
 
     public static final String MONGODB_TEXT_SCORE = "textScore";
@@ -142,14 +152,26 @@ public class MongoDBRepository extends DBSRepositoryBase {
 
     protected static final String COUNTER_FIELD = "seq";
 
+    /**
+     * Default maximum number of writes in a bulk operation, which is also the maximum batch size of the server.
+     *
+     * @since 8.3
+     */
+    public static final int DEFAULT_BULK_SIZE = 1000;
+
     protected MongoClient mongoClient;
 
     protected DBCollection coll;
 
     protected DBCollection countersColl;
 
+    /** @since 8.3 */
+    protected final int bulkSize;
+
     public MongoDBRepository(ConnectionManager cm, MongoDBRepositoryDescriptor descriptor) {
         super(cm, descriptor.name, descriptor.getFulltextDescriptor());
+        bulkSize = descriptor.bulkSize == null || descriptor.bulkSize.intValue() <= 0 ? DEFAULT_BULK_SIZE
+                : descriptor.bulkSize.intValue();
         try {
             mongoClient = newMongoClient(descriptor);
             coll = getCollection(descriptor, mongoClient);
@@ -560,6 +582,162 @@ public class MongoDBRepository extends DBSRepositoryBase {
         }
     }
 
+    /**
+     * Sends the creates and updates as unordered bulk operations.
+     * <p>
+     * A diff may need several MongoDB updates that have to be applied in order, so the updates are sent in successive
+     * rounds, each round containing at most one update per document.
+     */
+    @Override
+    public void writeStates(List<State> creates, Map<String, StateDiff> updates, Set<String> deletes) {
+        BulkWriter writer = new BulkWriter();
+        for (State state : creates) {
+            DBObject ob = stateToBson(state);
+            if (log.isTraceEnabled()) {
+                log.trace("MongoDB: CREATE " + ob.get(KEY_ID) + ": " + ob);
+            }
+            writer.insert(ob);
+        }
+        Map<String, List<DBObject>> pending = new LinkedHashMap<>();
+        for (Entry<String, StateDiff> en : updates.entrySet()) {
+            List<DBObject> updateList = diffToBson(en.getValue());
+            if (!updateList.isEmpty()) {
+                pending.put(en.getKey(), updateList);
+            }
+        }
+        for (int round = 0; !pending.isEmpty(); round++) {
+            for (Iterator<Entry<String, List<DBObject>>> it = pending.entrySet().iterator(); it.hasNext();) {
+                Entry<String, List<DBObject>> en = it.next();
+                String id = en.getKey();
+                List<DBObject> updateList = en.getValue();
+                DBObject update = updateList.get(round);
+                if (log.isTraceEnabled()) {
+                    log.trace("MongoDB: UPDATE " + id + ": " + update);
+                }
+                writer.update(new BasicDBObject(KEY_ID, id), update);
+                if (updateList.size() == round + 1) {
+                    it.remove();
+                }
+            }
+            // the next round must be applied after this one
+            writer.flush();
+        }
+        writer.flush();
+        if (!deletes.isEmpty()) {
+            deleteStates(deletes);
+        }
+    }
+
+    /**
+     * Accumulates writes in unordered bulk operations of at most {@link #bulkSize} writes.
+     *
+     * @since 8.3
+     */
+    protected class BulkWriter {
+
+        protected BulkWriteOperation bulk;
+
+        protected int count;
+
+        public void insert(DBObject ob) {
+            getBulk().insert(ob);
+            written();
+        }
+
+        public void update(DBObject query, DBObject update) {
+            getBulk().find(query).updateOne(update);
+            written();
+        }
+
+        protected BulkWriteOperation getBulk() {
+            if (bulk == null) {
+                bulk = coll.initializeUnorderedBulkOperation();
+            }
+            return bulk;
+        }
+
+        protected void written() {
+            if (++count >= bulkSize) {
+                flush();
+            }
+        }
+
+        public void flush() {
+            if (bulk == null) {
+                return;
+            }
+            if (log.isTraceEnabled()) {
+                log.trace("MongoDB: BULK " + count + " writes");
+            }
+            bulk.execute();
+            bulk = null;
+            count = 0;
+        }
+    }
+
+    /**
+     * Updates the ancestors with two server-side multi-updates, as MongoDB cannot replace a slice of an array in place:
+     * the old ancestors are pulled, then the new ones are pushed at the beginning of the array.
+     */
+    @Override
+    public void updateAncestors(String id, Object[] oldAncestorIds, Object[] ancestorIds) {
+        DBObject query = new BasicDBObject(KEY_ANCESTOR_IDS, id);
+        if (oldAncestorIds.length > 0) {
+            DBObject pull = new BasicDBObject(MONGODB_PULL, new BasicDBObject(KEY_ANCESTOR_IDS, new BasicDBObject(
+                    QueryOperators.IN, valueToBson(oldAncestorIds))));
+            if (log.isTraceEnabled()) {
+                log.trace("MongoDB: UPDATE " + query + ": " + pull);
+            }
+            coll.updateMulti(query, pull);
+        }
+        if (ancestorIds.length > 0) {
+            DBObject each = new BasicDBObject(MONGODB_EACH, valueToBson(ancestorIds));
+            each.put(MONGODB_POSITION, Integer.valueOf(0));
+            DBObject push = new BasicDBObject(MONGODB_PUSH, new BasicDBObject(KEY_ANCESTOR_IDS, each));
+            if (log.isTraceEnabled()) {
+                log.trace("MongoDB: UPDATE " + query + ": " + push);
+            }
+            coll.updateMulti(query, push);
+        }
+    }
+
+    /**
+     * Sets the value with a single server-side multi-update, skipping the documents already having it.
+     */
+    @Override
+    public void updateSubTree(String id, Set<String> excluded, String key, Serializable value) {
+        DBObject ancestorsQuery = new BasicDBObject(QueryOperators.ALL, Collections.singletonList(id));
+        DBObject query = new BasicDBObject(KEY_ANCESTOR_IDS, ancestorsQuery);
+        if (!excluded.isEmpty()) {
+            ancestorsQuery.put(QueryOperators.NIN, excluded);
+            query.put(KEY_ID, new BasicDBObject(QueryOperators.NIN, excluded));
+        }
+        Object bsonValue = valueToBson(value);
+        if (!query.containsField(key)) {
+            query.put(key, new BasicDBObject(QueryOperators.NE, bsonValue));
+        }
+        DBObject update;
+        if (value == null) {
+            update = new BasicDBObject(MONGODB_UNSET, new BasicDBObject(key, ONE));
+        } else {
+            update = new BasicDBObject(MONGODB_SET, new BasicDBObject(key, bsonValue));
+        }
+        if (log.isTraceEnabled()) {
+            log.trace("MongoDB: UPDATE " + query + ": " + update);
+        }
+        WriteResult w = coll.updateMulti(query, update);
+        if (log.isTraceEnabled()) {
+            log.trace("MongoDB:    -> " + w.getN());
+        }
+    }
+
+    @Override
+    public List<State> querySubTreeKeyPresence(String id, String key) {
+        DBObject query = new BasicDBObject(KEY_ANCESTOR_IDS, id);
+        query.put(key, new BasicDBObject(QueryOperators.NE, null));
+        return findAll(query, 0);
+    }
+
     @Override
     public void deleteStates(Set<String> ids) {
         DBObject query = new BasicDBObject(KEY_ID, new BasicDBObject(QueryOperators.IN, ids));
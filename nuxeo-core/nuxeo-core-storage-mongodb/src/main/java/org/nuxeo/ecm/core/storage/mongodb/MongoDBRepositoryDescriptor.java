@@ -37,6 +37,14 @@ public class MongoDBRepositoryDescriptor extends DBSRepositoryDescriptor {
     @XNode("dbname")
     public String dbname;
 
+    /**
+     * Maximum number of writes sent to MongoDB in a single bulk operation.
+     *
+     * @since 8.3
+     */
+    @XNode("bulkSize")
+    public Integer bulkSize;
+
     @Override
     public MongoDBRepositoryDescriptor clone() {
         return (MongoDBRepositoryDescriptor) super.clone();
@@ -50,6 +58,9 @@ public class MongoDBRepositoryDescriptor extends DBSRepositoryDescriptor {
         if (other.dbname != null) {
             dbname = other.dbname;
         }
+        if (other.bulkSize != null) {
+            bulkSize = other.bulkSize;
+        }
     }
 
 }
@@ -93,10 +93,15 @@ import org.nuxeo.ecm.core.storage.sql.jdbc.JDBCConnection;
 import org.nuxeo.ecm.core.storage.sql.jdbc.JDBCMapperConnector;
 import org.nuxeo.ecm.core.storage.sql.jdbc.dialect.Dialect;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
 import org.nuxeo.runtime.test.runner.ConditionalIgnoreRule;
 import org.nuxeo.runtime.transaction.TransactionHelper;
 import org.nuxeo.runtime.transaction.TransactionRuntimeException;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+
 public class TestSQLBackend extends SQLBackendTestCase {
 
     private static final Log log = LogFactory.getLog(TestSQLBackend.class);
@@ -109,6 +114,8 @@ public class TestSQLBackend extends SQLBackendTestCase {
 
     protected boolean pathOptimizationsEnabled;
 
+    protected String clusteringMode;
+
     @Override
     @Before
     public void setUp() throws Exception {
@@ -121,6 +128,7 @@ public class TestSQLBackend extends SQLBackendTestCase {
     protected RepositoryDescriptor newDescriptor(String name, long clusteringDelay) {
         RepositoryDescriptor descriptor = super.newDescriptor(name, clusteringDelay);
         descriptor.setPathOptimizationsEnabled(pathOptimizationsEnabled);
+        descriptor.setClusteringMode(clusteringMode);
         return descriptor;
     }
 
@@ -848,6 +856,41 @@ public class TestSQLBackend extends SQLBackendTestCase {
         session.close();
     }
 
+    @Test
+    public void testQueryPlanCache() throws Exception {
+        Session session = repository.getConnection();
+        Node root = session.getRootNode();
+        int n = 10;
+        List<Serializable> ids = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Node node = session.addChildNode(root, "doc" + i, null, "TestDoc", false);
+            node.setSimpleProperty("tst:title", "title" + i);
+            ids.add(node.getId());
+        }
+        session.save();
+
+        MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+        Timer hits = registry.timer(
+                MetricRegistry.name("nuxeo", "repositories", repository.getName(), "queryPlanCache", "hits"));
+        Timer misses = registry.timer(
+                MetricRegistry.name("nuxeo", "repositories", repository.getName(), "queryPlanCache", "misses"));
+        long hits0 = hits.getCount();
+        long misses0 = misses.getCount();
+
+        // same shape with different values
+        String nxql = "SELECT * FROM TestDoc WHERE tst:title = '%s' AND ecm:name IN ('%s', 'foo')";
+        PartialList<Serializable> res;
+        for (int i = 0; i < n; i++) {
+            res = session.query(String.format(nxql, "title" + i, "doc" + i), QueryFilter.EMPTY, false);
+            assertEquals(Collections.singletonList(ids.get(i)), res.list);
+        }
+        res = session.query(String.format(nxql, "title1", "doc2"), QueryFilter.EMPTY, false);
+        assertEquals(0, res.list.size());
+        assertEquals(1, misses.getCount() - misses0);
+        assertTrue(hits.getCount() - hits0 >= n);
+        session.close();
+    }
+
     @Test
     public void testUpdateReadAclsDeadlock() throws Exception {
         repository.getConnection().close(); // create repo
@@ -1423,6 +1466,29 @@ public class TestSQLBackend extends SQLBackendTestCase {
         repository2 = null; // already closed
     }
 
+    @Test
+    @ConditionalIgnoreRule.Ignore(condition = ConditionalIgnoreRule.IgnoreWindows.class, cause = "windows doesn't have enough time granularity for such a test")
+    public void testClusteringInvalidationsLog() throws Exception {
+        if (!DatabaseHelper.DATABASE.supportsClustering()) {
+            System.out.println("Skipping clustering test for unsupported database: "
+                    + DatabaseHelper.DATABASE.getClass().getName());
+            return;
+        }
+
+        repository.close();
+        // get two clustered repositories sharing an invalidations log
+        clusteringMode = RepositoryDescriptor.CLUSTERING_MODE_LOG;
+        long DELAY = 500; // ms
+        repository = newRepository(DELAY);
+        repository2 = newRepository(DELAY);
+
+        ClusterTestJob r1 = new ClusterTestJob(repository, repository2);
+        ClusterTestJob r2 = new ClusterTestJob(repository, repository2);
+        LockStepJob.run(r1, r2);
+        repository = null; // already closed
+        repository2 = null; // already closed
+    }
+
     protected static class ClusterTestJob extends LockStepJob {
 
         protected Repository repository1;
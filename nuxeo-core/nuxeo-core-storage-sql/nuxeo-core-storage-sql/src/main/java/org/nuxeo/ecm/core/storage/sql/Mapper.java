@@ -22,6 +22,7 @@ package org.nuxeo.ecm.core.storage.sql;
 import java.io.Serializable;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 import javax.transaction.xa.XAResource;
@@ -57,6 +58,36 @@ public interface Mapper extends RowMapper, XAResource {
         }
     }
 
+    /**
+     * An entry of the cluster invalidations log.
+     *
+     * @since 8.3
+     */
+    public static final class ClusterInvalidationsLogEntry implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        public final long seq;
+
+        public final Serializable nodeId;
+
+        public final Calendar created;
+
+        public final Invalidations invalidations;
+
+        public ClusterInvalidationsLogEntry(long seq, Serializable nodeId, Calendar created,
+                Invalidations invalidations) {
+            this.seq = seq;
+            this.nodeId = nodeId;
+            this.created = created;
+            this.invalidations = invalidations;
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + '(' + seq + ',' + nodeId + ',' + invalidations + ')';
+        }
+    }
+
     /**
      * Returns the repository id and mapper id assigned.
      * <p>
@@ -195,6 +226,35 @@ public interface Mapper extends RowMapper, XAResource {
      */
     Invalidations getClusterInvalidations(Serializable nodeId);
 
+    /**
+     * Appends invalidations to the cluster invalidations log shared by all cluster nodes.
+     *
+     * @since 8.3
+     */
+    void appendClusterInvalidationsLog(Serializable nodeId, Invalidations invalidations);
+
+    /**
+     * Reads the entries of the cluster invalidations log whose sequence number is strictly greater than the given one.
+     *
+     * @return the log entries, ordered by sequence number
+     * @since 8.3
+     */
+    List<ClusterInvalidationsLogEntry> readClusterInvalidationsLog(long afterSeq);
+
+    /**
+     * Gets the highest sequence number of the cluster invalidations log, or {@code 0} if it's empty.
+     *
+     * @since 8.3
+     */
+    long getClusterInvalidationsLogMaxSeq();
+
+    /**
+     * Removes the entries of the cluster invalidations log created before the given time.
+     *
+     * @since 8.3
+     */
+    void purgeClusterInvalidationsLog(Calendar before);
+
     /*
      * ----- Locking -----
      */
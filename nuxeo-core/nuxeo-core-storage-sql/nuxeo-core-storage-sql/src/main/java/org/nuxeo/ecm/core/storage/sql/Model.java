@@ -93,6 +93,21 @@ public class Model {
 
     public static final String CLUSTER_INVALS_KIND_KEY = "kind";
 
+    /** @since 8.3 */
+    public static final String CLUSTER_INVAL_LOG_TABLE_NAME = "cluster_inval_log";
+
+    /** @since 8.3 */
+    public static final String CLUSTER_INVAL_LOG_SEQ_KEY = "seq";
+
+    /** @since 8.3 */
+    public static final String CLUSTER_INVAL_LOG_NODEID_KEY = "nodeid";
+
+    /** @since 8.3 */
+    public static final String CLUSTER_INVAL_LOG_CREATED_KEY = "created";
+
+    /** @since 8.3 */
+    public static final String CLUSTER_INVAL_LOG_INVALS_KEY = "invals";
+
     public static final String MAIN_PRIMARY_TYPE_PROP = "ecm:primaryType";
 
     public static final String MAIN_PRIMARY_TYPE_KEY = "primarytype";
@@ -1008,6 +1023,16 @@ public class Model {
         return mixinFragments.get(mixin);
     }
 
+    /**
+     * Gets the simple+collection fragments of a schema.
+     *
+     * @return the fragment names, or {@code null} for an unknown schema
+     * @since 8.3
+     */
+    public Set<String> getSchemaFragments(String schemaName) {
+        return schemaFragments.get(schemaName);
+    }
+
     public Set<String> getTypePrefetchedFragments(String typeName) {
         return docTypePrefetchedFragments.get(typeName);
     }
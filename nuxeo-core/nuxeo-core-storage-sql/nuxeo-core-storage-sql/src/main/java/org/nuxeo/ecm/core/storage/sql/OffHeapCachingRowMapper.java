@@ -0,0 +1,568 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage.sql;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+import javax.transaction.xa.XAException;
+import javax.transaction.xa.Xid;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.storage.sql.ACLRow.ACLRowPositionComparator;
+import org.nuxeo.runtime.metrics.MetricsService;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+
+/**
+ * A {@link RowMapper} that uses an {@link OffHeapRowCache} shared by all the sessions of the repository.
+ * <p>
+ * The shared cache only holds {@link Row}s that are known to be identical to what's committed in the underlying
+ * {@link RowMapper}. Rows written by the current transaction are kept in a local cache and are only removed from the
+ * shared cache once the transaction is committed, when invalidations are sent to the other sessions.
+ * <p>
+ * The following properties of the caching mapper configuration are used:
+ * <ul>
+ * <li>{@value #MAX_SIZE_MB_PROP}: the size of the off-heap memory used, in megabytes (default
+ * {@value #DEFAULT_MAX_SIZE_MB}),</li>
+ * <li>{@value #CONCURRENCY_PROP}: the minimum number of independently locked segments (default
+ * {@value #DEFAULT_CONCURRENCY}).</li>
+ * </ul>
+ *
+ * @since 8.3
+ */
+public class OffHeapCachingRowMapper implements RowMapper {
+
+    private static final Log log = LogFactory.getLog(OffHeapCachingRowMapper.class);
+
+    private static final String ABSENT = "__ABSENT__\0\0\0";
+
+    public static final String MAX_SIZE_MB_PROP = "maxSizeMB";
+
+    public static final String DEFAULT_MAX_SIZE_MB = "512";
+
+    public static final String CONCURRENCY_PROP = "concurrency";
+
+    public static final String DEFAULT_CONCURRENCY = "16";
+
+    /**
+     * Maximum number of rows kept on heap for the current transaction. Above that, only their ids are remembered and
+     * they are read again from the database when needed.
+     */
+    public static final int MAX_LOCAL_ROWS = 10000;
+
+    /**
+     * The cache shared by all the sessions of the repository.
+     */
+    private OffHeapRowCache cache;
+
+    /**
+     * The rows written or deleted by the current transaction, that must not be seen by other sessions before commit.
+     * The values are either {@link Row} or a row with tableName {@link #ABSENT}.
+     */
+    private final Map<RowId, Row> localCache;
+
+    /**
+     * The rows modified by the current transaction through server-side operations, which we don't have the content of.
+     * They are read from the database and kept in {@link #localCache}.
+     */
+    private final Set<RowId> localModified;
+
+    private Model model;
+
+    /**
+     * The {@link RowMapper} to which operations that cannot be processed from the cache are delegated.
+     */
+    private RowMapper rowMapper;
+
+    /**
+     * The local invalidations due to writes through this mapper that should be propagated to other sessions at
+     * post-commit time.
+     */
+    private final Invalidations localInvalidations;
+
+    /**
+     * The queue of invalidations received from other session or from the cluster invalidator, to process at
+     * pre-transaction time.
+     */
+    private final InvalidationsQueue invalidationsQueue;
+
+    /**
+     * The propagator of invalidations to other mappers.
+     */
+    private InvalidationsPropagator invalidationsPropagator;
+
+    protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
+    protected Counter cacheHitCount;
+
+    protected Timer cacheGetTimer;
+
+    // sor means system of record (database access)
+    protected Counter sorRows;
+
+    protected Timer sorGetTimer;
+
+    public OffHeapCachingRowMapper() {
+        localCache = new HashMap<>();
+        localModified = new HashSet<>();
+        localInvalidations = new Invalidations();
+        invalidationsQueue = new InvalidationsQueue("mapper-" + this);
+    }
+
+    public void initialize(String repositoryName, Model model, RowMapper rowMapper,
+            InvalidationsPropagator invalidationsPropagator, Map<String, String> properties) {
+        this.model = model;
+        this.rowMapper = rowMapper;
+        this.invalidationsPropagator = invalidationsPropagator;
+        invalidationsPropagator.addQueue(invalidationsQueue);
+        long maxSize = getProperty(properties, MAX_SIZE_MB_PROP, DEFAULT_MAX_SIZE_MB) * 1024 * 1024;
+        int concurrency = (int) getProperty(properties, CONCURRENCY_PROP, DEFAULT_CONCURRENCY);
+        cache = OffHeapRowCache.getOrCreate(repositoryName, maxSize, concurrency);
+        setMetrics(repositoryName);
+    }
+
+    protected static long getProperty(Map<String, String> properties, String name, String defaultValue) {
+        String value = properties.get(name);
+        if (value != null) {
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                log.error("Invalid value for caching mapper property " + name + ": " + value);
+            }
+        }
+        return Long.parseLong(defaultValue);
+    }
+
+    protected void setMetrics(String repositoryName) {
+        cacheHitCount = registry.counter(MetricRegistry.name("nuxeo", "repositories", repositoryName, "caches",
+                "off-heap", "hits"));
+        cacheGetTimer = registry.timer(MetricRegistry.name("nuxeo", "repositories", repositoryName, "caches",
+                "off-heap", "get"));
+        sorRows = registry.counter(MetricRegistry.name("nuxeo", "repositories", repositoryName, "caches", "off-heap",
+                "sor", "rows"));
+        sorGetTimer = registry.timer(MetricRegistry.name("nuxeo", "repositories", repositoryName, "caches", "off-heap",
+                "sor", "get"));
+        String gaugeName = MetricRegistry.name("nuxeo", "repositories", repositoryName, "caches", "off-heap",
+                "cache-size");
+        SortedMap<String, Gauge> gauges = registry.getGauges();
+        if (!gauges.containsKey(gaugeName)) {
+            registry.register(gaugeName, new Gauge<Long>() {
+                @Override
+                public Long getValue() {
+                    OffHeapRowCache c = OffHeapRowCache.get(repositoryName);
+                    return Long.valueOf(c == null ? 0 : c.getSize());
+                }
+            });
+        }
+        gaugeName = MetricRegistry.name("nuxeo", "repositories", repositoryName, "caches", "off-heap", "evictions");
+        if (!gauges.containsKey(gaugeName)) {
+            registry.register(gaugeName, new Gauge<Long>() {
+                @Override
+                public Long getValue() {
+                    OffHeapRowCache c = OffHeapRowCache.get(repositoryName);
+                    return Long.valueOf(c == null ? 0 : c.getEvictionCount());
+                }
+            });
+        }
+    }
+
+    public void close() {
+        clearLocalCache();
+        invalidationsPropagator.removeQueue(invalidationsQueue);
+    }
+
+    @Override
+    public Serializable generateNewId() {
+        return rowMapper.generateNewId();
+    }
+
+    /*
+     * ----- Cache -----
+     */
+
+    protected static boolean isAbsent(Row row) {
+        return row.tableName == ABSENT; // == is ok
+    }
+
+    protected boolean isLocal(RowId rowId) {
+        return localCache.containsKey(rowId) || localModified.contains(rowId);
+    }
+
+    protected Row sortACLRows(Row row) {
+        // for ACL collections, make sure the order is correct
+        // (without the cache, the query to get a list of collection does an
+        // ORDER BY pos, so users of the cache must get the same behavior)
+        if (row.isCollection() && row.values.length > 0 && row.values[0] instanceof ACLRow) {
+            List<ACLRow> list = new ArrayList<ACLRow>(Arrays.asList((ACLRow[]) row.values));
+            Collections.sort(list, ACLRowPositionComparator.INSTANCE);
+            row.values = list.toArray(new ACLRow[list.size()]);
+        }
+        return row;
+    }
+
+    /**
+     * Puts a row written by the current transaction.
+     */
+    protected void localPut(Row row) {
+        if (localCache.size() >= MAX_LOCAL_ROWS) {
+            localModified.addAll(localCache.keySet());
+            localCache.clear();
+        }
+        localCache.put(new RowId(row), sortACLRows(row.clone()));
+    }
+
+    protected void localPutAbsent(RowId rowId) {
+        if (localCache.size() >= MAX_LOCAL_ROWS) {
+            localModified.addAll(localCache.keySet());
+            localCache.clear();
+        }
+        localCache.put(new RowId(rowId), new Row(ABSENT, (Serializable) null));
+    }
+
+    /**
+     * Puts a row read from the database, in the shared cache if it's not being modified by the current transaction.
+     */
+    protected void cachePut(Row row, long stamp) {
+        if (isLocal(row)) {
+            localPut(row);
+        } else {
+            cache.put(row, RowCodec.encode(sortACLRows(row.clone())), stamp);
+        }
+    }
+
+    protected void cachePutAbsent(RowId rowId, long stamp) {
+        if (isLocal(rowId)) {
+            localPutAbsent(rowId);
+        } else {
+            cache.put(rowId, OffHeapRowCache.ABSENT, stamp);
+        }
+    }
+
+    protected void cachePutAbsentIfRowId(RowId rowId, long stamp) {
+        if (rowId instanceof Row) {
+            cachePut((Row) rowId, stamp);
+        } else {
+            cachePutAbsent(rowId, stamp);
+        }
+    }
+
+    protected Row cacheGet(RowId rowId) {
+        final Timer.Context context = cacheGetTimer.time();
+        try {
+            Row row = localCache.get(rowId);
+            if (row != null) {
+                if (!isAbsent(row)) {
+                    row = row.clone();
+                }
+            } else if (!localModified.contains(rowId)) {
+                byte[] bytes = cache.get(rowId);
+                if (bytes == OffHeapRowCache.ABSENT) {
+                    row = new Row(ABSENT, (Serializable) null);
+                } else if (bytes != null) {
+                    row = RowCodec.decode(rowId, bytes);
+                }
+            }
+            if (row != null) {
+                cacheHitCount.inc();
+            }
+            return row;
+        } finally {
+            context.stop();
+        }
+    }
+
+    protected void clearLocalCache() {
+        localCache.clear();
+        localModified.clear();
+        localInvalidations.clear();
+    }
+
+    /*
+     * ----- Invalidations / Cache Management -----
+     */
+
+    @Override
+    public Invalidations receiveInvalidations() {
+        // invalidations from the underlying mapper (cluster)
+        // already propagated to our invalidations queue
+        Invalidations remoteInvals = rowMapper.receiveInvalidations();
+
+        Invalidations ret = invalidationsQueue.getInvalidations();
+
+        if (ret.all) {
+            clearCache();
+        } else if (remoteInvals != null) {
+            // local invalidations were already applied to the shared cache by the sender
+            if (remoteInvals.modified != null) {
+                for (RowId rowId : remoteInvals.modified) {
+                    cache.remove(rowId);
+                }
+            }
+            if (remoteInvals.deleted != null) {
+                for (RowId rowId : remoteInvals.deleted) {
+                    cache.remove(rowId);
+                }
+            }
+        }
+
+        return ret.isEmpty() ? null : ret;
+    }
+
+    // propagate invalidations
+    @Override
+    public void sendInvalidations(Invalidations invalidations) {
+        // add local invalidations
+        if (!localInvalidations.isEmpty()) {
+            if (invalidations == null) {
+                invalidations = new Invalidations();
+            }
+            invalidations.add(localInvalidations);
+        }
+        // the transaction is committed, the shared cache must not return previous values anymore
+        for (RowId rowId : localCache.keySet()) {
+            cache.remove(rowId);
+        }
+        for (RowId rowId : localModified) {
+            cache.remove(rowId);
+        }
+        clearLocalCache();
+
+        if (invalidations != null && !invalidations.isEmpty()) {
+            // send to underlying mapper
+            rowMapper.sendInvalidations(invalidations);
+
+            // queue to other mappers' caches
+            invalidationsPropagator.propagateInvalidations(invalidations, invalidationsQueue);
+        }
+    }
+
+    @Override
+    public void clearCache() {
+        cache.clear();
+        clearLocalCache();
+        rowMapper.clearCache();
+    }
+
+    @Override
+    public long getCacheSize() {
+        // the shared cache is reported by the cache-size gauge
+        return localCache.size();
+    }
+
+    @Override
+    public void rollback(Xid xid) throws XAException {
+        try {
+            rowMapper.rollback(xid);
+        } finally {
+            // the shared cache only holds committed data
+            clearLocalCache();
+        }
+    }
+
+    /*
+     * ----- Batch -----
+     */
+
+    /*
+     * Use those from the cache if available, read from the mapper for the rest.
+     */
+    @Override
+    public List<? extends RowId> read(Collection<RowId> rowIds, boolean cacheOnly) {
+        List<RowId> res = new ArrayList<RowId>(rowIds.size());
+        // find which are in cache, and which not
+        List<RowId> todo = new LinkedList<RowId>();
+        for (RowId rowId : rowIds) {
+            Row row = cacheGet(rowId);
+            if (row == null) {
+                if (cacheOnly) {
+                    res.add(new RowId(rowId));
+                } else {
+                    todo.add(rowId);
+                }
+            } else if (isAbsent(row)) {
+                res.add(new RowId(rowId));
+            } else {
+                res.add(row);
+            }
+        }
+        if (!todo.isEmpty()) {
+            final Timer.Context context = sorGetTimer.time();
+            try {
+                long stamp = cache.getStamp();
+                // ask missing ones to underlying row mapper
+                List<? extends RowId> fetched = rowMapper.read(todo, cacheOnly);
+                // add them to the cache
+                for (RowId rowId : fetched) {
+                    cachePutAbsentIfRowId(rowId, stamp);
+                }
+                // merge results
+                res.addAll(fetched);
+                sorRows.inc(fetched.size());
+            } finally {
+                context.stop();
+            }
+        }
+        return res;
+    }
+
+    /*
+     * Keep in the local cache then pass all the writes to the mapper.
+     */
+    @Override
+    public void write(RowBatch batch) {
+        for (Row row : batch.creates) {
+            localPut(row);
+            // we need to send modified invalidations for created
+            // fragments because other session's ABSENT fragments have
+            // to be invalidated
+            localInvalidations.addModified(new RowId(row));
+        }
+        for (RowUpdate rowu : batch.updates) {
+            localPut(rowu.row);
+            localInvalidations.addModified(new RowId(rowu.row));
+        }
+        for (RowId rowId : batch.deletes) {
+            if (rowId instanceof Row) {
+                throw new AssertionError();
+            }
+            localPutAbsent(rowId);
+            localInvalidations.addDeleted(rowId);
+        }
+        for (RowId rowId : batch.deletesDependent) {
+            if (rowId instanceof Row) {
+                throw new AssertionError();
+            }
+            localPutAbsent(rowId);
+            localInvalidations.addDeleted(rowId);
+        }
+
+        // propagate to underlying mapper
+        rowMapper.write(batch);
+    }
+
+    /*
+     * ----- Read -----
+     */
+
+    @Override
+    public Row readSimpleRow(RowId rowId) {
+        Row row = cacheGet(rowId);
+        if (row == null) {
+            long stamp = cache.getStamp();
+            row = rowMapper.readSimpleRow(rowId);
+            if (row != null) {
+                cachePut(row, stamp);
+            } else {
+                cachePutAbsent(rowId, stamp);
+            }
+            return row;
+        } else if (isAbsent(row)) {
+            return null;
+        } else {
+            return row;
+        }
+    }
+
+    @Override
+    public Map<String, String> getBinaryFulltext(RowId rowId) {
+        return rowMapper.getBinaryFulltext(rowId);
+    }
+
+    @Override
+    public Serializable[] readCollectionRowArray(RowId rowId) {
+        Row row = cacheGet(rowId);
+        if (row == null) {
+            long stamp = cache.getStamp();
+            Serializable[] array = rowMapper.readCollectionRowArray(rowId);
+            assert array != null;
+            row = new Row(rowId.tableName, rowId.id, array);
+            cachePut(row, stamp);
+            return row.values;
+        } else if (isAbsent(row)) {
+            return null;
+        } else {
+            return row.values;
+        }
+    }
+
+    @Override
+    public List<Row> readSelectionRows(SelectionType selType, Serializable selId, Serializable filter,
+            Serializable criterion, boolean limitToOne) {
+        long stamp = cache.getStamp();
+        List<Row> rows = rowMapper.readSelectionRows(selType, selId, filter, criterion, limitToOne);
+        for (Row row : rows) {
+            cachePut(row, stamp);
+        }
+        return rows;
+    }
+
+    /*
+     * ----- Copy -----
+     */
+
+    @Override
+    public CopyResult copy(IdWithTypes source, Serializable destParentId, String destName, Row overwriteRow) {
+        CopyResult result = rowMapper.copy(source, destParentId, destName, overwriteRow);
+        Invalidations invalidations = result.invalidations;
+        if (invalidations.modified != null) {
+            for (RowId rowId : invalidations.modified) {
+                localCache.remove(rowId);
+                localModified.add(new RowId(rowId));
+                localInvalidations.addModified(new RowId(rowId));
+            }
+        }
+        if (invalidations.deleted != null) {
+            for (RowId rowId : invalidations.deleted) {
+                localPutAbsent(rowId);
+                localInvalidations.addDeleted(rowId);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<NodeInfo> remove(NodeInfo rootInfo) {
+        List<NodeInfo> infos = rowMapper.remove(rootInfo);
+        for (NodeInfo info : infos) {
+            for (String fragmentName : model.getTypeFragments(new IdWithTypes(info.id, info.primaryType, null))) {
+                RowId rowId = new RowId(fragmentName, info.id);
+                localPutAbsent(rowId);
+                localInvalidations.addDeleted(rowId);
+            }
+        }
+        return infos;
+    }
+
+}
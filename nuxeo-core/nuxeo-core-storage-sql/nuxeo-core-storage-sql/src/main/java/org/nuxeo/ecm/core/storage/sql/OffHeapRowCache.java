@@ -0,0 +1,299 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage.sql;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A size-bounded store of encoded rows kept in direct memory, shared by all the sessions of a repository.
+ * <p>
+ * The store is split into segments, each one owning a direct buffer divided into regions that are filled in turn. When
+ * the current region is full, the next one is recycled and all the entries it held are evicted, so eviction is
+ * incremental and never involves the Java GC. Only the keys and the locations of the entries are kept on the heap.
+ * <p>
+ * To avoid caching a value read from the database concurrently with its invalidation, callers get a
+ * {@linkplain #getStamp stamp} before reading and pass it when putting the value: the put is ignored if the row was
+ * removed from the store in between. Removals are tracked per stripe of rows in each segment, so a removal only
+ * rejects the puts of the few rows sharing its stripe, and a {@link #clear} rejects all of them.
+ *
+ * @since 8.3
+ */
+public class OffHeapRowCache {
+
+    private static final Log log = LogFactory.getLog(OffHeapRowCache.class);
+
+    /** Largest size of a segment, a direct buffer cannot hold more than 2GB. */
+    public static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    /** Number of regions per segment. A region is the unit of eviction. */
+    public static final int REGIONS = 8;
+
+    /** Space accounted for each entry in addition to its data, so that absent markers are bounded too. */
+    protected static final int ENTRY_OVERHEAD = 16;
+
+    /** Number of stripes of rows per segment for which the last removal is tracked. */
+    protected static final int REMOVAL_STRIPES = 256;
+
+    /** Value returned by {@link #get} for an entry marking a row as absent. */
+    public static final byte[] ABSENT = new byte[0];
+
+    private static final Map<String, OffHeapRowCache> CACHES = new ConcurrentHashMap<>();
+
+    protected final Segment[] segments;
+
+    /** Logical clock, incremented by each removal. */
+    protected final AtomicLong clock = new AtomicLong();
+
+    /** Clock value of the last {@link #clear}. */
+    protected volatile long clearTime;
+
+    protected final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Gets the store shared by the sessions of a repository, creating it if needed.
+     */
+    public static OffHeapRowCache getOrCreate(String repositoryName, long maxSize, int concurrency) {
+        return CACHES.computeIfAbsent(repositoryName, k -> {
+            log.info("Creating off-heap row cache for repository: " + repositoryName + " of " + maxSize + " bytes");
+            return new OffHeapRowCache(maxSize, concurrency);
+        });
+    }
+
+    /**
+     * Gets the store shared by the sessions of a repository, or {@code null} if none was created.
+     */
+    public static OffHeapRowCache get(String repositoryName) {
+        return CACHES.get(repositoryName);
+    }
+
+    /**
+     * Releases the store of a repository, if any. The direct memory is freed when the buffers are garbage collected.
+     */
+    public static void release(String repositoryName) {
+        OffHeapRowCache cache = CACHES.remove(repositoryName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    public OffHeapRowCache(long maxSize, int concurrency) {
+        long minSegments = (maxSize + MAX_SEGMENT_SIZE - 1) / MAX_SEGMENT_SIZE;
+        int n = 1;
+        while (n < concurrency || n < minSegments) {
+            n <<= 1;
+        }
+        int segmentSize = (int) Math.min(maxSize / n, MAX_SEGMENT_SIZE);
+        segments = new Segment[n];
+        for (int i = 0; i < n; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    protected static int hash(RowId rowId) {
+        int h = rowId.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    protected Segment getSegment(RowId rowId) {
+        return segments[hash(rowId) & (segments.length - 1)];
+    }
+
+    /**
+     * Gets the stripe of a row in its segment, using other bits of the hash than the segment index.
+     */
+    protected static int getRemovalStripe(RowId rowId) {
+        return (hash(rowId) * 0x9E3779B9) >>> 24;
+    }
+
+    /**
+     * Gets a stamp to pass to {@link #put} when putting a value read from the database after this call.
+     */
+    public long getStamp() {
+        return clock.get();
+    }
+
+    /**
+     * Gets the encoded row for the given id.
+     *
+     * @return the encoded row, {@link #ABSENT} if the row is known to be absent, or {@code null} if not cached
+     */
+    public byte[] get(RowId rowId) {
+        return getSegment(rowId).get(rowId);
+    }
+
+    /**
+     * Puts an encoded row, or {@link #ABSENT}, unless the row (or another row of its stripe) was removed from the
+     * store, or the store was cleared, since the stamp was taken.
+     *
+     * @return {@code true} if the value was stored
+     */
+    public boolean put(RowId rowId, byte[] value, long stamp) {
+        return getSegment(rowId).put(rowId, value, stamp);
+    }
+
+    public void remove(RowId rowId) {
+        getSegment(rowId).remove(rowId);
+    }
+
+    public void clear() {
+        clearTime = clock.incrementAndGet();
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Gets the number of entries in the store.
+     */
+    public long getSize() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.getSize();
+        }
+        return size;
+    }
+
+    /**
+     * Gets the total size of the direct buffers.
+     */
+    public long getCapacity() {
+        return (long) segments.length * segments[0].buffer.capacity();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    protected class Segment {
+
+        protected final ByteBuffer buffer;
+
+        protected final int regionSize;
+
+        /** Location of each entry: offset in the high 32 bits, length in the low 32 bits. */
+        protected final Map<RowId, Long> index = new HashMap<>();
+
+        /** Keys of the entries stored in each region. */
+        protected final List<Set<RowId>> regionKeys = new ArrayList<>(REGIONS);
+
+        /** Clock value of the last removal of a row of each stripe. */
+        protected final long[] removalTimes = new long[REMOVAL_STRIPES];
+
+        protected int region;
+
+        protected int position;
+
+        protected Segment(int size) {
+            regionSize = size / REGIONS;
+            buffer = ByteBuffer.allocateDirect(regionSize * REGIONS);
+            for (int i = 0; i < REGIONS; i++) {
+                regionKeys.add(new HashSet<>());
+            }
+        }
+
+        protected synchronized byte[] get(RowId rowId) {
+            Long location = index.get(rowId);
+            if (location == null) {
+                return null;
+            }
+            int length = (int) location.longValue();
+            if (length == 0) {
+                return ABSENT;
+            }
+            byte[] bytes = new byte[length];
+            buffer.position((int) (location.longValue() >>> 32));
+            buffer.get(bytes);
+            return bytes;
+        }
+
+        protected synchronized boolean put(RowId rowId, byte[] value, long stamp) {
+            if (clearTime > stamp || removalTimes[getRemovalStripe(rowId)] > stamp) {
+                return false;
+            }
+            removeEntry(rowId);
+            int needed = value.length + ENTRY_OVERHEAD;
+            if (needed > regionSize) {
+                return false;
+            }
+            if (position + needed > (region + 1) * regionSize) {
+                nextRegion();
+            }
+            if (value.length > 0) {
+                buffer.position(position);
+                buffer.put(value);
+            }
+            // don't keep a reference to a full Row as key
+            RowId key = new RowId(rowId);
+            index.put(key, Long.valueOf(((long) position << 32) | value.length));
+            regionKeys.get(region).add(key);
+            position += needed;
+            return true;
+        }
+
+        protected void nextRegion() {
+            region = (region + 1) % REGIONS;
+            position = region * regionSize;
+            Set<RowId> evicted = regionKeys.get(region);
+            for (RowId key : evicted) {
+                index.remove(key);
+            }
+            evictionCount.addAndGet(evicted.size());
+            evicted.clear();
+        }
+
+        protected synchronized void remove(RowId rowId) {
+            // recorded under the segment lock so that a concurrent put of the same row sees it
+            removalTimes[getRemovalStripe(rowId)] = clock.incrementAndGet();
+            removeEntry(rowId);
+        }
+
+        protected void removeEntry(RowId rowId) {
+            Long location = index.remove(rowId);
+            if (location != null) {
+                int offset = (int) (location.longValue() >>> 32);
+                regionKeys.get(offset / regionSize).remove(rowId);
+            }
+        }
+
+        protected synchronized void clear() {
+            index.clear();
+            for (Set<RowId> keys : regionKeys) {
+                keys.clear();
+            }
+            region = 0;
+            position = 0;
+        }
+
+        protected synchronized int getSize() {
+            return index.size();
+        }
+    }
+
+}
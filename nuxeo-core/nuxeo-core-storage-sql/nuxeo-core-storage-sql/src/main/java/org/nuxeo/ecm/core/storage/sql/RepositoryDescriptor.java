@@ -48,6 +48,20 @@ public class RepositoryDescriptor {
 
     public static final int DEFAULT_PATH_OPTIM_VERSION = 2;
 
+    /**
+     * Cluster invalidations are copied to a per-node row in the cluster invalidations table.
+     *
+     * @since 8.3
+     */
+    public static final String CLUSTERING_MODE_TABLE = "table";
+
+    /**
+     * Cluster invalidations are appended to a shared sequence-numbered log, read by each node from its own cursor.
+     *
+     * @since 8.3
+     */
+    public static final String CLUSTERING_MODE_LOG = "log";
+
     /** At startup, DDL changes are not detected. */
     public static final String DDL_MODE_IGNORE = "ignore";
 
@@ -263,6 +277,38 @@ public class RepositoryDescriptor {
         clusteringDelay = Long.valueOf(delay);
     }
 
+    /** @since 8.3 */
+    @XNode("clustering@mode")
+    private String clusteringMode;
+
+    /**
+     * Gets the clustering mode, {@link #CLUSTERING_MODE_TABLE} or {@link #CLUSTERING_MODE_LOG}.
+     *
+     * @since 8.3
+     */
+    public String getClusteringMode() {
+        return StringUtils.isBlank(clusteringMode) ? CLUSTERING_MODE_TABLE : clusteringMode;
+    }
+
+    /** @since 8.3 */
+    protected void setClusteringMode(String mode) {
+        clusteringMode = mode;
+    }
+
+    /** @since 8.3 */
+    @XNode("clustering@maxInvalidations")
+    private Integer clusteringMaxInvalidations;
+
+    /**
+     * Gets the number of invalidated rows sent by a node in one go above which a full cache flush is requested
+     * instead.
+     *
+     * @since 8.3
+     */
+    public int getClusteringMaxInvalidations() {
+        return clusteringMaxInvalidations == null ? Invalidations.MAX_SIZE : clusteringMaxInvalidations.intValue();
+    }
+
     @XNodeList(value = "schema/field", type = ArrayList.class, componentType = FieldDescriptor.class)
     public List<FieldDescriptor> schemaFields = new ArrayList<>(0);
 
@@ -417,6 +463,8 @@ public class RepositoryDescriptor {
         clusterNodeId = other.clusterNodeId;
         clusteringEnabled = other.clusteringEnabled;
         clusteringDelay = other.clusteringDelay;
+        clusteringMode = other.clusteringMode;
+        clusteringMaxInvalidations = other.clusteringMaxInvalidations;
         fulltextAnalyzer = other.fulltextAnalyzer;
         fulltextCatalog = other.fulltextCatalog;
         fulltextDescriptor = new FulltextDescriptor(other.fulltextDescriptor);
@@ -481,6 +529,12 @@ public class RepositoryDescriptor {
         if (other.clusteringDelay != null) {
             clusteringDelay = other.clusteringDelay;
         }
+        if (other.clusteringMode != null) {
+            clusteringMode = other.clusteringMode;
+        }
+        if (other.clusteringMaxInvalidations != null) {
+            clusteringMaxInvalidations = other.clusteringMaxInvalidations;
+        }
         for (FieldDescriptor of : other.schemaFields) {
             boolean append = true;
             for (FieldDescriptor f : schemaFields) {
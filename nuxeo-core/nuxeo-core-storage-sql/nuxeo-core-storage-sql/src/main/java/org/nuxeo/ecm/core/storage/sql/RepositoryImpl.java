@@ -42,6 +42,7 @@ import org.nuxeo.ecm.core.storage.lock.LockManagerService;
 import org.nuxeo.ecm.core.storage.sql.Session.PathResolver;
 import org.nuxeo.ecm.core.storage.sql.jdbc.JDBCBackend;
 import org.nuxeo.ecm.core.storage.sql.jdbc.JDBCClusterInvalidator;
+import org.nuxeo.ecm.core.storage.sql.jdbc.JDBCLogClusterInvalidator;
 import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.metrics.MetricsService;
 
@@ -331,7 +332,11 @@ public class RepositoryImpl implements Repository {
     protected ClusterInvalidator createClusterInvalidator() {
         Class<? extends ClusterInvalidator> klass = repositoryDescriptor.clusterInvalidatorClass;
         if (klass == null) {
-            klass = JDBCClusterInvalidator.class;
+            if (RepositoryDescriptor.CLUSTERING_MODE_LOG.equals(repositoryDescriptor.getClusteringMode())) {
+                klass = JDBCLogClusterInvalidator.class;
+            } else {
+                klass = JDBCClusterInvalidator.class;
+            }
         }
         try {
             return klass.newInstance();
@@ -399,6 +404,7 @@ public class RepositoryImpl implements Repository {
         closeAllSessions();
         model = null;
         backend.shutdown();
+        OffHeapRowCache.release(getName());
 
         registry.remove(MetricRegistry.name(RepositoryImpl.class, getName(), "cache-size"));
         registry.remove(MetricRegistry.name(PersistenceContext.class, getName(), "cache-size"));
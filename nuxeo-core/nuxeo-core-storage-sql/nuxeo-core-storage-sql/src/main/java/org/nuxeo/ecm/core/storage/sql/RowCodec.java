@@ -0,0 +1,389 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage.sql;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import org.nuxeo.ecm.core.api.NuxeoException;
+
+/**
+ * Compact binary encoding of the content of a {@link Row}.
+ * <p>
+ * The table name and id are not encoded, they are provided by the {@link RowId} under which the encoded bytes are
+ * stored. The value types commonly found in rows (strings, numbers, booleans, calendars, {@link ACLRow}s and arrays of
+ * them) have a dedicated encoding, other values fall back to Java serialization.
+ *
+ * @since 8.3
+ */
+public final class RowCodec {
+
+    private static final byte SIMPLE = 0;
+
+    private static final byte COLLECTION = 1;
+
+    private static final byte T_NULL = 0;
+
+    private static final byte T_STRING = 1;
+
+    private static final byte T_LONG = 2;
+
+    private static final byte T_INTEGER = 3;
+
+    private static final byte T_DOUBLE = 4;
+
+    private static final byte T_TRUE = 5;
+
+    private static final byte T_FALSE = 6;
+
+    private static final byte T_CALENDAR = 7;
+
+    private static final byte T_ACLROW = 8;
+
+    private static final byte T_ARRAY = 9;
+
+    private static final byte T_OPAQUE = 10;
+
+    private static final byte T_SERIALIZED = 11;
+
+    /** Array component types that have a dedicated encoding, indexed by their code. */
+    private static final Class<?>[] COMPONENT_TYPES = { Serializable.class, String.class, Long.class, Integer.class,
+            Double.class, Boolean.class, Calendar.class, ACLRow.class };
+
+    private RowCodec() {
+        // utility class
+    }
+
+    /**
+     * Encodes the keys and values of a row.
+     */
+    public static byte[] encode(Row row) {
+        Output out = new Output();
+        if (row.isCollection()) {
+            out.writeByte(COLLECTION);
+            writeValue(out, row.values);
+        } else {
+            out.writeByte(SIMPLE);
+            out.writeVarLong(row.size);
+            for (int i = 0; i < row.size; i++) {
+                out.writeString(row.keys[i]);
+                writeValue(out, row.values[i]);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a row previously encoded with {@link #encode}.
+     *
+     * @param rowId the table name and id of the row
+     * @param bytes the encoded keys and values
+     */
+    public static Row decode(RowId rowId, byte[] bytes) {
+        Input in = new Input(bytes);
+        byte kind = in.readByte();
+        if (kind == COLLECTION) {
+            return new Row(rowId.tableName, rowId.id, (Serializable[]) readValue(in));
+        }
+        Row row = new Row(rowId.tableName, rowId.id);
+        int size = (int) in.readVarLong();
+        for (int i = 0; i < size; i++) {
+            String key = in.readString();
+            row.putNew(key, readValue(in));
+        }
+        return row;
+    }
+
+    protected static int getComponentTypeCode(Class<?> klass) {
+        for (int i = 0; i < COMPONENT_TYPES.length; i++) {
+            if (COMPONENT_TYPES[i] == klass) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    protected static void writeValue(Output out, Serializable value) {
+        if (value == null) {
+            out.writeByte(T_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(T_STRING);
+            out.writeString((String) value);
+        } else if (value instanceof Long) {
+            out.writeByte(T_LONG);
+            out.writeVarLong(zigZag(((Long) value).longValue()));
+        } else if (value instanceof Integer) {
+            out.writeByte(T_INTEGER);
+            out.writeVarLong(zigZag(((Integer) value).longValue()));
+        } else if (value instanceof Double) {
+            out.writeByte(T_DOUBLE);
+            out.writeLong(Double.doubleToLongBits(((Double) value).doubleValue()));
+        } else if (value instanceof Boolean) {
+            out.writeByte(((Boolean) value).booleanValue() ? T_TRUE : T_FALSE);
+        } else if (value.getClass() == GregorianCalendar.class) {
+            out.writeByte(T_CALENDAR);
+            writeCalendar(out, (Calendar) value);
+        } else if (value instanceof ACLRow) {
+            out.writeByte(T_ACLROW);
+            writeACLRow(out, (ACLRow) value);
+        } else if (value == Row.OPAQUE) {
+            out.writeByte(T_OPAQUE);
+        } else if (value instanceof Object[] && getComponentTypeCode(value.getClass().getComponentType()) != -1) {
+            Object[] array = (Object[]) value;
+            out.writeByte(T_ARRAY);
+            out.writeByte((byte) getComponentTypeCode(array.getClass().getComponentType()));
+            out.writeVarLong(array.length);
+            for (Object element : array) {
+                writeValue(out, (Serializable) element);
+            }
+        } else {
+            out.writeByte(T_SERIALIZED);
+            out.writeBytes(serialize(value));
+        }
+    }
+
+    protected static Serializable readValue(Input in) {
+        byte type = in.readByte();
+        switch (type) {
+        case T_NULL:
+            return null;
+        case T_STRING:
+            return in.readString();
+        case T_LONG:
+            return Long.valueOf(unZigZag(in.readVarLong()));
+        case T_INTEGER:
+            return Integer.valueOf((int) unZigZag(in.readVarLong()));
+        case T_DOUBLE:
+            return Double.valueOf(Double.longBitsToDouble(in.readLong()));
+        case T_TRUE:
+            return Boolean.TRUE;
+        case T_FALSE:
+            return Boolean.FALSE;
+        case T_CALENDAR:
+            return readCalendar(in);
+        case T_ACLROW:
+            return readACLRow(in);
+        case T_OPAQUE:
+            return Row.OPAQUE;
+        case T_ARRAY:
+            Class<?> componentType = COMPONENT_TYPES[in.readByte()];
+            int length = (int) in.readVarLong();
+            Object[] array = (Object[]) Array.newInstance(componentType, length);
+            for (int i = 0; i < length; i++) {
+                array[i] = readValue(in);
+            }
+            return array;
+        case T_SERIALIZED:
+            return deserialize(in.readBytes());
+        default:
+            throw new NuxeoException("Invalid encoded row value type: " + type);
+        }
+    }
+
+    protected static void writeCalendar(Output out, Calendar cal) {
+        out.writeVarLong(zigZag(cal.getTimeInMillis()));
+        out.writeString(cal.getTimeZone().getID());
+    }
+
+    protected static Calendar readCalendar(Input in) {
+        long millis = unZigZag(in.readVarLong());
+        Calendar cal = new GregorianCalendar(TimeZone.getTimeZone(in.readString()));
+        cal.setTimeInMillis(millis);
+        return cal;
+    }
+
+    protected static void writeACLRow(Output out, ACLRow acl) {
+        out.writeVarLong(zigZag(acl.pos));
+        out.writeString(acl.name);
+        out.writeByte(acl.grant ? T_TRUE : T_FALSE);
+        out.writeString(acl.permission);
+        out.writeString(acl.user);
+        out.writeString(acl.group);
+        out.writeString(acl.creator);
+        writeValue(out, acl.begin);
+        writeValue(out, acl.end);
+        writeValue(out, acl.status);
+    }
+
+    protected static ACLRow readACLRow(Input in) {
+        int pos = (int) unZigZag(in.readVarLong());
+        String name = in.readString();
+        boolean grant = in.readByte() == T_TRUE;
+        String permission = in.readString();
+        String user = in.readString();
+        String group = in.readString();
+        String creator = in.readString();
+        Calendar begin = (Calendar) readValue(in);
+        Calendar end = (Calendar) readValue(in);
+        Long status = (Long) readValue(in);
+        return new ACLRow(pos, name, grant, permission, user, group, creator, begin, end, status);
+    }
+
+    protected static byte[] serialize(Serializable value) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            oos.writeObject(value);
+        } catch (IOException e) {
+            throw new NuxeoException("Cannot serialize row value: " + value, e);
+        }
+        return baos.toByteArray();
+    }
+
+    protected static Serializable deserialize(byte[] bytes) {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (Serializable) ois.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new NuxeoException("Cannot deserialize row value", e);
+        }
+    }
+
+    protected static long zigZag(long n) {
+        return (n << 1) ^ (n >> 63);
+    }
+
+    protected static long unZigZag(long n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    /**
+     * Growable byte buffer with variable-length encoding of integers and strings.
+     */
+    protected static class Output {
+
+        private byte[] buf = new byte[64];
+
+        private int count;
+
+        private void ensureCapacity(int n) {
+            if (count + n > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + n));
+            }
+        }
+
+        public void writeByte(byte b) {
+            ensureCapacity(1);
+            buf[count++] = b;
+        }
+
+        public void writeVarLong(long n) {
+            ensureCapacity(10);
+            while ((n & ~0x7FL) != 0) {
+                buf[count++] = (byte) ((n & 0x7F) | 0x80);
+                n >>>= 7;
+            }
+            buf[count++] = (byte) n;
+        }
+
+        public void writeLong(long n) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[count++] = (byte) (n >>> shift);
+            }
+        }
+
+        public void writeBytes(byte[] bytes) {
+            writeVarLong(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buf, count, bytes.length);
+            count += bytes.length;
+        }
+
+        /** Writes a nullable string, its length is shifted by one to leave 0 for null. */
+        public void writeString(String s) {
+            if (s == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1L);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buf, count, bytes.length);
+            count += bytes.length;
+        }
+
+        public byte[] toByteArray() {
+            return Arrays.copyOf(buf, count);
+        }
+    }
+
+    /**
+     * Reader for bytes written by {@link Output}.
+     */
+    protected static class Input {
+
+        private final byte[] buf;
+
+        private int pos;
+
+        public Input(byte[] buf) {
+            this.buf = buf;
+        }
+
+        public byte readByte() {
+            return buf[pos++];
+        }
+
+        public long readVarLong() {
+            long n = 0;
+            for (int shift = 0;; shift += 7) {
+                byte b = buf[pos++];
+                n |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return n;
+                }
+            }
+        }
+
+        public long readLong() {
+            long n = 0;
+            for (int i = 0; i < 8; i++) {
+                n = (n << 8) | (buf[pos++] & 0xFF);
+            }
+            return n;
+        }
+
+        public byte[] readBytes() {
+            int length = (int) readVarLong();
+            byte[] bytes = Arrays.copyOfRange(buf, pos, pos + length);
+            pos += length;
+            return bytes;
+        }
+
+        public String readString() {
+            int length = (int) readVarLong() - 1;
+            if (length < 0) {
+                return null;
+            }
+            String s = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return s;
+        }
+    }
+
+}
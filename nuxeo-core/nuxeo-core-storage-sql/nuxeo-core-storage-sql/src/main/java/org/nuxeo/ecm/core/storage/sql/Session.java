@@ -22,6 +22,7 @@ package org.nuxeo.ecm.core.storage.sql;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.resource.cci.Connection;
 
@@ -101,6 +102,19 @@ public interface Session extends Connection {
      */
     List<Node> getNodesByIds(List<Serializable> ids);
 
+    /**
+     * Loads in the session the fragments of the given schemas for several nodes, in as few database round trips as
+     * possible, so that reading these schemas for each node afterwards doesn't hit the database.
+     * <p>
+     * Only the schemas actually present on each node are loaded. Complex properties, stored as child nodes, are not
+     * loaded.
+     *
+     * @param ids the node ids
+     * @param schemas the schema names
+     * @since 8.3
+     */
+    void prefetchFragments(List<Serializable> ids, Set<String> schemas);
+
     /**
      * Gets a node given its absolute path, or given an existing node and a relative path.
      *
@@ -63,6 +63,7 @@ import org.nuxeo.ecm.core.storage.FulltextParser;
 import org.nuxeo.ecm.core.storage.FulltextUpdaterWork;
 import org.nuxeo.ecm.core.storage.FulltextUpdaterWork.IndexAndText;
 import org.nuxeo.ecm.core.storage.sql.PersistenceContext.PathAndId;
+import org.nuxeo.ecm.core.storage.sql.RowMapper.IdWithTypes;
 import org.nuxeo.ecm.core.storage.sql.RowMapper.RowBatch;
 import org.nuxeo.ecm.core.storage.sql.coremodel.SQLFulltextExtractorWork;
 import org.nuxeo.ecm.core.work.api.Work;
@@ -763,6 +764,39 @@ public class SessionImpl implements Session, XAResource {
         return getNodesByIds(ids, true);
     }
 
+    @Override
+    public void prefetchFragments(List<Serializable> ids, Set<String> schemas) {
+        checkLive();
+        Set<String> schemasFragments = new HashSet<String>();
+        for (String schema : schemas) {
+            Set<String> fragments = model.getSchemaFragments(schema);
+            if (fragments != null) {
+                schemasFragments.addAll(fragments);
+            }
+        }
+        if (ids.isEmpty() || schemasFragments.isEmpty()) {
+            return;
+        }
+        // hier fragments are usually already in the context, they give the types
+        List<RowId> hierRowIds = new ArrayList<RowId>(ids.size());
+        for (Serializable id : ids) {
+            hierRowIds.add(new RowId(Model.HIER_TABLE_NAME, id));
+        }
+        List<Fragment> hierFragments = context.getMulti(hierRowIds, false);
+        // only fetch the fragments that the types actually have
+        List<RowId> bulkRowIds = new ArrayList<RowId>();
+        for (Fragment fragment : hierFragments) {
+            Set<String> typeFragments = model.getTypeFragments(new IdWithTypes((SimpleFragment) fragment));
+            for (String fragmentName : schemasFragments) {
+                if (typeFragments.contains(fragmentName)) {
+                    bulkRowIds.add(new RowId(fragmentName, fragment.getId()));
+                }
+            }
+        }
+        // fetch the missing ones in bulk, they're then kept in the context
+        context.getMulti(bulkRowIds, true);
+    }
+
     @Override
     public Node getParentNode(Node node) {
         checkLive();
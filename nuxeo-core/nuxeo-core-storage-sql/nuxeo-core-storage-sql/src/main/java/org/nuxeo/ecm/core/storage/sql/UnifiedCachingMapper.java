@@ -22,6 +22,7 @@ package org.nuxeo.ecm.core.storage.sql;
 import java.io.Serializable;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -140,6 +141,26 @@ public class UnifiedCachingMapper extends UnifiedCachingRowMapper implements Cac
         return mapper.getClusterInvalidations(nodeId);
     }
 
+    @Override
+    public void appendClusterInvalidationsLog(Serializable nodeId, Invalidations invalidations) {
+        mapper.appendClusterInvalidationsLog(nodeId, invalidations);
+    }
+
+    @Override
+    public List<ClusterInvalidationsLogEntry> readClusterInvalidationsLog(long afterSeq) {
+        return mapper.readClusterInvalidationsLog(afterSeq);
+    }
+
+    @Override
+    public long getClusterInvalidationsLogMaxSeq() {
+        return mapper.getClusterInvalidationsLogMaxSeq();
+    }
+
+    @Override
+    public void purgeClusterInvalidationsLog(Calendar before) {
+        mapper.purgeClusterInvalidationsLog(before);
+    }
+
     @Override
     public Lock getLock(Serializable id) {
         return mapper.getLock(id);
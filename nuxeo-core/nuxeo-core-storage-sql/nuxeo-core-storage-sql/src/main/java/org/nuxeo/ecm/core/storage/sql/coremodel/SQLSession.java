@@ -180,6 +180,15 @@ public class SQLSession implements Session {
         return doc;
     }
 
+    @Override
+    public void prefetchDocuments(List<String> ids, Set<String> schemas) {
+        List<Serializable> nodeIds = new ArrayList<Serializable>(ids.size());
+        for (String id : ids) {
+            nodeIds.add(idFromString(id));
+        }
+        session.prefetchFragments(nodeIds, schemas);
+    }
+
     @Override
     public Document resolvePath(String path) throws DocumentNotFoundException {
         if (path.endsWith("/") && path.length() > 1) {
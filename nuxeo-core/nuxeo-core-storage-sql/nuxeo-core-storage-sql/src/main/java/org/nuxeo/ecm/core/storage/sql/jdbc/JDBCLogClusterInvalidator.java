@@ -0,0 +1,238 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage.sql.jdbc;
+
+import java.io.Serializable;
+import java.sql.Types;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.storage.sql.ClusterInvalidator;
+import org.nuxeo.ecm.core.storage.sql.Invalidations;
+import org.nuxeo.ecm.core.storage.sql.Mapper;
+import org.nuxeo.ecm.core.storage.sql.Mapper.ClusterInvalidationsLogEntry;
+import org.nuxeo.ecm.core.storage.sql.RepositoryDescriptor;
+import org.nuxeo.ecm.core.storage.sql.RepositoryImpl;
+import org.nuxeo.runtime.metrics.MetricsService;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+
+/**
+ * Implementation of {@link ClusterInvalidator} that uses a shared append-only log of invalidations.
+ * <p>
+ * Each transaction appends a single entry to the log, whatever the number of cluster nodes, holding all the fragments
+ * it invalidated grouped by id. Each node reads the log from its own cursor (the last sequence number it processed)
+ * instead of receiving its own copy of the invalidations. When a transaction invalidates more rows than the configured
+ * maximum, a full cache flush is logged instead.
+ * <p>
+ * Sequence numbers are assigned by the database at insert time, so an entry may become visible after an entry with a
+ * higher number. Such holes are re-read on the next polls, and if one is still there after {@link #GAP_TIMEOUT_MILLIS}
+ * the node flushes its whole cache to stay on the safe side.
+ *
+ * @since 8.3
+ */
+public class JDBCLogClusterInvalidator implements ClusterInvalidator {
+
+    private static final Log log = LogFactory.getLog(JDBCLogClusterInvalidator.class);
+
+    /** Delay after which a hole in the sequence numbers read is considered permanent. */
+    public static final long GAP_TIMEOUT_MILLIS = 10 * 1000;
+
+    /** Age after which entries are removed from the log. */
+    public static final long RETENTION_MILLIS = 60 * 60 * 1000;
+
+    /** Delay between two purges of the log by this node. */
+    public static final long PURGE_INTERVAL_MILLIS = 5 * 60 * 1000;
+
+    /** Cluster node id. */
+    private Serializable nodeId;
+
+    /** Cluster node mapper. Used synchronized. */
+    private Mapper mapper;
+
+    private long clusteringDelay;
+
+    private int maxInvalidations;
+
+    // all the following are modified only under mapper synchronization
+
+    private long clusterNodeLastInvalidationTimeMillis;
+
+    /** Highest sequence number such that all lower ones have been processed. */
+    private long cursor;
+
+    /** Sequence numbers processed above the cursor, because of holes. */
+    private final SortedSet<Long> processedAboveCursor = new TreeSet<>();
+
+    private long gapSinceMillis;
+
+    private long lastPurgeTimeMillis;
+
+    protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
+    protected Histogram sentRows;
+
+    protected Histogram receivedEntries;
+
+    protected Timer lag;
+
+    protected Counter fullFlushes;
+
+    @Override
+    public void initialize(String nodeId, RepositoryImpl repository) {
+        RepositoryDescriptor repositoryDescriptor = repository.getRepositoryDescriptor();
+        clusteringDelay = repositoryDescriptor.getClusteringDelay();
+        maxInvalidations = repositoryDescriptor.getClusteringMaxInvalidations();
+        processClusterInvalidationsNext();
+        // create mapper
+        mapper = repository.newMapper(null, false);
+        Serializable nodeIdSer;
+        if (mapper.getClusterNodeIdType() == Types.VARCHAR) { // sql type
+            nodeIdSer = nodeId;
+        } else {
+            try {
+                nodeIdSer = Long.valueOf(nodeId);
+            } catch (NumberFormatException e) {
+                throw new NuxeoException("Cluster node id must be an integer", e);
+            }
+        }
+        this.nodeId = nodeIdSer;
+        // a starting node has nothing cached, older entries are irrelevant
+        cursor = mapper.getClusterInvalidationsLogMaxSeq();
+        lastPurgeTimeMillis = System.currentTimeMillis();
+        String repositoryName = repository.getName();
+        sentRows = registry.histogram(MetricRegistry.name("nuxeo", "repositories", repositoryName, "cluster",
+                "invalidations", "sent-rows"));
+        receivedEntries = registry.histogram(MetricRegistry.name("nuxeo", "repositories", repositoryName, "cluster",
+                "invalidations", "received-entries"));
+        lag = registry.timer(MetricRegistry.name("nuxeo", "repositories", repositoryName, "cluster", "invalidations",
+                "lag"));
+        fullFlushes = registry.counter(MetricRegistry.name("nuxeo", "repositories", repositoryName, "cluster",
+                "invalidations", "full-flushes"));
+        log.info("Clustering enabled for repository: " + repositoryName + " with " + clusteringDelay + " ms delay "
+                + " and cluster node id: " + nodeId + " using the invalidations log from sequence " + cursor);
+    }
+
+    @Override
+    public void close() {
+        synchronized (mapper) {
+            mapper.close();
+        }
+    }
+
+    protected void processClusterInvalidationsNext() {
+        clusterNodeLastInvalidationTimeMillis = System.currentTimeMillis() - clusteringDelay - 1;
+    }
+
+    @Override
+    public Invalidations receiveInvalidations() {
+        synchronized (mapper) {
+            long now = System.currentTimeMillis();
+            long remaining = clusterNodeLastInvalidationTimeMillis + clusteringDelay - now;
+            if (remaining > 0) {
+                // delay hasn't expired
+                log.trace("Not fetching invalidations, remaining time: " + remaining + "ms");
+                return null;
+            }
+            Invalidations invalidations = new Invalidations();
+            List<ClusterInvalidationsLogEntry> entries = mapper.readClusterInvalidationsLog(cursor);
+            for (ClusterInvalidationsLogEntry entry : entries) {
+                if (!processedAboveCursor.add(Long.valueOf(entry.seq))) {
+                    // already processed while waiting for a hole to be filled
+                    continue;
+                }
+                if (!nodeId.equals(entry.nodeId)) {
+                    invalidations.add(entry.invalidations);
+                    if (entry.created != null) {
+                        lag.update(Math.max(0, now - entry.created.getTimeInMillis()), TimeUnit.MILLISECONDS);
+                    }
+                }
+            }
+            receivedEntries.update(entries.size());
+            advanceCursor(now, invalidations);
+            purgeIfNeeded(now);
+            clusterNodeLastInvalidationTimeMillis = System.currentTimeMillis();
+            return invalidations;
+        }
+    }
+
+    /**
+     * Advances the cursor over contiguous processed sequence numbers, and gives up on holes that have lasted too long,
+     * in which case everything is invalidated.
+     */
+    protected void advanceCursor(long now, Invalidations invalidations) {
+        while (processedAboveCursor.remove(Long.valueOf(cursor + 1))) {
+            cursor++;
+        }
+        if (processedAboveCursor.isEmpty()) {
+            gapSinceMillis = 0;
+        } else if (gapSinceMillis == 0) {
+            gapSinceMillis = now;
+        } else if (now - gapSinceMillis > GAP_TIMEOUT_MILLIS) {
+            log.warn("Missing cluster invalidations after sequence " + cursor + ", flushing all caches");
+            cursor = processedAboveCursor.last().longValue();
+            processedAboveCursor.clear();
+            gapSinceMillis = 0;
+            invalidations.add(new Invalidations(true));
+            fullFlushes.inc();
+        }
+    }
+
+    protected void purgeIfNeeded(long now) {
+        if (now - lastPurgeTimeMillis < PURGE_INTERVAL_MILLIS) {
+            return;
+        }
+        Calendar before = Calendar.getInstance();
+        before.setTimeInMillis(now - RETENTION_MILLIS);
+        mapper.purgeClusterInvalidationsLog(before);
+        lastPurgeTimeMillis = now;
+    }
+
+    @Override
+    public void sendInvalidations(Invalidations invalidations) {
+        if (invalidations == null || invalidations.isEmpty()) {
+            return;
+        }
+        int size = size(invalidations.modified) + size(invalidations.deleted);
+        if (!invalidations.all && size > maxInvalidations) {
+            // too many to be worth it, ask the other nodes for a full flush
+            invalidations = new Invalidations(true);
+        }
+        sentRows.update(size);
+        synchronized (mapper) {
+            mapper.appendClusterInvalidationsLog(nodeId, invalidations);
+        }
+    }
+
+    protected static int size(Collection<?> collection) {
+        return collection == null ? 0 : collection.size();
+    }
+
+}
@@ -72,6 +72,7 @@ import org.nuxeo.ecm.core.storage.sql.ColumnType;
 import org.nuxeo.ecm.core.storage.sql.ColumnType.WrappedId;
 import org.nuxeo.ecm.core.storage.sql.Invalidations;
 import org.nuxeo.ecm.core.storage.sql.Mapper;
+import org.nuxeo.ecm.core.storage.sql.Mapper.ClusterInvalidationsLogEntry;
 import org.nuxeo.ecm.core.storage.sql.Model;
 import org.nuxeo.ecm.core.storage.sql.RepositoryDescriptor;
 import org.nuxeo.ecm.core.storage.sql.RepositoryImpl;
@@ -608,6 +609,175 @@ public class JDBCMapper extends JDBCRowMapper implements Mapper {
         }
     }
 
+    /**
+     * Encodes invalidations for the cluster invalidations log: one line per id and kind, listing the invalidated
+     * fragments. A full invalidation is encoded as a single {@code *}.
+     *
+     * @since 8.3
+     */
+    protected static String encodeClusterInvalidations(Invalidations invalidations) {
+        if (invalidations.all) {
+            return "*";
+        }
+        StringBuilder buf = new StringBuilder();
+        for (int kind : new int[] { Invalidations.MODIFIED, Invalidations.DELETED }) {
+            Set<RowId> rowIds = kind == Invalidations.MODIFIED ? invalidations.modified : invalidations.deleted;
+            if (rowIds == null) {
+                continue;
+            }
+            // reorganize by id
+            Map<Serializable, Set<String>> res = new HashMap<Serializable, Set<String>>();
+            for (RowId rowId : rowIds) {
+                Set<String> tableNames = res.get(rowId.id);
+                if (tableNames == null) {
+                    res.put(rowId.id, tableNames = new HashSet<String>());
+                }
+                tableNames.add(rowId.tableName);
+            }
+            for (Entry<Serializable, Set<String>> en : res.entrySet()) {
+                buf.append(kind);
+                buf.append(' ');
+                buf.append(en.getKey());
+                buf.append(' ');
+                buf.append(join(en.getValue(), ' '));
+                buf.append('\n');
+            }
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Decodes invalidations encoded by {@link #encodeClusterInvalidations}.
+     *
+     * @since 8.3
+     */
+    protected static Invalidations decodeClusterInvalidations(String encoded, Model model) {
+        if ("*".equals(encoded)) {
+            return new Invalidations(true);
+        }
+        Invalidations invalidations = new Invalidations();
+        for (String line : encoded.split("\n")) {
+            String[] parts = line.split(" ");
+            if (parts.length < 3) {
+                continue;
+            }
+            int kind = Integer.parseInt(parts[0]);
+            Serializable id = model.idFromString(parts[1]);
+            invalidations.add(id, Arrays.copyOfRange(parts, 2, parts.length), kind);
+        }
+        return invalidations;
+    }
+
+    @Override
+    public void appendClusterInvalidationsLog(Serializable nodeId, Invalidations invalidations) {
+        String sql = sqlInfo.getInsertClusterInvalLogSql();
+        List<Column> columns = sqlInfo.getInsertClusterInvalLogColumns();
+        Calendar now = Calendar.getInstance();
+        String invals = encodeClusterInvalidations(invalidations);
+        try {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            try {
+                if (logger.isLogEnabled()) {
+                    logger.logSQL(sql, Arrays.<Serializable> asList(nodeId, now, invals));
+                }
+                columns.get(0).setToPreparedStatement(ps, 1, nodeId);
+                columns.get(1).setToPreparedStatement(ps, 2, now);
+                columns.get(2).setToPreparedStatement(ps, 3, invals);
+                ps.execute();
+                countExecute();
+            } finally {
+                closeStatement(ps);
+            }
+        } catch (SQLException e) {
+            throw new NuxeoException("Could not invalidate", e);
+        }
+    }
+
+    @Override
+    public List<ClusterInvalidationsLogEntry> readClusterInvalidationsLog(long afterSeq) {
+        List<ClusterInvalidationsLogEntry> entries = new ArrayList<>();
+        String sql = sqlInfo.getSelectClusterInvalLogSql();
+        List<Column> columns = sqlInfo.getSelectClusterInvalLogColumns();
+        try {
+            if (logger.isLogEnabled()) {
+                logger.logSQL(sql, Collections.<Serializable> singletonList(Long.valueOf(afterSeq)));
+            }
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ResultSet rs = null;
+            try {
+                ps.setLong(1, afterSeq);
+                rs = ps.executeQuery();
+                countExecute();
+                while (rs.next()) {
+                    long seq = rs.getLong(1);
+                    Serializable nodeId = columns.get(1).getFromResultSet(rs, 2);
+                    Calendar created = (Calendar) columns.get(2).getFromResultSet(rs, 3);
+                    String invals = (String) columns.get(3).getFromResultSet(rs, 4);
+                    Invalidations invalidations = decodeClusterInvalidations(invals == null ? "" : invals, model);
+                    entries.add(new ClusterInvalidationsLogEntry(seq, nodeId, created, invalidations));
+                }
+            } finally {
+                closeStatement(ps, rs);
+            }
+            if (logger.isLogEnabled()) {
+                logger.log("  -> " + entries.size() + " entries");
+            }
+            return entries;
+        } catch (SQLException e) {
+            throw new NuxeoException("Could not read invalidations", e);
+        }
+    }
+
+    @Override
+    public long getClusterInvalidationsLogMaxSeq() {
+        String sql = sqlInfo.getSelectClusterInvalLogMaxSeqSql();
+        try {
+            if (logger.isLogEnabled()) {
+                logger.logSQL(sql, Collections.<Serializable> emptyList());
+            }
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ResultSet rs = null;
+            try {
+                rs = ps.executeQuery();
+                countExecute();
+                // MAX of an empty table is NULL, read as 0
+                long maxSeq = rs.next() ? rs.getLong(1) : 0;
+                if (logger.isLogEnabled()) {
+                    logger.log("  -> " + maxSeq);
+                }
+                return maxSeq;
+            } finally {
+                closeStatement(ps, rs);
+            }
+        } catch (SQLException e) {
+            throw new NuxeoException("Could not read invalidations", e);
+        }
+    }
+
+    @Override
+    public void purgeClusterInvalidationsLog(Calendar before) {
+        String sql = sqlInfo.getDeleteClusterInvalLogSql();
+        Column column = sqlInfo.getDeleteClusterInvalLogColumn();
+        try {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            try {
+                if (logger.isLogEnabled()) {
+                    logger.logSQL(sql, Collections.<Serializable> singletonList(before));
+                }
+                column.setToPreparedStatement(ps, 1, before);
+                int n = ps.executeUpdate();
+                countExecute();
+                if (logger.isLogEnabled()) {
+                    logger.logCount(n);
+                }
+            } finally {
+                closeStatement(ps);
+            }
+        } catch (SQLException e) {
+            throw new NuxeoException("Could not purge invalidations", e);
+        }
+    }
+
     @Override
     public Serializable getRootId(String repositoryId) {
         String sql = sqlInfo.getSelectRootIdSql();
@@ -39,6 +39,7 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -51,6 +52,7 @@ import org.nuxeo.ecm.core.api.NuxeoException;
 import org.nuxeo.ecm.core.api.model.Delta;
 import org.nuxeo.ecm.core.storage.sql.ClusterInvalidator;
 import org.nuxeo.ecm.core.query.QueryFilter;
+import org.nuxeo.ecm.core.repository.RepositoryService;
 import org.nuxeo.ecm.core.storage.sql.Invalidations;
 import org.nuxeo.ecm.core.storage.sql.InvalidationsPropagator;
 import org.nuxeo.ecm.core.storage.sql.RowMapper.NodeInfo;
@@ -69,8 +71,13 @@ import org.nuxeo.ecm.core.storage.sql.jdbc.db.Column;
 import org.nuxeo.ecm.core.storage.sql.jdbc.db.Table;
 import org.nuxeo.ecm.core.storage.sql.jdbc.db.Update;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
 import org.nuxeo.runtime.services.config.ConfigurationService;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+
 /**
  * A {@link JDBCRowMapper} maps {@link Row}s to and from a JDBC database.
  */
@@ -78,8 +85,25 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
 
     public static final int UPDATE_BATCH_SIZE = 100; // also insert/delete
 
+    /**
+     * Maximum number of rows sent in one JDBC batch or multi-row insert.
+     *
+     * @since 8.3
+     */
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    /**
+     * Number of values we aim to send in one round trip, used to size batches from the width of the rows. Batches are
+     * never smaller than {@link #UPDATE_BATCH_SIZE} rows nor larger than {@link #MAX_BATCH_SIZE} rows.
+     *
+     * @since 8.3
+     */
+    public static final int BATCH_TARGET_VALUES = 10000;
+
     public static final int DEBUG_MAX_TREE = 50;
 
+    private static final String VALUES = " VALUES (";
+
     /** Property to determine whether collection appends delete all then re-insert, or are optimized for append. */
     public static final String COLLECTION_DELETE_BEFORE_APPEND_PROP = "org.nuxeo.vcs.list-delete-before-append";
 
@@ -97,6 +121,8 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
 
     private final CollectionIO scalarCollectionIO;
 
+    protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
     public JDBCRowMapper(Model model, SQLInfo sqlInfo, XADataSource xadatasource, ClusterInvalidator clusterInvalidator,
             InvalidationsPropagator invalidationsPropagator, boolean noSharing) {
         super(model, sqlInfo, xadatasource, noSharing);
@@ -115,6 +141,11 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
             // send received invalidations to all mappers
             if (invalidations != null && !invalidations.isEmpty()) {
                 invalidationsPropagator.propagateInvalidations(invalidations, null);
+                // let repository-level caches know that other nodes changed something
+                RepositoryService repositoryService = Framework.getService(RepositoryService.class);
+                if (repositoryService != null) {
+                    repositoryService.notifyChanges(getRepositoryName());
+                }
             }
             return invalidations;
         } else {
@@ -154,6 +185,37 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
         return tableName.equals(model.ACL_TABLE_NAME) ? aclCollectionIO : scalarCollectionIO;
     }
 
+    /**
+     * Gets the number of rows to send per round trip for rows of the given width (number of bound columns).
+     *
+     * @since 8.3
+     */
+    protected int getBatchSize(int width) {
+        int size = BATCH_TARGET_VALUES / Math.max(width, 1);
+        return Math.max(UPDATE_BATCH_SIZE, Math.min(size, MAX_BATCH_SIZE));
+    }
+
+    /**
+     * Gets the number of rows to send in one multi-row insert for rows of the given width, taking into account the
+     * limit on bind parameters of the database.
+     *
+     * @since 8.3
+     */
+    protected int getMultiRowInsertSize(int width) {
+        int size = Math.min(getBatchSize(width), dialect.getMaximumBindParameters() / Math.max(width, 1));
+        return Math.max(size, 1);
+    }
+
+    /**
+     * Starts timing a write operation on a table.
+     *
+     * @since 8.3
+     */
+    protected Timer.Context timeWrite(String tableName, String operation) {
+        String name = MetricRegistry.name("nuxeo", "repositories", getRepositoryName(), "write", tableName, operation);
+        return registry.timer(name).time();
+    }
+
     @Override
     public Serializable generateNewId() {
         try {
@@ -536,9 +598,15 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
         if (sql == null) {
             throw new NuxeoException("Unknown table: " + tableName);
         }
-        String loggedSql = supportsBatchUpdates && rows.size() > 1 ? sql + " -- BATCHED" : sql;
         List<Column> columns = sqlInfo.getInsertColumns(tableName);
+        final Timer.Context timerContext = timeWrite(tableName, "insert");
         try {
+            if (rows.size() > 1 && dialect.supportsMultiRowInsert() && sql.contains(VALUES)) {
+                insertSimpleRowsMultiValues(sql, columns, rows);
+                return;
+            }
+            String loggedSql = supportsBatchUpdates && rows.size() > 1 ? sql + " -- BATCHED" : sql;
+            int batchSize = getBatchSize(columns.size());
             PreparedStatement ps = connection.prepareStatement(sql);
             try {
                 int batch = 0;
@@ -553,7 +621,7 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
                     }
                     if (supportsBatchUpdates) {
                         ps.addBatch();
-                        if (batch % UPDATE_BATCH_SIZE == 0) {
+                        if (batch % batchSize == 0) {
                             ps.executeBatch();
                             countExecute();
                         }
@@ -579,9 +647,77 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
             }
             checkConcurrentUpdate(e);
             throw new NuxeoException("Could not insert: " + sql, e);
+        } finally {
+            timerContext.stop();
         }
     }
 
+    /**
+     * Inserts multiple rows using {@code INSERT ... VALUES (...), (...), ...} statements, each holding as many rows as
+     * allowed by the row width and the database limits.
+     *
+     * @since 8.3
+     */
+    protected void insertSimpleRowsMultiValues(String sql, List<Column> columns, List<Row> rows) throws SQLException {
+        int chunkSize = getMultiRowInsertSize(columns.size());
+        if (!(rows instanceof RandomAccess)) {
+            rows = new ArrayList<>(rows);
+        }
+        String fullChunkSql = null;
+        int size = rows.size();
+        for (int start = 0; start < size; start += chunkSize) {
+            List<Row> chunk = rows.subList(start, Math.min(start + chunkSize, size));
+            String chunkSql;
+            if (chunk.size() == chunkSize) {
+                if (fullChunkSql == null) {
+                    fullChunkSql = getMultiRowInsertSql(sql, chunkSize);
+                }
+                chunkSql = fullChunkSql;
+            } else {
+                chunkSql = getMultiRowInsertSql(sql, chunk.size());
+            }
+            if (logger.isLogEnabled()) {
+                String loggedSql = sql + " -- MULTI-ROW " + chunk.size();
+                for (Row row : chunk) {
+                    logger.logSQL(loggedSql, columns, row);
+                }
+            }
+            PreparedStatement ps = connection.prepareStatement(chunkSql);
+            try {
+                int i = 1;
+                for (Row row : chunk) {
+                    for (Column column : columns) {
+                        column.setToPreparedStatement(ps, i++, row.get(column.getKey()));
+                    }
+                }
+                ps.execute();
+                countExecute();
+            } finally {
+                closeStatement(ps);
+            }
+        }
+    }
+
+    /**
+     * Turns a single-row {@code INSERT ... VALUES (...)} statement into one inserting the given number of rows.
+     *
+     * @since 8.3
+     */
+    protected static String getMultiRowInsertSql(String sql, int nrows) {
+        int i = sql.lastIndexOf(VALUES);
+        if (i == -1) {
+            throw new NuxeoException("Not a VALUES insert: " + sql);
+        }
+        String values = sql.substring(i + VALUES.length() - 1);
+        StringBuilder buf = new StringBuilder(sql.length() + (values.length() + 2) * (nrows - 1));
+        buf.append(sql);
+        for (int n = 1; n < nrows; n++) {
+            buf.append(", ");
+            buf.append(values);
+        }
+        return buf.toString();
+    }
+
     /**
      * Updates multiple collection rows, all for the same table.
      */
@@ -647,6 +783,8 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
             Set<String> deltas = deltasByCanonKeys.get(ck);
             SQLInfoSelect update = sqlInfo.getUpdateById(tableName, keys, deltas);
             String loggedSql = supportsBatchUpdates && rows.size() > 1 ? update.sql + " -- BATCHED" : update.sql;
+            int batchSize = getBatchSize(update.whatColumns.size());
+            final Timer.Context timerContext = timeWrite(tableName, "update");
             try {
                 PreparedStatement ps = connection.prepareStatement(update.sql);
                 int batch = 0;
@@ -666,7 +804,7 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
                         }
                         if (supportsBatchUpdates) {
                             ps.addBatch();
-                            if (batch % UPDATE_BATCH_SIZE == 0) {
+                            if (batch % batchSize == 0) {
                                 int[] counts = ps.executeBatch();
                                 countExecute();
                                 logger.logCounts(counts);
@@ -687,6 +825,8 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
                 }
             } catch (SQLException e) {
                 throw new NuxeoException("Could not update: " + update.sql, e);
+            } finally {
+                timerContext.stop();
             }
         }
     }
@@ -271,6 +271,20 @@ public class NXQLQueryMaker implements QueryMaker {
     @Override
     public Query buildQuery(SQLInfo sqlInfo, Model model, PathResolver pathResolver, String query,
             QueryFilter queryFilter, Object... params) {
+        NXQLQueryPlanCache queryPlanCache = sqlInfo.getQueryPlanCache();
+        if (queryPlanCache != null && (params == null || params.length == 0)) {
+            return queryPlanCache.getQuery(this, sqlInfo, model, pathResolver, query, queryFilter);
+        }
+        return doBuildQuery(sqlInfo, model, pathResolver, query, queryFilter);
+    }
+
+    /**
+     * Builds the query, without going through the {@link NXQLQueryPlanCache}.
+     *
+     * @since 8.3
+     */
+    protected Query doBuildQuery(SQLInfo sqlInfo, Model model, PathResolver pathResolver, String query,
+            QueryFilter queryFilter) {
         this.sqlInfo = sqlInfo;
         database = sqlInfo.database;
         dialect = sqlInfo.dialect;
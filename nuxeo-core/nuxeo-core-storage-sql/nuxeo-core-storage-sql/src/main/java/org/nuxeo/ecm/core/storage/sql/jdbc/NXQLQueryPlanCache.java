@@ -0,0 +1,628 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage.sql.jdbc;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+
+import java_cup.runtime.Symbol;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.impl.FacetFilter;
+import org.nuxeo.ecm.core.query.QueryFilter;
+import org.nuxeo.ecm.core.query.QueryParseException;
+import org.nuxeo.ecm.core.query.sql.NXQL;
+import org.nuxeo.ecm.core.query.sql.model.SQLQuery;
+import org.nuxeo.ecm.core.query.sql.parser.Scanner;
+import org.nuxeo.ecm.core.query.sql.parser.sym;
+import org.nuxeo.ecm.core.storage.sql.ColumnType.WrappedId;
+import org.nuxeo.ecm.core.storage.sql.Model;
+import org.nuxeo.ecm.core.storage.sql.Session.PathResolver;
+import org.nuxeo.ecm.core.storage.sql.jdbc.QueryMaker.Query;
+import org.nuxeo.ecm.core.storage.sql.jdbc.SQLInfo.SQLInfoSelect;
+import org.nuxeo.ecm.core.storage.sql.jdbc.dialect.Dialect;
+import org.nuxeo.runtime.metrics.MetricsService;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+
+/**
+ * Cache of the SQL generated for NXQL queries, shared by all the sessions of a repository.
+ * <p>
+ * Queries are cached by shape: the string literals compared to a property are replaced by parameters, so that queries
+ * only differing by these values share the same SQL. The first time a shape is seen, the query is built a second time
+ * with different values for these literals, and the literals are only treated as parameters if the generated SQL is
+ * the same and the values are found as is in the SQL parameters. Otherwise the query is only cached for its exact
+ * literal values.
+ * <p>
+ * The principals and permissions of the security check are always parameters. Queries with non-identity query
+ * transformers, or whose generation depends on the content of the repository (paths), are not cached.
+ * <p>
+ * The cache lives in the {@link SQLInfo}, so it is dropped when the repository or its schemas are reloaded.
+ *
+ * @since 8.3
+ */
+public class NXQLQueryPlanCache {
+
+    private static final Log log = LogFactory.getLog(NXQLQueryPlanCache.class);
+
+    /** Framework property for the maximum number of cached queries, 0 to disable the cache. */
+    public static final String SIZE_PROP = "org.nuxeo.vcs.query.planCacheSize";
+
+    public static final String DEFAULT_SIZE = "1000";
+
+    /** Special properties whose string values only end up as SQL parameters. */
+    protected static final Set<String> PARAMETER_SPECIAL_PROPERTIES = new HashSet<>(Arrays.asList( //
+            NXQL.ECM_UUID, //
+            NXQL.ECM_NAME, //
+            NXQL.ECM_PARENTID, //
+            NXQL.ECM_LIFECYCLESTATE, //
+            NXQL.ECM_VERSIONLABEL, //
+            NXQL.ECM_VERSIONDESCRIPTION, //
+            NXQL.ECM_VERSION_VERSIONABLEID, //
+            NXQL.ECM_LOCK, //
+            NXQL.ECM_LOCK_OWNER, //
+            NXQL.ECM_PROXY_TARGETID, //
+            NXQL.ECM_PROXY_VERSIONABLEID));
+
+    /** Marker starting the values used to detect parameters, not expected in real queries. */
+    protected static final String MARKER = "\u0001";
+
+    protected static final String[] MARKER_PRINCIPALS = new String[] { MARKER + "principals" };
+
+    protected static final String[] MARKER_PERMISSIONS = new String[] { MARKER + "permissions" };
+
+    /** Binding of a parameter whose value is fixed. */
+    protected static final int FIXED = -1;
+
+    /** Binding of the principals parameter of the security check. */
+    protected static final int PRINCIPALS = -2;
+
+    /** Binding of the permissions parameter of the security check. */
+    protected static final int PERMISSIONS = -3;
+
+    /** Plan stored for a shape whose literals cannot be parameters. */
+    protected static final QueryPlan EXACT_ONLY = new QueryPlan(null, Collections.<Serializable> emptyList(),
+            new int[0]);
+
+    /**
+     * A query split around its parameterized literals.
+     */
+    protected static class NormalizedQuery {
+
+        /** The query with the parameterized literals replaced by {@code ?}. */
+        public final String shape;
+
+        /** The parts of the query around the parameterized literals. */
+        public final List<String> parts;
+
+        /** The values of the parameterized literals. */
+        public final List<String> values;
+
+        public NormalizedQuery(List<String> parts, List<String> values) {
+            this.parts = parts;
+            this.values = values;
+            shape = StringUtils.join(parts, '?');
+        }
+
+        /**
+         * Gets the query with the given values for the parameterized literals.
+         */
+        public String getQuery(List<String> values) {
+            StringBuilder buf = new StringBuilder();
+            for (int i = 0; i < values.size(); i++) {
+                buf.append(parts.get(i));
+                buf.append(NXQL.escapeString(values.get(i)));
+            }
+            buf.append(parts.get(values.size()));
+            return buf.toString();
+        }
+    }
+
+    /**
+     * The generated SQL for a query shape, and how to get its parameters.
+     */
+    protected static class QueryPlan {
+
+        /** The generated select, or {@code null} if the query cannot match. */
+        public final SQLInfoSelect selectInfo;
+
+        public final List<Serializable> params;
+
+        /** For each parameter, the index of the literal it comes from, or one of the special bindings. */
+        public final int[] bindings;
+
+        public QueryPlan(SQLInfoSelect selectInfo, List<Serializable> params, int[] bindings) {
+            this.selectInfo = selectInfo;
+            this.params = params;
+            this.bindings = bindings;
+        }
+    }
+
+    protected static class PlanKey {
+
+        protected final Class<?> queryMakerClass;
+
+        protected final String query;
+
+        protected final boolean exact;
+
+        protected final boolean principals;
+
+        protected final boolean permissions;
+
+        protected final Set<String> requiredFacets;
+
+        protected final Set<String> excludedFacets;
+
+        protected final int hashCode;
+
+        public PlanKey(Class<?> queryMakerClass, String query, boolean exact, QueryFilter queryFilter) {
+            this.queryMakerClass = queryMakerClass;
+            this.query = query;
+            this.exact = exact;
+            principals = queryFilter.getPrincipals() != null;
+            permissions = queryFilter.getPermissions() != null;
+            FacetFilter facetFilter = queryFilter.getFacetFilter();
+            requiredFacets = facetFilter == null ? null : facetFilter.required;
+            excludedFacets = facetFilter == null ? null : facetFilter.excluded;
+            hashCode = Objects.hash(queryMakerClass, query, Boolean.valueOf(exact), Boolean.valueOf(principals),
+                    Boolean.valueOf(permissions), requiredFacets, excludedFacets);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof PlanKey)) {
+                return false;
+            }
+            PlanKey other = (PlanKey) obj;
+            return queryMakerClass == other.queryMakerClass && exact == other.exact
+                    && principals == other.principals && permissions == other.permissions
+                    && query.equals(other.query) && Objects.equals(requiredFacets, other.requiredFacets)
+                    && Objects.equals(excludedFacets, other.excludedFacets);
+        }
+    }
+
+    protected static class LRUCache<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int max;
+
+        public LRUCache(int max) {
+            super(max, 1.0f, true);
+            this.max = max;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Entry<K, V> eldest) {
+            return size() > max;
+        }
+    }
+
+    /**
+     * Path resolver remembering if it was used, in which case the query depends on the repository content.
+     */
+    protected static class TrackingPathResolver implements PathResolver {
+
+        protected final PathResolver pathResolver;
+
+        protected boolean used;
+
+        public TrackingPathResolver(PathResolver pathResolver) {
+            this.pathResolver = pathResolver;
+        }
+
+        @Override
+        public Serializable getIdForPath(String path) {
+            used = true;
+            return pathResolver.getIdForPath(path);
+        }
+    }
+
+    protected final Dialect dialect;
+
+    protected final Map<PlanKey, QueryPlan> plans;
+
+    protected final Timer hitTimer;
+
+    protected final Timer missTimer;
+
+    public NXQLQueryPlanCache(String repositoryName, Dialect dialect, int maxSize) {
+        this.dialect = dialect;
+        plans = Collections.synchronizedMap(new LRUCache<PlanKey, QueryPlan>(maxSize));
+        MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+        hitTimer = registry.timer(MetricRegistry.name("nuxeo", "repositories", repositoryName, "queryPlanCache",
+                "hits"));
+        missTimer = registry.timer(MetricRegistry.name("nuxeo", "repositories", repositoryName, "queryPlanCache",
+                "misses"));
+    }
+
+    public int getSize() {
+        return plans.size();
+    }
+
+    public long getHitCount() {
+        return hitTimer.getCount();
+    }
+
+    public long getMissCount() {
+        return missTimer.getCount();
+    }
+
+    public void clear() {
+        plans.clear();
+    }
+
+    /**
+     * Gets the query built by the given query maker, using the cached plan if possible.
+     */
+    public Query getQuery(NXQLQueryMaker queryMaker, SQLInfo sqlInfo, Model model, PathResolver pathResolver,
+            String query, QueryFilter queryFilter) {
+        if (!isCacheable(queryFilter)) {
+            return queryMaker.doBuildQuery(sqlInfo, model, pathResolver, query, queryFilter);
+        }
+        final Timer.Context hitContext = hitTimer.time();
+        NormalizedQuery nq = normalize(query);
+        Class<?> klass = queryMaker.getClass();
+        List<String> values = nq == null ? Collections.<String> emptyList() : nq.values;
+        PlanKey key = nq == null ? new PlanKey(klass, query, true, queryFilter)
+                : new PlanKey(klass, nq.shape, false, queryFilter);
+        QueryPlan plan = plans.get(key);
+        if (plan == EXACT_ONLY) {
+            plan = plans.get(new PlanKey(klass, query, true, queryFilter));
+            values = Collections.emptyList();
+        }
+        if (plan != null) {
+            Query q = bind(plan, values, queryFilter);
+            hitContext.stop();
+            return q;
+        }
+        final Timer.Context missContext = missTimer.time();
+        try {
+            return buildAndCache(queryMaker, sqlInfo, model, pathResolver, nq, query, queryFilter);
+        } finally {
+            missContext.stop();
+        }
+    }
+
+    protected Query buildAndCache(NXQLQueryMaker queryMaker, SQLInfo sqlInfo, Model model,
+            PathResolver pathResolver, NormalizedQuery nq, String query, QueryFilter queryFilter) {
+        // build with markers for the security parameters
+        QueryFilter markerFilter = new QueryFilter(null, //
+                queryFilter.getPrincipals() == null ? null : MARKER_PRINCIPALS, //
+                queryFilter.getPermissions() == null ? null : MARKER_PERMISSIONS, //
+                queryFilter.getFacetFilter(), //
+                Collections.<SQLQuery.Transformer> emptyList(), 0, 0);
+        TrackingPathResolver tracking = new TrackingPathResolver(pathResolver);
+        Query q = queryMaker.doBuildQuery(sqlInfo, model, tracking, query, markerFilter);
+        QueryPlan exactPlan = newPlan(q);
+        if (tracking.used) {
+            // depends on the repository content
+            return bind(exactPlan, Collections.<String> emptyList(), queryFilter);
+        }
+        QueryPlan plan = null;
+        if (nq != null && !nq.values.isEmpty()) {
+            plan = newParameterizedPlan(queryMaker, sqlInfo, model, pathResolver, nq, markerFilter, q);
+        }
+        Class<?> klass = queryMaker.getClass();
+        if (plan != null) {
+            plans.put(new PlanKey(klass, nq.shape, false, queryFilter), plan);
+            return bind(plan, nq.values, queryFilter);
+        }
+        if (nq == null) {
+            plans.put(new PlanKey(klass, query, true, queryFilter), exactPlan);
+        } else if (nq.values.isEmpty()) {
+            // no parameterized literals, the shape is the query
+            plans.put(new PlanKey(klass, nq.shape, false, queryFilter), exactPlan);
+        } else {
+            plans.put(new PlanKey(klass, nq.shape, false, queryFilter), EXACT_ONLY);
+            plans.put(new PlanKey(klass, query, true, queryFilter), exactPlan);
+        }
+        return bind(exactPlan, Collections.<String> emptyList(), queryFilter);
+    }
+
+    /**
+     * Builds the query again with other literal values to find where the literals end up.
+     *
+     * @return the plan, or {@code null} if the literals cannot all be parameters
+     */
+    protected QueryPlan newParameterizedPlan(NXQLQueryMaker queryMaker, SQLInfo sqlInfo, Model model,
+            PathResolver pathResolver, NormalizedQuery nq, QueryFilter markerFilter, Query q) {
+        if (q == null) {
+            // cannot match, may depend on the values
+            return null;
+        }
+        List<String> markerValues = new ArrayList<>(nq.values.size());
+        for (int i = 0; i < nq.values.size(); i++) {
+            if (nq.values.get(i).startsWith(MARKER)) {
+                return null;
+            }
+            markerValues.add(MARKER + i + MARKER);
+        }
+        Query q2;
+        TrackingPathResolver tracking = new TrackingPathResolver(pathResolver);
+        try {
+            NXQLQueryMaker queryMaker2 = queryMaker.getClass().newInstance();
+            q2 = queryMaker2.doBuildQuery(sqlInfo, model, tracking, nq.getQuery(markerValues), markerFilter);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Cannot parameterize query: " + nq.shape, e);
+            }
+            return null;
+        }
+        if (q2 == null || tracking.used || !q.selectInfo.sql.equals(q2.selectInfo.sql)
+                || q.selectParams.size() != q2.selectParams.size()) {
+            return null;
+        }
+        List<Serializable> params = new ArrayList<>(q.selectParams);
+        int[] bindings = getBindings(params);
+        boolean[] bound = new boolean[nq.values.size()];
+        for (int p = 0; p < params.size(); p++) {
+            Object value = getParamValue(params.get(p));
+            Object value2 = getParamValue(q2.selectParams.get(p));
+            if (Objects.deepEquals(value, value2)) {
+                continue;
+            }
+            int i = markerValues.indexOf(value2);
+            if (i == -1 || !nq.values.get(i).equals(value)) {
+                return null;
+            }
+            bindings[p] = i;
+            bound[i] = true;
+        }
+        for (boolean b : bound) {
+            if (!b) {
+                // literal not used as is in a parameter
+                return null;
+            }
+        }
+        return new QueryPlan(q.selectInfo, params, bindings);
+    }
+
+    /**
+     * Creates a plan whose only parameters are the security ones.
+     */
+    protected QueryPlan newPlan(Query q) {
+        if (q == null) {
+            // cannot match
+            return new QueryPlan(null, Collections.<Serializable> emptyList(), new int[0]);
+        }
+        List<Serializable> params = new ArrayList<>(q.selectParams);
+        return new QueryPlan(q.selectInfo, params, getBindings(params));
+    }
+
+    protected static int[] getBindings(List<Serializable> params) {
+        int[] bindings = new int[params.size()];
+        for (int p = 0; p < params.size(); p++) {
+            Serializable param = params.get(p);
+            if (isMarker(param, MARKER_PRINCIPALS)) {
+                bindings[p] = PRINCIPALS;
+            } else if (isMarker(param, MARKER_PERMISSIONS)) {
+                bindings[p] = PERMISSIONS;
+            } else {
+                bindings[p] = FIXED;
+            }
+        }
+        return bindings;
+    }
+
+    protected static boolean isMarker(Serializable param, String[] marker) {
+        // joined if the dialect doesn't support arrays
+        return marker[0].equals(param) || param instanceof String[] && Arrays.equals((String[]) param, marker);
+    }
+
+    protected static Object getParamValue(Serializable param) {
+        return param instanceof WrappedId ? ((WrappedId) param).string : param;
+    }
+
+    /**
+     * Creates the query for a plan, with the actual values of the literals and of the security parameters.
+     */
+    protected Query bind(QueryPlan plan, List<String> values, QueryFilter queryFilter) {
+        if (plan.selectInfo == null) {
+            return null;
+        }
+        Serializable principals = queryFilter.getPrincipals();
+        Serializable permissions = queryFilter.getPermissions();
+        if (!dialect.supportsArrays()) {
+            principals = StringUtils.join((String[]) principals, Dialect.ARRAY_SEP);
+            permissions = StringUtils.join((String[]) permissions, Dialect.ARRAY_SEP);
+        }
+        List<Serializable> params = new ArrayList<>(plan.params.size());
+        for (int p = 0; p < plan.params.size(); p++) {
+            Serializable param = plan.params.get(p);
+            int binding = plan.bindings[p];
+            if (binding == PRINCIPALS) {
+                param = principals;
+            } else if (binding == PERMISSIONS) {
+                param = permissions;
+            } else if (binding >= 0) {
+                String value = values.get(binding);
+                param = param instanceof WrappedId ? new WrappedId(value) : value;
+            }
+            params.add(param);
+        }
+        Query q = new Query();
+        q.selectInfo = plan.selectInfo;
+        q.selectParams = params;
+        return q;
+    }
+
+    protected static boolean isCacheable(QueryFilter queryFilter) {
+        Collection<SQLQuery.Transformer> transformers = queryFilter.getQueryTransformers();
+        if (transformers != null) {
+            for (SQLQuery.Transformer transformer : transformers) {
+                if (transformer != SQLQuery.Transformer.IDENTITY) {
+                    // may depend on the principal
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits the query around the string literals that are compared to a property and can be parameters.
+     *
+     * @return the normalized query, or {@code null} if the query cannot be analyzed
+     */
+    protected static NormalizedQuery normalize(String query) {
+        List<Symbol> tokens = new ArrayList<>();
+        List<Integer> starts = new ArrayList<>();
+        try {
+            Scanner scanner = new Scanner(new StringReader(query));
+            int end = 0;
+            for (Symbol token = scanner.next_token(); token.sym != sym.EOF; token = scanner.next_token()) {
+                if (!(token.value instanceof String) || token.sym == sym.LHINT_ES) {
+                    return null;
+                }
+                int start;
+                if (token.sym == sym.STRING) {
+                    // the token position is the one of the closing quote
+                    start = end;
+                    while (start < query.length() && Character.isWhitespace(query.charAt(start))) {
+                        start++;
+                    }
+                    end = token.right + 1;
+                } else {
+                    start = token.right;
+                    end = start + ((String) token.value).length();
+                }
+                tokens.add(token);
+                starts.add(Integer.valueOf(start));
+            }
+        } catch (IOException | QueryParseException e) {
+            return null;
+        }
+        List<String> parts = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        int pos = 0;
+        for (int k = 0; k < tokens.size(); k++) {
+            Symbol token = tokens.get(k);
+            if (token.sym != sym.STRING || !isParameter(tokens, k)) {
+                continue;
+            }
+            int start = starts.get(k).intValue();
+            char quote = query.charAt(start);
+            if (quote != '\'' && quote != '"') {
+                return null;
+            }
+            parts.add(query.substring(pos, start));
+            values.add((String) token.value);
+            pos = token.right + 1;
+        }
+        parts.add(query.substring(pos));
+        return new NormalizedQuery(parts, values);
+    }
+
+    /**
+     * Checks if the string literal at the given position is the right operand of a comparison with a property.
+     */
+    protected static boolean isParameter(List<Symbol> tokens, int k) {
+        if (((String) tokens.get(k).value).isEmpty()) {
+            // may be NULL for some databases
+            return false;
+        }
+        int j = k - 1;
+        if (j < 0) {
+            return false;
+        }
+        switch (tokens.get(j).sym) {
+        case sym.EQ:
+        case sym.NOTEQ:
+        case sym.LT:
+        case sym.GT:
+        case sym.LTEQ:
+        case sym.GTEQ:
+        case sym.LIKE:
+        case sym.ILIKE:
+            j--;
+            break;
+        case sym.LPARA:
+        case sym.COMMA:
+            // list of string literals after IN
+            if (!isEndOfStringList(tokens, k + 1)) {
+                return false;
+            }
+            while (j >= 0 && tokens.get(j).sym == sym.COMMA) {
+                j--;
+                if (j < 0 || tokens.get(j).sym != sym.STRING) {
+                    return false;
+                }
+                j--;
+            }
+            if (j < 1 || tokens.get(j).sym != sym.LPARA || tokens.get(j - 1).sym != sym.IN) {
+                return false;
+            }
+            j -= 2;
+            break;
+        default:
+            return false;
+        }
+        if (j >= 0 && tokens.get(j).sym == sym.NOT) {
+            j--;
+        }
+        if (j < 0) {
+            return false;
+        }
+        Symbol ref = tokens.get(j);
+        if (ref.sym != sym.IDENTIFIER && ref.sym != sym.PATH_IDENTIFIER) {
+            return false;
+        }
+        String name = (String) ref.value;
+        return !name.startsWith(NXQL.ECM_PREFIX) || PARAMETER_SPECIAL_PROPERTIES.contains(name);
+    }
+
+    protected static boolean isEndOfStringList(List<Symbol> tokens, int k) {
+        for (; k < tokens.size(); k += 2) {
+            int s = tokens.get(k).sym;
+            if (s == sym.RPARA) {
+                return true;
+            }
+            if (s != sym.COMMA || k + 1 >= tokens.size() || tokens.get(k + 1).sym != sym.STRING) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+}
@@ -56,6 +56,7 @@ import org.nuxeo.ecm.core.storage.sql.jdbc.db.Table.IndexType;
 import org.nuxeo.ecm.core.storage.sql.jdbc.dialect.Dialect;
 import org.nuxeo.ecm.core.storage.sql.jdbc.dialect.SQLStatement;
 import org.nuxeo.ecm.core.storage.sql.jdbc.dialect.SQLStatement.ListCollector;
+import org.nuxeo.runtime.api.Framework;
 
 /**
  * This singleton generates and holds the actual SQL DDL and DML statements for the operations needed by the
@@ -121,6 +122,20 @@ public class SQLInfo {
 
     protected List<Column> clusterInvalidationsColumns;
 
+    protected String insertClusterInvalLogSql;
+
+    protected List<Column> insertClusterInvalLogColumns;
+
+    protected String selectClusterInvalLogSql;
+
+    protected List<Column> selectClusterInvalLogColumns;
+
+    protected String selectClusterInvalLogMaxSeqSql;
+
+    protected String deleteClusterInvalLogSql;
+
+    protected Column deleteClusterInvalLogColumn;
+
     protected Map<String, List<SQLStatement>> sqlStatements;
 
     protected Map<String, Serializable> sqlStatementsProperties;
@@ -129,6 +144,8 @@ public class SQLInfo {
 
     protected List<Column> getBinariesColumns;
 
+    protected final NXQLQueryPlanCache queryPlanCache;
+
     /**
      * Generates and holds the needed SQL statements given a {@link Model} and a {@link Dialect}.
      *
@@ -174,12 +191,29 @@ public class SQLInfo {
         } catch (IOException e) {
             throw new NuxeoException(e);
         }
+
+        int planCacheSize = Integer.parseInt(
+                Framework.getProperty(NXQLQueryPlanCache.SIZE_PROP, NXQLQueryPlanCache.DEFAULT_SIZE));
+        if (planCacheSize > 0) {
+            queryPlanCache = new NXQLQueryPlanCache(repositoryDescriptor.name, dialect, planCacheSize);
+        } else {
+            queryPlanCache = null;
+        }
     }
 
     public Database getDatabase() {
         return database;
     }
 
+    /**
+     * Gets the cache of the SQL generated for NXQL queries, or {@code null} if disabled.
+     *
+     * @since 8.3
+     */
+    public NXQLQueryPlanCache getQueryPlanCache() {
+        return queryPlanCache;
+    }
+
     // ----- select -----
 
     public String getSelectRootIdSql() {
@@ -253,6 +287,41 @@ public class SQLInfo {
         return clusterInvalidationsColumns;
     }
 
+    /** @since 8.3 */
+    public String getInsertClusterInvalLogSql() {
+        return insertClusterInvalLogSql;
+    }
+
+    /** @since 8.3 */
+    public List<Column> getInsertClusterInvalLogColumns() {
+        return insertClusterInvalLogColumns;
+    }
+
+    /** @since 8.3 */
+    public String getSelectClusterInvalLogSql() {
+        return selectClusterInvalLogSql;
+    }
+
+    /** @since 8.3 */
+    public List<Column> getSelectClusterInvalLogColumns() {
+        return selectClusterInvalLogColumns;
+    }
+
+    /** @since 8.3 */
+    public String getSelectClusterInvalLogMaxSeqSql() {
+        return selectClusterInvalLogMaxSeqSql;
+    }
+
+    /** @since 8.3 */
+    public String getDeleteClusterInvalLogSql() {
+        return deleteClusterInvalLogSql;
+    }
+
+    /** @since 8.3 */
+    public Column getDeleteClusterInvalLogColumn() {
+        return deleteClusterInvalLogColumn;
+    }
+
     // ----- insert -----
 
     /**
@@ -709,6 +778,19 @@ public class SQLInfo {
         maker.newColumn(model.CLUSTER_INVALS_KIND_KEY, ColumnType.TINYINT);
         maker.table.addIndex(model.CLUSTER_INVALS_NODEID_KEY);
         maker.postProcessClusterInvalidations();
+
+        if (RepositoryDescriptor.CLUSTERING_MODE_LOG.equals(model.getRepositoryDescriptor().getClusteringMode())) {
+            maker = new TableMaker(model.CLUSTER_INVAL_LOG_TABLE_NAME);
+            Column seqColumn = maker.newColumn(model.CLUSTER_INVAL_LOG_SEQ_KEY, ColumnType.AUTOINC);
+            seqColumn.setIdentity(true);
+            seqColumn.setNullable(false);
+            seqColumn.setPrimary(true);
+            maker.newColumn(model.CLUSTER_INVAL_LOG_NODEID_KEY, ColumnType.CLUSTERNODE);
+            maker.newColumn(model.CLUSTER_INVAL_LOG_CREATED_KEY, ColumnType.TIMESTAMP);
+            maker.newColumn(model.CLUSTER_INVAL_LOG_INVALS_KEY, ColumnType.CLOB);
+            maker.table.addIndex(model.CLUSTER_INVAL_LOG_CREATED_KEY);
+            maker.postProcessClusterInvalidationsLog();
+        }
     }
 
     /**
@@ -906,6 +988,41 @@ public class SQLInfo {
             deleteClusterInvalsColumn = column;
         }
 
+        protected void postProcessClusterInvalidationsLog() {
+            Column seqColumn = table.getColumn(model.CLUSTER_INVAL_LOG_SEQ_KEY);
+            Column nodeIdColumn = table.getColumn(model.CLUSTER_INVAL_LOG_NODEID_KEY);
+            Column createdColumn = table.getColumn(model.CLUSTER_INVAL_LOG_CREATED_KEY);
+            Column invalsColumn = table.getColumn(model.CLUSTER_INVAL_LOG_INVALS_KEY);
+
+            // the sequence number is assigned by the database
+            Insert insert = new Insert(table);
+            insert.addIdentityColumn(seqColumn);
+            insert.addColumn(nodeIdColumn);
+            insert.addColumn(createdColumn);
+            insert.addColumn(invalsColumn);
+            insertClusterInvalLogSql = insert.getStatement();
+            insertClusterInvalLogColumns = Arrays.asList(nodeIdColumn, createdColumn, invalsColumn);
+
+            Select select = new Select(table);
+            select.setWhat(seqColumn.getQuotedName() + ", " + nodeIdColumn.getQuotedName() + ", "
+                    + createdColumn.getQuotedName() + ", " + invalsColumn.getQuotedName());
+            select.setFrom(table.getQuotedName());
+            select.setWhere(seqColumn.getQuotedName() + " > ?");
+            select.setOrderBy(seqColumn.getQuotedName());
+            selectClusterInvalLogSql = select.getStatement();
+            selectClusterInvalLogColumns = Arrays.asList(seqColumn, nodeIdColumn, createdColumn, invalsColumn);
+
+            select = new Select(table);
+            select.setWhat("MAX(" + seqColumn.getQuotedName() + ")");
+            select.setFrom(table.getQuotedName());
+            selectClusterInvalLogMaxSeqSql = select.getStatement();
+
+            Delete delete = new Delete(table);
+            delete.setWhere(createdColumn.getQuotedName() + " < ?");
+            deleteClusterInvalLogSql = delete.getStatement();
+            deleteClusterInvalLogColumn = createdColumn;
+        }
+
         protected void postProcessRepository() {
             postProcessRootIdSelect();
             postProcessInsert();
@@ -1068,6 +1068,28 @@ public abstract class Dialect {
         return 400;
     }
 
+    /**
+     * Maximum number of bind parameters in a single prepared statement.
+     * <p>
+     * Used to size multi-row inserts.
+     *
+     * @since 8.3
+     */
+    public int getMaximumBindParameters() {
+        return 2000;
+    }
+
+    /**
+     * Does the dialect support inserting several rows in one statement using {@code INSERT ... VALUES (...), (...)}.
+     * <p>
+     * Dialects that don't (Oracle) rely on JDBC batching, which their driver sends as array binding.
+     *
+     * @since 8.3
+     */
+    public boolean supportsMultiRowInsert() {
+        return false;
+    }
+
     /**
      * Gets the statement to update the read acls
      */
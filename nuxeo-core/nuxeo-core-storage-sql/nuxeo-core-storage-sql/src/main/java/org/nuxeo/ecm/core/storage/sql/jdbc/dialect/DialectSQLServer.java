@@ -146,6 +146,18 @@ public class DialectSQLServer extends Dialect {
         return (majorVersion >= 11);
     }
 
+    @Override
+    public boolean supportsMultiRowInsert() {
+        // row constructors are available since SQL Server 2008
+        return majorVersion >= 10;
+    }
+
+    @Override
+    public int getMaximumBindParameters() {
+        // SQL Server allows 2100 parameters in a request
+        return 2000;
+    }
+
     @Override
     public String addPagingClause(String sql, long limit, long offset) {
         if (!sql.contains("ORDER")) {
@@ -195,6 +195,11 @@ public class ConnectionImpl implements Session {
         return getSession().getNodesByIds(ids);
     }
 
+    @Override
+    public void prefetchFragments(List<Serializable> ids, Set<String> schemas) {
+        getSession().prefetchFragments(ids, schemas);
+    }
+
     @Override
     public Node getNodeByPath(String path, Node node) {
         return getSession().getNodeByPath(path, node);
@@ -0,0 +1,159 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage.sql;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+public class TestOffHeapRowCache {
+
+    @Test
+    public void testCodecSimpleRow() {
+        Calendar cal = new GregorianCalendar(TimeZone.getTimeZone("Europe/Paris"));
+        cal.setTimeInMillis(1234567890123L);
+        Row row = new Row("dublincore", "id1");
+        row.putNew("title", "caf\u00e9");
+        row.putNew("description", null);
+        row.putNew("modified", cal);
+        row.putNew("count", Long.valueOf(-42));
+        row.putNew("ratio", Double.valueOf(0.5));
+        row.putNew("flag", Boolean.TRUE);
+        row.putNew("subjects", new String[] { "a", "b" });
+
+        Row decoded = RowCodec.decode(new RowId(row), RowCodec.encode(row));
+        assertEquals("dublincore", decoded.tableName);
+        assertEquals("id1", decoded.id);
+        assertEquals(row.getKeys(), decoded.getKeys());
+        assertEquals("caf\u00e9", decoded.get("title"));
+        assertNull(decoded.get("description"));
+        assertEquals(cal.getTimeInMillis(), ((Calendar) decoded.get("modified")).getTimeInMillis());
+        assertEquals(cal.getTimeZone(), ((Calendar) decoded.get("modified")).getTimeZone());
+        assertEquals(Long.valueOf(-42), decoded.get("count"));
+        assertEquals(Double.valueOf(0.5), decoded.get("ratio"));
+        assertEquals(Boolean.TRUE, decoded.get("flag"));
+        assertArrayEquals(new String[] { "a", "b" }, (String[]) decoded.get("subjects"));
+    }
+
+    @Test
+    public void testCodecCollectionRow() {
+        ACLRow acl1 = new ACLRow(0, "local", true, "Read", "bob", null);
+        ACLRow acl2 = new ACLRow(1, "local", false, "Write", null, "members", "Administrator", null, null,
+                Long.valueOf(1));
+        Row row = new Row("acls", "id1", new ACLRow[] { acl1, acl2 });
+
+        Row decoded = RowCodec.decode(new RowId(row), RowCodec.encode(row));
+        assertTrue(decoded.isCollection());
+        ACLRow[] acls = (ACLRow[]) decoded.values;
+        assertEquals(2, acls.length);
+        assertEquals(acl1.toString(), acls[0].toString());
+        assertEquals(acl2.toString(), acls[1].toString());
+
+        Row empty = new Row("versions", "id2", new String[0]);
+        decoded = RowCodec.decode(new RowId(empty), RowCodec.encode(empty));
+        assertEquals(String[].class, decoded.values.getClass());
+        assertEquals(0, decoded.values.length);
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        OffHeapRowCache cache = new OffHeapRowCache(64 * 1024, 4);
+        RowId rowId = new RowId("hierarchy", "id1");
+        assertNull(cache.get(rowId));
+
+        byte[] value = new byte[] { 1, 2, 3 };
+        assertTrue(cache.put(rowId, value, cache.getStamp()));
+        assertArrayEquals(value, cache.get(new RowId("hierarchy", "id1")));
+        assertEquals(1, cache.getSize());
+
+        RowId absentId = new RowId("hierarchy", "id2");
+        assertTrue(cache.put(absentId, OffHeapRowCache.ABSENT, cache.getStamp()));
+        assertSame(OffHeapRowCache.ABSENT, cache.get(absentId));
+
+        cache.remove(rowId);
+        assertNull(cache.get(rowId));
+        assertNotNull(cache.get(absentId));
+
+        cache.clear();
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testStaleStamp() {
+        OffHeapRowCache cache = new OffHeapRowCache(64 * 1024, 4);
+        RowId rowId = new RowId("hierarchy", "id1");
+        long stamp = cache.getStamp();
+        // concurrent invalidation between the database read and the put
+        cache.remove(new RowId("hierarchy", "id1"));
+        assertFalse(cache.put(rowId, new byte[] { 1 }, stamp));
+        assertNull(cache.get(rowId));
+
+        stamp = cache.getStamp();
+        cache.clear();
+        assertFalse(cache.put(rowId, new byte[] { 1 }, stamp));
+        assertNull(cache.get(rowId));
+    }
+
+    @Test
+    public void testUnrelatedRemovalKeepsPut() {
+        OffHeapRowCache cache = new OffHeapRowCache(64 * 1024, 1);
+        RowId rowId = new RowId("hierarchy", "id1");
+        // an unrelated row of the same segment, in another stripe
+        RowId other = null;
+        for (int i = 0; other == null; i++) {
+            RowId r = new RowId("hierarchy", "other" + i);
+            if (OffHeapRowCache.getRemovalStripe(r) != OffHeapRowCache.getRemovalStripe(rowId)) {
+                other = r;
+            }
+        }
+        long stamp = cache.getStamp();
+        cache.remove(other);
+        assertTrue(cache.put(rowId, new byte[] { 1 }, stamp));
+        assertArrayEquals(new byte[] { 1 }, cache.get(rowId));
+    }
+
+    @Test
+    public void testEviction() {
+        // single segment of 8 regions of 1KB
+        OffHeapRowCache cache = new OffHeapRowCache(8 * 1024, 1);
+        byte[] value = new byte[100];
+        int n = 1000;
+        for (int i = 0; i < n; i++) {
+            assertTrue(cache.put(new RowId("hierarchy", "id" + i), value, cache.getStamp()));
+        }
+        assertTrue(cache.getEvictionCount() > 0);
+        assertEquals(n, cache.getSize() + cache.getEvictionCount());
+        // most recent entries are still there, oldest are gone
+        assertNotNull(cache.get(new RowId("hierarchy", "id" + (n - 1))));
+        assertNull(cache.get(new RowId("hierarchy", "id0")));
+        // too big for a region
+        assertFalse(cache.put(new RowId("hierarchy", "big"), new byte[2000], cache.getStamp()));
+    }
+
+}
@@ -60,6 +60,8 @@ public class TestRepositoryDescriptor {
         assertEquals("foo", desc.name);
         assertTrue(desc.getClusteringEnabled());
         assertEquals(1234, desc.getClusteringDelay());
+        assertEquals(RepositoryDescriptor.CLUSTERING_MODE_TABLE, desc.getClusteringMode());
+        assertEquals(Invalidations.MAX_SIZE, desc.getClusteringMaxInvalidations());
     }
 
     @Test
@@ -68,6 +70,17 @@ public class TestRepositoryDescriptor {
         testBasic();
     }
 
+    @Test
+    public void testClusteringLogMode() throws Exception {
+        desc = (RepositoryDescriptor) xmap.load(getResource("test-repository-descriptor-clustering-log.xml"));
+        for (RepositoryDescriptor d : Arrays.asList(desc, new RepositoryDescriptor(desc))) {
+            assertTrue(d.getClusteringEnabled());
+            assertEquals(1234, d.getClusteringDelay());
+            assertEquals(RepositoryDescriptor.CLUSTERING_MODE_LOG, d.getClusteringMode());
+            assertEquals(500, d.getClusteringMaxInvalidations());
+        }
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void testFulltext() throws Exception {
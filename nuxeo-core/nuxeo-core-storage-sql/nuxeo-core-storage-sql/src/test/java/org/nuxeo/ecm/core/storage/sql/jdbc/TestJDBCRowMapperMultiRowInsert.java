@@ -0,0 +1,42 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage.sql.jdbc;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class TestJDBCRowMapperMultiRowInsert {
+
+    @Test
+    public void testMultiRowInsertSql() {
+        String sql = "INSERT INTO \"dublincore\" (\"id\", \"title\") VALUES (?, ?)";
+        assertEquals(sql, JDBCRowMapper.getMultiRowInsertSql(sql, 1));
+        assertEquals("INSERT INTO \"dublincore\" (\"id\", \"title\") VALUES (?, ?), (?, ?), (?, ?)",
+                JDBCRowMapper.getMultiRowInsertSql(sql, 3));
+    }
+
+    @Test
+    public void testMultiRowInsertSqlWithCasts() {
+        String sql = "INSERT INTO \"misc\" (\"id\", \"tags\") VALUES (?, ?::varchar[])";
+        assertEquals("INSERT INTO \"misc\" (\"id\", \"tags\") VALUES (?, ?::varchar[]), (?, ?::varchar[])",
+                JDBCRowMapper.getMultiRowInsertSql(sql, 2));
+    }
+
+}
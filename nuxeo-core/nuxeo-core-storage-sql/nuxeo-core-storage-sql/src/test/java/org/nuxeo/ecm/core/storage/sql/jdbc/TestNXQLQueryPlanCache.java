@@ -0,0 +1,92 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage.sql.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.nuxeo.ecm.core.storage.sql.jdbc.NXQLQueryPlanCache.NormalizedQuery;
+
+public class TestNXQLQueryPlanCache {
+
+    protected static void assertNormalized(String expectedShape, String query, String... expectedValues) {
+        NormalizedQuery nq = NXQLQueryPlanCache.normalize(query);
+        assertEquals(expectedShape, nq.shape);
+        assertEquals(Arrays.asList(expectedValues), nq.values);
+        // values put back give the same query
+        assertEquals(NXQLQueryPlanCache.normalize(nq.getQuery(nq.values)).shape, nq.shape);
+    }
+
+    @Test
+    public void testNormalizeComparisons() throws Exception {
+        assertNormalized("SELECT * FROM Document WHERE dc:title = ?", //
+                "SELECT * FROM Document WHERE dc:title = 'foo'", "foo");
+        assertNormalized("SELECT * FROM Document WHERE dc:title <> ? AND dc:description LIKE ?", //
+                "SELECT * FROM Document WHERE dc:title <> 'foo' AND dc:description LIKE \"bar%\"", "foo", "bar%");
+        assertNormalized("SELECT * FROM Document WHERE dc:title NOT ILIKE ?", //
+                "SELECT * FROM Document WHERE dc:title NOT ILIKE 'Foo%'", "Foo%");
+        assertNormalized("SELECT * FROM Document WHERE dc:title=?", //
+                "SELECT * FROM Document WHERE dc:title='a\\'b'", "a'b");
+        assertNormalized("SELECT * FROM Document WHERE dc:subjects/* = ? ORDER BY dc:title", //
+                "SELECT * FROM Document WHERE dc:subjects/* = 'foo' ORDER BY dc:title", "foo");
+    }
+
+    @Test
+    public void testNormalizeInList() throws Exception {
+        assertNormalized("SELECT * FROM Document WHERE dc:title IN (?, ?) AND dc:source NOT IN (?)", //
+                "SELECT * FROM Document WHERE dc:title IN ('a', 'b') AND dc:source NOT IN ('c')", "a", "b", "c");
+        // mixed lists are kept as is
+        assertNormalized("SELECT * FROM Document WHERE dc:title IN ('a', 1)", //
+                "SELECT * FROM Document WHERE dc:title IN ('a', 1)");
+    }
+
+    @Test
+    public void testNormalizeSpecialProperties() throws Exception {
+        assertNormalized("SELECT * FROM Document WHERE ecm:parentId = ? AND ecm:isProxy = 0", //
+                "SELECT * FROM Document WHERE ecm:parentId = '1234' AND ecm:isProxy = 0", "1234");
+        // literals that may change the generated SQL are kept as is
+        assertNormalized("SELECT * FROM Document WHERE ecm:primaryType = 'File' AND ecm:path STARTSWITH '/foo'", //
+                "SELECT * FROM Document WHERE ecm:primaryType = 'File' AND ecm:path STARTSWITH '/foo'");
+        assertNormalized("SELECT * FROM Document WHERE ecm:fulltext = 'foo' AND dc:title = ?", //
+                "SELECT * FROM Document WHERE ecm:fulltext = 'foo' AND dc:title = 'foo'", "foo");
+        assertNormalized("SELECT * FROM Document WHERE dc:title = ''", //
+                "SELECT * FROM Document WHERE dc:title = ''");
+        assertNormalized("SELECT * FROM Document WHERE dc:created > DATE '2016-01-01'", //
+                "SELECT * FROM Document WHERE dc:created > DATE '2016-01-01'");
+    }
+
+    @Test
+    public void testNormalizeInvalid() throws Exception {
+        assertNull(NXQLQueryPlanCache.normalize("SELECT * FROM Document WHERE dc:title = 'foo' ?"));
+        assertNull(NXQLQueryPlanCache.normalize(
+                "SELECT * FROM Document WHERE /*+ES: INDEX(dc:title) */ dc:title = 'foo'"));
+    }
+
+    @Test
+    public void testGetQuery() throws Exception {
+        NormalizedQuery nq = NXQLQueryPlanCache.normalize("SELECT * FROM Document WHERE dc:title = 'foo'");
+        assertEquals("SELECT * FROM Document WHERE dc:title = 'it\\'s'",
+                nq.getQuery(Collections.singletonList("it's")));
+    }
+
+}
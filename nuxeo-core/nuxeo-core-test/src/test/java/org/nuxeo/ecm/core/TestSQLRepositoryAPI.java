@@ -507,6 +507,26 @@ public class TestSQLRepositoryAPI {
         assertNotNull(root.getPathAsString());
     }
 
+    @Test
+    public void testPrefetchDocuments() {
+        DocumentModel doc1 = session.createDocumentModel("/", "doc1", "File");
+        doc1.setPropertyValue("dc:title", "title1");
+        doc1 = session.createDocument(doc1);
+        DocumentModel doc2 = session.createDocumentModel("/", "doc2", "File");
+        doc2.setPropertyValue("dc:title", "title2");
+        doc2 = session.createDocument(doc2);
+        session.save();
+        reopenSession();
+
+        // duplicate and missing documents are ignored
+        DocumentRef[] refs = { doc1.getRef(), new PathRef("/doc2"), doc1.getRef(), new PathRef("/doc2"),
+                new IdRef("00000000-0000-0000-0000-000000000000"), new PathRef("/nosuchdoc") };
+        session.prefetchDocuments(refs, new HashSet<>(Arrays.asList("common", "dublincore")));
+
+        assertEquals("title1", session.getDocument(doc1.getRef()).getTitle());
+        assertEquals("title2", session.getDocument(doc2.getRef()).getTitle());
+    }
+
     @SuppressWarnings({ "SimplifiableJUnitAssertion" })
     @Test
     public void testDocumentReferenceEqualitySameInstance() {
@@ -4190,4 +4210,42 @@ public class TestSQLRepositoryAPI {
         assertEquals("Administrator", lock.getOwner());
     }
 
+    /**
+     * Saves in one go documents whose update modifies an element of a complex list and appends another one, which
+     * MongoDB applies in two successive updates of each document.
+     */
+    @Test
+    public void testSaveListElementChangeAndAppend() throws Exception {
+        int n = 3;
+        for (int i = 0; i < n; i++) {
+            DocumentModel doc = session.createDocumentModel("/", "doc" + i, "File");
+            doc.setPropertyValue("files", (Serializable) Collections.singletonList(
+                    Collections.singletonMap("file", Blobs.createBlob("abc" + i))));
+            session.createDocument(doc);
+        }
+        DocumentModel other = session.createDocumentModel("/", "other", "File");
+        other = session.createDocument(other);
+        session.save();
+        nextTransaction();
+
+        for (int i = 0; i < n; i++) {
+            DocumentModel doc = session.getDocument(new PathRef("/doc" + i));
+            Map<String, Object> changed = Collections.singletonMap("file", Blobs.createBlob("ABC" + i));
+            Map<String, Object> added = Collections.singletonMap("file", Blobs.createBlob("DEF" + i));
+            doc.setPropertyValue("files", (Serializable) Arrays.asList(changed, added));
+            session.saveDocument(doc);
+        }
+        other.setPropertyValue("dc:title", "foo");
+        session.saveDocument(other);
+        session.save();
+        nextTransaction();
+
+        for (int i = 0; i < n; i++) {
+            DocumentModel doc = session.getDocument(new PathRef("/doc" + i));
+            assertEquals("ABC" + i, ((Blob) doc.getPropertyValue("files/0/file")).getString());
+            assertEquals("DEF" + i, ((Blob) doc.getPropertyValue("files/1/file")).getString());
+        }
+        assertEquals("foo", session.getDocument(other.getRef()).getTitle());
+    }
+
 }
@@ -768,6 +768,35 @@ public class TestSQLRepositoryQuery {
         assertEquals(7, dml.totalSize());
     }
 
+    @Test
+    public void testBatchingWithTies() throws Exception {
+        // other backends don't define the order of rows comparing equal
+        assumeTrue("ORDER BY ties only stable on mem", coreFeature.getStorageConfiguration().isDBSMem());
+        for (int i = 0; i < 23; i++) {
+            DocumentModel doc = session.createDocumentModel("/", "doc" + i, "File");
+            doc.setPropertyValue("dc:title", "title" + (i % 3));
+            session.createDocument(doc);
+        }
+        session.save();
+
+        String sql = "SELECT * FROM File ORDER BY dc:title";
+        List<String> ids = new ArrayList<>();
+        String previous = "";
+        for (int offset = 0; offset < 23; offset += 5) {
+            DocumentModelList dml = session.query(sql, null, 5, offset, true);
+            assertEquals(23, dml.totalSize());
+            for (DocumentModel doc : dml) {
+                String title = doc.getTitle();
+                assertTrue(title, previous.compareTo(title) <= 0);
+                previous = title;
+                ids.add(doc.getId());
+            }
+        }
+        // no entry repeated or skipped across pages
+        assertEquals(23, ids.size());
+        assertEquals(23, new HashSet<>(ids).size());
+    }
+
     @Test
     public void testQueryLimits() throws Exception {
         DocumentModelList dml;
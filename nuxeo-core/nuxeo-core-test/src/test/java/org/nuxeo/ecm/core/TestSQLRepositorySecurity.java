@@ -779,6 +779,142 @@ public class TestSQLRepositorySecurity {
         }
     }
 
+    @Test
+    public void testReadAclAfterMoveTree() {
+        DocumentModel folder1 = new DocumentModelImpl("/", "folder1", "Folder");
+        folder1 = session.createDocument(folder1);
+        DocumentModel folder2 = new DocumentModelImpl("/", "folder2", "Folder");
+        folder2 = session.createDocument(folder2);
+        DocumentModel sub = new DocumentModelImpl("/folder1", "sub", "Folder");
+        sub = session.createDocument(sub);
+        DocumentModel subsub = new DocumentModelImpl("/folder1/sub", "subsub", "Folder");
+        subsub = session.createDocument(subsub);
+        DocumentModel doc = new DocumentModelImpl("/folder1/sub/subsub", "doc", "File");
+        doc = session.createDocument(doc);
+
+        // set ACL on folder2 and on subsub
+        ACL acl = new ACLImpl();
+        acl.add(new ACE("joe", "Read", true));
+        ACP acp = new ACPImpl();
+        acp.addACL(acl);
+        folder2.setACP(acp, true);
+        acl = new ACLImpl();
+        acl.add(new ACE("bob", "Read", true));
+        acp = new ACPImpl();
+        acp.addACL(acl);
+        subsub.setACP(acp, true);
+        session.save();
+
+        try (CoreSession joeSession = openSessionAs("joe")) {
+            assertEquals(0, joeSession.query("SELECT * FROM File").size());
+        }
+
+        // move the tree under folder2
+        session.move(sub.getRef(), folder2.getRef(), null);
+        session.save();
+
+        // ancestors updated on the whole tree
+        DocumentModelList list = session.query("SELECT * FROM File WHERE ecm:ancestorId = '" + folder2.getId() + "'");
+        assertEquals(1, list.size());
+        assertEquals("/folder2/sub/subsub/doc", list.get(0).getPathAsString());
+        list = session.query("SELECT * FROM File WHERE ecm:ancestorId = '" + folder1.getId() + "'");
+        assertEquals(0, list.size());
+        // read acls inherited from folder2 and from subsub
+        try (CoreSession joeSession = openSessionAs("joe")) {
+            assertEquals(1, joeSession.query("SELECT * FROM File").size());
+        }
+        try (CoreSession bobSession = openSessionAs("bob")) {
+            assertEquals(1, bobSession.query("SELECT * FROM File").size());
+        }
+    }
+
+    @Test
+    public void testReadAclAfterSetACPRollback() {
+        DocumentModel folder = new DocumentModelImpl("/", "folder", "Folder");
+        folder = session.createDocument(folder);
+        DocumentModel sub = new DocumentModelImpl("/folder", "sub", "Folder");
+        sub = session.createDocument(sub);
+        DocumentModel doc = new DocumentModelImpl("/folder/sub", "doc", "File");
+        doc = session.createDocument(doc);
+        session.save();
+        TransactionHelper.commitOrRollbackTransaction();
+        TransactionHelper.startTransaction();
+
+        // set ACL on folder then rollback
+        ACL acl = new ACLImpl();
+        acl.add(new ACE("joe", "Read", true));
+        ACP acp = new ACPImpl();
+        acp.addACL(acl);
+        session.setACP(folder.getRef(), acp, true);
+        session.save();
+        TransactionHelper.setTransactionRollbackOnly();
+        TransactionHelper.commitOrRollbackTransaction();
+        TransactionHelper.startTransaction();
+
+        // doc still cannot be read by joe
+        try (CoreSession joeSession = openSessionAs("joe")) {
+            assertEquals(0, joeSession.query("SELECT * FROM File").size());
+        }
+    }
+
+    @Test
+    public void testAncestorsAndReadAclAfterMoveRollback() {
+        DocumentModel folder1 = new DocumentModelImpl("/", "folder1", "Folder");
+        folder1 = session.createDocument(folder1);
+        DocumentModel folder2 = new DocumentModelImpl("/", "folder2", "Folder");
+        folder2 = session.createDocument(folder2);
+        DocumentModel sub = new DocumentModelImpl("/folder1", "sub", "Folder");
+        sub = session.createDocument(sub);
+        DocumentModel doc1 = new DocumentModelImpl("/folder1/sub", "doc1", "File");
+        doc1 = session.createDocument(doc1);
+        DocumentModel doc2 = new DocumentModelImpl("/folder1/sub", "doc2", "File");
+        doc2 = session.createDocument(doc2);
+
+        // set ACL on folder1 and on folder2
+        ACL acl = new ACLImpl();
+        acl.add(new ACE("joe", "Read", true));
+        ACP acp = new ACPImpl();
+        acp.addACL(acl);
+        folder1.setACP(acp, true);
+        acl = new ACLImpl();
+        acl.add(new ACE("bob", "Read", true));
+        acp = new ACPImpl();
+        acp.addACL(acl);
+        folder2.setACP(acp, true);
+        session.save();
+        TransactionHelper.commitOrRollbackTransaction();
+        TransactionHelper.startTransaction();
+
+        // doc1 is changed and saved before the move, doc2 after the move, then rollback
+        doc1.setPropertyValue("dc:title", "before move");
+        session.saveDocument(doc1);
+        session.save();
+        session.move(sub.getRef(), folder2.getRef(), null);
+        session.save();
+        doc2 = session.getDocument(doc2.getRef());
+        doc2.setPropertyValue("dc:title", "after move");
+        session.saveDocument(doc2);
+        session.save();
+        TransactionHelper.setTransactionRollbackOnly();
+        TransactionHelper.commitOrRollbackTransaction();
+        TransactionHelper.startTransaction();
+
+        String rootId = session.getRootDocument().getId();
+        String query = "SELECT * FROM File WHERE ecm:ancestorId = '%s'";
+        assertEquals(2, session.query(String.format(query, rootId)).size());
+        assertEquals(2, session.query(String.format(query, folder1.getId())).size());
+        assertEquals(2, session.query(String.format(query, sub.getId())).size());
+        assertEquals(0, session.query(String.format(query, folder2.getId())).size());
+        assertEquals("/folder1/sub/doc1", session.getDocument(doc1.getRef()).getPathAsString());
+        // read acls inherited from folder1 again
+        try (CoreSession joeSession = openSessionAs("joe")) {
+            assertEquals(2, joeSession.query("SELECT * FROM File").size());
+        }
+        try (CoreSession bobSession = openSessionAs("bob")) {
+            assertEquals(0, bobSession.query("SELECT * FROM File").size());
+        }
+    }
+
     @Test
     public void testEmptyLocalACL() throws Exception {
         DocumentModel doc = session.createDocumentModel("/", "folder", "Folder");
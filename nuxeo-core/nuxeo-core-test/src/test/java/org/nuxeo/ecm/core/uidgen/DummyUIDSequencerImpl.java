@@ -42,6 +42,12 @@ public class DummyUIDSequencerImpl extends AbstractUIDSequencer {
         return counters.get(key).incrementAndGet();
     }
 
+    @Override
+    public long[] getNextBlock(String key, int size) {
+        counters.putIfAbsent(key, new AtomicLong());
+        return range(counters.get(key).addAndGet(size), size);
+    }
+
     @Override
     public void dispose() {
     }
@@ -19,8 +19,18 @@
 package org.nuxeo.ecm.core.uidgen;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.nuxeo.runtime.api.Framework;
@@ -61,4 +71,95 @@ public class TestUIDSequencer extends NXRuntimeTestCase {
         assertTrue(seq.getNextLong("mySequence") > 10);
     }
 
+    @Test
+    public void testBlockSequencer() {
+        UIDSequencer seq = service.getSequencer("dummyBlockSequencer");
+        assertTrue(seq instanceof BlockUIDSequencer);
+        DummyUIDSequencerImpl backend = (DummyUIDSequencerImpl) ((BlockUIDSequencer) seq).getSequencer();
+
+        for (int i = 1; i <= 25; i++) {
+            assertEquals(i, seq.getNext("mySequence"));
+        }
+        // three blocks reserved
+        assertEquals(30, backend.counters.get("mySequence").get());
+        assertEquals(1, seq.getNext("mySequence2"));
+
+        // values reserved by another node are skipped
+        backend.getNextBlock("mySequence", 10);
+        for (int i = 26; i <= 30; i++) {
+            assertEquals(i, seq.getNext("mySequence"));
+        }
+        assertEquals(41L, seq.getNextLong("mySequence"));
+
+        seq.initSequence("mySequence", 100);
+        assertTrue(seq.getNext("mySequence") > 100);
+    }
+
+    @Test
+    public void testBlockSequencerOverIntSequencer() {
+        // a backend only implementing getNext
+        AbstractUIDSequencer backend = new AbstractUIDSequencer() {
+
+            protected int counter;
+
+            @Override
+            public void init() {
+            }
+
+            @Override
+            public synchronized int getNext(String key) {
+                return ++counter;
+            }
+
+            @Override
+            public void dispose() {
+            }
+        };
+        BlockUIDSequencer seq = new BlockUIDSequencer(backend, 10);
+        for (int i = 1; i <= 15; i++) {
+            assertEquals(i, seq.getNextLong("mySequence"));
+        }
+        // two blocks reserved
+        assertEquals(21, backend.getNext("mySequence"));
+        assertEquals(16, seq.getNext("mySequence"));
+    }
+
+    @Test
+    public void testStrictSequencer() {
+        UIDSequencer seq = service.getSequencer("dummyStrictSequencer");
+        assertFalse(seq instanceof BlockUIDSequencer);
+        assertEquals(1, seq.getNext("mySequence"));
+        assertEquals(1, ((DummyUIDSequencerImpl) seq).counters.get("mySequence").get());
+    }
+
+    @Test
+    public void testBlockSequencerConcurrency() throws Exception {
+        UIDSequencer seq = service.getSequencer("dummyBlockSequencer");
+        int nbThreads = 8;
+        int nbCalls = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int t = 0; t < nbThreads; t++) {
+                futures.add(executor.submit(new Callable<List<Long>>() {
+                    @Override
+                    public List<Long> call() {
+                        List<Long> values = new ArrayList<>(nbCalls);
+                        for (int i = 0; i < nbCalls; i++) {
+                            values.add(Long.valueOf(seq.getNextLong("mt")));
+                        }
+                        return values;
+                    }
+                }));
+            }
+            Set<Long> all = new HashSet<>();
+            for (Future<List<Long>> future : futures) {
+                all.addAll(future.get());
+            }
+            assertEquals(nbThreads * nbCalls, all.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
 }
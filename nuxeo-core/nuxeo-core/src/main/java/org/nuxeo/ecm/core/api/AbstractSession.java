@@ -53,9 +53,11 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.apache.commons.logging.Log;
@@ -99,6 +101,7 @@ import org.nuxeo.ecm.core.schema.FacetNames;
 import org.nuxeo.ecm.core.schema.SchemaManager;
 import org.nuxeo.ecm.core.schema.types.CompositeType;
 import org.nuxeo.ecm.core.schema.types.Schema;
+import org.nuxeo.ecm.core.security.PermissionEvaluator.CompiledPrincipals;
 import org.nuxeo.ecm.core.security.SecurityService;
 import org.nuxeo.ecm.core.versioning.VersioningService;
 import org.nuxeo.runtime.api.Framework;
@@ -174,6 +177,11 @@ public abstract class AbstractSession implements CoreSession, Serializable {
         return securityService;
     }
 
+    /**
+     * Principals to check for the session principal, computed once.
+     */
+    private transient CompiledPrincipals compiledPrincipals;
+
     private transient VersioningService versioningService;
 
     protected VersioningService getVersioningService() {
@@ -316,7 +324,10 @@ public abstract class AbstractSession implements CoreSession, Serializable {
         // this method.
         // -> cache ACP at securitymanager level or try to reuse the ACP when
         // it is known
-        return getSecurityService().checkPermission(doc, getPrincipal(), permission);
+        if (compiledPrincipals == null) {
+            compiledPrincipals = getSecurityService().compilePrincipals(getPrincipal());
+        }
+        return getSecurityService().checkPermission(doc, getPrincipal(), compiledPrincipals, permission);
         // return doc.getSession().getSecurityManager().checkPermission(doc,
         // getPrincipal().getName(), permission);
     }
@@ -952,6 +963,30 @@ public abstract class AbstractSession implements CoreSession, Serializable {
         return new DocumentModelListImpl(docs);
     }
 
+    @Override
+    public void prefetchDocuments(DocumentRef[] docRefs, Set<String> schemas) {
+        // the same document may be referenced several times
+        Set<String> ids = new LinkedHashSet<>(docRefs.length);
+        for (DocumentRef docRef : docRefs) {
+            Object ref = docRef.reference();
+            switch (docRef.type()) {
+            case DocumentRef.ID:
+                ids.add((String) ref);
+                break;
+            case DocumentRef.INSTANCE:
+                ids.add(((DocumentModel) ref).getId());
+                break;
+            default:
+                try {
+                    ids.add(resolveReference(docRef).getUUID());
+                } catch (DocumentNotFoundException e) {
+                    // ignored, nothing to prefetch
+                }
+            }
+        }
+        getSession().prefetchDocuments(new ArrayList<>(ids), schemas);
+    }
+
     @Override
     public DocumentModelList getFiles(DocumentRef parent) {
         Document doc = resolveReference(parent);
@@ -409,6 +409,7 @@ public class BlobManagerComponent extends DefaultComponent implements BlobManage
             globalStatus.sizeBinaries += status.sizeBinaries;
             globalStatus.numBinariesGC += status.numBinariesGC;
             globalStatus.sizeBinariesGC += status.sizeBinariesGC;
+            globalStatus.numBinariesMarked += status.numBinariesMarked;
         }
         globalStatus.gcDuration = System.currentTimeMillis() - start;
         return globalStatus;
@@ -24,11 +24,18 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.nuxeo.common.xmap.XMap;
 import org.nuxeo.ecm.core.api.Blob;
@@ -160,6 +167,101 @@ public abstract class AbstractBinaryManager implements BinaryManager {
         return toHexString(digest.digest());
     }
 
+    /**
+     * Size of the direct buffers used by {@link #storeAndDigest(ReadableByteChannel, WritableByteChannel)}.
+     *
+     * @since 8.3
+     */
+    public static final int DIRECT_BUF_SIZE = 256 * 1024; // 256 kB
+
+    /**
+     * Maximum number of direct buffers allocated by {@link #storeAndDigest(ReadableByteChannel, WritableByteChannel)}.
+     *
+     * @since 8.3
+     */
+    public static final int DIRECT_BUF_POOL_SIZE = 16;
+
+    /**
+     * Pool of direct buffers, as allocating them is costly and their memory is only freed by the GC. They are not kept
+     * per thread, so that short-lived threads don't each allocate one.
+     */
+    private static final BlockingQueue<ByteBuffer> DIRECT_BUFFERS = new ArrayBlockingQueue<>(DIRECT_BUF_POOL_SIZE);
+
+    private static final AtomicInteger DIRECT_BUFFERS_ALLOCATED = new AtomicInteger();
+
+    /**
+     * Gets a direct buffer from the pool, or a heap buffer if all the direct buffers are in use.
+     */
+    protected static ByteBuffer acquireBuffer() {
+        ByteBuffer buf = DIRECT_BUFFERS.poll();
+        if (buf != null) {
+            return buf;
+        }
+        if (DIRECT_BUFFERS_ALLOCATED.incrementAndGet() <= DIRECT_BUF_POOL_SIZE) {
+            return ByteBuffer.allocateDirect(DIRECT_BUF_SIZE);
+        }
+        DIRECT_BUFFERS_ALLOCATED.decrementAndGet();
+        return ByteBuffer.allocate(DIRECT_BUF_SIZE);
+    }
+
+    protected static void releaseBuffer(ByteBuffer buf) {
+        if (buf.isDirect()) {
+            buf.clear();
+            DIRECT_BUFFERS.offer(buf);
+        }
+    }
+
+    /**
+     * Copies a channel into another while computing the digest of the bytes, in a single pass.
+     * <p>
+     * The bytes go through a pooled direct buffer, so they are not copied to the Java heap when read and written, only
+     * when digested. When all the pooled buffers are in use, a heap buffer is used instead.
+     *
+     * @param in the channel to read
+     * @param out the channel to write to, or {@code null} to only compute the digest
+     * @return the digest
+     * @since 8.3
+     */
+    protected String storeAndDigest(ReadableByteChannel in, WritableByteChannel out) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(getDigestAlgorithm());
+        } catch (NoSuchAlgorithmException e) {
+            throw (IOException) new IOException().initCause(e);
+        }
+        ByteBuffer buf = acquireBuffer();
+        try {
+            while (in.read(buf) != -1) {
+                buf.flip();
+                if (out != null) {
+                    // digest a view of the buffer, whose position is kept for the write
+                    digest.update(buf.duplicate());
+                    while (buf.hasRemaining()) {
+                        out.write(buf);
+                    }
+                } else {
+                    digest.update(buf);
+                }
+                buf.clear();
+            }
+        } finally {
+            releaseBuffer(buf);
+        }
+        return toHexString(digest.digest());
+    }
+
+    /**
+     * Gets a channel reading the given stream, directly from the file if it is a file stream.
+     *
+     * @since 8.3
+     */
+    protected static ReadableByteChannel getChannel(InputStream in) {
+        if (in instanceof FileInputStream) {
+            return ((FileInputStream) in).getChannel();
+        }
+        return Channels.newChannel(in);
+    }
+
     private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
 
     public static String toHexString(byte[] data) {
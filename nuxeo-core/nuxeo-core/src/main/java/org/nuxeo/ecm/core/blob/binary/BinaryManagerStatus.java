@@ -33,6 +33,31 @@ public class BinaryManagerStatus {
 
     public long sizeBinariesGC;
 
+    /**
+     * @since 8.3
+     */
+    public long numBinariesMarked;
+
+    /**
+     * @since 8.3
+     */
+    public long markDuration;
+
+    /**
+     * @since 8.3
+     */
+    public long sweepDuration;
+
+    /**
+     * @since 8.3
+     */
+    public long sweepProgress;
+
+    /**
+     * @since 8.3
+     */
+    public long sweepTotal;
+
     /**
      * The GC duration, in milliseconds
      */
@@ -68,6 +93,69 @@ public class BinaryManagerStatus {
         return sizeBinariesGC;
     }
 
+    /**
+     * The number of binaries marked as being in use, if known.
+     *
+     * @since 8.3
+     */
+    public long getNumBinariesMarked() {
+        return numBinariesMarked;
+    }
+
+    /**
+     * The duration of the mark phase, in milliseconds, if known.
+     *
+     * @since 8.3
+     */
+    public long getMarkDuration() {
+        return markDuration;
+    }
+
+    /**
+     * The duration of the sweep phase, in milliseconds, if known.
+     *
+     * @since 8.3
+     */
+    public long getSweepDuration() {
+        return sweepDuration;
+    }
+
+    /**
+     * The number of units of work (directories) already swept, if known.
+     *
+     * @since 8.3
+     */
+    public long getSweepProgress() {
+        return sweepProgress;
+    }
+
+    /**
+     * The total number of units of work (directories) to sweep, if known.
+     *
+     * @since 8.3
+     */
+    public long getSweepTotal() {
+        return sweepTotal;
+    }
+
+    /**
+     * The number of binaries marked per second during the mark phase.
+     *
+     * @since 8.3
+     */
+    public double getMarkRate() {
+        return markDuration == 0 ? 0 : numBinariesMarked * 1000d / markDuration;
+    }
+
+    /**
+     * The number of binaries checked per second during the sweep phase.
+     *
+     * @since 8.3
+     */
+    public double getSweepRate() {
+        return sweepDuration == 0 ? 0 : (numBinaries + numBinariesGC) * 1000d / sweepDuration;
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
@@ -75,7 +163,12 @@ public class BinaryManagerStatus {
         .append(", numBinaries=").append(numBinaries) //
         .append(", sizeBinaries=").append(sizeBinaries) //
         .append(", numBinariesGC=").append(numBinariesGC) //
-        .append(", sizeBinariesGC=").append(sizeBinariesGC).append("]");
+        .append(", sizeBinariesGC=").append(sizeBinariesGC) //
+        .append(", numBinariesMarked=").append(numBinariesMarked) //
+        .append(", markDuration=").append(markDuration) //
+        .append(", sweepDuration=").append(sweepDuration) //
+        .append(", sweepProgress=").append(sweepProgress) //
+        .append(", sweepTotal=").append(sweepTotal).append("]");
         return builder.toString();
     }
 
@@ -27,6 +27,8 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
 
 import org.apache.commons.io.FileUtils;
@@ -138,13 +140,11 @@ public abstract class CachingBinaryManager extends AbstractBinaryManager {
     protected Binary getBinary(InputStream in) throws IOException {
         // write the input stream to a temporary file, while computing a digest
         File tmp = fileCache.getTempFile();
-        OutputStream out = new FileOutputStream(tmp);
         String digest;
-        try {
-            digest = storeAndDigest(in, out);
+        try (FileChannel out = FileChannel.open(tmp.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+            digest = storeAndDigest(getChannel(in), out);
         } finally {
             in.close();
-            out.close();
         }
         long length = tmp.length();
 
@@ -21,9 +21,9 @@ package org.nuxeo.ecm.core.blob.binary;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
-import org.apache.commons.io.output.NullOutputStream;
 import org.nuxeo.ecm.core.api.Blob;
 import org.nuxeo.ecm.core.api.impl.blob.FileBlob;
 
@@ -46,10 +46,16 @@ public class DefaultBinaryManager extends LocalBinaryManager {
 
     @Override
     public Binary getBinary(Blob blob) throws IOException {
-        if (!(blob instanceof FileBlob) || !((FileBlob) blob).isTemporary()) {
-            return super.getBinary(blob); // just open the stream
+        String digest;
+        if (blob instanceof FileBlob && ((FileBlob) blob).isTemporary()) {
+            digest = storeAndDigest((FileBlob) blob);
+        } else {
+            File source = blob instanceof BinaryBlob ? null : blob.getFile();
+            if (source == null || !source.isFile()) {
+                return super.getBinary(blob); // just open the stream
+            }
+            digest = storeAndDigest(source);
         }
-        String digest = storeAndDigest((FileBlob) blob);
         File file = getFileForDigest(digest, false);
         /*
          * Now we can build the Binary.
@@ -61,10 +67,7 @@ public class DefaultBinaryManager extends LocalBinaryManager {
      * Stores and digests a temporary FileBlob.
      */
     protected String storeAndDigest(FileBlob blob) throws IOException {
-        String digest;
-        try (InputStream in = blob.getStream()) {
-            digest = storeAndDigest(in, NullOutputStream.NULL_OUTPUT_STREAM);
-        }
+        String digest = digest(blob.getFile());
         File digestFile = getFileForDigest(digest, true);
         if (digestFile.exists()) {
             // The file with the proper digest is already there so don't do anything. This is to avoid
@@ -79,4 +82,41 @@ public class DefaultBinaryManager extends LocalBinaryManager {
         return digest;
     }
 
+    /**
+     * Stores and digests a file that must be kept in place.
+     * <p>
+     * The file is digested first, so that nothing is written if the binary is already stored. Otherwise it is copied
+     * by the operating system to a temporary file then atomically moved to its final location.
+     *
+     * @since 8.3
+     */
+    protected String storeAndDigest(File source) throws IOException {
+        String digest = digest(source);
+        File digestFile = getFileForDigest(digest, true);
+        if (digestFile.exists()) {
+            // update date for the GC
+            touch(digestFile);
+            return digest;
+        }
+        File tmp = File.createTempFile("create_", ".tmp", tmpDir);
+        try {
+            copyFile(source, tmp);
+            atomicMove(tmp, digestFile);
+        } finally {
+            tmp.delete();
+        }
+        return digest;
+    }
+
+    /**
+     * Computes the digest of a file.
+     *
+     * @since 8.3
+     */
+    protected String digest(File file) throws IOException {
+        try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return storeAndDigest(in, null);
+        }
+    }
+
 }
@@ -20,17 +20,15 @@
 package org.nuxeo.ecm.core.blob.binary;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
 import java.util.regex.Pattern;
 
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -69,10 +67,40 @@ public class LocalBinaryManager extends AbstractBinaryManager {
 
     public static final String CONFIG_FILE = "config.xml";
 
+    /**
+     * Property for the garbage collection mode. With {@value #GC_MODE_PARALLEL}, the
+     * {@link ParallelBinaryGarbageCollector} is used, otherwise the {@link DefaultBinaryGarbageCollector}.
+     *
+     * @since 8.3
+     */
+    public static final String PROP_GC_MODE = "gcMode";
+
+    /**
+     * @since 8.3
+     */
+    public static final String GC_MODE_PARALLEL = "parallel";
+
+    /**
+     * Property for the number of threads sweeping the store in parallel mode. Defaults to the number of processors.
+     *
+     * @since 8.3
+     */
+    public static final String PROP_GC_PARALLELISM = "gcParallelism";
+
     protected File storageDir;
 
     protected File tmpDir;
 
+    /**
+     * @since 8.3
+     */
+    protected String gcMode;
+
+    /**
+     * @since 8.3
+     */
+    protected int gcParallelism;
+
     @Override
     public void initialize(String blobProviderId, Map<String, String> properties) throws IOException {
         super.initialize(blobProviderId, properties);
@@ -111,6 +139,9 @@ public class LocalBinaryManager extends AbstractBinaryManager {
         storageDir.mkdirs();
         tmpDir.mkdirs();
         descriptor = getDescriptor(new File(base, CONFIG_FILE));
+        gcMode = properties.get(PROP_GC_MODE);
+        String parallelism = properties.get(PROP_GC_PARALLELISM);
+        gcParallelism = StringUtils.isBlank(parallelism) ? 0 : Integer.parseInt(parallelism.trim());
         createGarbageCollector();
     }
 
@@ -181,17 +212,15 @@ public class LocalBinaryManager extends AbstractBinaryManager {
 
     protected String storeAndDigest(InputStream in) throws IOException {
         File tmp = File.createTempFile("create_", ".tmp", tmpDir);
-        OutputStream out = new FileOutputStream(tmp);
         /*
          * First, write the input stream to a temporary file, while computing a digest.
          */
         try {
             String digest;
-            try {
-                digest = storeAndDigest(in, out);
+            try (FileChannel out = FileChannel.open(tmp.toPath(), StandardOpenOption.WRITE)) {
+                digest = storeAndDigest(getChannel(in), out);
             } finally {
                 in.close();
-                out.close();
             }
             /*
              * Move the tmp file to its destination.
@@ -229,10 +258,7 @@ public class LocalBinaryManager extends AbstractBinaryManager {
             // atomic rename.
             File tmp = File.createTempFile(dest.getName(), ".tmp", dest.getParentFile());
             try {
-                try (InputStream in = new FileInputStream(source); //
-                        OutputStream out = new FileOutputStream(tmp)) {
-                    IOUtils.copy(in, out);
-                }
+                copyFile(source, tmp);
                 // then do the atomic rename
                 tmp.renameTo(dest);
             } finally {
@@ -246,7 +272,32 @@ public class LocalBinaryManager extends AbstractBinaryManager {
         }
     }
 
+    /**
+     * Copies a file into another, letting the operating system transfer the bytes directly if possible.
+     *
+     * @since 8.3
+     */
+    protected static void copyFile(File source, File dest) throws IOException {
+        try (FileChannel in = FileChannel.open(source.toPath(), StandardOpenOption.READ); //
+                FileChannel out = FileChannel.open(dest.toPath(), StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+    }
+
     protected void createGarbageCollector() {
+        if (GC_MODE_PARALLEL.equals(gcMode)) {
+            if (descriptor.depth > 0) {
+                garbageCollector = new ParallelBinaryGarbageCollector(this, gcParallelism);
+                return;
+            }
+            log.warn("Parallel garbage collection needs a binary store with sub-directories, using default for: "
+                    + storageDir);
+        }
         garbageCollector = new DefaultBinaryGarbageCollector(this);
     }
 
@@ -0,0 +1,491 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.blob.binary;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.blob.binary.LocalBinaryManager.DefaultBinaryGarbageCollector;
+
+/**
+ * A garbage collector for a {@link LocalBinaryManager} that does not touch the marked files and sweeps the store in
+ * parallel.
+ * <p>
+ * Marked digests are streamed to disk, into one partition file per value of their first byte, which is also the name
+ * of the first-level sub-directory holding them. The sweep then processes the first-level sub-directories in parallel
+ * in a fork-join pool: each one loads its partition into a compact hash set of digest bytes and deletes the files that
+ * are not in it. Memory use is therefore bounded by the size of a few partitions, whatever the number of binaries.
+ * <p>
+ * As for the default garbage collector, files modified after the start of the GC are never deleted, which protects
+ * binaries stored or re-stored during the GC. Marked digests whose length does not match the digest algorithm of the
+ * store, for instance left by a previous algorithm, are marked by touching their file as the default GC does.
+ *
+ * @since 8.3
+ */
+public class ParallelBinaryGarbageCollector implements BinaryGarbageCollector {
+
+    private static final Log log = LogFactory.getLog(ParallelBinaryGarbageCollector.class);
+
+    /** One partition per value of the first byte of the digest. */
+    protected static final int PARTITIONS = 256;
+
+    protected static final int BUFFER_SIZE = 4096;
+
+    protected final LocalBinaryManager binaryManager;
+
+    protected final int parallelism;
+
+    protected final int digestLength;
+
+    protected volatile long startTime;
+
+    protected volatile long sweepStartTime;
+
+    protected File markDir;
+
+    protected OutputStream[] partitions;
+
+    protected final LongAdder numBinariesMarked = new LongAdder();
+
+    protected final LongAdder numBinaries = new LongAdder();
+
+    protected final LongAdder sizeBinaries = new LongAdder();
+
+    protected final LongAdder numBinariesGC = new LongAdder();
+
+    protected final LongAdder sizeBinariesGC = new LongAdder();
+
+    protected final LongAdder sweepProgress = new LongAdder();
+
+    protected volatile long sweepTotal;
+
+    protected volatile long markDuration;
+
+    protected BinaryManagerStatus status;
+
+    public ParallelBinaryGarbageCollector(LocalBinaryManager binaryManager, int parallelism) {
+        this.binaryManager = binaryManager;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        try {
+            digestLength = MessageDigest.getInstance(binaryManager.getDigestAlgorithm()).getDigestLength();
+        } catch (NoSuchAlgorithmException e) {
+            throw new NuxeoException(e);
+        }
+    }
+
+    @Override
+    public String getId() {
+        return binaryManager.getStorageDir().toURI().toString();
+    }
+
+    /**
+     * Gets the status of the GC. While the GC is in progress, returns the progress so far.
+     */
+    @Override
+    public synchronized BinaryManagerStatus getStatus() {
+        if (startTime != 0) {
+            return snapshot(System.currentTimeMillis());
+        }
+        return status;
+    }
+
+    @Override
+    public boolean isInProgress() {
+        // volatile as this is designed to be called from another thread
+        return startTime != 0;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (startTime != 0) {
+            throw new RuntimeException("Alread started");
+        }
+        for (LongAdder counter : new LongAdder[] { numBinariesMarked, numBinaries, sizeBinaries, numBinariesGC,
+                sizeBinariesGC, sweepProgress }) {
+            counter.reset();
+        }
+        sweepStartTime = 0;
+        sweepTotal = 0;
+        markDuration = 0;
+        status = null;
+        startTime = System.currentTimeMillis();
+        markDir = new File(binaryManager.tmpDir, "gc-" + startTime);
+        markDir.mkdirs();
+        partitions = new OutputStream[PARTITIONS];
+    }
+
+    @Override
+    public synchronized void mark(String digest) {
+        byte[] bytes = toBytes(digest);
+        if (bytes == null || bytes.length != digestLength) {
+            // digest from another algorithm (store whose digest changed), mark it as the default GC does
+            markByTouching(digest);
+            return;
+        }
+        int partition = bytes[0] & 0xFF;
+        try {
+            OutputStream out = partitions[partition];
+            if (out == null) {
+                out = new BufferedOutputStream(new FileOutputStream(getPartitionFile(partition)), BUFFER_SIZE);
+                partitions[partition] = out;
+            }
+            out.write(bytes);
+        } catch (IOException e) {
+            throw new NuxeoException("Cannot mark digest: " + digest, e);
+        }
+        numBinariesMarked.increment();
+    }
+
+    /**
+     * Marks a digest that cannot be stored in the partitions by touching its file, which protects it from the sweep.
+     */
+    protected void markByTouching(String digest) {
+        File file = binaryManager.getFileForDigest(digest, false);
+        if (file == null || !file.exists()) {
+            log.error("Unknown file digest: " + digest);
+            return;
+        }
+        LocalBinaryManager.touch(file);
+        numBinariesMarked.increment();
+    }
+
+    @Override
+    public void stop(boolean delete) {
+        synchronized (this) {
+            if (startTime == 0) {
+                throw new RuntimeException("Not started");
+            }
+            closePartitions();
+            sweepStartTime = System.currentTimeMillis();
+            markDuration = sweepStartTime - startTime;
+        }
+        long minTime = startTime - DefaultBinaryGarbageCollector.TIME_RESOLUTION;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<RecursiveAction> tasks = new ArrayList<>();
+            File[] files = binaryManager.getStorageDir().listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    tasks.add(new PartitionSweep(file, minTime, delete));
+                }
+            }
+            sweepTotal = tasks.size();
+            pool.invoke(new RecursiveAction() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        } finally {
+            pool.shutdown();
+            FileUtils.deleteQuietly(markDir);
+            synchronized (this) {
+                status = snapshot(System.currentTimeMillis());
+                startTime = 0;
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("GC of " + getId() + " done: " + status);
+        }
+    }
+
+    protected BinaryManagerStatus snapshot(long now) {
+        BinaryManagerStatus s = new BinaryManagerStatus();
+        s.numBinariesMarked = numBinariesMarked.sum();
+        s.numBinaries = numBinaries.sum();
+        s.sizeBinaries = sizeBinaries.sum();
+        s.numBinariesGC = numBinariesGC.sum();
+        s.sizeBinariesGC = sizeBinariesGC.sum();
+        s.sweepProgress = sweepProgress.sum();
+        s.sweepTotal = sweepTotal;
+        if (sweepStartTime == 0) {
+            s.markDuration = now - startTime;
+        } else {
+            s.markDuration = markDuration;
+            s.sweepDuration = now - sweepStartTime;
+        }
+        s.gcDuration = now - startTime;
+        return s;
+    }
+
+    protected File getPartitionFile(int partition) {
+        return new File(markDir, String.format("%02x", Integer.valueOf(partition)));
+    }
+
+    protected void closePartitions() {
+        IOException exception = null;
+        for (int i = 0; i < PARTITIONS; i++) {
+            if (partitions[i] != null) {
+                try {
+                    partitions[i].close();
+                } catch (IOException e) {
+                    exception = e;
+                }
+                partitions[i] = null;
+            }
+        }
+        if (exception != null) {
+            throw new NuxeoException("Cannot write marked digests", exception);
+        }
+    }
+
+    /**
+     * Loads the digests marked in a partition.
+     */
+    protected DigestSet loadPartition(int partition) {
+        File file = getPartitionFile(partition);
+        int n = (int) (file.length() / digestLength);
+        DigestSet set = new DigestSet(n, digestLength);
+        if (n == 0) {
+            return set;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            byte[] digest = new byte[digestLength];
+            for (int i = 0; i < n; i++) {
+                in.readFully(digest);
+                set.add(digest);
+            }
+        } catch (IOException e) {
+            throw new NuxeoException("Cannot read marked digests", e);
+        }
+        return set;
+    }
+
+    /**
+     * Parses a hexadecimal digest.
+     *
+     * @return the digest bytes, or {@code null} if the digest is not hexadecimal
+     */
+    protected static byte[] toBytes(String digest) {
+        int length = digest.length();
+        if (length % 2 != 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int hi = Character.digit(digest.charAt(2 * i), 16);
+            int lo = Character.digit(digest.charAt(2 * i + 1), 16);
+            if (hi < 0 || lo < 0) {
+                return null;
+            }
+            bytes[i] = (byte) ((hi << 4) | lo);
+        }
+        return bytes;
+    }
+
+    /**
+     * Sweeps a first-level entry of the store, using the partition of marked digests matching its name.
+     */
+    protected class PartitionSweep extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        protected final File file;
+
+        protected final long minTime;
+
+        protected final boolean delete;
+
+        protected PartitionSweep(File file, long minTime, boolean delete) {
+            this.file = file;
+            this.minTime = minTime;
+            this.delete = delete;
+        }
+
+        @Override
+        protected void compute() {
+            byte[] prefix = toBytes(file.getName());
+            DigestSet marked;
+            if (file.isDirectory() && prefix != null && prefix.length == 1) {
+                marked = loadPartition(prefix[0] & 0xFF);
+            } else {
+                // not a digest directory, nothing in it is marked
+                marked = new DigestSet(0, digestLength);
+            }
+            new Sweep(file, marked, minTime, 1, delete).compute();
+            sweepProgress.increment();
+        }
+    }
+
+    /**
+     * Sweeps a file or directory, forking a task for each sub-directory.
+     */
+    protected class Sweep extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        protected final File file;
+
+        protected final DigestSet marked;
+
+        protected final long minTime;
+
+        protected final int depth;
+
+        protected final boolean delete;
+
+        protected Sweep(File file, DigestSet marked, long minTime, int depth, boolean delete) {
+            this.file = file;
+            this.marked = marked;
+            this.minTime = minTime;
+            this.depth = depth;
+            this.delete = delete;
+        }
+
+        @Override
+        protected void compute() {
+            if (file.isDirectory()) {
+                File[] files = file.listFiles();
+                if (files != null) {
+                    List<Sweep> subdirs = new ArrayList<>();
+                    for (File f : files) {
+                        if (f.isDirectory()) {
+                            subdirs.add(new Sweep(f, marked, minTime, depth + 1, delete));
+                        } else {
+                            sweepFile(f);
+                        }
+                    }
+                    invokeAll(subdirs);
+                }
+                String[] names = file.list();
+                if (names != null && names.length == 0) {
+                    // empty directory
+                    file.delete();
+                }
+            } else {
+                sweepFile(file);
+            }
+        }
+
+        protected void sweepFile(File f) {
+            if (!f.isFile() || !f.canWrite()) {
+                return;
+            }
+            long lastModified = f.lastModified();
+            long length = f.length();
+            if (lastModified == 0) {
+                log.error("Cannot read last modified for file: " + f);
+                return;
+            }
+            byte[] digest = toBytes(f.getName());
+            if (lastModified < minTime && (digest == null || !marked.contains(digest))) {
+                sizeBinariesGC.add(length);
+                numBinariesGC.increment();
+                if (delete && !f.delete()) {
+                    log.warn("Cannot gc file: " + f);
+                }
+            } else {
+                sizeBinaries.add(length);
+                numBinaries.increment();
+            }
+        }
+    }
+
+    /**
+     * A set of fixed-length digests stored in a single array, using open addressing.
+     * <p>
+     * Digests are uniformly distributed, so their bytes (after the first one, common to a partition) are used directly
+     * as hash.
+     */
+    protected static class DigestSet {
+
+        protected final int length;
+
+        protected final int mask;
+
+        protected final byte[] table;
+
+        protected final boolean[] used;
+
+        protected DigestSet(int expected, int length) {
+            this.length = length;
+            int capacity = 2;
+            while (capacity < 2L * expected) {
+                capacity <<= 1;
+            }
+            mask = capacity - 1;
+            table = new byte[capacity * length];
+            used = new boolean[capacity];
+        }
+
+        protected int index(byte[] digest) {
+            int h = 0;
+            for (int i = 1; i < 5 && i < digest.length; i++) {
+                h = (h << 8) | (digest[i] & 0xFF);
+            }
+            return h & mask;
+        }
+
+        protected boolean matches(int slot, byte[] digest) {
+            int offset = slot * length;
+            for (int i = 0; i < length; i++) {
+                if (table[offset + i] != digest[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public void add(byte[] digest) {
+            int slot = index(digest);
+            while (used[slot]) {
+                if (matches(slot, digest)) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            used[slot] = true;
+            System.arraycopy(digest, 0, table, slot * length, length);
+        }
+
+        public boolean contains(byte[] digest) {
+            if (digest.length != length) {
+                return false;
+            }
+            int slot = index(digest);
+            while (used[slot]) {
+                if (matches(slot, digest)) {
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        }
+    }
+
+}
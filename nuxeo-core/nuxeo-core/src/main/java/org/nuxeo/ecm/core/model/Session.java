@@ -22,6 +22,7 @@ package org.nuxeo.ecm.core.model;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentNotFoundException;
@@ -107,6 +108,18 @@ public interface Session {
      */
     Document getDocumentByUUID(String uuid) throws DocumentNotFoundException;
 
+    /**
+     * Loads the given schemas of several documents in the session in bulk, so that reading them afterwards document
+     * by document doesn't need one database round trip per document and schema.
+     * <p>
+     * Unknown or deleted documents are ignored.
+     *
+     * @param ids the document ids
+     * @param schemas the schema names
+     * @since 8.3
+     */
+    void prefetchDocuments(List<String> ids, Set<String> schemas);
+
     /**
      * Gets the root document in this repository.
      *
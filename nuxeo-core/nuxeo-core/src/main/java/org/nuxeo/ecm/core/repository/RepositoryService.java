@@ -22,6 +22,9 @@ package org.nuxeo.ecm.core.repository;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.transaction.Transaction;
 
@@ -56,6 +59,11 @@ public class RepositoryService extends DefaultComponent {
     // @GuardedBy("itself")
     private final Map<String, Repository> repositories = new HashMap<>();
 
+    /**
+     * @since 8.3
+     */
+    protected final ConcurrentMap<String, AtomicLong> changeCounters = new ConcurrentHashMap<>();
+
     public void shutdown() {
         log.info("Shutting down repository manager");
         synchronized (repositories) {
@@ -212,6 +220,35 @@ public class RepositoryService extends DefaultComponent {
         return repositoryFactory;
     }
 
+    /**
+     * Gets the change counter of a repository.
+     * <p>
+     * The counter is incremented each time this node is notified of committed changes in the repository, made locally
+     * or by another cluster node. Its value is meaningless by itself, it is meant to be compared to a previous value to
+     * know if something may have changed in between.
+     *
+     * @param repositoryName the repository name
+     * @return the change counter
+     * @since 8.3
+     */
+    public long getChangeCounter(String repositoryName) {
+        return getChangeCounterRef(repositoryName).get();
+    }
+
+    /**
+     * Notifies that changes have been committed in a repository.
+     *
+     * @param repositoryName the repository name
+     * @since 8.3
+     */
+    public void notifyChanges(String repositoryName) {
+        getChangeCounterRef(repositoryName).incrementAndGet();
+    }
+
+    protected AtomicLong getChangeCounterRef(String repositoryName) {
+        return changeCounters.computeIfAbsent(repositoryName, k -> new AtomicLong());
+    }
+
     public List<String> getRepositoryNames() {
         RepositoryManager repositoryManager = Framework.getLocalService(RepositoryManager.class);
         return repositoryManager.getRepositoryNames();
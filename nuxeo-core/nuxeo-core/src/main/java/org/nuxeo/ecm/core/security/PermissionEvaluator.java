@@ -0,0 +1,456 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.security;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.nuxeo.ecm.core.api.security.ACE;
+import org.nuxeo.ecm.core.api.security.ACL;
+import org.nuxeo.ecm.core.api.security.ACP;
+import org.nuxeo.ecm.core.api.security.Access;
+import org.nuxeo.ecm.core.api.security.SecurityConstants;
+
+/**
+ * Evaluates permission checks against compiled forms of merged ACPs.
+ * <p>
+ * Principal and permission names are interned to integer ids. An ACP is compiled to the ordered arrays of the ids of
+ * its ACEs, and the compiled form is shared by all the ACPs having the same content, which is usually the case for
+ * documents inheriting their ACLs from the same ancestors. The principals and permissions to check are compiled to
+ * bitsets of ids, so that each ACE is matched with two bit lookups. They are compiled once per distinct set of names,
+ * so that the results of the checks can be memoized by compiled ACP for each pair of compiled principals and
+ * permissions, unless the ACP has ACEs with begin or end dates.
+ * <p>
+ * The result is the same as {@link ACP#getAccess(String[], String[])}.
+ *
+ * @since 8.3
+ */
+public class PermissionEvaluator {
+
+    /** Framework property for the maximum number of compiled ACPs kept, 0 to disable compilation. */
+    public static final String CACHE_SIZE_PROP = "org.nuxeo.security.compiledACPCacheSize";
+
+    public static final String DEFAULT_CACHE_SIZE = "10000";
+
+    /** Maximum number of results memoized by compiled ACP. */
+    protected static final int MAX_MEMOIZED_RESULTS = 256;
+
+    /** Maximum number of compiled sets of principals or permissions kept. */
+    protected static final int MAX_COMPILED_SETS = 10000;
+
+    /** Id of a {@code null} name, never matching. */
+    protected static final int NO_ID = -1;
+
+    /**
+     * Principals to check, compiled for a given principal.
+     * <p>
+     * Instances are shared by all the principals having the same principals to check, and are compared by identity.
+     */
+    public static class CompiledPrincipals {
+
+        public final String[] names;
+
+        protected final PermissionEvaluator evaluator;
+
+        protected final BitSet ids;
+
+        protected CompiledPrincipals(PermissionEvaluator evaluator, String[] names, BitSet ids) {
+            this.evaluator = evaluator;
+            this.names = names;
+            this.ids = ids;
+        }
+    }
+
+    /**
+     * Permissions to check, compiled for a given permission.
+     * <p>
+     * Instances are shared by all the permissions having the same permissions to check, and are compared by identity.
+     */
+    public static class CompiledPermissions {
+
+        public final String[] names;
+
+        protected final BitSet ids;
+
+        /** Whether an ACE on {@link SecurityConstants#EVERYTHING} matches. */
+        protected final boolean everything;
+
+        protected CompiledPermissions(String[] names, BitSet ids, boolean everything) {
+            this.names = names;
+            this.ids = ids;
+            this.everything = everything;
+        }
+    }
+
+    /**
+     * Key of a memoized result: the compiled principals and permissions, by identity.
+     */
+    protected static class ResultKey {
+
+        protected final CompiledPrincipals principals;
+
+        protected final CompiledPermissions permissions;
+
+        protected ResultKey(CompiledPrincipals principals, CompiledPermissions permissions) {
+            this.principals = principals;
+            this.permissions = permissions;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(principals) + System.identityHashCode(permissions);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ResultKey)) {
+                return false;
+            }
+            ResultKey other = (ResultKey) obj;
+            return principals == other.principals && permissions == other.permissions;
+        }
+    }
+
+    /**
+     * Key of a compiled ACP: the content of its ACEs, in order.
+     */
+    protected static class ACPKey {
+
+        protected final ACE[] aces;
+
+        protected final int hash;
+
+        protected ACPKey(ACE[] aces) {
+            this.aces = aces;
+            int hash = 1;
+            for (ACE ace : aces) {
+                hash = 31 * hash + Objects.hashCode(ace.getUsername());
+                hash = 31 * hash + Objects.hashCode(ace.getPermission());
+                hash = 31 * hash + (ace.isGranted() ? 1 : 0);
+                hash = 31 * hash + Long.hashCode(getTime(ace.getBegin(), 0));
+                hash = 31 * hash + Long.hashCode(getTime(ace.getEnd(), 0));
+            }
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ACPKey)) {
+                return false;
+            }
+            ACPKey other = (ACPKey) obj;
+            if (hash != other.hash || aces.length != other.aces.length) {
+                return false;
+            }
+            for (int i = 0; i < aces.length; i++) {
+                if (!sameContent(aces[i], other.aces[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Compares the parts of the ACEs used by permission checks (not the creator nor the context data).
+         */
+        protected static boolean sameContent(ACE ace1, ACE ace2) {
+            return ace1 == ace2 || ace1.isGranted() == ace2.isGranted()
+                    && Objects.equals(ace1.getUsername(), ace2.getUsername())
+                    && Objects.equals(ace1.getPermission(), ace2.getPermission())
+                    && sameTime(ace1.getBegin(), ace2.getBegin()) && sameTime(ace1.getEnd(), ace2.getEnd());
+        }
+
+        protected static boolean sameTime(Calendar calendar1, Calendar calendar2) {
+            if (calendar1 == null || calendar2 == null) {
+                return calendar1 == calendar2;
+            }
+            return calendar1.getTimeInMillis() == calendar2.getTimeInMillis();
+        }
+    }
+
+    /**
+     * The ACEs of a merged ACP, as ids.
+     */
+    protected class CompiledACP {
+
+        protected final int[] principalIds;
+
+        protected final int[] permissionIds;
+
+        protected final boolean[] granted;
+
+        /** Begin and end dates in milliseconds, or {@code null} if no ACE has dates. */
+        protected final long[] begin;
+
+        protected final long[] end;
+
+        protected final ConcurrentMap<ResultKey, Access> results;
+
+        protected CompiledACP(ACE[] aces) {
+            int size = aces.length;
+            principalIds = new int[size];
+            permissionIds = new int[size];
+            granted = new boolean[size];
+            long[] begin = null;
+            long[] end = null;
+            for (int i = 0; i < size; i++) {
+                ACE ace = aces[i];
+                principalIds[i] = intern(ace.getUsername());
+                permissionIds[i] = intern(ace.getPermission());
+                granted[i] = ace.isGranted();
+                if (ace.getBegin() != null || ace.getEnd() != null) {
+                    if (begin == null) {
+                        begin = new long[size];
+                        end = new long[size];
+                        Arrays.fill(begin, Long.MIN_VALUE);
+                        Arrays.fill(end, Long.MAX_VALUE);
+                    }
+                    begin[i] = getTime(ace.getBegin(), Long.MIN_VALUE);
+                    end[i] = getTime(ace.getEnd(), Long.MAX_VALUE);
+                }
+            }
+            this.begin = begin;
+            this.end = end;
+            // the result of a check depends on the current time when there are dates
+            results = begin == null ? new ConcurrentHashMap<ResultKey, Access>() : null;
+        }
+
+        public Access getAccess(CompiledPrincipals principals, CompiledPermissions permissions) {
+            if (results == null) {
+                return computeAccess(principals, permissions, System.currentTimeMillis());
+            }
+            ResultKey key = new ResultKey(principals, permissions);
+            Access access = results.get(key);
+            if (access == null) {
+                access = computeAccess(principals, permissions, 0);
+                if (results.size() >= MAX_MEMOIZED_RESULTS) {
+                    results.clear();
+                }
+                results.put(key, access);
+            }
+            return access;
+        }
+
+        protected Access computeAccess(CompiledPrincipals principals, CompiledPermissions permissions, long now) {
+            boolean anyPrincipal = principals.names.length > 0;
+            for (int i = 0; i < principalIds.length; i++) {
+                if (begin != null && (now < begin[i] || now > end[i])) {
+                    // not effective
+                    continue;
+                }
+                int principalId = principalIds[i];
+                if (principalId == NO_ID) {
+                    continue;
+                }
+                if (principalId == everyoneId ? !anyPrincipal : !principals.ids.get(principalId)) {
+                    continue;
+                }
+                int permissionId = permissionIds[i];
+                if (permissionId == NO_ID) {
+                    continue;
+                }
+                if (permissions.ids.get(permissionId) || permissionId == everythingId && permissions.everything) {
+                    return granted[i] ? Access.GRANT : Access.DENY;
+                }
+            }
+            return Access.UNKNOWN;
+        }
+    }
+
+    protected final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+    protected final AtomicInteger nextId = new AtomicInteger();
+
+    protected final ConcurrentMap<List<String>, CompiledPrincipals> compiledPrincipals = new ConcurrentHashMap<>();
+
+    protected final ConcurrentMap<List<String>, CompiledPermissions> compiledPermissions = new ConcurrentHashMap<>();
+
+    protected final int everyoneId;
+
+    protected final int everythingId;
+
+    protected final int maxSize;
+
+    protected final ConcurrentMap<ACPKey, CompiledACP> compiledACPs;
+
+    /**
+     * Creates an evaluator keeping at most the given number of compiled ACPs.
+     *
+     * @param maxSize the maximum number of compiled ACPs, 0 to never compile ACPs
+     */
+    public PermissionEvaluator(int maxSize) {
+        everyoneId = intern(SecurityConstants.EVERYONE);
+        everythingId = intern(SecurityConstants.EVERYTHING);
+        this.maxSize = maxSize;
+        compiledACPs = maxSize > 0 ? new ConcurrentHashMap<ACPKey, CompiledACP>() : null;
+    }
+
+    /**
+     * Makes room in a cache before adding an entry, by evicting arbitrary entries when it is full.
+     */
+    protected static void evict(ConcurrentMap<?, ?> cache, int maxSize) {
+        Iterator<?> it = cache.keySet().iterator();
+        while (cache.size() >= maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    protected int intern(String name) {
+        if (name == null) {
+            return NO_ID;
+        }
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = ids.computeIfAbsent(name, k -> Integer.valueOf(nextId.getAndIncrement()));
+        }
+        return id.intValue();
+    }
+
+    /**
+     * Compiles the principals to check, as returned by {@link SecurityService#getPrincipalsToCheck}.
+     */
+    public CompiledPrincipals compilePrincipals(String[] principals) {
+        List<String> key = Arrays.asList(principals.clone());
+        CompiledPrincipals compiled = compiledPrincipals.get(key);
+        if (compiled == null) {
+            BitSet bits = new BitSet();
+            for (String principal : principals) {
+                int id = intern(principal);
+                if (id != NO_ID) {
+                    bits.set(id);
+                }
+            }
+            evict(compiledPrincipals, MAX_COMPILED_SETS);
+            compiled = compiledPrincipals.computeIfAbsent(key,
+                    k -> new CompiledPrincipals(this, k.toArray(new String[k.size()]), bits));
+        }
+        return compiled;
+    }
+
+    /**
+     * Compiles the permissions to check, as returned by {@link SecurityService#getPermissionsToCheck}.
+     */
+    public CompiledPermissions compilePermissions(String[] permissions) {
+        List<String> key = Arrays.asList(permissions.clone());
+        CompiledPermissions compiled = compiledPermissions.get(key);
+        if (compiled != null) {
+            return compiled;
+        }
+        BitSet bits = new BitSet();
+        boolean everything = false;
+        for (String permission : permissions) {
+            int id = intern(permission);
+            if (id != NO_ID) {
+                bits.set(id);
+            }
+            // RESTRICTED_READ is not implied by EVERYTHING
+            if (!SecurityConstants.RESTRICTED_READ.equals(permission)) {
+                everything = true;
+            }
+        }
+        boolean all = everything;
+        evict(compiledPermissions, MAX_COMPILED_SETS);
+        return compiledPermissions.computeIfAbsent(key,
+                k -> new CompiledPermissions(k.toArray(new String[k.size()]), bits, all));
+    }
+
+    /**
+     * Checks if the compiled principals were compiled by this evaluator, and can therefore be used with it.
+     */
+    public boolean isCompiledBy(CompiledPrincipals principals) {
+        return principals.evaluator == this;
+    }
+
+    /**
+     * Gets the access given by an ACP to the principals for the permissions.
+     *
+     * @return the access, {@link Access#UNKNOWN} if no ACE applies
+     */
+    public Access getAccess(ACP acp, CompiledPrincipals principals, CompiledPermissions permissions) {
+        if (compiledACPs == null) {
+            return acp.getAccess(principals.names, permissions.names);
+        }
+        ACPKey key = getKey(acp);
+        CompiledACP compiled = compiledACPs.get(key);
+        if (compiled == null) {
+            compiled = new CompiledACP(key.aces);
+            evict(compiledACPs, maxSize);
+            CompiledACP previous = compiledACPs.putIfAbsent(key, compiled);
+            if (previous != null) {
+                compiled = previous;
+            }
+        }
+        return compiled.getAccess(principals, permissions);
+    }
+
+    protected static ACPKey getKey(ACP acp) {
+        ACL[] acls = acp.getACLs();
+        int size = 0;
+        for (ACL acl : acls) {
+            size += acl.size();
+        }
+        ACE[] aces = new ACE[size];
+        int i = 0;
+        for (ACL acl : acls) {
+            for (ACE ace : acl) {
+                aces[i++] = ace;
+            }
+        }
+        return new ACPKey(aces);
+    }
+
+    protected static long getTime(Calendar calendar, long defaultTime) {
+        return calendar == null ? defaultTime : calendar.getTimeInMillis();
+    }
+
+    /**
+     * Gets the number of compiled ACPs currently kept.
+     */
+    public int getCompiledACPsCount() {
+        return compiledACPs == null ? 0 : compiledACPs.size();
+    }
+
+    /**
+     * Forgets all the compiled ACPs.
+     */
+    public void clear() {
+        if (compiledACPs != null) {
+            compiledACPs.clear();
+        }
+        compiledPrincipals.clear();
+        compiledPermissions.clear();
+    }
+
+}
@@ -24,6 +24,8 @@ package org.nuxeo.ecm.core.security;
 import java.security.Principal;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -35,6 +37,9 @@ import org.nuxeo.ecm.core.api.security.PermissionProvider;
 import org.nuxeo.ecm.core.api.security.SecurityConstants;
 import org.nuxeo.ecm.core.model.Document;
 import org.nuxeo.ecm.core.query.sql.model.SQLQuery;
+import org.nuxeo.ecm.core.security.PermissionEvaluator.CompiledPermissions;
+import org.nuxeo.ecm.core.security.PermissionEvaluator.CompiledPrincipals;
+import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.model.ComponentContext;
 import org.nuxeo.runtime.model.ComponentInstance;
 import org.nuxeo.runtime.model.ComponentName;
@@ -64,6 +69,11 @@ public class SecurityService extends DefaultComponent {
 
     private SecurityPolicyService securityPolicyService;
 
+    private PermissionEvaluator permissionEvaluator;
+
+    /** Permissions to check by permission, cleared when permissions are registered. */
+    private final Map<String, CompiledPermissions> compiledPermissions = new ConcurrentHashMap<>();
+
     // private SecurityManager securityManager;
 
     @Override
@@ -71,6 +81,9 @@ public class SecurityService extends DefaultComponent {
         super.activate(context);
         permissionProvider = new DefaultPermissionProvider();
         securityPolicyService = new SecurityPolicyServiceImpl();
+        int cacheSize = Integer.parseInt(Framework.getProperty(PermissionEvaluator.CACHE_SIZE_PROP,
+                PermissionEvaluator.DEFAULT_CACHE_SIZE));
+        permissionEvaluator = new PermissionEvaluator(cacheSize);
     }
 
     @Override
@@ -78,12 +91,15 @@ public class SecurityService extends DefaultComponent {
         super.deactivate(context);
         permissionProvider = null;
         securityPolicyService = null;
+        permissionEvaluator = null;
+        compiledPermissions.clear();
     }
 
     @Override
     public void registerContribution(Object contribution, String extensionPoint, ComponentInstance contributor) {
         if (PERMISSIONS_EXTENSION_POINT.equals(extensionPoint) && contribution instanceof PermissionDescriptor) {
             permissionProvider.registerDescriptor((PermissionDescriptor) contribution);
+            compiledPermissions.clear();
         } else if (PERMISSIONS_VISIBILITY_EXTENSION_POINT.equals(extensionPoint)
                 && contribution instanceof PermissionVisibilityDescriptor) {
             permissionProvider.registerDescriptor((PermissionVisibilityDescriptor) contribution);
@@ -96,6 +112,7 @@ public class SecurityService extends DefaultComponent {
     public void unregisterContribution(Object contribution, String extensionPoint, ComponentInstance contributor) {
         if (PERMISSIONS_EXTENSION_POINT.equals(extensionPoint) && contribution instanceof PermissionDescriptor) {
             permissionProvider.unregisterDescriptor((PermissionDescriptor) contribution);
+            compiledPermissions.clear();
         } else if (PERMISSIONS_VISIBILITY_EXTENSION_POINT.equals(extensionPoint)
                 && contribution instanceof PermissionVisibilityDescriptor) {
             permissionProvider.unregisterDescriptor((PermissionVisibilityDescriptor) contribution);
@@ -121,6 +138,21 @@ public class SecurityService extends DefaultComponent {
     }
 
     public boolean checkPermission(Document doc, Principal principal, String permission) {
+        return checkPermission(doc, principal, null, permission);
+    }
+
+    /**
+     * Checks a permission for a principal whose principals to check have already been compiled.
+     * <p>
+     * This allows callers checking many permissions for the same principal, like a session, to compute the principals
+     * to check only once.
+     *
+     * @param principals the principals to check, as returned by {@link #compilePrincipals}, or {@code null} to compute
+     *            them
+     * @since 8.3
+     */
+    public boolean checkPermission(Document doc, Principal principal, CompiledPrincipals principals,
+            String permission) {
         String username = principal.getName();
 
         // system bypass
@@ -134,8 +166,12 @@ public class SecurityService extends DefaultComponent {
         }
 
         // fully check each ACE in turn
-        String[] resolvedPermissions = getPermissionsToCheck(permission);
-        String[] additionalPrincipals = getPrincipalsToCheck(principal);
+        CompiledPermissions permissions = getCompiledPermissions(permission);
+        if (principals == null || !permissionEvaluator.isCompiledBy(principals)) {
+            principals = compilePrincipals(principal);
+        }
+        String[] resolvedPermissions = permissions.names;
+        String[] additionalPrincipals = principals.names;
 
         // get the ordered list of ACE
         ACP acp = doc.getSession().getMergedACP(doc);
@@ -150,11 +186,30 @@ public class SecurityService extends DefaultComponent {
         if (acp == null) {
             return false; // no ACP on that doc - by default deny
         }
-        access = acp.getAccess(additionalPrincipals, resolvedPermissions);
+        access = permissionEvaluator.getAccess(acp, principals, permissions);
 
         return access.toBoolean();
     }
 
+    /**
+     * Compiles the principals to check for the given principal, for use with
+     * {@link #checkPermission(Document, Principal, CompiledPrincipals, String)}.
+     *
+     * @since 8.3
+     */
+    public CompiledPrincipals compilePrincipals(Principal principal) {
+        return permissionEvaluator.compilePrincipals(getPrincipalsToCheck(principal));
+    }
+
+    protected CompiledPermissions getCompiledPermissions(String permission) {
+        CompiledPermissions permissions = compiledPermissions.get(permission);
+        if (permissions == null) {
+            permissions = permissionEvaluator.compilePermissions(computePermissionsToCheck(permission));
+            compiledPermissions.put(permission, permissions);
+        }
+        return permissions;
+    }
+
     /**
      * Provides the full list of all permissions or groups of permissions that contain the given one (inclusive).
      * <p>
@@ -164,6 +219,10 @@ public class SecurityService extends DefaultComponent {
      * @return the list, as an array of strings.
      */
     public String[] getPermissionsToCheck(String permission) {
+        return getCompiledPermissions(permission).names.clone();
+    }
+
+    protected String[] computePermissionsToCheck(String permission) {
         String[] groups = permissionProvider.getPermissionGroups(permission);
         if (groups == null) {
             return new String[] { permission, SecurityConstants.EVERYTHING };
@@ -36,6 +36,52 @@ public abstract class AbstractUIDSequencer implements UIDSequencer {
         throw new UnsupportedOperationException("Not implemented");
     }
 
+    /**
+     * Reserves a block of {@code size} values of the sequence.
+     * <p>
+     * The default implementation calls {@link #getNextLong} for each value, or {@link #getNext} if the sequencer
+     * doesn't implement {@link #getNextLong}. Backends able to reserve several values in a single operation override
+     * it.
+     *
+     * @return the reserved values, in increasing order
+     * @see BlockUIDSequencer
+     * @since 8.3
+     */
+    public long[] getNextBlock(String key, int size) {
+        boolean nextLong = implementsNextLong();
+        long[] values = new long[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = nextLong ? getNextLong(key) : getNext(key);
+        }
+        return values;
+    }
+
+    /**
+     * Checks if this sequencer overrides the default {@link #getNextLong}, which is not implemented.
+     *
+     * @since 8.3
+     */
+    protected boolean implementsNextLong() {
+        try {
+            return getClass().getMethod("getNextLong", String.class).getDeclaringClass() != AbstractUIDSequencer.class;
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(e); // cannot happen
+        }
+    }
+
+    /**
+     * Gets the {@code size} consecutive values ending with {@code last}.
+     *
+     * @since 8.3
+     */
+    protected static long[] range(long last, int size) {
+        long[] values = new long[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = last - size + 1 + i;
+        }
+        return values;
+    }
+
     @Override
     public abstract void dispose();
 
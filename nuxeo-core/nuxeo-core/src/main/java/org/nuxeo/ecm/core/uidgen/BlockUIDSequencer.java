@@ -0,0 +1,128 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.uidgen;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Sequencer reserving blocks of values from another sequencer, and serving them from memory.
+ * <p>
+ * Each node reserves its own blocks, so values are unique across the cluster but are not allocated in increasing order
+ * between nodes, and the unused values of a block are lost when the node stops.
+ * <p>
+ * For the same reason {@link #initSequence} only drops the block of the current node: the other nodes keep serving the
+ * values they reserved before, which may be lower than the requested id, until their block is used up.
+ *
+ * @since 8.3
+ */
+public class BlockUIDSequencer extends AbstractUIDSequencer {
+
+    protected final AbstractUIDSequencer sequencer;
+
+    protected final int blockSize;
+
+    protected final ConcurrentMap<String, Block> blocks = new ConcurrentHashMap<>();
+
+    /**
+     * The values of a sequence reserved by this node and not used yet.
+     */
+    protected static class Block {
+
+        protected long[] values = new long[0];
+
+        protected int next;
+    }
+
+    public BlockUIDSequencer(AbstractUIDSequencer sequencer, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Invalid block size: " + blockSize);
+        }
+        this.sequencer = sequencer;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Gets the sequencer from which blocks are reserved.
+     */
+    public AbstractUIDSequencer getSequencer() {
+        return sequencer;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    @Override
+    public void setName(String name) {
+        super.setName(name);
+        sequencer.setName(name);
+    }
+
+    @Override
+    public void init() {
+        sequencer.init();
+    }
+
+    @Override
+    public void dispose() {
+        blocks.clear();
+        sequencer.dispose();
+    }
+
+    @Override
+    public int getNext(String key) {
+        return (int) getNextLong(key);
+    }
+
+    @Override
+    public long getNextLong(String key) {
+        Block block = blocks.computeIfAbsent(key, k -> new Block());
+        synchronized (block) {
+            if (block.next >= block.values.length) {
+                block.values = sequencer.getNextBlock(key, blockSize);
+                block.next = 0;
+            }
+            return block.values[block.next++];
+        }
+    }
+
+    @Override
+    public long[] getNextBlock(String key, int size) {
+        return sequencer.getNextBlock(key, size);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The blocks already reserved by the other nodes are not dropped, so they may still return lower values.
+     */
+    @Override
+    public void initSequence(String key, int id) {
+        sequencer.initSequence(key, id);
+        // drop the values reserved before
+        Block block = blocks.get(key);
+        if (block != null) {
+            synchronized (block) {
+                block.next = block.values.length;
+            }
+        }
+    }
+
+}
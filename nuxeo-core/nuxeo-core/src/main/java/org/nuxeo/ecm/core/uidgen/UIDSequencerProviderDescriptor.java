@@ -37,10 +37,31 @@ public class UIDSequencerProviderDescriptor {
     @XNode("@class")
     protected Class<? extends UIDSequencer> sequencerClass;
 
+    /**
+     * Number of values reserved at once by each node, see {@link BlockUIDSequencer}.
+     *
+     * @since 8.3
+     */
+    @XNode("@blockSize")
+    protected Integer blockSize;
+
+    /**
+     * If {@code true}, each value is allocated from the backend so that no value is lost, and the block size is
+     * ignored.
+     *
+     * @since 8.3
+     */
+    @XNode("@strict")
+    protected boolean strict;
+
     public UIDSequencer getSequencer() throws Exception {
 
         if (sequencerClass != null) {
-            return sequencerClass.newInstance();
+            UIDSequencer sequencer = sequencerClass.newInstance();
+            if (!strict && getBlockSize() > 1 && sequencer instanceof AbstractUIDSequencer) {
+                sequencer = new BlockUIDSequencer((AbstractUIDSequencer) sequencer, getBlockSize());
+            }
+            return sequencer;
         }
 
         return null;
@@ -57,4 +78,18 @@ public class UIDSequencerProviderDescriptor {
         return isdefault;
     }
 
+    /**
+     * @since 8.3
+     */
+    public int getBlockSize() {
+        return blockSize == null ? 1 : blockSize.intValue();
+    }
+
+    /**
+     * @since 8.3
+     */
+    public boolean isStrict() {
+        return strict;
+    }
+
 }
@@ -18,6 +18,7 @@
  */
 package org.nuxeo.ecm.core.blob.binary;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -27,12 +28,21 @@ import static org.junit.Assert.assertTrue;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 import org.nuxeo.ecm.core.api.Blobs;
 import org.nuxeo.ecm.core.api.impl.blob.FileBlob;
+import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.test.NXRuntimeTestCase;
 
 public class TestDefaultBinaryManager extends NXRuntimeTestCase {
@@ -125,6 +135,95 @@ public class TestDefaultBinaryManager extends NXRuntimeTestCase {
         binaryManager.close();
     }
 
+    @Test
+    public void testParallelGarbageCollector() throws Exception {
+        deployBundle("org.nuxeo.ecm.core");
+        deployContrib("org.nuxeo.ecm.core.tests", "OSGI-INF/test-default-blob-provider.xml");
+
+        DefaultBinaryManager binaryManager = new DefaultBinaryManager();
+        binaryManager.initialize("repo",
+                Collections.singletonMap(LocalBinaryManager.PROP_GC_MODE, LocalBinaryManager.GC_MODE_PARALLEL));
+        BinaryGarbageCollector gc = binaryManager.getGarbageCollector();
+        assertTrue(gc instanceof ParallelBinaryGarbageCollector);
+
+        byte[] bytes = CONTENT.getBytes("UTF-8");
+        binaryManager.getBinary(Blobs.createBlob(CONTENT));
+        // other binary we'll GC
+        binaryManager.getBinary(Blobs.createBlob("abc"));
+        assertEquals(2, countFiles(binaryManager.getStorageDir()));
+
+        // sleep before GC to pass its time threshold
+        Thread.sleep(3 * 1000);
+
+        // create another binary after time threshold, it won't be GCed
+        binaryManager.getBinary(Blobs.createBlob("defg"));
+        assertEquals(3, countFiles(binaryManager.getStorageDir()));
+
+        // GC in non-delete mode
+        gc.start();
+        assertTrue(gc.isInProgress());
+        gc.mark(CONTENT_MD5);
+        gc.mark(CONTENT_MD5);
+        gc.mark("notadigest");
+        assertEquals(2, gc.getStatus().getNumBinariesMarked());
+        gc.stop(false);
+        assertFalse(gc.isInProgress());
+        BinaryManagerStatus status = gc.getStatus();
+        assertEquals(2, status.numBinaries);
+        assertEquals(bytes.length + 4, status.sizeBinaries);
+        assertEquals(1, status.numBinariesGC);
+        assertEquals(3, status.sizeBinariesGC);
+        assertEquals(status.sweepTotal, status.sweepProgress);
+        // still there
+        assertEquals(3, countFiles(binaryManager.getStorageDir()));
+
+        // real GC
+        gc.start();
+        gc.mark(CONTENT_MD5);
+        gc.stop(true);
+        status = gc.getStatus();
+        assertEquals(2, status.numBinaries);
+        assertEquals(1, status.numBinariesGC);
+        assertEquals(3, status.sizeBinariesGC);
+        // one file gone
+        assertEquals(2, countFiles(binaryManager.getStorageDir()));
+        assertNotNull(binaryManager.getBinary(CONTENT_MD5));
+
+        binaryManager.close();
+    }
+
+    @Test
+    public void testParallelGarbageCollectorOtherDigestLength() throws Exception {
+        deployBundle("org.nuxeo.ecm.core");
+        deployContrib("org.nuxeo.ecm.core.tests", "OSGI-INF/test-default-blob-provider.xml");
+
+        DefaultBinaryManager binaryManager = new DefaultBinaryManager();
+        binaryManager.initialize("repo",
+                Collections.singletonMap(LocalBinaryManager.PROP_GC_MODE, LocalBinaryManager.GC_MODE_PARALLEL));
+        // files left by a previous digest algorithm, one still referenced
+        File referenced = binaryManager.getFileForDigest(CONTENT_SHA1, true);
+        FileUtils.writeStringToFile(referenced, CONTENT, "UTF-8");
+        String otherSha1 = "a9993e364706816aba3e25717850c26c9cd0d89d";
+        File unreferenced = binaryManager.getFileForDigest(otherSha1, true);
+        FileUtils.writeStringToFile(unreferenced, "abc", "UTF-8");
+        long old = System.currentTimeMillis() - 60 * 1000;
+        referenced.setLastModified(old);
+        unreferenced.setLastModified(old);
+
+        BinaryGarbageCollector gc = binaryManager.getGarbageCollector();
+        gc.start();
+        gc.mark(CONTENT_SHA1);
+        assertEquals(1, gc.getStatus().getNumBinariesMarked());
+        gc.stop(true);
+        BinaryManagerStatus status = gc.getStatus();
+        assertEquals(1, status.numBinaries);
+        assertEquals(1, status.numBinariesGC);
+        assertTrue(referenced.exists());
+        assertFalse(unreferenced.exists());
+
+        binaryManager.close();
+    }
+
     @Test
     public void testTemporaryCopies() throws IOException {
         DefaultBinaryManager binaryManager = new DefaultBinaryManager();
@@ -139,6 +238,80 @@ public class TestDefaultBinaryManager extends NXRuntimeTestCase {
         binaryManager.close();
     }
 
+    @Test
+    public void testStoreFileInPlace() throws Exception {
+        DefaultBinaryManager binaryManager = new DefaultBinaryManager();
+        binaryManager.initialize("repo", Collections.emptyMap());
+        File source = Framework.createTempFile("nxtest", ".txt");
+        FileUtils.writeStringToFile(source, CONTENT, "UTF-8");
+        FileBlob blob = new FileBlob(source);
+        assertFalse(blob.isTemporary());
+
+        Binary binary = binaryManager.getBinary(blob);
+        assertEquals(CONTENT_MD5, binary.getDigest());
+        assertEquals(CONTENT, IOUtils.toString(binary.getStream(), "UTF-8"));
+        // source kept in place
+        assertTrue(source.exists());
+        assertEquals(1, countFiles(binaryManager.getStorageDir()));
+
+        // storing it again doesn't write anything but updates the date for the GC
+        File stored = binaryManager.getFileForDigest(CONTENT_MD5, false);
+        stored.setLastModified(stored.lastModified() - 10000);
+        long before = stored.lastModified();
+        binary = binaryManager.getBinary(blob);
+        assertEquals(CONTENT_MD5, binary.getDigest());
+        assertEquals(1, countFiles(binaryManager.getStorageDir()));
+        assertTrue(stored.lastModified() > before);
+        assertEquals(0, countFiles(binaryManager.tmpDir));
+
+        source.delete();
+        binaryManager.close();
+    }
+
+    @Test
+    public void testStreamIngestDigests() throws Exception {
+        for (String algorithm : new String[] { AbstractBinaryManager.MD5_DIGEST,
+                AbstractBinaryManager.SHA256_DIGEST }) {
+            DefaultBinaryManager binaryManager = new DefaultBinaryManager() {
+                @Override
+                public String getDigestAlgorithm() {
+                    return algorithm;
+                }
+            };
+            binaryManager.initialize("repo", Collections.emptyMap());
+            // sizes around the buffer size, and more concurrent ingests than pooled direct buffers
+            int[] sizes = { 0, 1, AbstractBinaryManager.DIRECT_BUF_SIZE, AbstractBinaryManager.DIRECT_BUF_SIZE + 1,
+                    3 * AbstractBinaryManager.DIRECT_BUF_SIZE / 2 };
+            int nbThreads = 2 * AbstractBinaryManager.DIRECT_BUF_POOL_SIZE;
+            ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < nbThreads; t++) {
+                    int seed = t;
+                    futures.add(executor.submit(() -> {
+                        Random random = new Random(seed);
+                        for (int size : sizes) {
+                            byte[] bytes = new byte[size];
+                            random.nextBytes(bytes);
+                            String expected = AbstractBinaryManager.toHexString(
+                                    MessageDigest.getInstance(algorithm).digest(bytes));
+                            Binary binary = binaryManager.getBinary(new ByteArrayInputStream(bytes));
+                            assertEquals(expected, binary.getDigest());
+                            assertArrayEquals(bytes, FileUtils.readFileToByteArray(binary.getFile()));
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+            binaryManager.close();
+        }
+    }
+
     protected static int countFiles(File dir) {
         int n = 0;
         for (File f : dir.listFiles()) {
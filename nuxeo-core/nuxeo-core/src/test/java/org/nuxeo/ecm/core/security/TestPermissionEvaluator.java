@@ -0,0 +1,237 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.security;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Random;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Test;
+import org.nuxeo.ecm.core.api.security.ACE;
+import org.nuxeo.ecm.core.api.security.ACL;
+import org.nuxeo.ecm.core.api.security.ACP;
+import org.nuxeo.ecm.core.api.security.Access;
+import org.nuxeo.ecm.core.api.security.SecurityConstants;
+import org.nuxeo.ecm.core.api.security.impl.ACLImpl;
+import org.nuxeo.ecm.core.api.security.impl.ACPImpl;
+import org.nuxeo.ecm.core.security.PermissionEvaluator.CompiledPermissions;
+import org.nuxeo.ecm.core.security.PermissionEvaluator.CompiledPrincipals;
+
+public class TestPermissionEvaluator {
+
+    private static final Log log = LogFactory.getLog(TestPermissionEvaluator.class);
+
+    protected static final String[] USERS = { "bob", "alice", "members", "administrators", "group1", "group2",
+            SecurityConstants.EVERYONE };
+
+    protected static final String[] PERMISSIONS = { SecurityConstants.READ, SecurityConstants.WRITE,
+            SecurityConstants.READ_WRITE, SecurityConstants.RESTRICTED_READ, SecurityConstants.EVERYTHING };
+
+    protected static final String[][] PRINCIPALS_TO_CHECK = { //
+            { "bob", SecurityConstants.EVERYONE }, //
+            { "members", "group1", "alice", SecurityConstants.EVERYONE }, //
+            { "group2", "carol", SecurityConstants.EVERYONE }, //
+            {} };
+
+    protected static final String[][] PERMISSIONS_TO_CHECK = { //
+            { SecurityConstants.READ, SecurityConstants.READ_WRITE, SecurityConstants.EVERYTHING }, //
+            { SecurityConstants.WRITE, SecurityConstants.READ_WRITE, SecurityConstants.EVERYTHING }, //
+            { SecurityConstants.RESTRICTED_READ }, //
+            { SecurityConstants.RESTRICTED_READ, SecurityConstants.EVERYTHING } };
+
+    /**
+     * Builds an ACP with a local ACL and an inherited ACL merged from the given number of ancestors.
+     */
+    protected static ACP randomACP(Random random, int depth, int acesPerLevel) {
+        ACP acp = new ACPImpl();
+        ACL local = new ACLImpl(ACL.LOCAL_ACL);
+        ACL inherited = new ACLImpl(ACL.INHERITED_ACL);
+        for (int level = 0; level < depth; level++) {
+            ACL acl = level == 0 ? local : inherited;
+            for (int i = 0; i < acesPerLevel; i++) {
+                String user = USERS[random.nextInt(USERS.length)];
+                String permission = PERMISSIONS[random.nextInt(PERMISSIONS.length)];
+                acl.add(new ACE(user, permission, random.nextInt(4) > 0));
+            }
+        }
+        acp.addACL(local);
+        acp.addACL(inherited);
+        return acp;
+    }
+
+    protected static Access check(PermissionEvaluator evaluator, ACP acp, String[] principals, String[] permissions) {
+        return evaluator.getAccess(acp, evaluator.compilePrincipals(principals),
+                evaluator.compilePermissions(permissions));
+    }
+
+    @Test
+    public void testSameAccessAsACP() {
+        PermissionEvaluator evaluator = new PermissionEvaluator(100);
+        Random random = new Random(1234);
+        for (int n = 0; n < 500; n++) {
+            ACP acp = randomACP(random, 1 + random.nextInt(8), 1 + random.nextInt(4));
+            for (String[] principals : PRINCIPALS_TO_CHECK) {
+                for (String[] permissions : PERMISSIONS_TO_CHECK) {
+                    Access expected = acp.getAccess(principals, permissions);
+                    // twice to check memoized results
+                    assertEquals(acp.toString(), expected, check(evaluator, acp, principals, permissions));
+                    assertEquals(acp.toString(), expected, check(evaluator, acp, principals, permissions));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSharedByContent() {
+        PermissionEvaluator evaluator = new PermissionEvaluator(100);
+        ACP acp1 = randomACP(new Random(1), 3, 3);
+        ACP acp2 = randomACP(new Random(1), 3, 3);
+        String[] principals = PRINCIPALS_TO_CHECK[0];
+        String[] permissions = PERMISSIONS_TO_CHECK[0];
+        check(evaluator, acp1, principals, permissions);
+        check(evaluator, acp2, principals, permissions);
+        assertEquals(1, evaluator.getCompiledACPsCount());
+        acp2.getACL(ACL.LOCAL_ACL).add(new ACE("bob", SecurityConstants.READ, false));
+        check(evaluator, acp2, principals, permissions);
+        assertEquals(2, evaluator.getCompiledACPsCount());
+    }
+
+    @Test
+    public void testCompiledSetsShared() {
+        PermissionEvaluator evaluator = new PermissionEvaluator(100);
+        String[] principals = PRINCIPALS_TO_CHECK[1].clone();
+        CompiledPrincipals compiled = evaluator.compilePrincipals(principals);
+        assertSame(compiled, evaluator.compilePrincipals(PRINCIPALS_TO_CHECK[1].clone()));
+        assertNotSame(compiled, evaluator.compilePrincipals(PRINCIPALS_TO_CHECK[0]));
+        // later changes to the caller's array don't affect the compiled set
+        principals[0] = "bob";
+        assertEquals("members", compiled.names[0]);
+        assertSame(evaluator.compilePermissions(PERMISSIONS_TO_CHECK[0]),
+                evaluator.compilePermissions(PERMISSIONS_TO_CHECK[0].clone()));
+    }
+
+    @Test
+    public void testMemoizedResultsWithManyCompilations() {
+        PermissionEvaluator evaluator = new PermissionEvaluator(100);
+        ACP acp = new ACPImpl();
+        acp.getOrCreateACL().add(new ACE("bob", SecurityConstants.READ, true));
+        acp.getOrCreateACL().add(new ACE(SecurityConstants.EVERYONE, SecurityConstants.EVERYTHING, false));
+        String[] bob = { "bob", SecurityConstants.EVERYONE };
+        String[] alice = { "alice", SecurityConstants.EVERYONE };
+        String[] read = PERMISSIONS_TO_CHECK[0];
+        // each check compiles its principals again, as done when no precompiled principals are given
+        for (int i = 0; i < 10 * PermissionEvaluator.MAX_MEMOIZED_RESULTS; i++) {
+            assertEquals(Access.GRANT, check(evaluator, acp, bob, read));
+            assertEquals(Access.DENY, check(evaluator, acp, alice, read));
+        }
+    }
+
+    @Test
+    public void testEffectiveDates() {
+        PermissionEvaluator evaluator = new PermissionEvaluator(100);
+        Calendar past = new GregorianCalendar();
+        past.add(Calendar.DAY_OF_MONTH, -1);
+        Calendar future = new GregorianCalendar();
+        future.add(Calendar.DAY_OF_MONTH, 1);
+        ACP acp = new ACPImpl();
+        ACL acl = acp.getOrCreateACL();
+        acl.add(ACE.builder("bob", SecurityConstants.READ).isGranted(false).begin(future).build());
+        acl.add(ACE.builder("bob", SecurityConstants.READ).end(past).build());
+        acl.add(ACE.builder("bob", SecurityConstants.READ).isGranted(false).begin(past).end(future).build());
+        String[] principals = PRINCIPALS_TO_CHECK[0];
+        String[] permissions = PERMISSIONS_TO_CHECK[0];
+        assertEquals(Access.DENY, acp.getAccess(principals, permissions));
+        assertEquals(Access.DENY, check(evaluator, acp, principals, permissions));
+    }
+
+    @Test
+    public void testNoCache() {
+        PermissionEvaluator evaluator = new PermissionEvaluator(0);
+        ACP acp = randomACP(new Random(2), 3, 3);
+        String[] principals = PRINCIPALS_TO_CHECK[1];
+        String[] permissions = PERMISSIONS_TO_CHECK[1];
+        assertEquals(acp.getAccess(principals, permissions), check(evaluator, acp, principals, permissions));
+        assertEquals(0, evaluator.getCompiledACPsCount());
+    }
+
+    /**
+     * Builds an ACP as found deep in a tree: ACEs for other users at each level, and the permission given at the root.
+     */
+    protected static ACP listingACP(Random random, int depth) {
+        ACP acp = new ACPImpl();
+        ACL local = acp.getOrCreateACL();
+        local.add(new ACE("user" + random.nextInt(10), SecurityConstants.READ_WRITE, true));
+        ACL inherited = acp.getOrCreateACL(ACL.INHERITED_ACL);
+        for (int level = 1; level < depth; level++) {
+            for (int i = 0; i < 4; i++) {
+                String permission = PERMISSIONS[random.nextInt(PERMISSIONS.length - 1)];
+                inherited.add(new ACE("group" + (10 + random.nextInt(20)), permission, true));
+            }
+        }
+        inherited.add(new ACE("members", SecurityConstants.READ, true));
+        inherited.add(new ACE(SecurityConstants.ADMINISTRATORS, SecurityConstants.EVERYTHING, true));
+        inherited.add(ACE.BLOCK);
+        return acp;
+    }
+
+    /**
+     * Compares the time taken by the compiled checks and the ACP checks for a listing of documents sharing a few
+     * inherited ACLs, at several depths.
+     */
+    @Test
+    public void testCheckTime() {
+        int checks = 20000;
+        for (int depth : new int[] { 1, 5, 10, 20 }) {
+            Random random = new Random(depth);
+            ACP[] acps = new ACP[10];
+            for (int i = 0; i < acps.length; i++) {
+                acps[i] = listingACP(random, depth);
+            }
+            String[] principals = { "group1", "group2", "group3", "members", "alice", SecurityConstants.EVERYONE };
+            String[] permissions = PERMISSIONS_TO_CHECK[0];
+            PermissionEvaluator evaluator = new PermissionEvaluator(100);
+            CompiledPrincipals compiledPrincipals = evaluator.compilePrincipals(principals);
+            CompiledPermissions compiledPermissions = evaluator.compilePermissions(permissions);
+            // also warms up both paths
+            for (int i = 0; i < checks; i++) {
+                ACP acp = acps[i % acps.length];
+                assertEquals(acp.getAccess(principals, permissions),
+                        evaluator.getAccess(acp, compiledPrincipals, compiledPermissions));
+            }
+            long t0 = System.nanoTime();
+            for (int i = 0; i < checks; i++) {
+                acps[i % acps.length].getAccess(principals, permissions);
+            }
+            long t1 = System.nanoTime();
+            for (int i = 0; i < checks; i++) {
+                evaluator.getAccess(acps[i % acps.length], compiledPrincipals, compiledPermissions);
+            }
+            long t2 = System.nanoTime();
+            log.debug(String.format("depth %d: ACP %d ns/check, compiled %d ns/check", depth, (t1 - t0) / checks,
+                    (t2 - t1) / checks));
+        }
+    }
+
+}
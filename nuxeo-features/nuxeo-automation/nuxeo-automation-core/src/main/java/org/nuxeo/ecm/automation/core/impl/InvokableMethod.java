@@ -18,6 +18,9 @@
  */
 package org.nuxeo.ecm.automation.core.impl;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
@@ -62,6 +65,14 @@ public class InvokableMethod implements Comparable<InvokableMethod> {
 
     protected int priority;
 
+    /**
+     * The method compiled into a handle taking the target and the input if any, and returning an {@link Object}.
+     * {@code null} if the method cannot be accessed through a method handle.
+     *
+     * @since 8.3
+     */
+    protected MethodHandle handle;
+
     public InvokableMethod(OperationType op, Method method, OperationMethod anno) {
         produce = method.getReturnType();
         Class<?>[] p = method.getParameterTypes();
@@ -80,6 +91,7 @@ public class InvokableMethod implements Comparable<InvokableMethod> {
             priority += USER_PRIORITY;
         }
         consume = p.length == 0 ? Void.TYPE : p[0];
+        handle = compile(method, consume);
     }
 
     public InvokableMethod(OperationType op, Method method) {
@@ -115,6 +127,24 @@ public class InvokableMethod implements Comparable<InvokableMethod> {
         } else {
             consume = p.length == 0 ? Void.TYPE : p[0];
         }
+        handle = compile(method, consume);
+    }
+
+    /**
+     * Compiles the method into a handle with generic types, so that it can be called without reflection.
+     *
+     * @since 8.3
+     */
+    protected static MethodHandle compile(Method method, Class<?> consume) {
+        int arity = consume == Void.TYPE ? 0 : 1;
+        if (method.getParameterTypes().length != arity) {
+            return null;
+        }
+        try {
+            return MethodHandles.lookup().unreflect(method).asType(MethodType.genericMethodType(arity + 1));
+        } catch (IllegalAccessException e) {
+            return null;
+        }
     }
 
     public boolean isIterable() {
@@ -161,15 +191,53 @@ public class InvokableMethod implements Comparable<InvokableMethod> {
         Object target = op.newInstance(ctx, args);
         if (consume == Void.TYPE) {
             // preserve last output for void methods
-            Object out = method.invoke(target);
+            Object out = call(target);
             return produce == Void.TYPE ? input : out;
         } else {
             if (input != null && !consume.isAssignableFrom(input.getClass())) {
                 // try to adapt
                 input = op.getService().getAdaptedValue(ctx, input, consume);
             }
+            return call(target, input);
+        }
+    }
+
+    /**
+     * Calls the method without input. Exceptions thrown by the method are wrapped in an
+     * {@link InvocationTargetException}, except for {@link OperationException}.
+     *
+     * @since 8.3
+     */
+    protected Object call(Object target) throws OperationException, ReflectiveOperationException {
+        if (handle == null) {
+            return method.invoke(target);
+        }
+        try {
+            return (Object) handle.invokeExact(target);
+        } catch (OperationException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+    }
+
+    /**
+     * Calls the method with an input. Exceptions thrown by the method are wrapped in an
+     * {@link InvocationTargetException}, except for {@link OperationException}.
+     *
+     * @since 8.3
+     */
+    protected Object call(Object target, Object input) throws OperationException, ReflectiveOperationException {
+        if (handle == null) {
             return method.invoke(target, input);
         }
+        try {
+            return (Object) handle.invokeExact(target, input);
+        } catch (OperationException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
     }
 
     public Object invoke(OperationContext ctx, Map<String, Object> args) throws OperationException {
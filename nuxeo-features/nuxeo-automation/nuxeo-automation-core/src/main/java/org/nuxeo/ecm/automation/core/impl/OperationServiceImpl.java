@@ -27,6 +27,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.common.collect.Iterables;
 import org.apache.commons.logging.Log;
@@ -72,7 +73,10 @@ public class OperationServiceImpl implements AutomationService, AutomationAdmin
 
     protected final AutomationFilterRegistry automationFilterRegistry;
 
-    protected Map<CacheKey, CompiledChainImpl> compiledChains = new HashMap<CacheKey, CompiledChainImpl>();
+    /**
+     * Compiled registered chains and operations, by id and input type.
+     */
+    protected Map<CacheKey, CompiledChainImpl> compiledChains = new ConcurrentHashMap<CacheKey, CompiledChainImpl>();
 
     /**
      * Adapter registry.
@@ -107,8 +111,7 @@ public class OperationServiceImpl implements AutomationService, AutomationAdmin
     }
 
     /**
-     * TODO avoid creating a temporary chain and then compile it. try to find a way to execute the single operation
-     * without compiling it. (for optimization)
+     * Single registered operations are compiled into a one-step chain once per input type, then reused.
      */
     @Override
     public Object run(OperationContext ctx, String operationId, Map<String, Object> runtimeParameters)
@@ -192,20 +195,23 @@ public class OperationServiceImpl implements AutomationService, AutomationAdmin
             Object input = ctx.getInput();
             Class<?> inputType = input == null ? Void.TYPE : input.getClass();
             tracer.onChain(operationType);
-            if (ChainTypeImpl.class.isAssignableFrom(operationType.getClass())) {
+            boolean isChain = ChainTypeImpl.class.isAssignableFrom(operationType.getClass());
+            if (isChain) {
                 ctx.put(Constants.VAR_IS_CHAIN, true);
-                CacheKey cacheKey = new CacheKey(operationType.getId(), inputType.getName());
-                chain = compiledChains.get(cacheKey);
-                if (chain == null) {
+            }
+            CacheKey cacheKey = new CacheKey(operationType.getId(), inputType.getName());
+            chain = compiledChains.get(cacheKey);
+            if (chain == null) {
+                if (isChain) {
                     chain = (CompiledChainImpl) operationType.newInstance(ctx, params);
-                    // Registered Chains are the only ones that can be cached
-                    // Runtime ones can update their operations, model...
-                    if (hasOperation(operationType.getId())) {
-                        compiledChains.put(cacheKey, chain);
-                    }
+                } else {
+                    chain = CompiledChainImpl.buildChain(this, inputType, toParams(operationType.getId()));
+                }
+                // Registered Chains and operations are the only ones that can be cached
+                // Runtime ones can update their operations, model...
+                if (operations.lookup().get(operationType.getId()) == operationType) {
+                    compiledChains.put(cacheKey, chain);
                 }
-            } else {
-                chain = CompiledChainImpl.buildChain(inputType, toParams(operationType.getId()));
             }
             Object ret = chain.invoke(ctx);
             tracer.onOutput(ret);
@@ -317,6 +323,7 @@ public class OperationServiceImpl implements AutomationService, AutomationAdmin
         OperationChain chain = new OperationChain(id);
         OperationType docChainType = new ChainTypeImpl(this, chain);
         operations.removeContribution(docChainType);
+        compiledChains.clear();
     }
 
     @Override
@@ -341,7 +348,7 @@ public class OperationServiceImpl implements AutomationService, AutomationAdmin
     }
 
     @Override
-    public synchronized void flushCompiledChains() {
+    public void flushCompiledChains() {
         compiledChains.clear();
     }
 
@@ -372,6 +379,8 @@ public class OperationServiceImpl implements AutomationService, AutomationAdmin
     @Override
     public synchronized void putOperation(OperationType op, boolean replace) throws OperationException {
         operations.addContribution(op, replace);
+        // compiled chains may reference a replaced operation
+        compiledChains.clear();
     }
 
     @Override
@@ -387,6 +396,7 @@ public class OperationServiceImpl implements AutomationService, AutomationAdmin
     @Override
     public synchronized void removeOperation(OperationType type) {
         operations.removeContribution(type);
+        compiledChains.clear();
     }
 
     @Override
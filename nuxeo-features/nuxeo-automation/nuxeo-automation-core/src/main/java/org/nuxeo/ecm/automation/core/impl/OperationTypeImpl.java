@@ -18,6 +18,9 @@
  */
 package org.nuxeo.ecm.automation.core.impl;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.net.URL;
@@ -107,6 +110,27 @@ public class OperationTypeImpl implements OperationType {
 
     protected List<WidgetDefinition> widgetDefinitionList;
 
+    /**
+     * The constructor of the operation type, {@code null} if it cannot be compiled into a method handle.
+     *
+     * @since 8.3
+     */
+    protected MethodHandle constructor;
+
+    /**
+     * Compiled injectors of the {@link Param} fields.
+     *
+     * @since 8.3
+     */
+    protected List<ParamInjector> paramInjectors = Collections.emptyList();
+
+    /**
+     * Compiled injectors of the {@link Context} fields.
+     *
+     * @since 8.3
+     */
+    protected List<FieldInjector> contextInjectors = Collections.emptyList();
+
     public OperationTypeImpl(AutomationService service, Class<?> type) {
         this(service, type, null);
     }
@@ -139,6 +163,7 @@ public class OperationTypeImpl implements OperationType {
         injectableFields = new ArrayList<Field>();
         initMethods();
         initFields();
+        initInjectors();
     }
 
     public OperationTypeImpl() {
@@ -223,13 +248,108 @@ public class OperationTypeImpl implements OperationType {
         }
     }
 
+    /**
+     * Compiles the constructor and the field injections into method handles, once for all the invocations.
+     *
+     * @since 8.3
+     */
+    protected void initInjectors() {
+        try {
+            constructor = MethodHandles.lookup()
+                                       .findConstructor(type, MethodType.methodType(void.class))
+                                       .asType(MethodType.methodType(Object.class));
+        } catch (ReflectiveOperationException e) {
+            // not accessible, use Class.newInstance
+            constructor = null;
+        }
+        paramInjectors = new ArrayList<>(params.size());
+        for (Map.Entry<String, Field> entry : params.entrySet()) {
+            paramInjectors.add(new ParamInjector(entry.getKey(), entry.getValue()));
+        }
+        contextInjectors = new ArrayList<>(injectableFields.size());
+        for (Field field : injectableFields) {
+            contextInjectors.add(new FieldInjector(field));
+        }
+    }
+
+    /**
+     * Sets a field of an operation instance, through a method handle when possible.
+     *
+     * @since 8.3
+     */
+    protected static class FieldInjector {
+
+        protected static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+        protected final Field field;
+
+        protected final Class<?> type;
+
+        protected final MethodHandle setter;
+
+        protected FieldInjector(Field field) {
+            this.field = field;
+            type = field.getType();
+            MethodHandle mh;
+            try {
+                mh = MethodHandles.lookup().unreflectSetter(field).asType(SETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                // final field, use reflection
+                mh = null;
+            }
+            setter = mh;
+        }
+
+        public void set(Object target, Object value) throws OperationException {
+            try {
+                if (setter == null) {
+                    field.set(target, value);
+                } else {
+                    setter.invokeExact(target, value);
+                }
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new OperationException(t);
+            }
+        }
+    }
+
+    /**
+     * Injects a {@link Param} field, with its annotation attributes resolved once.
+     *
+     * @since 8.3
+     */
+    protected static class ParamInjector extends FieldInjector {
+
+        protected final String name;
+
+        protected final String[] aliases;
+
+        protected final boolean required;
+
+        protected ParamInjector(String name, Field field) {
+            super(field);
+            this.name = name;
+            Param param = field.getAnnotation(Param.class);
+            aliases = param.alias() == null ? new String[0] : param.alias();
+            required = param.required();
+        }
+    }
+
     @Override
     public Object newInstance(OperationContext ctx, Map<String, Object> args) throws OperationException {
         Object obj;
         try {
-            obj = type.newInstance();
-        } catch (ReflectiveOperationException e) {
-            throw new OperationException(e);
+            if (constructor == null) {
+                obj = type.newInstance();
+            } else {
+                obj = (Object) constructor.invokeExact();
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new OperationException(t);
         }
         inject(ctx, args, obj);
         return obj;
@@ -254,47 +374,33 @@ public class OperationTypeImpl implements OperationType {
     }
 
     public void inject(OperationContext ctx, Map<String, Object> args, Object target) throws OperationException {
-        for (Map.Entry<String, Field> entry : params.entrySet()) {
-            Object obj = resolveObject(ctx, entry.getKey(), args);
+        for (ParamInjector injector : paramInjectors) {
+            Object obj = resolveObject(ctx, injector.name, args);
             if (obj == null) {
                 // We did not resolve object according to its param name, let's
                 // check with potential alias
-                String[] aliases = entry.getValue().getAnnotation(Param.class).alias();
-                if (aliases != null) {
-                    for (String alias : entry.getValue().getAnnotation(Param.class).alias()) {
-                        obj = resolveObject(ctx, alias, args);
-                        if (obj != null) {
-                            break;
-                        }
+                for (String alias : injector.aliases) {
+                    obj = resolveObject(ctx, alias, args);
+                    if (obj != null) {
+                        break;
                     }
                 }
             }
             if (obj == null) {
-                if (entry.getValue().getAnnotation(Param.class).required()) {
-                    throw new OperationException("Failed to inject parameter '" + entry.getKey()
+                if (injector.required) {
+                    throw new OperationException("Failed to inject parameter '" + injector.name
                             + "'. Seems it is missing from the context. Operation: " + getId());
                 } // else do nothing
             } else {
-                Field field = entry.getValue();
-                Class<?> cl = obj.getClass();
-                if (!field.getType().isAssignableFrom(cl)) {
+                if (!injector.type.isAssignableFrom(obj.getClass())) {
                     // try to adapt
-                    obj = service.getAdaptedValue(ctx, obj, field.getType());
-                }
-                try {
-                    field.set(target, obj);
-                } catch (ReflectiveOperationException e) {
-                    throw new OperationException(e);
+                    obj = service.getAdaptedValue(ctx, obj, injector.type);
                 }
+                injector.set(target, obj);
             }
         }
-        for (Field field : injectableFields) {
-            Object obj = ctx.getAdapter(field.getType());
-            try {
-                field.set(target, obj);
-            } catch (ReflectiveOperationException e) {
-                throw new OperationException(e);
-            }
+        for (FieldInjector injector : contextInjectors) {
+            injector.set(target, ctx.getAdapter(injector.type));
         }
     }
 
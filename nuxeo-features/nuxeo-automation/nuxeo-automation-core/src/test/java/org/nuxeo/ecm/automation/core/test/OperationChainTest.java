@@ -36,6 +36,7 @@ import org.nuxeo.ecm.automation.AutomationService;
 import org.nuxeo.ecm.automation.OperationChain;
 import org.nuxeo.ecm.automation.OperationContext;
 import org.nuxeo.ecm.automation.OperationException;
+import org.nuxeo.ecm.automation.OperationNotFoundException;
 import org.nuxeo.ecm.automation.core.operations.FetchContextDocument;
 import org.nuxeo.ecm.automation.core.operations.SetVar;
 import org.nuxeo.ecm.automation.core.scripting.MvelExpression;
@@ -521,4 +522,33 @@ public class OperationChainTest {
 
         assertEquals(date, out.getPropertyValue("dc:issued"));
     }
+
+    /**
+     * Compiled operations are cached, and must be dropped when the operation is replaced or removed.
+     */
+    @Test
+    public void testCompiledOperationInvalidation() throws Exception {
+        service.putOperation(ReplacedOperation1.class);
+        try {
+            assertEquals("v1", service.run(new OperationContext(session), ReplacedOperation1.ID));
+            assertEquals("v1", service.run(new OperationContext(session), ReplacedOperation1.ID));
+
+            service.putOperation(ReplacedOperation2.class, true);
+            assertEquals("v2", service.run(new OperationContext(session), ReplacedOperation1.ID));
+
+            // back to the first contribution
+            service.removeOperation(ReplacedOperation2.class);
+            assertEquals("v1", service.run(new OperationContext(session), ReplacedOperation1.ID));
+        } finally {
+            while (service.hasOperation(ReplacedOperation1.ID)) {
+                service.removeOperation(ReplacedOperation1.class);
+            }
+        }
+        try {
+            service.run(new OperationContext(session), ReplacedOperation1.ID);
+            fail("removed operation should not run");
+        } catch (OperationNotFoundException e) {
+            // expected
+        }
+    }
 }
@@ -0,0 +1,160 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.automation.core.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.inject.Inject;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.automation.server.jaxrs.batch.BatchManager;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+
+/**
+ * Tests the upload of the chunks of a file, with or without their offsets.
+ *
+ * @since 8.3
+ */
+@RunWith(FeaturesRunner.class)
+@Features(CoreFeature.class)
+@Deploy({ "org.nuxeo.ecm.core.cache", "org.nuxeo.ecm.automation.core", "org.nuxeo.ecm.automation.server" })
+public class BatchChunksTest {
+
+    protected static final String CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+    protected static final long SIZE = CONTENT.length();
+
+    @Inject
+    protected BatchManager batchManager;
+
+    protected void addChunk(String batchId, int count, int index, int begin, int end, boolean withOffset)
+            throws IOException {
+        byte[] bytes = CONTENT.substring(begin, end).getBytes(StandardCharsets.UTF_8);
+        batchManager.addStream(batchId, "0", new ByteArrayInputStream(bytes), count, index, "file.txt", "text/plain",
+                SIZE, withOffset ? begin : -1, bytes.length);
+    }
+
+    @Test
+    public void testChunksOfDifferentSizesWithoutOffsets() throws Exception {
+        String batchId = batchManager.initBatch();
+        addChunk(batchId, 3, 0, 0, 10, false);
+        addChunk(batchId, 3, 1, 10, 30, false);
+        addChunk(batchId, 3, 2, 30, 36, false);
+        assertFalse(batchManager.getFileEntry(batchId, "0").isDirect());
+        assertEquals(CONTENT, batchManager.getBlob(batchId, "0").getString());
+    }
+
+    @Test
+    public void testChunksOutOfOrder() throws Exception {
+        String batchId = batchManager.initBatch();
+        addChunk(batchId, 3, 2, 30, 36, true);
+        addChunk(batchId, 3, 0, 0, 10, true);
+        assertTrue(batchManager.getFileEntry(batchId, "0").isDirect());
+        // incomplete
+        assertNull(batchManager.getFileEntry(batchId, "0").getBlob());
+        addChunk(batchId, 3, 1, 10, 30, true);
+        Blob blob = batchManager.getBlob(batchId, "0");
+        assertEquals(CONTENT, blob.getString());
+        assertEquals("file.txt", blob.getFilename());
+        assertEquals("text/plain", blob.getMimeType());
+    }
+
+    @Test
+    public void testChunksInParallel() throws Exception {
+        String batchId = batchManager.initBatch();
+        int count = 6;
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    addChunk(batchId, count, index, index * 6, index * 6 + 6, true);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(CONTENT, batchManager.getBlob(batchId, "0").getString());
+    }
+
+    @Test
+    public void testMissingOffset() throws Exception {
+        String batchId = batchManager.initBatch();
+        addChunk(batchId, 2, 0, 0, 10, true);
+        try {
+            addChunk(batchId, 2, 1, 10, 36, false);
+            fail("chunk without offset should fail");
+        } catch (NuxeoException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Missing offset"));
+        }
+        // can be uploaded again with its offset
+        addChunk(batchId, 2, 1, 10, 36, true);
+        assertEquals(CONTENT, batchManager.getBlob(batchId, "0").getString());
+    }
+
+    @Test
+    public void testOverlappingChunks() throws Exception {
+        String batchId = batchManager.initBatch();
+        addChunk(batchId, 2, 0, 0, 20, true);
+        addChunk(batchId, 2, 1, 10, 36, true);
+        checkInvalidRanges(batchId);
+    }
+
+    @Test
+    public void testMissingRange() throws Exception {
+        String batchId = batchManager.initBatch();
+        addChunk(batchId, 2, 0, 0, 10, true);
+        addChunk(batchId, 2, 1, 20, 36, true);
+        checkInvalidRanges(batchId);
+    }
+
+    protected void checkInvalidRanges(String batchId) {
+        try {
+            batchManager.getFileEntry(batchId, "0").getBlob();
+            fail("chunks not covering the file should fail");
+        } catch (NuxeoException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Chunks of file entry"));
+        }
+    }
+
+}
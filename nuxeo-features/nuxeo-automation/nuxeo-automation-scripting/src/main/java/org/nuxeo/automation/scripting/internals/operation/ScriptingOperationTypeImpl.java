@@ -21,6 +21,7 @@ package org.nuxeo.automation.scripting.internals.operation;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -114,6 +115,8 @@ public class ScriptingOperationTypeImpl extends OperationTypeImpl {
     public Object newInstance(OperationContext ctx, Map<String, Object> args) throws OperationException {
         // As org.nuxeo.ecm.automation.core.impl.OperationTypeImpl.inject() is not called in this OperationTypeImpl,
         // we have to inject into arguments all context variables to play the fallback on chains variables.
+        // the arguments map belongs to the compiled chain, which may be cached and shared
+        args = new HashMap<>(args);
         if (ctx.getVars().containsKey(Constants.VAR_RUNTIME_CHAIN)) {
             args.putAll((Map<String, Object>) ctx.getVars().get(Constants.VAR_RUNTIME_CHAIN));
         }
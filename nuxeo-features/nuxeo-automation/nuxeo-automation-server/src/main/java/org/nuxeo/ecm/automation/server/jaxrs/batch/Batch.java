@@ -35,6 +35,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.nuxeo.ecm.core.api.Blob;
 import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.ecm.core.transientstore.AbstractTransientStore;
 import org.nuxeo.ecm.core.transientstore.api.TransientStore;
 import org.nuxeo.runtime.api.Framework;
 
@@ -185,18 +186,44 @@ public class Batch {
      */
     public String addChunk(String index, InputStream is, int chunkCount, int chunkIndex, String fileName,
             String mimeType, long fileSize) throws IOException {
+        return addChunk(index, is, chunkCount, chunkIndex, fileName, mimeType, fileSize, -1, -1);
+    }
+
+    /**
+     * Adds a chunk with the given {@code chunkIndex} to the batch file with the given {@code index}.
+     * <p>
+     * If the file size is known and the client gives the offset of the first chunk, the chunks are written directly at
+     * their offset in the file, see {@link BatchFileEntry#writeChunk(int, InputStream, long, long)}, and all the chunks
+     * of the file must then give their offset. Otherwise each chunk is stored as a separate entry and the chunks are
+     * concatenated when the file is complete.
+     *
+     * @param chunkOffset the offset of the chunk in the file, or {@code -1} if not given by the client
+     * @param chunkSize the size of the chunk, or {@code -1} if unknown
+     * @return The key of the {@link BatchFileEntry}.
+     * @since 8.3
+     */
+    public String addChunk(String index, InputStream is, int chunkCount, int chunkIndex, String fileName,
+            String mimeType, long fileSize, long chunkOffset, long chunkSize) throws IOException {
         BatchManager bm = Framework.getService(BatchManager.class);
-        Blob blob = Blobs.createBlob(is);
+        TransientStore ts = bm.getTransientStore();
 
         String fileEntryKey = key + "_" + index;
         BatchFileEntry fileEntry = getFileEntry(index);
         if (fileEntry == null) {
-            fileEntry = new BatchFileEntry(fileEntryKey, chunkCount, fileName, mimeType, fileSize);
-            TransientStore ts = bm.getTransientStore();
+            // chunks of different sizes are allowed, so their offsets can't be deduced
+            boolean direct = fileSize > 0 && chunkOffset >= 0 && ts instanceof AbstractTransientStore;
+            fileEntry = new BatchFileEntry(fileEntryKey, chunkCount, fileName, mimeType, fileSize, direct);
             ts.putParameters(fileEntryKey, fileEntry.getParams());
             ts.putParameter(key, index, fileEntryKey);
+            if (direct) {
+                fileEntry.preallocate();
+            }
+        }
+        if (fileEntry.isDirect()) {
+            fileEntry.writeChunk(chunkIndex, is, chunkOffset, chunkSize);
+        } else {
+            fileEntry.addChunk(chunkIndex, Blobs.createBlob(is));
         }
-        fileEntry.addChunk(chunkIndex, blob);
 
         return fileEntryKey;
     }
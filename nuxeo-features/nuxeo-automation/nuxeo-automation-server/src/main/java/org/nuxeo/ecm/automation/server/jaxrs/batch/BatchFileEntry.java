@@ -23,13 +23,21 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.io.IOUtils;
@@ -40,6 +48,8 @@ import org.apache.commons.logging.LogFactory;
 import org.nuxeo.ecm.core.api.Blob;
 import org.nuxeo.ecm.core.api.Blobs;
 import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.api.impl.blob.FileBlob;
+import org.nuxeo.ecm.core.transientstore.AbstractTransientStore;
 import org.nuxeo.ecm.core.transientstore.api.TransientStore;
 import org.nuxeo.runtime.api.Framework;
 
@@ -47,6 +57,10 @@ import org.nuxeo.runtime.api.Framework;
  * Represents a batch file backed by the {@link TransientStore}.
  * <p>
  * The file can be chunked or not. If it is chunked it references its chunks as {@link TransientStore} entry keys.
+ * <p>
+ * Since 8.3, when the client gives their offsets, the chunks of a file can also be written directly at their offset in
+ * a file preallocated in the caching directory of the entry, in which case they can be uploaded in parallel and in any order, and the complete file is
+ * neither concatenated nor copied.
  *
  * @since 7.4
  * @see Batch
@@ -55,6 +69,19 @@ public class BatchFileEntry {
 
     protected static final Log log = LogFactory.getLog(BatchFileEntry.class);
 
+    /**
+     * Name of the file holding the data of a file whose chunks are written directly.
+     *
+     * @since 8.3
+     */
+    protected static final String DATA_FILE_NAME = "data";
+
+    protected static final String DIRECT_PARAM_NAME = "direct";
+
+    protected static final String CHUNK_RANGE_PARAM_PREFIX = "chunkRange_";
+
+    protected static final int BUFFER_SIZE = 64 * 1024;
+
     protected String key;
 
     protected Map<String, Serializable> params;
@@ -77,7 +104,21 @@ public class BatchFileEntry {
      * @see BatchChunkEntry
      */
     public BatchFileEntry(String key, int chunkCount, String fileName, String mimeType, long fileSize) {
+        this(key, chunkCount, fileName, mimeType, fileSize, false);
+    }
+
+    /**
+     * Returns a file entry that references the file chunks, optionally written directly at their offset in the file.
+     *
+     * @see #writeChunk(int, InputStream, long, long)
+     * @since 8.3
+     */
+    public BatchFileEntry(String key, int chunkCount, String fileName, String mimeType, long fileSize,
+            boolean direct) {
         this(key, true);
+        if (direct) {
+            params.put(DIRECT_PARAM_NAME, String.valueOf(true));
+        }
         params.put("chunkCount", String.valueOf(chunkCount));
         if (!StringUtils.isEmpty(fileName)) {
             params.put("fileName", fileName);
@@ -114,6 +155,15 @@ public class BatchFileEntry {
         return Boolean.parseBoolean((String) params.get(Batch.CHUNKED_PARAM_NAME));
     }
 
+    /**
+     * Checks whether the chunks of this file are written directly at their offset in the file.
+     *
+     * @since 8.3
+     */
+    public boolean isDirect() {
+        return Boolean.parseBoolean((String) params.get(DIRECT_PARAM_NAME));
+    }
+
     public String getFileName() {
         if (isChunked()) {
             return (String) params.get("fileName");
@@ -201,6 +251,10 @@ public class BatchFileEntry {
             if (chunkedBlob != null) {
                 return chunkedBlob;
             }
+            if (isDirect()) {
+                chunkedBlob = getDirectBlob();
+                return chunkedBlob;
+            }
             File tmpChunkedFile = null;
             try {
                 Map<Integer, String> chunks = getChunks();
@@ -242,6 +296,161 @@ public class BatchFileEntry {
         }
     }
 
+    /**
+     * Gets the blob of a file whose chunks are written directly, without copying it.
+     * <p>
+     * When possible the blob is a temporary hard link to the file, so that the binary manager can move it to the
+     * binary store instead of copying it, while the file is kept in the batch.
+     */
+    protected Blob getDirectBlob() {
+        Map<Integer, String> chunks = getChunks();
+        int chunkCount = getChunkCount();
+        if (chunks.size() != chunkCount) {
+            log.warn(String.format("Cannot get blob for file entry %s as there are only %d uploaded chunks out of %d.",
+                    key, chunks.size(), chunkCount));
+            return null;
+        }
+        checkChunkRanges();
+        File file = getDataFile();
+        Blob blob;
+        try {
+            File link = getTransientStore().getCachingFile(key, "link-" + UUID.randomUUID());
+            Files.createLink(link.toPath(), file.toPath());
+            blob = new FileBlob(link, true);
+        } catch (IOException | UnsupportedOperationException e) {
+            log.debug("Cannot link file " + file + ", using it directly: " + e);
+            blob = new FileBlob(file);
+        }
+        blob.setMimeType(getMimeType());
+        blob.setFilename(getFileName());
+        return blob;
+    }
+
+    /**
+     * Checks that the chunks cover the whole file, without overlapping.
+     */
+    protected void checkChunkRanges() {
+        List<long[]> ranges = new ArrayList<>();
+        for (int index : getOrderedChunkIndexes()) {
+            String range = (String) params.get(CHUNK_RANGE_PARAM_PREFIX + index);
+            if (range == null) {
+                throw new NuxeoException(String.format("Missing range of chunk %d of file entry %s", index, key));
+            }
+            String[] parts = range.split(":");
+            ranges.add(new long[] { Long.parseLong(parts[0]), Long.parseLong(parts[1]) });
+        }
+        Collections.sort(ranges, (r1, r2) -> Long.compare(r1[0], r2[0]));
+        long end = 0;
+        for (long[] range : ranges) {
+            if (range[0] != end) {
+                throw new NuxeoException(String.format(
+                        "Chunks of file entry %s do not cover the file: expected a chunk at offset %d, got %d", key,
+                        end, range[0]));
+            }
+            end += range[1];
+        }
+        if (end != getFileSize()) {
+            throw new NuxeoException(String.format("Chunks of file entry %s have a total size of %d instead of %d",
+                    key, end, getFileSize()));
+        }
+    }
+
+    protected AbstractTransientStore getTransientStore() {
+        BatchManager bm = Framework.getService(BatchManager.class);
+        return (AbstractTransientStore) bm.getTransientStore();
+    }
+
+    protected File getDataFile() {
+        return getTransientStore().getCachingFile(key, DATA_FILE_NAME);
+    }
+
+    /**
+     * Creates the file of a file entry whose chunks are written directly, with its final size, and stores it in the
+     * entry so that its size is accounted for in the {@link TransientStore}.
+     * <p>
+     * Can be called several times, if the first chunks are received concurrently.
+     *
+     * @since 8.3
+     */
+    public void preallocate() throws IOException {
+        File file = getDataFile();
+        long fileSize = getFileSize();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if (raf.length() < fileSize) {
+                raf.setLength(fileSize);
+            }
+        }
+        getTransientStore().putBlobs(key, Collections.singletonList(new FileBlob(file)));
+    }
+
+    /**
+     * Writes a chunk directly at its offset in the file.
+     * <p>
+     * Chunks can be written concurrently and in any order. A chunk is only recorded once completely written, so a
+     * failed chunk can be uploaded again.
+     *
+     * @param index the chunk index
+     * @param is the chunk data
+     * @param offset the offset of the chunk in the file
+     * @param size the size of the chunk, or {@code -1} if unknown
+     * @return the key of the chunk
+     * @since 8.3
+     */
+    public String writeChunk(int index, InputStream is, long offset, long size) throws IOException {
+        checkNewChunk(index);
+        if (offset < 0) {
+            throw new NuxeoException(String.format(
+                    "Missing offset for chunk %d of file entry %s, whose chunks are written at their offset", index,
+                    key));
+        }
+        long fileSize = getFileSize();
+        if (size >= 0 && offset + size > fileSize) {
+            throw new NuxeoException(String.format(
+                    "Cannot write chunk %d of file entry %s at offset %d as it doesn't fit in a file of size %d",
+                    index, key, offset, fileSize));
+        }
+        long written = write(is, getDataFile(), offset, fileSize);
+        if (size >= 0 && written != size) {
+            throw new NuxeoException(String.format("Chunk %d of file entry %s is incomplete: %d bytes out of %d",
+                    index, key, written, size));
+        }
+
+        String chunkEntryKey = key + "_" + index;
+        TransientStore ts = getTransientStore();
+        ts.putParameter(key, CHUNK_RANGE_PARAM_PREFIX + index, offset + ":" + written);
+        ts.putParameter(key, String.valueOf(index), chunkEntryKey);
+        params.put(CHUNK_RANGE_PARAM_PREFIX + index, offset + ":" + written);
+        params.put(String.valueOf(index), chunkEntryKey);
+        return chunkEntryKey;
+    }
+
+    /**
+     * Writes the stream at the given position of the file, using positional writes so that several streams can be
+     * written concurrently.
+     *
+     * @return the number of bytes written
+     */
+    protected long write(InputStream is, File file, long offset, long fileSize) throws IOException {
+        long position = offset;
+        try (ReadableByteChannel in = Channels.newChannel(is);
+                FileChannel out = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                if (position + buffer.remaining() > fileSize) {
+                    throw new NuxeoException(String.format("Chunk at offset %d of file entry %s exceeds file size %d",
+                            offset, key, fileSize));
+                }
+                while (buffer.hasRemaining()) {
+                    position += out.write(buffer, position);
+                }
+                buffer.clear();
+            }
+        }
+        return position - offset;
+    }
+
     protected Blob getChunk(TransientStore ts, String key) {
         List<Blob> blobs = ts.getBlobs(key);
         if (CollectionUtils.isEmpty(blobs)) {
@@ -262,6 +471,18 @@ public class BatchFileEntry {
     }
 
     public String addChunk(int index, Blob blob) {
+        checkNewChunk(index);
+
+        String chunkEntryKey = key + "_" + index;
+        BatchManager bm = Framework.getService(BatchManager.class);
+        TransientStore ts = bm.getTransientStore();
+        ts.putBlobs(chunkEntryKey, Collections.singletonList(blob));
+        ts.putParameter(key, String.valueOf(index), chunkEntryKey);
+
+        return chunkEntryKey;
+    }
+
+    protected void checkNewChunk(int index) {
         if (!isChunked()) {
             throw new NuxeoException("Cannot add a chunk to a non chunked file entry.");
         }
@@ -277,14 +498,6 @@ public class BatchFileEntry {
             throw new NuxeoException(String.format(
                     "Cannot add chunk with index %d to file entry %s as it already exists.", index, key));
         }
-
-        String chunkEntryKey = key + "_" + index;
-        BatchManager bm = Framework.getService(BatchManager.class);
-        TransientStore ts = bm.getTransientStore();
-        ts.putBlobs(chunkEntryKey, Collections.singletonList(blob));
-        ts.putParameter(key, String.valueOf(index), chunkEntryKey);
-
-        return chunkEntryKey;
     }
 
     public void beforeRemove() {
@@ -60,6 +60,20 @@ public interface BatchManager {
     void addStream(String batchId, String index, InputStream is, int chunkCount, int chunkIndex, String name,
             String mime, long fileSize) throws IOException;
 
+    /**
+     * Adds an inputStream as a chunk to a batch. Will create a new {@link Batch} if needed.
+     * <p>
+     * When the client gives the chunk offsets, the chunks are written directly at their offset in the file, so chunks
+     * can be uploaded in parallel and in any order. Otherwise the chunks are stored separately and concatenated once
+     * all of them have been uploaded.
+     *
+     * @param chunkOffset the offset of the chunk in the file, or {@code -1} if not given by the client
+     * @param chunkSize the size of the chunk, or {@code -1} if unknown
+     * @since 8.3
+     */
+    void addStream(String batchId, String index, InputStream is, int chunkCount, int chunkIndex, String name,
+            String mime, long fileSize, long chunkOffset, long chunkSize) throws IOException;
+
     /**
      * Returns true if there is a batch for the given {@code batchId}, false otherwise.
      *
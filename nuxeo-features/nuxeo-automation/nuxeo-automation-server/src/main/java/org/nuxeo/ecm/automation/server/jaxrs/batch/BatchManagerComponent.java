@@ -130,13 +130,19 @@ public class BatchManagerComponent extends DefaultComponent implements BatchMana
     @Override
     public void addStream(String batchId, String index, InputStream is, int chunkCount, int chunkIndex, String name,
             String mime, long fileSize) throws IOException {
+        addStream(batchId, index, is, chunkCount, chunkIndex, name, mime, fileSize, -1, -1);
+    }
+
+    @Override
+    public void addStream(String batchId, String index, InputStream is, int chunkCount, int chunkIndex, String name,
+            String mime, long fileSize, long chunkOffset, long chunkSize) throws IOException {
         uploadInProgress.incrementAndGet();
         try {
             Batch batch = getBatch(batchId);
             if (batch == null) {
                 batch = initBatchInternal(batchId);
             }
-            batch.addChunk(index, is, chunkCount, chunkIndex, name, mime, fileSize);
+            batch.addChunk(index, is, chunkCount, chunkIndex, name, mime, fileSize, chunkOffset, chunkSize);
             log.debug(String.format("Added chunk %s to file %s [%s] in batch %s", chunkIndex, index, name,
                     batch.getKey()));
         } finally {
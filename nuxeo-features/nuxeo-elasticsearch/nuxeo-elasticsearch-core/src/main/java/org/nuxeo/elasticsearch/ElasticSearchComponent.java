@@ -50,6 +50,7 @@ import org.nuxeo.ecm.core.api.SortInfo;
 import org.nuxeo.ecm.core.repository.RepositoryService;
 import org.nuxeo.ecm.core.work.api.Work;
 import org.nuxeo.ecm.core.work.api.WorkManager;
+import org.nuxeo.elasticsearch.api.BulkIndexingPipeline;
 import org.nuxeo.elasticsearch.api.ElasticSearchAdmin;
 import org.nuxeo.elasticsearch.api.ElasticSearchIndexing;
 import org.nuxeo.elasticsearch.api.ElasticSearchService;
@@ -387,6 +388,23 @@ public class ElasticSearchComponent extends DefaultComponent implements ElasticS
         esi.indexNonRecursive(cmds);
     }
 
+    @Override
+    public BulkIndexingPipeline openBulkIndexingPipeline() {
+        if (!isReady()) {
+            return new BulkIndexingPipeline() {
+                @Override
+                public void indexNonRecursive(List<IndexingCommand> cmds) {
+                    stackCommands(cmds);
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+        return esi.openBulkIndexingPipeline();
+    }
+
     protected void stackCommands(List<IndexingCommand> cmds) {
         if (log.isDebugEnabled()) {
             log.debug("Delaying indexing commands: Waiting for Index to be initialized."
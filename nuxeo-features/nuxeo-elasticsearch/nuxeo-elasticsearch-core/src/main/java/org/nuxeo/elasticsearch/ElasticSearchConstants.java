@@ -106,6 +106,42 @@ final public class ElasticSearchConstants {
 
     public static final String REINDEX_BUCKET_WRITE_PROPERTY = "elasticsearch.reindex.bucketWriteSize";
 
+    /**
+     * Maximum number of bulk requests in flight for each reindexing worker, 0 to send them synchronously.
+     *
+     * @since 8.3
+     */
+    public static final String REINDEX_BULK_CONCURRENT_REQUESTS_PROPERTY = "elasticsearch.reindex.bulkConcurrentRequests";
+
+    /**
+     * Number of documents after which a reindexing bulk request is sent.
+     *
+     * @since 8.3
+     */
+    public static final String REINDEX_BULK_ACTIONS_PROPERTY = "elasticsearch.reindex.bulkActions";
+
+    /**
+     * Size after which a reindexing bulk request is sent, for instance 5mb.
+     *
+     * @since 8.3
+     */
+    public static final String REINDEX_BULK_SIZE_PROPERTY = "elasticsearch.reindex.bulkSize";
+
+    /**
+     * Interval after which a reindexing bulk request is sent whatever its size, for instance 5s. Not set by default.
+     *
+     * @since 8.3
+     */
+    public static final String REINDEX_BULK_FLUSH_INTERVAL_PROPERTY = "elasticsearch.reindex.bulkFlushInterval";
+
+    /**
+     * Number of scheduled bucket workers above which the scrolling worker waits before scheduling more, 0 for no
+     * limit.
+     *
+     * @since 8.3
+     */
+    public static final String REINDEX_MAX_SCHEDULED_BUCKETS_PROPERTY = "elasticsearch.reindex.maxScheduledBuckets";
+
     public static final String REINDEX_ON_STARTUP_PROPERTY = "elastcisearch.reindex.onStartup";
 
     public static final String DISABLE_AUTO_INDEXING = "disableAutoIndexing";
@@ -0,0 +1,55 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+
+package org.nuxeo.elasticsearch.api;
+
+import java.util.List;
+
+import org.nuxeo.elasticsearch.commands.IndexingCommand;
+
+/**
+ * Pipeline sending the indexing requests of many commands in bulk requests executed in the background.
+ * <p>
+ * The caller can fetch and serialize the next documents while previous bulk requests are processed by Elasticsearch.
+ * When too many bulk requests are in flight the caller is blocked until one completes, so a slow cluster slows down
+ * the indexing instead of piling up requests in memory.
+ * </p>
+ * <p>
+ * The pipeline must be closed to send the last requests and wait for their completion.
+ * </p>
+ *
+ * @since 8.3
+ */
+public interface BulkIndexingPipeline extends AutoCloseable {
+
+    /**
+     * Same as {@link ElasticSearchIndexing#indexNonRecursive(List)} but returns once the requests are queued in the
+     * pipeline, they may not be processed yet.
+     */
+    void indexNonRecursive(List<IndexingCommand> cmds);
+
+    /**
+     * Sends the remaining requests and waits for the completion of all the bulk requests.
+     *
+     * @throws org.nuxeo.ecm.core.api.NuxeoException if a bulk request failed
+     */
+    @Override
+    void close();
+
+}
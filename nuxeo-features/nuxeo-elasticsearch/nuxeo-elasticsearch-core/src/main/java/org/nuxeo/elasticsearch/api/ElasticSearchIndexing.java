@@ -75,4 +75,12 @@ public interface ElasticSearchIndexing {
      */
     void indexNonRecursive(List<IndexingCommand> cmds);
 
+    /**
+     * Opens a pipeline to process many lists of commands using bulk requests executed in the background, see
+     * {@link BulkIndexingPipeline}.
+     *
+     * @since 8.3
+     */
+    BulkIndexingPipeline openBulkIndexingPipeline();
+
 }
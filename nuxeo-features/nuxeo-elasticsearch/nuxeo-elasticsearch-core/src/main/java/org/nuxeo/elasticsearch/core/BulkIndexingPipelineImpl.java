@@ -0,0 +1,203 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+
+package org.nuxeo.elasticsearch.core;
+
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.REINDEX_BULK_ACTIONS_PROPERTY;
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.REINDEX_BULK_CONCURRENT_REQUESTS_PROPERTY;
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.REINDEX_BULK_FLUSH_INTERVAL_PROPERTY;
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.REINDEX_BULK_SIZE_PROPERTY;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.elasticsearch.api.BulkIndexingPipeline;
+import org.nuxeo.elasticsearch.commands.IndexingCommand;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+
+/**
+ * Bulk indexing pipeline based on the Elasticsearch {@link BulkProcessor}.
+ * <p>
+ * Requests are sent when the number of documents, the size of the request or the flush interval is reached. The
+ * number of concurrent requests is bounded, adding a request blocks the caller until a bulk request completes.
+ *
+ * @since 8.3
+ */
+public class BulkIndexingPipelineImpl implements BulkIndexingPipeline {
+
+    private static final Log log = LogFactory.getLog(BulkIndexingPipelineImpl.class);
+
+    private static final String DEFAULT_CONCURRENT_REQUESTS = "2";
+
+    private static final String DEFAULT_BULK_ACTIONS = "100";
+
+    private static final String DEFAULT_BULK_SIZE = "5mb";
+
+    /** Maximum time to wait for the in flight requests when closing the pipeline. */
+    private static final long CLOSE_TIMEOUT_SECONDS = 300;
+
+    protected final ElasticSearchIndexingImpl esi;
+
+    protected final ElasticSearchAdminImpl esa;
+
+    protected final BulkProcessor processor;
+
+    protected final Timer writeTimer;
+
+    protected final Timer waitTimer;
+
+    protected final Timer requestTimer;
+
+    protected final Counter inFlightCounter;
+
+    protected final Map<Long, Timer.Context> requestTimerContexts = new ConcurrentHashMap<>();
+
+    protected volatile Throwable failure;
+
+    public BulkIndexingPipelineImpl(ElasticSearchIndexingImpl esi, ElasticSearchAdminImpl esa) {
+        this.esi = esi;
+        this.esa = esa;
+        MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+        writeTimer = registry.timer(MetricRegistry.name("nuxeo", "elasticsearch", "service", "bulkPipeline", "write"));
+        waitTimer = registry.timer(MetricRegistry.name("nuxeo", "elasticsearch", "service", "bulkPipeline", "wait"));
+        requestTimer = registry.timer(
+                MetricRegistry.name("nuxeo", "elasticsearch", "service", "bulkPipeline", "request"));
+        inFlightCounter = registry.counter(
+                MetricRegistry.name("nuxeo", "elasticsearch", "service", "bulkPipeline", "inFlight"));
+        BulkProcessor.Builder builder = BulkProcessor.builder(esa.getClient(), new Listener());
+        builder.setConcurrentRequests(
+                Integer.parseInt(Framework.getProperty(REINDEX_BULK_CONCURRENT_REQUESTS_PROPERTY,
+                        DEFAULT_CONCURRENT_REQUESTS)));
+        builder.setBulkActions(
+                Integer.parseInt(Framework.getProperty(REINDEX_BULK_ACTIONS_PROPERTY, DEFAULT_BULK_ACTIONS)));
+        builder.setBulkSize(ByteSizeValue.parseBytesSizeValue(
+                Framework.getProperty(REINDEX_BULK_SIZE_PROPERTY, DEFAULT_BULK_SIZE)));
+        String flushInterval = Framework.getProperty(REINDEX_BULK_FLUSH_INTERVAL_PROPERTY);
+        if (StringUtils.isNotBlank(flushInterval)) {
+            builder.setFlushInterval(TimeValue.parseTimeValue(flushInterval, null));
+        }
+        processor = builder.build();
+    }
+
+    @Override
+    public void indexNonRecursive(List<IndexingCommand> cmds) {
+        checkFailure();
+        if (esi.hasSyncCommand(cmds)) {
+            // the index must be refreshed once the commands are processed
+            esi.indexNonRecursive(cmds);
+            return;
+        }
+        esi.processBulkDeleteCommands(cmds);
+        List<IndexRequestBuilder> requests;
+        final Timer.Context writeContext = writeTimer.time();
+        try {
+            requests = esi.buildEsIndexingRequests(cmds);
+        } finally {
+            writeContext.stop();
+        }
+        // blocks when too many bulk requests are in flight
+        final Timer.Context waitContext = waitTimer.time();
+        try {
+            for (IndexRequestBuilder request : requests) {
+                processor.add(request.request());
+            }
+        } finally {
+            waitContext.stop();
+        }
+        esa.totalCommandProcessed.addAndGet(cmds.size());
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (!processor.awaitClose(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new NuxeoException("Timeout waiting for bulk indexing requests after "
+                        + CLOSE_TIMEOUT_SECONDS + "s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NuxeoException("Interrupted while waiting for bulk indexing requests", e);
+        }
+        checkFailure();
+    }
+
+    protected void checkFailure() {
+        if (failure != null) {
+            throw new NuxeoException("Bulk indexing request failed", failure);
+        }
+    }
+
+    protected class Listener implements BulkProcessor.Listener {
+
+        @Override
+        public void beforeBulk(long executionId, BulkRequest request) {
+            inFlightCounter.inc();
+            requestTimerContexts.put(Long.valueOf(executionId), requestTimer.time());
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Sending bulk request %d with %d docs", executionId,
+                        request.numberOfActions()));
+            }
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+            done(executionId);
+            if (response.hasFailures()) {
+                esi.logBulkFailure(response);
+            }
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, Throwable t) {
+            done(executionId);
+            log.error(String.format("Bulk request %d with %d docs failed", executionId,
+                    request.numberOfActions()), t);
+            if (failure == null) {
+                failure = t;
+            }
+        }
+
+        protected void done(long executionId) {
+            inFlightCounter.dec();
+            Timer.Context context = requestTimerContexts.remove(Long.valueOf(executionId));
+            if (context != null) {
+                context.stop();
+            }
+        }
+    }
+
+}
@@ -50,6 +50,7 @@ import org.nuxeo.ecm.core.api.ConcurrentUpdateException;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.DocumentNotFoundException;
 import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.elasticsearch.api.BulkIndexingPipeline;
 import org.nuxeo.elasticsearch.api.ElasticSearchIndexing;
 import org.nuxeo.elasticsearch.commands.IndexingCommand;
 import org.nuxeo.elasticsearch.commands.IndexingCommand.Type;
@@ -57,6 +58,7 @@ import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.metrics.MetricsService;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -149,6 +151,29 @@ public class ElasticSearchIndexingImpl implements ElasticSearchIndexing {
 
     void processBulkIndexCommands(List<IndexingCommand> cmds) {
         BulkRequestBuilder bulkRequest = esa.getClient().prepareBulk();
+        for (IndexRequestBuilder idxRequest : buildEsIndexingRequests(cmds)) {
+            bulkRequest.add(idxRequest);
+        }
+        if (bulkRequest.numberOfActions() > 0) {
+            if (log.isDebugEnabled()) {
+                log.debug(String.format(
+                        "Index %d docs in bulk request: curl -XPOST 'http://localhost:9200/_bulk' -d '%s'",
+                        bulkRequest.numberOfActions(), bulkRequest.request().requests().toString()));
+            }
+            BulkResponse response = bulkRequest.execute().actionGet();
+            if (response.hasFailures()) {
+                logBulkFailure(response);
+            }
+        }
+    }
+
+    /**
+     * Return the indexing requests of the commands, ignoring duplicates and docs that do not exist anymore.
+     *
+     * @since 8.3
+     */
+    List<IndexRequestBuilder> buildEsIndexingRequests(List<IndexingCommand> cmds) {
+        List<IndexRequestBuilder> ret = new ArrayList<>(cmds.size());
         Set<String> docIds = new HashSet<>(cmds.size());
         for (IndexingCommand cmd : cmds) {
             if (cmd.getType() == Type.DELETE || cmd.getType() == Type.UPDATE_DIRECT_CHILDREN) {
@@ -161,7 +186,7 @@ public class ElasticSearchIndexingImpl implements ElasticSearchIndexing {
             try {
                 IndexRequestBuilder idxRequest = buildEsIndexingRequest(cmd);
                 if (idxRequest != null) {
-                    bulkRequest.add(idxRequest);
+                    ret.add(idxRequest);
                 }
             } catch (ConcurrentUpdateException e) {
                 throw e; // bubble up, usually until AbstractWork catches it and maybe retries
@@ -171,17 +196,12 @@ public class ElasticSearchIndexingImpl implements ElasticSearchIndexing {
                 log.error("Ignore indexing command in bulk, fail to create request: " + cmd, e);
             }
         }
-        if (bulkRequest.numberOfActions() > 0) {
-            if (log.isDebugEnabled()) {
-                log.debug(String.format(
-                        "Index %d docs in bulk request: curl -XPOST 'http://localhost:9200/_bulk' -d '%s'",
-                        bulkRequest.numberOfActions(), bulkRequest.request().requests().toString()));
-            }
-            BulkResponse response = bulkRequest.execute().actionGet();
-            if (response.hasFailures()) {
-                logBulkFailure(response);
-            }
-        }
+        return ret;
+    }
+
+    @Override
+    public BulkIndexingPipeline openBulkIndexingPipeline() {
+        return new BulkIndexingPipelineImpl(this, esa);
     }
 
     protected void logBulkFailure(BulkResponse response) {
@@ -204,6 +224,15 @@ public class ElasticSearchIndexingImpl implements ElasticSearchIndexing {
         }
     }
 
+    boolean hasSyncCommand(List<IndexingCommand> cmds) {
+        for (IndexingCommand cmd : cmds) {
+            if (cmd.isSync()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     protected void refreshIfNeeded(List<IndexingCommand> cmds) {
         for (IndexingCommand cmd : cmds) {
             if (refreshIfNeeded(cmd))
@@ -31,11 +31,17 @@ import org.nuxeo.ecm.core.api.DocumentLocation;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.query.sql.NXQL;
 import org.nuxeo.ecm.core.work.api.Work;
+import org.nuxeo.elasticsearch.api.BulkIndexingPipeline;
 import org.nuxeo.elasticsearch.api.ElasticSearchIndexing;
 import org.nuxeo.elasticsearch.commands.IndexingCommand;
 import org.nuxeo.elasticsearch.commands.IndexingCommand.Type;
 import org.nuxeo.elasticsearch.Timestamp;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
 
 /**
  * œ Worker to index a bucket of documents
@@ -49,6 +55,9 @@ public class BucketIndexingWorker extends BaseIndexingWorker implements Work {
 
     private static final String DEFAULT_BUCKET_SIZE = "50";
 
+    private static final Timer fetchTimer = SharedMetricRegistries.getOrCreate(MetricsService.class.getName()).timer(
+            MetricRegistry.name("nuxeo", "elasticsearch", "service", "bulkPipeline", "fetch"));
+
     private final boolean warnAtEnd;
 
     private final int documentCount;
@@ -70,17 +79,20 @@ public class BucketIndexingWorker extends BaseIndexingWorker implements Work {
         openSystemSession();
         int bucketSize = Math.min(documentCount, getBucketSize());
         List<String> ids = new ArrayList<>(bucketSize);
-        for (DocumentLocation doc : getDocuments()) {
-            ids.add(doc.getIdRef().value);
-            if ((ids.size() % bucketSize) == 0) {
-                esi.indexNonRecursive(getIndexingCommands(session, ids));
+        // fetch the next documents while the previous ones are indexed
+        try (BulkIndexingPipeline pipeline = esi.openBulkIndexingPipeline()) {
+            for (DocumentLocation doc : getDocuments()) {
+                ids.add(doc.getIdRef().value);
+                if ((ids.size() % bucketSize) == 0) {
+                    pipeline.indexNonRecursive(getIndexingCommands(session, ids));
+                    ids.clear();
+                }
+            }
+            if (!ids.isEmpty()) {
+                pipeline.indexNonRecursive(getIndexingCommands(session, ids));
                 ids.clear();
             }
         }
-        if (!ids.isEmpty()) {
-            esi.indexNonRecursive(getIndexingCommands(session, ids));
-            ids.clear();
-        }
         if (warnAtEnd) {
             log.warn(String.format("Re-indexing job: %s completed.", getSchedulePath().getParentPath()));
         }
@@ -98,6 +110,15 @@ public class BucketIndexingWorker extends BaseIndexingWorker implements Work {
     }
 
     private List<DocumentModel> fetchDocuments(CoreSession session, List<String> ids) {
+        final Timer.Context timerContext = fetchTimer.time();
+        try {
+            return queryDocuments(session, ids);
+        } finally {
+            timerContext.stop();
+        }
+    }
+
+    private List<DocumentModel> queryDocuments(CoreSession session, List<String> ids) {
         StringBuilder sb = new StringBuilder();
         sb.append("SELECT * FROM Document, Relation WHERE ecm:uuid IN (");
         for (int i = 0; i < ids.size(); i++) {
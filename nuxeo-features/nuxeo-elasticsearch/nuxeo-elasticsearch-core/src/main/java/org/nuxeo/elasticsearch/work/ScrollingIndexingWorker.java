@@ -19,7 +19,9 @@
 
 package org.nuxeo.elasticsearch.work;
 
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.INDEXING_QUEUE_ID;
 import static org.nuxeo.elasticsearch.ElasticSearchConstants.REINDEX_BUCKET_READ_PROPERTY;
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.REINDEX_MAX_SCHEDULED_BUCKETS_PROPERTY;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -30,8 +32,10 @@ import java.util.Map;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.nuxeo.ecm.core.api.IterableQueryResult;
+import org.nuxeo.ecm.core.api.NuxeoException;
 import org.nuxeo.ecm.core.query.sql.NXQL;
 import org.nuxeo.ecm.core.work.api.Work;
+import org.nuxeo.ecm.core.work.api.Work.State;
 import org.nuxeo.ecm.core.work.api.WorkManager;
 import org.nuxeo.runtime.api.Framework;
 
@@ -49,6 +53,10 @@ public class ScrollingIndexingWorker extends BaseIndexingWorker implements Work
 
     private static final long WARN_DOC_COUNT = 500;
 
+    private static final String DEFAULT_MAX_SCHEDULED_BUCKETS = "200";
+
+    private static final long SCHEDULED_BUCKETS_POLL_MILLIS = 100;
+
     protected final String nxql;
 
     protected transient WorkManager workManager;
@@ -114,10 +122,32 @@ public class ScrollingIndexingWorker extends BaseIndexingWorker implements Work
         if (bucket.isEmpty()) {
             return;
         }
+        waitForScheduledBuckets();
         BucketIndexingWorker subWorker = new BucketIndexingWorker(repositoryName, bucket, isLast);
         getWorkManager().schedule(subWorker);
     }
 
+    /**
+     * Waits while too many bucket workers are scheduled, which happens when the cluster indexes slower than we scroll.
+     * Never waits if no other worker of the queue is running, as nobody would consume the buckets.
+     */
+    protected void waitForScheduledBuckets() {
+        int maxScheduled = getMaxScheduledBuckets();
+        if (maxScheduled <= 0) {
+            return;
+        }
+        WorkManager wm = getWorkManager();
+        while (wm.getQueueSize(INDEXING_QUEUE_ID, State.SCHEDULED) >= maxScheduled
+                && wm.getQueueSize(INDEXING_QUEUE_ID, State.RUNNING) > 1) {
+            try {
+                Thread.sleep(SCHEDULED_BUCKETS_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new NuxeoException("Interrupted while waiting for bucket workers", e);
+            }
+        }
+    }
+
     protected WorkManager getWorkManager() {
         if (workManager == null) {
             workManager = Framework.getLocalService(WorkManager.class);
@@ -125,6 +155,11 @@ public class ScrollingIndexingWorker extends BaseIndexingWorker implements Work
         return workManager;
     }
 
+    protected int getMaxScheduledBuckets() {
+        String value = Framework.getProperty(REINDEX_MAX_SCHEDULED_BUCKETS_PROPERTY, DEFAULT_MAX_SCHEDULED_BUCKETS);
+        return Integer.parseInt(value);
+    }
+
     protected int getBucketSize() {
         String value = Framework.getProperty(REINDEX_BUCKET_READ_PROPERTY, DEFAULT_BUCKET_SIZE);
         return Integer.parseInt(value);
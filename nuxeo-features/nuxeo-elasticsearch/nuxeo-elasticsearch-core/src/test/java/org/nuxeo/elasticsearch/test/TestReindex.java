@@ -19,6 +19,9 @@
 
 package org.nuxeo.elasticsearch.test;
 
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.REINDEX_BULK_ACTIONS_PROPERTY;
+import static org.nuxeo.elasticsearch.ElasticSearchConstants.REINDEX_BULK_CONCURRENT_REQUESTS_PROPERTY;
+
 import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
@@ -155,6 +158,31 @@ public class TestReindex {
 
     }
 
+    @Test
+    public void shouldReindexDocumentUsingSmallBulkRequests() throws Exception {
+        buildDocs();
+        startTransaction();
+
+        String nxql = "SELECT * FROM Document, Relation order by ecm:uuid";
+        ElasticSearchService ess = Framework.getLocalService(ElasticSearchService.class);
+        DocumentModelList coreDocs = session.query(nxql);
+        esa.initIndexes(true);
+        esa.refresh();
+        // many bulk requests in flight for each bucket worker
+        Framework.getProperties().setProperty(REINDEX_BULK_ACTIONS_PROPERTY, "2");
+        Framework.getProperties().setProperty(REINDEX_BULK_CONCURRENT_REQUESTS_PROPERTY, "3");
+        try {
+            esi.runReindexingWorker(session.getRepositoryName(), "SELECT * FROM Document");
+            esi.runReindexingWorker(session.getRepositoryName(), "SELECT * FROM Relation");
+            waitForCompletion();
+        } finally {
+            Framework.getProperties().remove(REINDEX_BULK_ACTIONS_PROPERTY);
+            Framework.getProperties().remove(REINDEX_BULK_CONCURRENT_REQUESTS_PROPERTY);
+        }
+        DocumentModelList docs = ess.query(new NxQueryBuilder(session).nxql(nxql).limit(100));
+        Assert.assertEquals(getDigest(coreDocs), getDigest(docs));
+    }
+
     private void buildDocs() throws Exception {
         startTransaction();
 
@@ -18,8 +18,12 @@
  */
 package org.nuxeo.elasticsearch.seqgen;
 
+import java.util.Arrays;
 import java.util.NoSuchElementException;
 
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.client.Client;
 import org.nuxeo.ecm.core.api.NuxeoException;
@@ -72,6 +76,32 @@ public class ESUIDSequencer extends AbstractUIDSequencer {
         return res.getVersion();
     }
 
+    /**
+     * Reserves the values with a single bulk request indexing the sequence document {@code size} times. The values are
+     * unique but may not be consecutive if other nodes use the sequence at the same time.
+     */
+    @Override
+    public long[] getNextBlock(String sequenceName, int size) {
+        Client client = getClient();
+        String source = "{ \"ts\" : " + System.currentTimeMillis() + "}";
+        BulkRequestBuilder bulk = client.prepareBulk();
+        for (int i = 0; i < size; i++) {
+            bulk.add(client.prepareIndex(getESIndexName(), ElasticSearchConstants.SEQ_ID_TYPE, sequenceName).setSource(
+                    source));
+        }
+        BulkResponse res = bulk.execute().actionGet();
+        long[] values = new long[size];
+        int i = 0;
+        for (BulkItemResponse item : res.getItems()) {
+            if (item.isFailed()) {
+                throw new NuxeoException("Cannot increment sequence " + sequenceName + ": " + item.getFailureMessage());
+            }
+            values[i++] = ((IndexResponse) item.getResponse()).getVersion();
+        }
+        Arrays.sort(values);
+        return values;
+    }
+
     @Override
     public int getNext(String sequenceName) {
         return (int) getNextLong(sequenceName);
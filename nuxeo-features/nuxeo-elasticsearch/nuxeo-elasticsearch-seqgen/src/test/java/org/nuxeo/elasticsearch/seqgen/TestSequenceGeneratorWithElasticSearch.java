@@ -28,8 +28,11 @@ import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.uidgen.BlockUIDSequencer;
 import org.nuxeo.ecm.core.uidgen.UIDGeneratorService;
 import org.nuxeo.ecm.core.uidgen.UIDSequencer;
 import org.nuxeo.elasticsearch.test.RepositoryElasticSearchFeature;
@@ -45,6 +48,8 @@ import org.nuxeo.runtime.test.runner.LocalDeploy;
         "org.nuxeo.elasticsearch.seqgen:elasticsearch-seqgen-index-test-contrib.xml" })
 public class TestSequenceGeneratorWithElasticSearch {
 
+    private static final Log log = LogFactory.getLog(TestSequenceGeneratorWithElasticSearch.class);
+
     @Inject
     protected UIDGeneratorService uidGeneratorService;
 
@@ -101,4 +106,38 @@ public class TestSequenceGeneratorWithElasticSearch {
         assertEquals(nbCalls + 1, seq.getNext(seqName));
     }
 
+    @Test
+    public void testBlockSequencer() {
+        UIDSequencer seq = uidGeneratorService.getSequencer("uidgenBlock");
+        assertTrue(seq instanceof BlockUIDSequencer);
+
+        assertEquals(1, seq.getNext("myBlockSeq"));
+        assertEquals(2, seq.getNext("myBlockSeq"));
+        // the whole block is reserved in elasticsearch
+        assertEquals(101, uidGeneratorService.getSequencer("uidgen").getNext("myBlockSeq"));
+        assertEquals(3L, seq.getNextLong("myBlockSeq"));
+    }
+
+    /**
+     * Logs the time to allocate values one by one and by blocks.
+     */
+    @Test
+    public void testThroughput() throws Exception {
+        int n = 5000;
+        UIDSequencer single = uidGeneratorService.getSequencer("uidgen");
+        UIDSequencer block = uidGeneratorService.getSequencer("uidgenBlock");
+        long t0 = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            single.getNextLong("perfSingle");
+        }
+        long t1 = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            block.getNextLong("perfBlock");
+        }
+        long t2 = System.nanoTime();
+        assertEquals(n, block.getNextLong("perfBlock") - 1);
+        log.debug(String.format("Elasticsearch: %d values one by one %d ms, by blocks of 100 %d ms", n,
+                TimeUnit.NANOSECONDS.toMillis(t1 - t0), TimeUnit.NANOSECONDS.toMillis(t2 - t1)));
+    }
+
 }
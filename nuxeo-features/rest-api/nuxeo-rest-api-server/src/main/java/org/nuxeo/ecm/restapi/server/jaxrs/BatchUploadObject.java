@@ -133,6 +133,7 @@ public class BatchUploadObject extends AbstractResource<ResourceTypeImpl> {
         String contentLength = request.getHeader("Content-Length");
         String uploadChunkIndex = request.getHeader("X-Upload-Chunk-Index");
         String chunkCount = request.getHeader("X-Upload-Chunk-Count");
+        String chunkOffset = request.getHeader("X-Upload-Chunk-Offset");
         String fileName = request.getHeader("X-File-Name");
         String fileSize = request.getHeader("X-File-Size");
         String mimeType = request.getHeader("X-File-Type");
@@ -170,11 +171,14 @@ public class BatchUploadObject extends AbstractResource<ResourceTypeImpl> {
                 try {
                     log.debug(String.format("Uploading chunk [index=%s / total=%s] (%sb) for file %s",
                             uploadChunkIndex, chunkCount, uploadedSize, fileName));
+                    // chunks are written directly at their offset in the file if the client gives it
                     bm.addStream(batchId, fileIdx, is, Integer.parseInt(chunkCount),
-                            Integer.parseInt(uploadChunkIndex), fileName, mimeType, Long.parseLong(fileSize));
+                            Integer.parseInt(uploadChunkIndex), fileName, mimeType, Long.parseLong(fileSize),
+                            chunkOffset == null ? -1 : Long.parseLong(chunkOffset), Long.parseLong(uploadedSize));
                 } catch (NumberFormatException e) {
                     return buildTextResponse(Status.BAD_REQUEST,
-                            "X-Upload-Chunk-Index, X-Upload-Chunk-Count and X-File-Size headers must be numbers");
+                            "X-Upload-Chunk-Index, X-Upload-Chunk-Count, X-Upload-Chunk-Offset and X-File-Size headers"
+                                    + " must be numbers");
                 }
             } else {
                 // Use non chunked mode by default if X-Upload-Type header is not provided
@@ -0,0 +1,59 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.model.impl.ComponentManagerImpl;
+import org.nuxeo.runtime.model.impl.ComponentStartupReport;
+import org.nuxeo.runtime.model.impl.ComponentStartupReport.Step;
+import org.nuxeo.runtime.test.NXRuntimeTestCase;
+
+public class TestComponentStartupReport extends NXRuntimeTestCase {
+
+    @Test
+    public void testReport() throws Exception {
+        ComponentManagerImpl mgr = (ComponentManagerImpl) Framework.getRuntime().getComponentManager();
+        ComponentStartupReport report = mgr.getStartupReport();
+        int parsed = report.getCount(Step.PARSE);
+        int activated = report.getCount(Step.ACTIVATE);
+        int contributed = report.getCount(Step.CONTRIBUTE);
+
+        deployContrib("org.nuxeo.runtime.test.tests", "BaseXPoint.xml");
+        deployContrib("org.nuxeo.runtime.test.tests", "OverridingXPoint.xml");
+
+        assertEquals(parsed + 2, report.getCount(Step.PARSE));
+        assertEquals(activated + 2, report.getCount(Step.ACTIVATE));
+        // one contribution to each component
+        assertEquals(contributed + 2, report.getCount(Step.CONTRIBUTE));
+
+        StringBuilder msg = new StringBuilder();
+        report.appendReport(msg, Integer.MAX_VALUE);
+        assertTrue(msg.toString(), msg.toString().contains("* BaseXPoint: "));
+        assertTrue(msg.toString(), msg.toString().contains("* OverridingXPoint: "));
+
+        report.clear();
+        assertEquals(0, report.getCount(Step.PARSE));
+        assertEquals(0, report.getTime(Step.ACTIVATE, ComponentWithXPoint.NAME));
+    }
+
+}
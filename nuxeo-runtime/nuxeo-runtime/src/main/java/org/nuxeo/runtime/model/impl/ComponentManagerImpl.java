@@ -42,6 +42,7 @@ import org.nuxeo.runtime.model.ComponentManager;
 import org.nuxeo.runtime.model.ComponentName;
 import org.nuxeo.runtime.model.Extension;
 import org.nuxeo.runtime.model.RegistrationInfo;
+import org.nuxeo.runtime.model.impl.ComponentStartupReport.Step;
 
 /**
  * @author Bogdan Stefanescu
@@ -63,6 +64,8 @@ public class ComponentManagerImpl implements ComponentManager {
 
     protected ComponentRegistry reg;
 
+    protected final ComponentStartupReport startupReport = new ComponentStartupReport();
+
     public ComponentManagerImpl(RuntimeService runtime) {
         reg = new ComponentRegistry();
         pendingExtensions = new HashMap<ComponentName, Set<Extension>>();
@@ -71,6 +74,15 @@ public class ComponentManagerImpl implements ComponentManager {
         blacklist = new HashSet<String>();
     }
 
+    /**
+     * Gets the report of the time spent starting the components.
+     *
+     * @since 8.3
+     */
+    public ComponentStartupReport getStartupReport() {
+        return startupReport;
+    }
+
     @Override
     public synchronized Collection<RegistrationInfo> getRegistrations() {
         return new ArrayList<RegistrationInfo>(reg.getComponents());
@@ -257,8 +269,13 @@ public class ComponentManagerImpl implements ComponentManager {
             if (log.isDebugEnabled()) {
                 log.debug("Register contributed extension: " + extension);
             }
-            loadContributions(ri, extension);
-            ri.component.registerExtension(extension);
+            long t0 = System.nanoTime();
+            try {
+                loadContributions(ri, extension);
+                ri.component.registerExtension(extension);
+            } finally {
+                startupReport.record(Step.CONTRIBUTE, ri.getName(), t0);
+            }
             sendEvent(new ComponentEvent(ComponentEvent.EXTENSION_REGISTERED,
                     ((ComponentInstanceImpl) extension.getComponent()).ri, extension));
         } else { // put the extension in the pending queue
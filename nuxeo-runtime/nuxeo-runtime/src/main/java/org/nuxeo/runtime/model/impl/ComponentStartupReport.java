@@ -0,0 +1,207 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.runtime.model.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.nuxeo.runtime.model.ComponentName;
+
+/**
+ * Collects the time spent by the component manager while starting the runtime, to show where the startup time goes.
+ * <p>
+ * Two kinds of timings are recorded:
+ * <ul>
+ * <li>the {@link Step steps} done for each component (descriptor parsing, activation, registration of the
+ * contributions to its extension points, application started notification), accumulated per component and per step.
+ * Steps are not exclusive: a component may deploy other components or register contributions while it is activated
+ * or notified, in which case the time of the nested steps is also counted in the outer one, and the totals may exceed
+ * the wall-clock time;</li>
+ * <li>wall-clock runtime phases, which may include component steps.</li>
+ * </ul>
+ *
+ * @since 8.3
+ */
+public class ComponentStartupReport {
+
+    /** Property enabling the logging of the report at INFO level when the application is started. */
+    public static final String REPORT_PROP = "org.nuxeo.runtime.startup.report";
+
+    /** Property holding the number of slowest components listed in the report. */
+    public static final String REPORT_SIZE_PROP = "org.nuxeo.runtime.startup.report.size";
+
+    public static final int DEFAULT_REPORT_SIZE = 20;
+
+    public enum Step {
+        /** Reading of the component XML descriptor. */
+        PARSE("descriptors parsed"),
+        /** Instantiation and activation of the component. */
+        ACTIVATE("components activated"),
+        /** Loading and registration of a contribution to an extension point of the component. */
+        CONTRIBUTE("contributions registered"),
+        /** Application started notification of the component. */
+        START("components started");
+
+        protected final String label;
+
+        Step(String label) {
+            this.label = label;
+        }
+    }
+
+    protected static final Step[] STEPS = Step.values();
+
+    protected final long[] stepTimes = new long[STEPS.length];
+
+    protected final int[] stepCounts = new int[STEPS.length];
+
+    protected final Map<ComponentName, long[]> componentTimes = new HashMap<>();
+
+    protected final Map<String, Long> phaseTimes = new LinkedHashMap<>();
+
+    /**
+     * Records a step done for a component.
+     *
+     * @param step the step
+     * @param name the component, or {@code null} if unknown
+     * @param startNanos the value of {@link System#nanoTime} when the step started
+     */
+    public synchronized void record(Step step, ComponentName name, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        int i = step.ordinal();
+        stepTimes[i] += nanos;
+        stepCounts[i]++;
+        if (name != null) {
+            componentTimes.computeIfAbsent(name, k -> new long[STEPS.length])[i] += nanos;
+        }
+    }
+
+    /**
+     * Records a wall-clock runtime phase. Recording a phase twice accumulates its times.
+     *
+     * @param phase the phase name
+     * @param startNanos the value of {@link System#nanoTime} when the phase started
+     */
+    public synchronized void recordPhase(String phase, long startNanos) {
+        phaseTimes.merge(phase, Long.valueOf(System.nanoTime() - startNanos), Long::sum);
+    }
+
+    /**
+     * Gets the total time spent in a step, in nanoseconds.
+     */
+    public synchronized long getTime(Step step) {
+        return stepTimes[step.ordinal()];
+    }
+
+    /**
+     * Gets the number of times a step was done.
+     */
+    public synchronized int getCount(Step step) {
+        return stepCounts[step.ordinal()];
+    }
+
+    /**
+     * Gets the time spent in a step for a given component, in nanoseconds.
+     */
+    public synchronized long getTime(Step step, ComponentName name) {
+        long[] times = componentTimes.get(name);
+        return times == null ? 0 : times[step.ordinal()];
+    }
+
+    /**
+     * Gets the wall-clock time of a runtime phase, in nanoseconds, or {@code -1} if it wasn't recorded.
+     */
+    public synchronized long getPhaseTime(String phase) {
+        Long nanos = phaseTimes.get(phase);
+        return nanos == null ? -1 : nanos.longValue();
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < STEPS.length; i++) {
+            stepTimes[i] = 0;
+            stepCounts[i] = 0;
+        }
+        componentTimes.clear();
+        phaseTimes.clear();
+    }
+
+    /**
+     * Appends the report to the given buffer.
+     *
+     * @param msg the buffer
+     * @param size the maximum number of slowest components to list
+     */
+    public synchronized void appendReport(StringBuilder msg, int size) {
+        msg.append("= Component Startup Times:\n");
+        for (Entry<String, Long> e : phaseTimes.entrySet()) {
+            msg.append("  ").append(e.getKey()).append(": ").append(format(e.getValue().longValue())).append('\n');
+        }
+        for (Step step : STEPS) {
+            int i = step.ordinal();
+            msg.append("  ")
+               .append(step.label)
+               .append(": ")
+               .append(stepCounts[i])
+               .append(" in ")
+               .append(format(stepTimes[i]))
+               .append('\n');
+        }
+        if (size <= 0 || componentTimes.isEmpty()) {
+            return;
+        }
+        List<Entry<ComponentName, long[]>> entries = new ArrayList<>(componentTimes.entrySet());
+        entries.sort((e1, e2) -> Long.compare(total(e2.getValue()), total(e1.getValue())));
+        msg.append("  slowest components:\n");
+        for (Entry<ComponentName, long[]> e : entries.subList(0, Math.min(size, entries.size()))) {
+            long[] times = e.getValue();
+            msg.append("  * ").append(e.getKey().getName()).append(": ").append(format(total(times))).append(" (");
+            for (Step step : STEPS) {
+                if (step.ordinal() > 0) {
+                    msg.append(", ");
+                }
+                msg.append(step.name().toLowerCase()).append(' ').append(format(times[step.ordinal()]));
+            }
+            msg.append(")\n");
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder msg = new StringBuilder();
+        appendReport(msg, DEFAULT_REPORT_SIZE);
+        return msg.toString();
+    }
+
+    protected static long total(long[] times) {
+        long total = 0;
+        for (long t : times) {
+            total += t;
+        }
+        return total;
+    }
+
+    protected static String format(long nanos) {
+        return String.format("%.3fs", Double.valueOf(nanos / 1e9));
+    }
+
+}
@@ -42,6 +42,7 @@ import org.nuxeo.runtime.model.RegistrationInfo;
 import org.nuxeo.runtime.model.RuntimeContext;
 import org.nuxeo.runtime.model.StreamRef;
 import org.nuxeo.runtime.model.URLStreamRef;
+import org.nuxeo.runtime.model.impl.ComponentStartupReport.Step;
 import org.nuxeo.runtime.osgi.OSGiRuntimeActivator;
 import org.nuxeo.runtime.osgi.OSGiRuntimeContext;
 import org.osgi.framework.Bundle;
@@ -57,6 +58,14 @@ public class DefaultRuntimeContext implements RuntimeContext {
 
 	protected RuntimeService runtime;
 
+	/**
+	 * Building the reader introspects all the descriptor classes, and it is stateless once built, so it is shared by all
+	 * the contexts instead of being built once per bundle.
+	 *
+	 * @since 8.3
+	 */
+	protected static final ComponentDescriptorReader DEFAULT_READER = new ComponentDescriptorReader();
+
 	protected final ComponentDescriptorReader reader;
 
 	protected final Map<String, ComponentName> deployedFiles;
@@ -67,7 +76,7 @@ public class DefaultRuntimeContext implements RuntimeContext {
 
 	public DefaultRuntimeContext(RuntimeService runtime) {
 		this.runtime = runtime;
-		reader = new ComponentDescriptorReader();
+		reader = DEFAULT_READER;
 		deployedFiles = new Hashtable<String, ComponentName>();
 	}
 
@@ -110,11 +119,16 @@ public class DefaultRuntimeContext implements RuntimeContext {
 		if (deployedFiles.containsKey(name)) {
 			return null;
 		}
+		long t0 = System.nanoTime();
 		RegistrationInfoImpl ri = createRegistrationInfo(ref);
 		if (ri == null || ri.name == null) {
 			// not parsed correctly, e.g., faces-config.xml
 			return null;
 		}
+		ComponentManager mgr = runtime.getComponentManager();
+		if (mgr instanceof ComponentManagerImpl) {
+			((ComponentManagerImpl) mgr).getStartupReport().record(Step.PARSE, ri.name, t0);
+		}
 		log.debug("Deploying component from url " + name);
 		ri.context = this;
 		ri.xmlFileUrl = ref.asURL();
@@ -126,7 +140,7 @@ public class DefaultRuntimeContext implements RuntimeContext {
 				ri.context = new OSGiRuntimeContext(bundle);
 			}
 		}
-		runtime.getComponentManager().register(ri);
+		mgr.register(ri);
 		deployedFiles.put(name, ri.getName());
 		return ri;
 	}
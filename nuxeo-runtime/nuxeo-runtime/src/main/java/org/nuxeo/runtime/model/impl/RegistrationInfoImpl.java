@@ -48,6 +48,7 @@ import org.nuxeo.runtime.model.ExtensionPoint;
 import org.nuxeo.runtime.model.Property;
 import org.nuxeo.runtime.model.RegistrationInfo;
 import org.nuxeo.runtime.model.RuntimeContext;
+import org.nuxeo.runtime.model.impl.ComponentStartupReport.Step;
 
 /**
  * @author <a href="mailto:bs@nuxeo.com">Bogdan Stefanescu</a>
@@ -328,12 +329,15 @@ public class RegistrationInfoImpl implements RegistrationInfo {
         if (component != null) {
             Object ci = component.getInstance();
             if (ci instanceof Component) {
+                long t0 = System.nanoTime();
                 try {
                     ((Component) ci).applicationStarted(component);
                 } catch (RuntimeException e) {
                     log.error(String.format("Component %s notification of application started failed: %s",
                             component.getName(), e.getMessage()), e);
                     state = START_FAILURE;
+                } finally {
+                    recordStartupStep(Step.START, t0);
                 }
             }
         }
@@ -344,6 +348,7 @@ public class RegistrationInfoImpl implements RegistrationInfo {
             return;
         }
 
+        long t0 = System.nanoTime();
         component = createComponentInstance();
 
         state = ACTIVATING;
@@ -351,6 +356,7 @@ public class RegistrationInfoImpl implements RegistrationInfo {
 
         // activate component
         component.activate();
+        recordStartupStep(Step.ACTIVATE, t0);
         log.info("Component activated: " + name);
 
         state = ACTIVATED;
@@ -384,6 +390,7 @@ public class RegistrationInfoImpl implements RegistrationInfo {
                 continue;
             }
             for (Extension xt : pendingExt) {
+                long t0 = System.nanoTime();
                 ComponentManagerImpl.loadContributions(this, xt);
                 try {
                     component.registerExtension(xt);
@@ -394,11 +401,19 @@ public class RegistrationInfoImpl implements RegistrationInfo {
                     msg += " (" + e.toString() + ')';
                     Framework.getRuntime().getWarnings().add(msg);
                     Framework.handleDevError(e);
+                } finally {
+                    recordStartupStep(Step.CONTRIBUTE, t0);
                 }
             }
         }
     }
 
+    protected void recordStartupStep(Step step, long startNanos) {
+        if (manager != null) {
+            manager.startupReport.record(step, name, startNanos);
+        }
+    }
+
     public synchronized void deactivate() {
         if (state != ACTIVATED && state != START_FAILURE) {
             return;
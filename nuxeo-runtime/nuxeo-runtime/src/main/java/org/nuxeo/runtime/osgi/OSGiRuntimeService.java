@@ -57,7 +57,9 @@ import org.nuxeo.runtime.api.ServicePassivator;
 import org.nuxeo.runtime.model.ComponentName;
 import org.nuxeo.runtime.model.RegistrationInfo;
 import org.nuxeo.runtime.model.RuntimeContext;
+import org.nuxeo.runtime.model.impl.ComponentManagerImpl;
 import org.nuxeo.runtime.model.impl.ComponentPersistence;
+import org.nuxeo.runtime.model.impl.ComponentStartupReport;
 import org.nuxeo.runtime.model.impl.RegistrationInfoImpl;
 
 import org.osgi.framework.Bundle;
@@ -102,6 +104,9 @@ public class OSGiRuntimeService extends AbstractRuntimeService implements Framew
 
     private boolean appStarted = false;
 
+    /** The value of {@link System#nanoTime} when the runtime started. */
+    private long startNanos;
+
     /**
      * OSGi doesn't provide a method to lookup bundles by symbolic name. This table is used to map symbolic names to
      * bundles. This map is not handling bundle versions.
@@ -198,14 +203,37 @@ public class OSGiRuntimeService extends AbstractRuntimeService implements Framew
 
     @Override
     protected void doStart() {
+        startNanos = System.nanoTime();
         bundleContext.addFrameworkListener(this);
         try {
             loadConfig();
         } catch (IOException e) {
             throw new RuntimeServiceException(e);
         }
+        recordStartupPhase("configuration", startNanos);
         // load configuration if any
+        long t0 = System.nanoTime();
         loadComponents(bundleContext.getBundle(), context);
+        recordStartupPhase("runtime components", t0);
+    }
+
+    /**
+     * Gets the report of the time spent starting the components, or {@code null} if not available.
+     *
+     * @since 8.3
+     */
+    public ComponentStartupReport getStartupReport() {
+        if (manager instanceof ComponentManagerImpl) {
+            return ((ComponentManagerImpl) manager).getStartupReport();
+        }
+        return null;
+    }
+
+    protected void recordStartupPhase(String phase, long t0) {
+        ComponentStartupReport report = getStartupReport();
+        if (report != null) {
+            report.recordPhase(phase, t0);
+        }
     }
 
     @Override
@@ -510,6 +538,8 @@ public class OSGiRuntimeService extends AbstractRuntimeService implements Framew
             }
             appStarted = true;
         }
+        recordStartupPhase("framework start", startNanos);
+        long t0 = System.nanoTime();
         try {
             persistence.loadPersistedComponents();
         } catch (RuntimeException | IOException e) {
@@ -520,9 +550,14 @@ public class OSGiRuntimeService extends AbstractRuntimeService implements Framew
         // requirement
         // on this marker component
         deployFrameworkStartedComponent();
+        recordStartupPhase("deferred components", t0);
+        t0 = System.nanoTime();
         notifyComponentsOnStarted();
+        recordStartupPhase("application started notification", t0);
+        recordStartupPhase("total", startNanos);
         // print the startup message
         printStatusMessage();
+        printStartupReport();
     }
 
     /* --------------- FrameworkListener API ------------------ */
@@ -545,6 +580,30 @@ public class OSGiRuntimeService extends AbstractRuntimeService implements Framew
         }
     }
 
+    protected void printStartupReport() {
+        ComponentStartupReport report = getStartupReport();
+        boolean enabled = Boolean.parseBoolean(getProperty(ComponentStartupReport.REPORT_PROP, "false"));
+        if (report == null || !(enabled || log.isDebugEnabled())) {
+            return;
+        }
+        int size = ComponentStartupReport.DEFAULT_REPORT_SIZE;
+        String sizeProp = getProperty(ComponentStartupReport.REPORT_SIZE_PROP);
+        if (sizeProp != null) {
+            try {
+                size = Integer.parseInt(sizeProp.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value for " + ComponentStartupReport.REPORT_SIZE_PROP + ": " + sizeProp);
+            }
+        }
+        StringBuilder msg = new StringBuilder();
+        report.appendReport(msg, size);
+        if (enabled) {
+            log.info(msg);
+        } else {
+            log.debug(msg);
+        }
+    }
+
     protected void deployFrameworkStartedComponent() {
         RegistrationInfoImpl ri = new RegistrationInfoImpl(FRAMEWORK_STARTED_COMP);
         ri.setContext(context);
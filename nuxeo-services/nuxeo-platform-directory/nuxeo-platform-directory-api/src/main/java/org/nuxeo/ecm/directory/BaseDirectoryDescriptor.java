@@ -56,6 +56,16 @@ public class BaseDirectoryDescriptor implements Cloneable {
 
     public static final int CACHE_MAX_SIZE_DEFAULT = 0;
 
+    /**
+     * @since 8.3
+     */
+    public static final int NEAR_CACHE_MAX_SIZE_DEFAULT = 0;
+
+    /**
+     * @since 8.3
+     */
+    public static final int NEAR_CACHE_TIMEOUT_DEFAULT = 60;
+
     public static final boolean READ_ONLY_DEFAULT = false;
 
     public static final SubstringMatchType SUBSTRING_MATCH_TYPE_DEFAULT = SubstringMatchType.subinitial;
@@ -111,6 +121,22 @@ public class BaseDirectoryDescriptor implements Cloneable {
     @XNode("negativeCaching")
     public Boolean negativeCaching;
 
+    /**
+     * Maximum number of entries kept in the JVM in front of the entry caches, {@code 0} to disable.
+     *
+     * @since 8.3
+     */
+    @XNode("nearCacheMaxSize")
+    public Integer nearCacheMaxSize;
+
+    /**
+     * Time in seconds after which an entry of the near cache expires.
+     *
+     * @since 8.3
+     */
+    @XNode("nearCacheTimeout")
+    public Integer nearCacheTimeout;
+
     @XNode("substringMatchType")
     public String substringMatchType;
 
@@ -130,6 +156,20 @@ public class BaseDirectoryDescriptor implements Cloneable {
         return cacheMaxSize == null ? CACHE_MAX_SIZE_DEFAULT : cacheMaxSize.intValue();
     }
 
+    /**
+     * @since 8.3
+     */
+    public int getNearCacheMaxSize() {
+        return nearCacheMaxSize == null ? NEAR_CACHE_MAX_SIZE_DEFAULT : nearCacheMaxSize.intValue();
+    }
+
+    /**
+     * @since 8.3
+     */
+    public int getNearCacheTimeout() {
+        return nearCacheTimeout == null ? NEAR_CACHE_TIMEOUT_DEFAULT : nearCacheTimeout.intValue();
+    }
+
     public SubstringMatchType getSubstringMatchType() {
         if (StringUtils.isBlank(substringMatchType)) {
             return SUBSTRING_MATCH_TYPE_DEFAULT;
@@ -210,6 +250,12 @@ public class BaseDirectoryDescriptor implements Cloneable {
         if (other.negativeCaching != null) {
             negativeCaching = other.negativeCaching;
         }
+        if (other.nearCacheMaxSize != null) {
+            nearCacheMaxSize = other.nearCacheMaxSize;
+        }
+        if (other.nearCacheTimeout != null) {
+            nearCacheTimeout = other.nearCacheTimeout;
+        }
         if (other.substringMatchType != null) {
             substringMatchType = other.substringMatchType;
         }
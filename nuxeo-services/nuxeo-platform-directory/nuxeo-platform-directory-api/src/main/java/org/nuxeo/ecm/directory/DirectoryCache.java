@@ -21,24 +21,37 @@ package org.nuxeo.ecm.directory;
 
 import java.io.Serializable;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.cache.Cache;
+import org.nuxeo.ecm.core.cache.CacheAttributesChecker;
+import org.nuxeo.ecm.core.cache.CacheInvalidationChannel;
 import org.nuxeo.ecm.core.cache.CacheService;
+import org.nuxeo.ecm.core.cache.InMemoryCacheImpl;
 import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.metrics.MetricsService;
 
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+import com.google.common.cache.CacheBuilder;
 
 /**
  * Very simple cache system to cache directory entry lookups (not search queries) on top of nuxeo cache
  * <p>
  * Beware that this cache is not transaction aware (which is not a problem for LDAP directories anyway).
+ * <p>
+ * Optionally, a bounded near cache in the JVM is kept in front of the nuxeo cache, to avoid the round trip and
+ * deserialization of a shared cache like Redis. When a {@link CacheInvalidationChannel} is available, invalidations
+ * are sent to the other nodes, which drop the entries from their near cache (and from their nuxeo cache if it is
+ * local to the JVM).
  */
 public class DirectoryCache {
 
@@ -56,6 +69,53 @@ public class DirectoryCache {
 
     protected boolean negativeCaching;
 
+    /**
+     * The near caches, {@code null} if disabled.
+     *
+     * @since 8.3
+     */
+    protected com.google.common.cache.Cache<String, Serializable> nearEntryCache;
+
+    /**
+     * @since 8.3
+     */
+    protected com.google.common.cache.Cache<String, Serializable> nearEntryCacheWithoutReferences;
+
+    /**
+     * Incremented on each invalidation, to avoid putting in the near cache an entry read before an invalidation.
+     *
+     * @since 8.3
+     */
+    protected final AtomicLong invalidationGeneration = new AtomicLong();
+
+    /**
+     * @since 8.3
+     */
+    protected CacheInvalidationChannel invalidationChannel;
+
+    /**
+     * @since 8.3
+     */
+    protected volatile boolean invalidationChannelInitialized;
+
+    /**
+     * Time after which the channel is looked up again while it is not available, as it may be registered after the
+     * first use of the cache.
+     *
+     * @since 8.3
+     */
+    protected volatile long nextInvalidationChannelLookup;
+
+    /**
+     * @since 8.3
+     */
+    protected static final long INVALIDATION_CHANNEL_LOOKUP_DELAY = 1000; // ms
+
+    /**
+     * @since 8.3
+     */
+    protected final CacheInvalidationChannel.Listener invalidationListener = this::receiveInvalidations;
+
     protected final MetricRegistry metrics = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
 
     protected final Counter hitsCounter;
@@ -70,6 +130,16 @@ public class DirectoryCache {
 
     protected final Counter sizeCounter;
 
+    /**
+     * @since 8.3
+     */
+    protected final Counter nearHitsCounter;
+
+    /**
+     * @since 8.3
+     */
+    protected final Timer getTimer;
+
     private final static Log log = LogFactory.getLog(DirectoryCache.class);
 
     protected DirectoryCache(String name) {
@@ -81,6 +151,8 @@ public class DirectoryCache {
                 "invalidations"));
         sizeCounter = metrics.counter(MetricRegistry.name("nuxeo", "directories", name, "cache", "size"));
         maxCounter = metrics.counter(MetricRegistry.name("nuxeo", "directories", name, "cache", "max"));
+        nearHitsCounter = metrics.counter(MetricRegistry.name("nuxeo", "directories", name, "cache", "nearhits"));
+        getTimer = metrics.timer(MetricRegistry.name("nuxeo", "directories", name, "cache", "get"));
     }
 
     protected boolean isCacheEnabled() {
@@ -112,10 +184,38 @@ public class DirectoryCache {
             return source.getEntryFromSource(entryId, fetchReferences);
         }
 
+        getInvalidationChannel();
+        Timer.Context timerContext = getTimer.time();
+        try {
+            return getCachedEntry(entryId, source, fetchReferences);
+        } finally {
+            timerContext.stop();
+        }
+    }
+
+    protected DocumentModel getCachedEntry(String entryId, EntrySource source, boolean fetchReferences)
+            throws DirectoryException {
+        com.google.common.cache.Cache<String, Serializable> nearCache = fetchReferences ? nearEntryCache
+                : nearEntryCacheWithoutReferences;
+        if (nearCache != null) {
+            Serializable entry = nearCache.getIfPresent(entryId);
+            if (entry != null) {
+                nearHitsCounter.inc();
+                if (CACHE_MISS.equals(entry)) {
+                    negativeHitsCounter.inc();
+                    return null;
+                }
+                hitsCounter.inc();
+                return cloneEntry((DocumentModel) entry);
+            }
+        }
+        long generation = invalidationGeneration.get();
+
         Cache cache = fetchReferences ? getEntryCache() : getEntryCacheWithoutReferences();
         Serializable entry = cache.get(entryId);
         if (CACHE_MISS.equals(entry)) {
             negativeHitsCounter.inc();
+            putNear(nearCache, entryId, CACHE_MISS, generation);
             return null;
         }
         DocumentModel dm = (DocumentModel) entry;
@@ -134,6 +234,29 @@ public class DirectoryCache {
         } else {
             hitsCounter.inc();
         }
+        if (dm != null) {
+            putNear(nearCache, entryId, dm, generation);
+        } else if (negativeCaching) {
+            putNear(nearCache, entryId, CACHE_MISS, generation);
+        }
+        return cloneEntry(dm);
+    }
+
+    /**
+     * Puts an entry in the near cache, unless an invalidation happened since it was read.
+     */
+    protected void putNear(com.google.common.cache.Cache<String, Serializable> nearCache, String entryId,
+            Serializable entry, long generation) {
+        if (nearCache == null) {
+            return;
+        }
+        nearCache.put(entryId, entry);
+        if (invalidationGeneration.get() != generation) {
+            nearCache.invalidate(entryId);
+        }
+    }
+
+    protected DocumentModel cloneEntry(DocumentModel dm) {
         try {
             if (dm == null) {
                 return null;
@@ -154,6 +277,7 @@ public class DirectoryCache {
     public void invalidate(List<String> entryIds) {
         if (isCacheEnabled()) {
             synchronized (this) {
+                invalidateNear(entryIds);
                 for (String entryId : entryIds) {
                     getEntryCache().invalidate(entryId);
                     getEntryCacheWithoutReferences().invalidate(entryId);
@@ -161,6 +285,7 @@ public class DirectoryCache {
                     invalidationsCounter.inc();
                 }
             }
+            publishInvalidations(entryIds);
         }
     }
 
@@ -174,10 +299,160 @@ public class DirectoryCache {
                 long count = sizeCounter.getCount();
                 sizeCounter.dec(count);
                 invalidationsCounter.inc(count);
+                invalidateNear(null);
                 getEntryCache().invalidateAll();
                 getEntryCacheWithoutReferences().invalidateAll();
             }
+            publishInvalidations(null);
+        }
+    }
+
+    /**
+     * @param entryIds the entry ids, or {@code null} for all entries
+     */
+    protected void invalidateNear(Collection<String> entryIds) {
+        invalidationGeneration.incrementAndGet();
+        if (nearEntryCache == null) {
+            return;
+        }
+        if (entryIds == null) {
+            nearEntryCache.invalidateAll();
+            nearEntryCacheWithoutReferences.invalidateAll();
+        } else {
+            nearEntryCache.invalidateAll(entryIds);
+            nearEntryCacheWithoutReferences.invalidateAll(entryIds);
+        }
+    }
+
+    protected String getInvalidationTopic() {
+        return "directory:" + name;
+    }
+
+    /**
+     * Gets the channel to send invalidations to the other nodes, subscribing to it once it is available.
+     * <p>
+     * While there is no channel, it is looked up again at most once per second.
+     *
+     * @return the channel, or {@code null} if there is none
+     * @since 8.3
+     */
+    protected CacheInvalidationChannel getInvalidationChannel() {
+        if (invalidationChannelInitialized) {
+            return invalidationChannel;
+        }
+        if (System.currentTimeMillis() < nextInvalidationChannelLookup) {
+            return null;
+        }
+        synchronized (this) {
+            if (!invalidationChannelInitialized) {
+                CacheInvalidationChannel channel = Framework.getService(CacheInvalidationChannel.class);
+                if (channel == null) {
+                    nextInvalidationChannelLookup = System.currentTimeMillis() + INVALIDATION_CHANNEL_LOOKUP_DELAY;
+                    return null;
+                }
+                channel.subscribe(getInvalidationTopic(), invalidationListener);
+                invalidationChannel = channel;
+                invalidationChannelInitialized = true;
+            }
+            return invalidationChannel;
+        }
+    }
+
+    /**
+     * Checks if some entries are cached in the JVM, in which case the other nodes must be told about invalidations.
+     *
+     * @since 8.3
+     */
+    protected boolean hasLocalCaches() {
+        return nearEntryCache != null || isLocal(getEntryCache()) || isLocal(getEntryCacheWithoutReferences());
+    }
+
+    protected void publishInvalidations(Collection<String> entryIds) {
+        if (!hasLocalCaches()) {
+            // the shared caches are already invalidated, the other nodes have nothing to drop
+            return;
+        }
+        CacheInvalidationChannel channel = getInvalidationChannel();
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.publish(getInvalidationTopic(), entryIds);
+        } catch (RuntimeException e) {
+            log.error("Cannot send invalidations of directory: " + name, e);
+        }
+    }
+
+    /**
+     * Called when another node invalidated entries.
+     *
+     * @param entryIds the entry ids, or {@code null} for all entries
+     * @since 8.3
+     */
+    protected void receiveInvalidations(Collection<String> entryIds) {
+        if (!isCacheEnabled()) {
+            return;
+        }
+        invalidateNear(entryIds);
+        // the other node already invalidated the shared caches, but not the ones local to this node
+        for (Cache cache : Arrays.asList(getEntryCache(), getEntryCacheWithoutReferences())) {
+            if (!isLocal(cache)) {
+                continue;
+            }
+            if (entryIds == null) {
+                cache.invalidateAll();
+            } else {
+                for (String entryId : entryIds) {
+                    cache.invalidate(entryId);
+                }
+            }
+        }
+    }
+
+    protected static boolean isLocal(Cache cache) {
+        if (cache instanceof CacheAttributesChecker) {
+            cache = ((CacheAttributesChecker) cache).getCache();
+        }
+        return cache instanceof InMemoryCacheImpl;
+    }
+
+    /**
+     * Enables the near cache in front of the nuxeo cache.
+     *
+     * @param maxSize the maximum number of entries, {@code 0} to disable the near cache
+     * @param timeout the time after which an entry expires, in seconds
+     * @since 8.3
+     */
+    public synchronized void setNearCache(int maxSize, int timeout) {
+        if (maxSize <= 0) {
+            nearEntryCache = null;
+            nearEntryCacheWithoutReferences = null;
+            return;
+        }
+        nearEntryCache = newNearCache(maxSize, timeout);
+        nearEntryCacheWithoutReferences = newNearCache(maxSize, timeout);
+    }
+
+    protected com.google.common.cache.Cache<String, Serializable> newNearCache(int maxSize, int timeout) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(maxSize);
+        if (timeout > 0) {
+            builder.expireAfterWrite(timeout, TimeUnit.SECONDS);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Stops receiving invalidations from the other nodes.
+     *
+     * @since 8.3
+     */
+    public synchronized void shutdown() {
+        if (invalidationChannel != null) {
+            invalidationChannel.unsubscribe(getInvalidationTopic(), invalidationListener);
+            invalidationChannel = null;
         }
+        invalidationChannelInitialized = false;
+        nextInvalidationChannelLookup = 0;
     }
 
     public void setEntryCacheName(String entryCacheName) {
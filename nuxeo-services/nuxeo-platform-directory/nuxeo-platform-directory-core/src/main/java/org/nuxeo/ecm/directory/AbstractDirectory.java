@@ -65,6 +65,7 @@ public abstract class AbstractDirectory implements Directory {
             }
         }
         cache = new DirectoryCache(getName());
+        cache.setNearCache(descriptor.getNearCacheMaxSize(), descriptor.getNearCacheTimeout());
         sessionCount = registry.counter(MetricRegistry.name("nuxeo", "directories", getName(), "sessions", "active"));
         sessionMaxCount = registry.counter(MetricRegistry.name("nuxeo", "directories", getName(), "sessions", "max"));
     }
@@ -220,6 +221,7 @@ public abstract class AbstractDirectory implements Directory {
     public void shutdown() {
         sessionCount.dec(sessionCount.getCount());
         sessionMaxCount.dec(sessionMaxCount.getCount());
+        cache.shutdown();
     }
 
 }
@@ -0,0 +1,81 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.directory.sql;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.nuxeo.ecm.core.cache.CacheInvalidationChannel;
+import org.nuxeo.runtime.model.DefaultComponent;
+
+/**
+ * Invalidation channel recording the published invalidations, and through which the test plays the other nodes.
+ *
+ * @since 8.3
+ */
+public class DummyCacheInvalidationChannel extends DefaultComponent implements CacheInvalidationChannel {
+
+    protected final Map<String, List<Listener>> listeners = new ConcurrentHashMap<>();
+
+    protected final List<Collection<String>> published = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void subscribe(String topic, Listener listener) {
+        listeners.computeIfAbsent(topic, k -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    @Override
+    public void unsubscribe(String topic, Listener listener) {
+        List<Listener> list = listeners.get(topic);
+        if (list != null) {
+            list.remove(listener);
+        }
+    }
+
+    @Override
+    public void publish(String topic, Collection<String> keys) {
+        published.add(keys == null ? null : new ArrayList<>(keys));
+    }
+
+    public boolean isSubscribed(String topic) {
+        List<Listener> list = listeners.get(topic);
+        return list != null && !list.isEmpty();
+    }
+
+    public List<Collection<String>> getPublished() {
+        return published;
+    }
+
+    /**
+     * Delivers invalidations as if they were sent by another node.
+     */
+    public void receive(String topic, Collection<String> keys) {
+        List<Listener> list = listeners.get(topic);
+        if (list != null) {
+            for (Listener listener : list) {
+                listener.invalidate(keys);
+            }
+        }
+    }
+
+}
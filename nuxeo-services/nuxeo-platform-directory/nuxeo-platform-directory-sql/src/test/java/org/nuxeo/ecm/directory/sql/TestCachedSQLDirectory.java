@@ -24,13 +24,18 @@ package org.nuxeo.ecm.directory.sql;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
 
 import javax.inject.Inject;
 
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.cache.CacheInvalidationChannel;
 import org.nuxeo.ecm.core.redis.RedisFeature;
 import org.nuxeo.ecm.core.work.api.WorkManager;
 import org.nuxeo.ecm.directory.AbstractDirectory;
@@ -57,6 +62,8 @@ public class TestCachedSQLDirectory extends SQLDirectoryTestSuite {
 
     protected final static String REDIS_CACHE_CONFIG = "sql-directory-redis-cache-config.xml";
 
+    protected final static String INVALIDATION_CHANNEL_CONFIG = "test-cache-invalidation-channel.xml";
+
     protected final static String ENTRY_CACHE_NAME = "sql-entry-cache";
 
     protected final static String ENTRY_CACHE_WITHOUT_REFERENCES_NAME = "sql-entry-cache-without-references";
@@ -160,4 +167,118 @@ public class TestCachedSQLDirectory extends SQLDirectoryTestSuite {
         assertEquals(baseNegativeHitsCount + 2, negativeHitsCounter.getCount());
         assertEquals(baseMissesCount + 1, missesCounter.getCount());
     }
+
+    @Test
+    public void testNearCache() throws Exception {
+        DirectoryCache cache = getSQLDirectory().getCache();
+        cache.setNearCache(100, 60);
+        try {
+            doTestNearCache();
+        } finally {
+            cache.setNearCache(0, 0);
+        }
+    }
+
+    protected void doTestNearCache() throws Exception {
+        Session sqlSession = getSQLDirectory().getSession();
+        DirectoryCache cache = getSQLDirectory().getCache();
+        MetricRegistry metrics = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+        Counter hitsCounter = metrics.counter(
+                MetricRegistry.name("nuxeo", "directories", "userDirectory", "cache", "hits"));
+        Counter nearHitsCounter = metrics.counter(
+                MetricRegistry.name("nuxeo", "directories", "userDirectory", "cache", "nearhits"));
+        Counter missesCounter = metrics.counter(
+                MetricRegistry.name("nuxeo", "directories", "userDirectory", "cache", "misses"));
+        long baseHitsCount = hitsCounter.getCount();
+        long baseNearHitsCount = nearHitsCounter.getCount();
+        long baseMissesCount = missesCounter.getCount();
+
+        // First call will update both caches
+        DocumentModel entry = sqlSession.getEntry("user_1");
+        assertNotNull(entry);
+        assertEquals(baseHitsCount, hitsCounter.getCount());
+        assertEquals(baseNearHitsCount, nearHitsCounter.getCount());
+        assertEquals(baseMissesCount + 1, missesCounter.getCount());
+
+        // Second call will use the near cache
+        entry = sqlSession.getEntry("user_1");
+        assertNotNull(entry);
+        assertEquals(baseHitsCount + 1, hitsCounter.getCount());
+        assertEquals(baseNearHitsCount + 1, nearHitsCounter.getCount());
+        assertEquals(baseMissesCount + 1, missesCounter.getCount());
+
+        // returned entries are copies of the cached one
+        entry.setProperty(SCHEMA, "firstName", "modified");
+        entry = sqlSession.getEntry("user_1");
+        assertEquals(baseNearHitsCount + 2, nearHitsCounter.getCount());
+        assertEquals("f", entry.getProperty(SCHEMA, "firstName"));
+
+        // Invalidation drops the entry from both caches
+        cache.invalidate("user_1");
+        entry = sqlSession.getEntry("user_1");
+        assertNotNull(entry);
+        assertEquals(baseNearHitsCount + 2, nearHitsCounter.getCount());
+        assertEquals(baseMissesCount + 2, missesCounter.getCount());
+    }
+
+    @Test
+    public void testInvalidationChannel() throws Exception {
+        Assume.assumeTrue("Another invalidation channel is deployed",
+                Framework.getService(CacheInvalidationChannel.class) == null);
+        DirectoryCache cache = getSQLDirectory().getCache();
+        cache.shutdown();
+        cache.setNearCache(100, 60);
+        try {
+            doTestInvalidationChannel();
+        } finally {
+            cache.setNearCache(0, 0);
+            cache.shutdown();
+            harness.undeployContrib("org.nuxeo.ecm.directory.sql.tests", INVALIDATION_CHANNEL_CONFIG);
+        }
+    }
+
+    protected void doTestInvalidationChannel() throws Exception {
+        Session sqlSession = getSQLDirectory().getSession();
+        DirectoryCache cache = getSQLDirectory().getCache();
+        String topic = "directory:userDirectory";
+        MetricRegistry metrics = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+        Counter nearHitsCounter = metrics.counter(
+                MetricRegistry.name("nuxeo", "directories", "userDirectory", "cache", "nearhits"));
+        Counter missesCounter = metrics.counter(
+                MetricRegistry.name("nuxeo", "directories", "userDirectory", "cache", "misses"));
+
+        // no channel yet when the cache is first used
+        assertNotNull(sqlSession.getEntry("user_1"));
+
+        // the channel registered later is still used, once the lookup delay is elapsed
+        harness.deployTestContrib("org.nuxeo.ecm.directory.sql.tests", INVALIDATION_CHANNEL_CONFIG);
+        DummyCacheInvalidationChannel channel = (DummyCacheInvalidationChannel) Framework.getService(
+                CacheInvalidationChannel.class);
+        assertNotNull(channel);
+        Thread.sleep(1100);
+        long baseNearHitsCount = nearHitsCounter.getCount();
+        assertNotNull(sqlSession.getEntry("user_1"));
+        assertEquals(baseNearHitsCount + 1, nearHitsCounter.getCount());
+        assertTrue(channel.isSubscribed(topic));
+
+        // local invalidations are sent to the other nodes
+        cache.invalidate("user_1");
+        assertEquals(Collections.singletonList(Collections.singletonList("user_1")), channel.getPublished());
+
+        // invalidations from another node drop the entry from the near cache and the local cache
+        assertNotNull(sqlSession.getEntry("user_1"));
+        baseNearHitsCount = nearHitsCounter.getCount();
+        long baseMissesCount = missesCounter.getCount();
+        channel.receive(topic, Collections.singletonList("user_1"));
+        assertNotNull(sqlSession.getEntry("user_1"));
+        assertEquals(baseNearHitsCount, nearHitsCounter.getCount());
+        assertEquals(baseMissesCount + 1, missesCounter.getCount());
+
+        // without near cache, invalidations are still sent as the entry caches of this test are local to the node
+        channel.getPublished().clear();
+        cache.setNearCache(0, 0);
+        cache.invalidate("user_1");
+        assertEquals(1, channel.getPublished().size());
+    }
+
 }
@@ -25,6 +25,7 @@ import java.util.Set;
 
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.SortInfo;
+import org.nuxeo.ecm.platform.query.core.PageProviderResultCache;
 
 /**
  * @author Anahide Tchertchian
@@ -128,4 +129,12 @@ public interface PageProviderService extends Serializable {
      */
     Set<String> getPageProviderDefinitionNames();
 
+    /**
+     * Returns the result cache shared by the instances of the given page provider, or {@code null} if its definition
+     * doesn't enable one.
+     *
+     * @since 8.3
+     */
+    PageProviderResultCache getResultCache(String name);
+
 }
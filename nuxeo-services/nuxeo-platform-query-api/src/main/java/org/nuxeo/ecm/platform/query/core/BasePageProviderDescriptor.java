@@ -113,6 +113,12 @@ public abstract class BasePageProviderDescriptor {
     @XNode("trackUsage")
     protected boolean trackUsage = false;
 
+    /**
+     * @since 8.3
+     */
+    @XNode("resultCache")
+    protected ResultCacheDescriptor resultCache;
+
     /**
      * @since 7.4
      */
@@ -120,6 +126,17 @@ public abstract class BasePageProviderDescriptor {
         return trackUsage;
     }
 
+    /**
+     * Returns the configuration of the cache of the query results, or {@code null} if they're not cached.
+     * <p>
+     * Only the core query page providers use it.
+     *
+     * @since 8.3
+     */
+    public ResultCacheDescriptor getResultCache() {
+        return resultCache;
+    }
+
     public boolean getQuotePatternParameters() {
         return quotePatternParameters;
     }
@@ -282,6 +299,9 @@ public abstract class BasePageProviderDescriptor {
         }
         clone.searchDocumentType = searchDocumentType;
         clone.trackUsage=trackUsage;
+        if (resultCache != null) {
+            clone.resultCache = resultCache.clone();
+        }
         return clone;
     }
 
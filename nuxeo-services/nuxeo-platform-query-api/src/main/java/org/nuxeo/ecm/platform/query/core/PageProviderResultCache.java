@@ -0,0 +1,225 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.platform.query.core;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.PartialList;
+import org.nuxeo.ecm.core.repository.RepositoryService;
+import org.nuxeo.ecm.core.security.SecurityService;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Cache of the pages computed by a page provider, shared by all its instances.
+ * <p>
+ * A page is cached for a query, a page offset and size, and the principals the query checks permissions for. It is
+ * only returned while the change counter of its repository hasn't moved since the query was run (see
+ * {@link RepositoryService#getChangeCounter}), and for at most the configured max staleness, which bounds how late the
+ * changes this node isn't notified of are seen.
+ * <p>
+ * Hits, misses and invalidations are counted in the {@code nuxeo.pageproviders.<name>.cache} metrics.
+ *
+ * @since 8.3
+ */
+public class PageProviderResultCache {
+
+    /**
+     * Key of a cached page.
+     */
+    public static class Key {
+
+        protected final String repositoryName;
+
+        protected final String language;
+
+        protected final String query;
+
+        protected final String principals;
+
+        protected final long limit;
+
+        protected final long offset;
+
+        protected final long maxResults;
+
+        protected final int hashCode;
+
+        public Key(String repositoryName, String language, String query, String principals, long limit, long offset,
+                long maxResults) {
+            this.repositoryName = repositoryName;
+            this.language = language;
+            this.query = query;
+            this.principals = principals;
+            this.limit = limit;
+            this.offset = offset;
+            this.maxResults = maxResults;
+            hashCode = Arrays.hashCode(new Object[] { repositoryName, language, query, principals,
+                    Long.valueOf(limit), Long.valueOf(offset), Long.valueOf(maxResults) });
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return limit == other.limit && offset == other.offset && maxResults == other.maxResults
+                    && query.equals(other.query) && principals.equals(other.principals)
+                    && repositoryName.equals(other.repositoryName) && language.equals(other.language);
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + '(' + repositoryName + ',' + query + ',' + principals + ',' + limit
+                    + ',' + offset + ')';
+        }
+    }
+
+    protected static class Entry {
+
+        protected final long changeCounter;
+
+        protected final PartialList<?> page;
+
+        protected Entry(long changeCounter, PartialList<?> page) {
+            this.changeCounter = changeCounter;
+            this.page = page;
+        }
+    }
+
+    protected final String name;
+
+    protected final Cache<Key, Entry> cache;
+
+    protected final MetricRegistry metrics = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
+    protected final Counter hitsCounter;
+
+    protected final Counter missesCounter;
+
+    protected final Counter invalidationsCounter;
+
+    /**
+     * @param name the page provider name
+     * @param maxSize the maximum number of cached pages
+     * @param maxStaleness the maximum age of a cached page in seconds, {@code 0} for no limit
+     */
+    public PageProviderResultCache(String name, int maxSize, long maxStaleness) {
+        this.name = name;
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(maxSize);
+        if (maxStaleness > 0) {
+            builder.expireAfterWrite(maxStaleness, TimeUnit.SECONDS);
+        }
+        cache = builder.build();
+        hitsCounter = metrics.counter(MetricRegistry.name("nuxeo", "pageproviders", name, "cache", "hits"));
+        missesCounter = metrics.counter(MetricRegistry.name("nuxeo", "pageproviders", name, "cache", "misses"));
+        invalidationsCounter = metrics.counter(MetricRegistry.name("nuxeo", "pageproviders", name, "cache",
+                "invalidations"));
+    }
+
+    /**
+     * Creates the key of a page of results of a query run by the given session.
+     */
+    public Key newKey(CoreSession session, String language, String query, long limit, long offset, long maxResults) {
+        String[] principals = SecurityService.getPrincipalsToCheck(session.getPrincipal());
+        Arrays.sort(principals);
+        return new Key(session.getRepositoryName(), language, query, StringUtils.join(principals, '\n'), limit,
+                offset, maxResults);
+    }
+
+    /**
+     * Gets the change counter of the repository of a key.
+     * <p>
+     * It must be read before running the query whose result will be put in the cache.
+     */
+    public long getChangeCounter(Key key) {
+        return Framework.getService(RepositoryService.class).getChangeCounter(key.repositoryName);
+    }
+
+    /**
+     * Gets a cached page.
+     *
+     * @return the page, or {@code null} if not in the cache or no longer valid
+     */
+    @SuppressWarnings("unchecked")
+    public <T> PartialList<T> get(Key key) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null && entry.changeCounter != getChangeCounter(key)) {
+            cache.invalidate(key);
+            invalidationsCounter.inc();
+            entry = null;
+        }
+        if (entry == null) {
+            missesCounter.inc();
+            return null;
+        }
+        hitsCounter.inc();
+        return (PartialList<T>) entry.page;
+    }
+
+    /**
+     * Puts a page in the cache.
+     *
+     * @param key the key
+     * @param changeCounter the change counter of the repository read before running the query
+     * @param page the page, which must not be modified afterwards
+     */
+    public void put(Key key, long changeCounter, PartialList<?> page) {
+        cache.put(key, new Entry(changeCounter, page));
+    }
+
+    /**
+     * Removes a page from the cache.
+     */
+    public void invalidate(Key key) {
+        cache.invalidate(key);
+        invalidationsCounter.inc();
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getSize() {
+        return cache.size();
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.platform.query.core;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
+import org.nuxeo.ecm.core.event.Event;
+import org.nuxeo.ecm.core.event.EventListener;
+import org.nuxeo.ecm.core.event.impl.DocumentEventContext;
+import org.nuxeo.ecm.core.repository.RepositoryService;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+/**
+ * Synchronous listener recording the repositories changed by the current transaction, for the page provider result
+ * caches.
+ * <p>
+ * While a transaction has changes in a repository, the caches aren't used for it as they don't see these changes. Once
+ * the transaction is committed, the change counter of the repository is incremented, which invalidates the cached
+ * results on this node (see {@link RepositoryService#getChangeCounter}).
+ *
+ * @since 8.3
+ */
+public class PageProviderResultCacheListener implements EventListener, Synchronization {
+
+    protected static final ThreadLocal<Set<String>> changedRepositories = new ThreadLocal<Set<String>>() {
+        @Override
+        protected Set<String> initialValue() {
+            return new HashSet<>();
+        }
+    };
+
+    /**
+     * Checks if the current transaction changed documents of the given repository.
+     */
+    public static boolean hasTransactionChanges(String repositoryName) {
+        return changedRepositories.get().contains(repositoryName);
+    }
+
+    @Override
+    public void handleEvent(Event event) {
+        if (!(event.getContext() instanceof DocumentEventContext)) {
+            return;
+        }
+        String repositoryName = ((DocumentEventContext) event.getContext()).getRepositoryName();
+        if (repositoryName == null) {
+            return;
+        }
+        if (TransactionHelper.isTransactionMarkedRollback()) {
+            // the changes will be rolled back
+            return;
+        }
+        if (!TransactionHelper.isTransactionActive()) {
+            // no transaction, nothing to wait for
+            notifyChanges(repositoryName);
+            return;
+        }
+        Set<String> repositoryNames = changedRepositories.get();
+        if (repositoryNames.isEmpty()) {
+            TransactionHelper.registerSynchronization(this);
+        }
+        repositoryNames.add(repositoryName);
+    }
+
+    @Override
+    public void beforeCompletion() {
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+        Set<String> repositoryNames = changedRepositories.get();
+        try {
+            if (status == Status.STATUS_COMMITTED) {
+                for (String repositoryName : repositoryNames) {
+                    notifyChanges(repositoryName);
+                }
+            }
+        } finally {
+            changedRepositories.remove();
+        }
+    }
+
+    protected void notifyChanges(String repositoryName) {
+        RepositoryService repositoryService = Framework.getService(RepositoryService.class);
+        if (repositoryService != null) {
+            repositoryService.notifyChanges(repositoryName);
+        }
+    }
+
+}
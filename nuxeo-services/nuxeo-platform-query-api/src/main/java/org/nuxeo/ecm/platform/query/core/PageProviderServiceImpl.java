@@ -24,6 +24,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.NuxeoException;
@@ -61,6 +63,9 @@ public class PageProviderServiceImpl extends DefaultComponent implements PagePro
     // @since 6.0
     protected PageProviderClassReplacerRegistry replacersReg = new PageProviderClassReplacerRegistry();
 
+    // @since 8.3
+    protected final ConcurrentMap<String, PageProviderResultCache> resultCaches = new ConcurrentHashMap<>();
+
     @Override
     public PageProviderDefinition getPageProviderDefinition(String name) {
         PageProviderDefinition def = providerReg.getPageProvider(name);
@@ -215,11 +220,40 @@ public class PageProviderServiceImpl extends DefaultComponent implements PagePro
     @Override
     public void registerPageProviderDefinition(PageProviderDefinition desc) {
         providerReg.addContribution(desc);
+        removeResultCache(desc.getName());
     }
 
     @Override
     public void unregisterPageProviderDefinition(PageProviderDefinition desc) {
         providerReg.removeContribution(desc);
+        removeResultCache(desc.getName());
+    }
+
+    @Override
+    public PageProviderResultCache getResultCache(String name) {
+        if (name == null) {
+            return null;
+        }
+        PageProviderDefinition desc = providerReg.getPageProvider(name);
+        if (!(desc instanceof BasePageProviderDescriptor)) {
+            return null;
+        }
+        ResultCacheDescriptor config = ((BasePageProviderDescriptor) desc).getResultCache();
+        if (config == null || !config.isEnabled()) {
+            return null;
+        }
+        return resultCaches.computeIfAbsent(name,
+                k -> new PageProviderResultCache(k, config.getMaxSize(), config.getMaxStaleness()));
+    }
+
+    protected void removeResultCache(String name) {
+        if (name == null) {
+            return;
+        }
+        PageProviderResultCache resultCache = resultCaches.remove(name);
+        if (resultCache != null) {
+            resultCache.clear();
+        }
     }
 
     @Override
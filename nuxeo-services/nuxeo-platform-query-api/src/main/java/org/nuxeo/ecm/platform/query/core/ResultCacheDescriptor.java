@@ -0,0 +1,81 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.platform.query.core;
+
+import java.io.Serializable;
+
+import org.nuxeo.common.xmap.annotation.XNode;
+import org.nuxeo.common.xmap.annotation.XObject;
+
+/**
+ * Descriptor for the result cache of a core query page provider, see {@link PageProviderResultCache}.
+ * <p>
+ * Sample usage:
+ *
+ * <pre>
+ * &lt;coreQueryPageProvider name="MY_RECENT_DOCUMENTS"&gt;
+ *   &lt;resultCache maxSize="1000" maxStaleness="60" /&gt;
+ *   ...
+ * &lt;/coreQueryPageProvider&gt;
+ * </pre>
+ *
+ * @since 8.3
+ */
+@XObject("resultCache")
+public class ResultCacheDescriptor implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @XNode("@enabled")
+    protected boolean enabled = true;
+
+    /**
+     * The maximum number of cached pages.
+     */
+    @XNode("@maxSize")
+    protected int maxSize = 1000;
+
+    /**
+     * The maximum age of a cached page in seconds, whatever the changes notified for the repository.
+     */
+    @XNode("@maxStaleness")
+    protected long maxStaleness = 60;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getMaxStaleness() {
+        return maxStaleness;
+    }
+
+    @Override
+    public ResultCacheDescriptor clone() {
+        ResultCacheDescriptor clone = new ResultCacheDescriptor();
+        clone.enabled = enabled;
+        clone.maxSize = maxSize;
+        clone.maxStaleness = maxStaleness;
+        return clone;
+    }
+
+}
@@ -20,6 +20,7 @@ package org.nuxeo.ecm.platform.query.nxql;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -30,11 +31,16 @@ import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.IterableQueryResult;
 import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.api.PartialList;
 import org.nuxeo.ecm.core.api.SortInfo;
 import org.nuxeo.ecm.core.query.sql.NXQL;
 import org.nuxeo.ecm.platform.query.api.AbstractPageProvider;
 import org.nuxeo.ecm.platform.query.api.PageProviderDefinition;
+import org.nuxeo.ecm.platform.query.api.PageProviderService;
 import org.nuxeo.ecm.platform.query.api.PageSelections;
+import org.nuxeo.ecm.platform.query.core.PageProviderResultCache;
+import org.nuxeo.ecm.platform.query.core.PageProviderResultCacheListener;
+import org.nuxeo.runtime.api.Framework;
 
 /**
  * Page provider performing a queryAndFetch on a core session.
@@ -51,6 +57,9 @@ import org.nuxeo.ecm.platform.query.api.PageSelections;
  * <p>
  * Also since 6.0, the page provider property named {@link #USE_UNRESTRICTED_SESSION_PROPERTY} allows specifying whether
  * the query should be run as unrestricted.
+ * <p>
+ * Since 8.3, the results can be shared by all the instances of the page provider through the result cache enabled on
+ * its definition, see {@link PageProviderResultCache}.
  *
  * @author Anahide Tchertchian
  * @since 5.4
@@ -125,26 +134,55 @@ public class CoreQueryAndFetchPageProvider extends AbstractPageProvider<Map<Stri
 
                 final String language = getQueryLanguage();
                 final boolean useUnrestricted = useUnrestrictedSession();
-                if (useUnrestricted) {
-                    CoreQueryAndFetchUnrestrictedSessionRunner r = new CoreQueryAndFetchUnrestrictedSessionRunner(
-                            coreSession, query, language);
-                    r.runUnrestricted();
-                    result = r.getResult();
-                } else {
-                    result = coreSession.queryAndFetch(query, language);
-                }
-                long resultsCount = result.size();
-                setResultsCount(resultsCount);
-                if (offset < resultsCount) {
-                    result.skipTo(offset);
+
+                PageProviderResultCache resultCache = getResultCache(coreSession);
+                PageProviderResultCache.Key cacheKey = null;
+                PartialList<Map<String, Serializable>> cachedItems = null;
+                if (resultCache != null) {
+                    long limit = maxPageSize == 0 ? 0 : minMaxPageSize;
+                    cacheKey = resultCache.newKey(coreSession, language, query, limit, offset, 0);
+                    cachedItems = resultCache.get(cacheKey);
                 }
+                long resultsCount;
+                if (cachedItems != null) {
+                    resultsCount = cachedItems.totalSize;
+                    setResultsCount(resultsCount);
+                    for (Map<String, Serializable> item : cachedItems.list) {
+                        currentItems.add(new HashMap<String, Serializable>(item));
+                    }
+                } else {
+                    long changeCounter = resultCache == null ? 0 : resultCache.getChangeCounter(cacheKey);
+                    if (useUnrestricted) {
+                        CoreQueryAndFetchUnrestrictedSessionRunner r = new CoreQueryAndFetchUnrestrictedSessionRunner(
+                                coreSession, query, language);
+                        r.runUnrestricted();
+                        result = r.getResult();
+                    } else {
+                        result = coreSession.queryAndFetch(query, language);
+                    }
+                    resultsCount = result.size();
+                    setResultsCount(resultsCount);
+                    if (offset < resultsCount) {
+                        result.skipTo(offset);
+                    }
+
+                    Iterator<Map<String, Serializable>> it = result.iterator();
+                    int pos = 0;
+                    while (it.hasNext() && (maxPageSize == 0 || pos < minMaxPageSize)) {
+                        pos += 1;
+                        Map<String, Serializable> item = it.next();
+                        currentItems.add(item);
+                    }
 
-                Iterator<Map<String, Serializable>> it = result.iterator();
-                int pos = 0;
-                while (it.hasNext() && (maxPageSize == 0 || pos < minMaxPageSize)) {
-                    pos += 1;
-                    Map<String, Serializable> item = it.next();
-                    currentItems.add(item);
+                    if (resultCache != null) {
+                        List<Map<String, Serializable>> items = new ArrayList<Map<String, Serializable>>(
+                                currentItems.size());
+                        for (Map<String, Serializable> item : currentItems) {
+                            items.add(new HashMap<String, Serializable>(item));
+                        }
+                        resultCache.put(cacheKey, changeCounter, new PartialList<Map<String, Serializable>>(items,
+                                resultsCount));
+                    }
                 }
 
                 if (log.isDebugEnabled()) {
@@ -240,6 +278,24 @@ public class CoreQueryAndFetchPageProvider extends AbstractPageProvider<Map<Stri
         }
     }
 
+    /**
+     * Returns the result cache to use for the current query, or {@code null} if its results must not be cached.
+     *
+     * @since 8.3
+     */
+    protected PageProviderResultCache getResultCache(CoreSession coreSession) {
+        if (useUnrestrictedSession()) {
+            // the results depend on more than the query and the principals
+            return null;
+        }
+        if (PageProviderResultCacheListener.hasTransactionChanges(coreSession.getRepositoryName())) {
+            // cached results don't see the changes of the current transaction
+            return null;
+        }
+        PageProviderService pps = Framework.getService(PageProviderService.class);
+        return pps == null ? null : pps.getResultCache(getName());
+    }
+
     protected boolean useUnrestrictedSession() {
         return getBooleanProperty(USE_UNRESTRICTED_SESSION_PROPERTY, false);
     }
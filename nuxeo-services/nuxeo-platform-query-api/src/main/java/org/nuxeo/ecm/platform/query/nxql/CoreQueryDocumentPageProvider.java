@@ -29,12 +29,21 @@ import org.apache.commons.logging.LogFactory;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.DocumentModelList;
+import org.nuxeo.ecm.core.api.DocumentNotFoundException;
+import org.nuxeo.ecm.core.api.DocumentRef;
 import org.nuxeo.ecm.core.api.Filter;
+import org.nuxeo.ecm.core.api.IdRef;
 import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.api.PartialList;
 import org.nuxeo.ecm.core.api.SortInfo;
+import org.nuxeo.ecm.core.api.impl.DocumentModelListImpl;
+import org.nuxeo.ecm.core.query.sql.NXQL;
 import org.nuxeo.ecm.platform.query.api.AbstractPageProvider;
 import org.nuxeo.ecm.platform.query.api.PageProviderDefinition;
+import org.nuxeo.ecm.platform.query.api.PageProviderService;
 import org.nuxeo.ecm.platform.query.api.PageSelections;
+import org.nuxeo.ecm.platform.query.core.PageProviderResultCache;
+import org.nuxeo.ecm.platform.query.core.PageProviderResultCacheListener;
 import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.services.config.ConfigurationService;
 
@@ -50,6 +59,9 @@ import org.nuxeo.runtime.services.config.ConfigurationService;
  * Since 6.0, the page provider property named {@link #USE_UNRESTRICTED_SESSION_PROPERTY} allows specifying whether the
  * query should be run as unrestricted. When such a property is set to "true", the additional property
  * {@link #DETACH_DOCUMENTS_PROPERTY} is used to detach documents (defaults to true when session is unrestricted).
+ * <p>
+ * Since 8.3, the results can be shared by all the instances of the page provider through the result cache enabled on
+ * its definition, see {@link PageProviderResultCache}.
  *
  * @author Anahide Tchertchian
  * @since 5.4
@@ -135,25 +147,45 @@ public class CoreQueryDocumentPageProvider extends AbstractPageProvider<Document
                 final boolean useUnrestricted = useUnrestrictedSession();
 
                 final boolean detachDocs = detachDocuments();
-                if (maxResults > 0) {
-                    if (useUnrestricted) {
-                        CoreQueryUnrestrictedSessionRunner r = new CoreQueryUnrestrictedSessionRunner(coreSession,
-                                query, filter, minMaxPageSize, offset, false, maxResults, detachDocs);
-                        r.runUnrestricted();
-                        docs = r.getDocs();
-                    } else {
-                        docs = coreSession.query(query, getFilter(), minMaxPageSize, offset, maxResults);
-                    }
+
+                PageProviderResultCache resultCache = getResultCache(coreSession);
+                PageProviderResultCache.Key cacheKey = null;
+                DocumentModelList cachedDocs = null;
+                if (resultCache != null) {
+                    cacheKey = resultCache.newKey(coreSession, NXQL.NXQL, query, minMaxPageSize, offset, maxResults);
+                    cachedDocs = getCachedDocuments(coreSession, resultCache, cacheKey);
+                }
+                if (cachedDocs != null) {
+                    docs = cachedDocs;
                 } else {
-                    // use a totalCount=true instead of countUpTo=-1 to
-                    // enable global limitation described in NXP-9381
-                    if (useUnrestricted) {
-                        CoreQueryUnrestrictedSessionRunner r = new CoreQueryUnrestrictedSessionRunner(coreSession,
-                                query, filter, minMaxPageSize, offset, true, maxResults, detachDocs);
-                        r.runUnrestricted();
-                        docs = r.getDocs();
+                    long changeCounter = resultCache == null ? 0 : resultCache.getChangeCounter(cacheKey);
+                    if (maxResults > 0) {
+                        if (useUnrestricted) {
+                            CoreQueryUnrestrictedSessionRunner r = new CoreQueryUnrestrictedSessionRunner(coreSession,
+                                    query, filter, minMaxPageSize, offset, false, maxResults, detachDocs);
+                            r.runUnrestricted();
+                            docs = r.getDocs();
+                        } else {
+                            docs = coreSession.query(query, getFilter(), minMaxPageSize, offset, maxResults);
+                        }
                     } else {
-                        docs = coreSession.query(query, getFilter(), minMaxPageSize, offset, true);
+                        // use a totalCount=true instead of countUpTo=-1 to
+                        // enable global limitation described in NXP-9381
+                        if (useUnrestricted) {
+                            CoreQueryUnrestrictedSessionRunner r = new CoreQueryUnrestrictedSessionRunner(coreSession,
+                                    query, filter, minMaxPageSize, offset, true, maxResults, detachDocs);
+                            r.runUnrestricted();
+                            docs = r.getDocs();
+                        } else {
+                            docs = coreSession.query(query, getFilter(), minMaxPageSize, offset, true);
+                        }
+                    }
+                    if (resultCache != null) {
+                        List<String> ids = new ArrayList<String>(docs.size());
+                        for (DocumentModel doc : docs) {
+                            ids.add(doc.getId());
+                        }
+                        resultCache.put(cacheKey, changeCounter, new PartialList<String>(ids, docs.totalSize()));
                     }
                 }
 
@@ -257,6 +289,54 @@ public class CoreQueryDocumentPageProvider extends AbstractPageProvider<Document
         }
     }
 
+    /**
+     * Returns the result cache to use for the current query, or {@code null} if its results must not be cached.
+     *
+     * @since 8.3
+     */
+    protected PageProviderResultCache getResultCache(CoreSession coreSession) {
+        if (useUnrestrictedSession() || getFilter() != null) {
+            // the results depend on more than the query and the principals
+            return null;
+        }
+        if (PageProviderResultCacheListener.hasTransactionChanges(coreSession.getRepositoryName())) {
+            // cached results don't see the changes of the current transaction
+            return null;
+        }
+        PageProviderService pps = Framework.getService(PageProviderService.class);
+        return pps == null ? null : pps.getResultCache(getName());
+    }
+
+    /**
+     * Gets the documents of a cached page, or {@code null} if the page is not cached or some of its documents can no
+     * longer be read.
+     *
+     * @since 8.3
+     */
+    protected DocumentModelList getCachedDocuments(CoreSession coreSession, PageProviderResultCache resultCache,
+            PageProviderResultCache.Key cacheKey) {
+        PartialList<String> ids = resultCache.get(cacheKey);
+        if (ids == null) {
+            return null;
+        }
+        DocumentRef[] refs = new DocumentRef[ids.list.size()];
+        for (int i = 0; i < refs.length; i++) {
+            refs[i] = new IdRef(ids.list.get(i));
+        }
+        DocumentModelList docs;
+        try {
+            docs = coreSession.getDocuments(refs);
+        } catch (DocumentNotFoundException e) {
+            docs = null;
+        }
+        if (docs == null || docs.size() != refs.length) {
+            // the page doesn't reflect the repository anymore
+            resultCache.invalidate(cacheKey);
+            return null;
+        }
+        return new DocumentModelListImpl(docs, ids.totalSize);
+    }
+
     protected boolean useUnrestrictedSession() {
         return getBooleanProperty(USE_UNRESTRICTED_SESSION_PROPERTY, false);
     }
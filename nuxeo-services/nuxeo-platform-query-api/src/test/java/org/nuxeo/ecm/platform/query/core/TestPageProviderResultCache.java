@@ -0,0 +1,186 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.platform.query.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.api.CoreInstance;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.PathRef;
+import org.nuxeo.ecm.core.api.security.ACE;
+import org.nuxeo.ecm.core.api.security.ACL;
+import org.nuxeo.ecm.core.api.security.ACP;
+import org.nuxeo.ecm.core.api.security.impl.ACLImpl;
+import org.nuxeo.ecm.core.api.security.impl.ACPImpl;
+import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.ecm.core.test.annotations.Granularity;
+import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
+import org.nuxeo.ecm.platform.query.api.PageProvider;
+import org.nuxeo.ecm.platform.query.api.PageProviderService;
+import org.nuxeo.ecm.platform.query.nxql.CoreQueryDocumentPageProvider;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
+import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.nuxeo.runtime.test.runner.LocalDeploy;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+
+/**
+ * @since 8.3
+ */
+@RunWith(FeaturesRunner.class)
+@Features(CoreFeature.class)
+@RepositoryConfig(cleanup = Granularity.METHOD)
+@Deploy({ "org.nuxeo.ecm.platform.query.api" })
+@LocalDeploy("org.nuxeo.ecm.platform.query.api.test:test-pageprovider-cache-contrib.xml")
+public class TestPageProviderResultCache {
+
+    private static final String CACHED_CHILDREN = "CACHED_CHILDREN";
+
+    private static final String CACHED_CHILDREN_FETCH = "CACHED_CHILDREN_FETCH";
+
+    protected final MetricRegistry metrics = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
+    @Inject
+    protected PageProviderService pps;
+
+    @Inject
+    protected CoreSession session;
+
+    protected void nextTransaction() {
+        TransactionHelper.commitOrRollbackTransaction();
+        TransactionHelper.startTransaction();
+    }
+
+    protected void createDocument(String name) {
+        DocumentModel doc = session.createDocumentModel("/", name, "File");
+        doc.setPropertyValue("dc:title", name);
+        session.createDocument(doc);
+        session.save();
+    }
+
+    protected List<?> getCurrentPage(String name) {
+        return getCurrentPage(name, session, false);
+    }
+
+    protected List<?> getCurrentPage(String name, CoreSession coreSession, boolean unrestricted) {
+        Map<String, Serializable> props = new HashMap<>();
+        props.put(CoreQueryDocumentPageProvider.CORE_SESSION_PROPERTY, (Serializable) coreSession);
+        if (unrestricted) {
+            props.put(CoreQueryDocumentPageProvider.USE_UNRESTRICTED_SESSION_PROPERTY, Boolean.TRUE);
+        }
+        PageProvider<?> pp = pps.getPageProvider(name, null, null, null, props, session.getRootDocument().getId());
+        return pp.getCurrentPage();
+    }
+
+    protected long getHits(String name) {
+        return metrics.counter(MetricRegistry.name("nuxeo", "pageproviders", name, "cache", "hits")).getCount();
+    }
+
+    @Test
+    public void testRegistration() {
+        assertNotNull(pps.getResultCache(CACHED_CHILDREN));
+        assertNotNull(pps.getResultCache(CACHED_CHILDREN_FETCH));
+        assertNull(pps.getResultCache("foo"));
+    }
+
+    @Test
+    public void testDocuments() {
+        doTest(CACHED_CHILDREN);
+    }
+
+    @Test
+    public void testQueryAndFetch() {
+        doTest(CACHED_CHILDREN_FETCH);
+    }
+
+    @Test
+    public void testDocumentsUnrestricted() {
+        doTestUnrestricted(CACHED_CHILDREN);
+    }
+
+    @Test
+    public void testQueryAndFetchUnrestricted() {
+        doTestUnrestricted(CACHED_CHILDREN_FETCH);
+    }
+
+    protected void doTestUnrestricted(String name) {
+        createDocument("doc1");
+        createDocument("doc2");
+        // bob can only read doc1
+        DocumentModel doc1 = session.getDocument(new PathRef("/doc1"));
+        ACL acl = new ACLImpl();
+        acl.add(new ACE("bob", "Read", true));
+        ACP acp = new ACPImpl();
+        acp.addACL(acl);
+        doc1.setACP(acp, true);
+        session.save();
+        nextTransaction();
+
+        try (CoreSession bobSession = CoreInstance.openCoreSession(session.getRepositoryName(), "bob")) {
+            // unrestricted results are never shared with restricted instances
+            assertEquals(2, getCurrentPage(name, bobSession, true).size());
+            assertEquals(1, getCurrentPage(name, bobSession, false).size());
+            assertEquals(1, getCurrentPage(name, bobSession, false).size());
+            assertEquals(2, getCurrentPage(name, bobSession, true).size());
+        }
+    }
+
+    protected void doTest(String name) {
+        createDocument("doc1");
+        createDocument("doc2");
+        nextTransaction();
+
+        long hits = getHits(name);
+        assertEquals(2, getCurrentPage(name).size());
+        assertEquals(hits, getHits(name));
+        // same query for another instance of the page provider
+        assertEquals(2, getCurrentPage(name).size());
+        assertEquals(hits + 1, getHits(name));
+
+        // the changes of the current transaction are seen, the cache is not used
+        createDocument("doc3");
+        assertEquals(3, getCurrentPage(name).size());
+        assertEquals(hits + 1, getHits(name));
+
+        // after commit, the cached page is invalidated
+        nextTransaction();
+        assertEquals(3, getCurrentPage(name).size());
+        assertEquals(hits + 1, getHits(name));
+        assertEquals(3, getCurrentPage(name).size());
+        assertEquals(hits + 2, getHits(name));
+    }
+
+}
@@ -106,19 +106,29 @@ public class JPAUIDSequencerImpl extends AbstractUIDSequencer {
 
         protected final String key;
 
+        protected final int size;
+
         protected int result;
 
         protected boolean completed = false;
 
         public SeqRunner(final String key) {
+            this(key, 1);
+        }
+
+        /**
+         * @since 8.3
+         */
+        public SeqRunner(final String key, int size) {
             this.key = key;
+            this.size = size;
         }
 
         @Override
         public void run() {
             TransactionHelper.startTransaction();
             try {
-                result = doGetNext(key);
+                result = doGetNext(key, size);
                 completed = true;
             } finally {
                 TransactionHelper.commitOrRollbackTransaction();
@@ -138,8 +148,28 @@ public class JPAUIDSequencerImpl extends AbstractUIDSequencer {
 
     @Override
     public int getNext(final String key) {
+        return getNext(key, 1);
+    }
+
+    @Override
+    public long getNextLong(String key) {
+        return getNext(key);
+    }
+
+    @Override
+    public long[] getNextBlock(String key, int size) {
+        return range(getNext(key, size), size);
+    }
 
-        SeqRunner runner = new SeqRunner(key);
+    /**
+     * Reserves the given number of values in a single transaction.
+     *
+     * @return the last reserved value
+     * @since 8.3
+     */
+    protected int getNext(final String key, int size) {
+
+        SeqRunner runner = new SeqRunner(key, size);
 
         Future<?> future = tpe.submit(runner);
 
@@ -154,17 +184,31 @@ public class JPAUIDSequencerImpl extends AbstractUIDSequencer {
 
     }
 
-    @SuppressWarnings("boxing")
     protected int doGetNext(final String key) {
+        return doGetNext(key, 1);
+    }
+
+    /**
+     * @since 8.3
+     */
+    @SuppressWarnings("boxing")
+    protected int doGetNext(final String key, int size) {
         return getOrCreatePersistenceProvider().run(true, new RunCallback<Integer>() {
             @Override
             public Integer runWith(EntityManager em) {
-                return getNext(em, key);
+                return getNext(em, key, size);
             }
         });
     }
 
     protected int getNext(EntityManager em, String key) {
+        return getNext(em, key, 1);
+    }
+
+    /**
+     * @since 8.3
+     */
+    protected int getNext(EntityManager em, String key, int size) {
         UIDSequenceBean seq;
         try {
             seq = (UIDSequenceBean) em.createNamedQuery("UIDSequence.findByKey").setParameter("key", key).getSingleResult();
@@ -173,7 +217,7 @@ public class JPAUIDSequencerImpl extends AbstractUIDSequencer {
             seq = new UIDSequenceBean(key);
             em.persist(seq);
         }
-        return seq.nextIndex();
+        return seq.nextIndex(size);
     }
 
 }
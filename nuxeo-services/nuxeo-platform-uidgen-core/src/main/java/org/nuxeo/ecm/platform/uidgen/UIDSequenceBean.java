@@ -97,7 +97,17 @@ public class UIDSequenceBean {
     }
 
     public int nextIndex() {
-        index += 1;
+        return nextIndex(1);
+    }
+
+    /**
+     * Reserves the given number of indexes.
+     *
+     * @return the last reserved index
+     * @since 8.3
+     */
+    public int nextIndex(int count) {
+        index += count;
         log.debug("updated to " + this);
         return index;
     }
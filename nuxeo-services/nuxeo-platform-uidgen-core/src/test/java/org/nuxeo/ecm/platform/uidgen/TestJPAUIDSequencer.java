@@ -23,12 +23,17 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.concurrent.TimeUnit;
+
 import javax.inject.Inject;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.ecm.core.uidgen.BlockUIDSequencer;
 import org.nuxeo.ecm.core.uidgen.UIDGeneratorService;
 import org.nuxeo.ecm.core.uidgen.UIDSequencer;
 import org.nuxeo.runtime.api.Framework;
@@ -49,6 +54,8 @@ import org.nuxeo.runtime.test.runner.LocalDeploy;
 @LocalDeploy("org.nuxeo.ecm.platform.uidgen.core.tests:OSGI-INF/uidgenerator-test-contrib.xml")
 public class TestJPAUIDSequencer {
 
+    private static final Log log = LogFactory.getLog(TestJPAUIDSequencer.class);
+
     @Inject
     protected UIDGeneratorService service;
 
@@ -69,4 +76,38 @@ public class TestJPAUIDSequencer {
         assertTrue(seq.getNext("mySequence") > 10);
     }
 
+    @Test
+    public void testBlockSequencer() {
+        UIDSequencer seq = service.getSequencer("hibernateBlockSequencer");
+        assertTrue(seq instanceof BlockUIDSequencer);
+
+        assertEquals(1, seq.getNext("myBlockSequence"));
+        assertEquals(2, seq.getNext("myBlockSequence"));
+        // the whole block is reserved in the database
+        assertEquals(101, service.getSequencer("hibernateSequencer").getNext("myBlockSequence"));
+        assertEquals(3L, seq.getNextLong("myBlockSequence"));
+    }
+
+    /**
+     * Logs the time to allocate values one by one and by blocks.
+     */
+    @Test
+    public void testThroughput() throws Exception {
+        int n = 1000;
+        UIDSequencer single = service.getSequencer("hibernateSequencer");
+        UIDSequencer block = service.getSequencer("hibernateBlockSequencer");
+        long t0 = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            single.getNextLong("perfSingle");
+        }
+        long t1 = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            block.getNextLong("perfBlock");
+        }
+        long t2 = System.nanoTime();
+        assertEquals(n, block.getNextLong("perfBlock") - 1);
+        log.debug(String.format("JPA: %d values one by one %d ms, by blocks of 100 %d ms", n,
+                TimeUnit.NANOSECONDS.toMillis(t1 - t0), TimeUnit.NANOSECONDS.toMillis(t2 - t1)));
+    }
+
 }